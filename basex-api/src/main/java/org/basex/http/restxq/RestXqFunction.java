@@ -73,6 +73,8 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
   private final ArrayList<RestXqParam> cookieParams = new ArrayList<>();
   /** Consumed media types. */
   private final ArrayList<MediaType> consumes = new ArrayList<>();
+  /** Annotations with input options. */
+  private final ArrayList<Ann> inputs = new ArrayList<>();
 
   /** Path. */
   RestXqPath path;
@@ -121,7 +123,8 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
     // parse all annotations
     final boolean[] declared = new boolean[function.args.length];
     boolean found = false;
-    final MainOptions options = ctx.options;
+    // input options are assigned to each request; they are only checked here
+    final MainOptions options = new MainOptions(ctx.options);
     for(final Ann ann : function.anns) {
       final Annotation sig = ann.sig;
       if(sig == null) continue;
@@ -161,18 +164,10 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
       } else if(eq(sig.uri, QueryText.REST_URI)) {
         final Item body = args.length == 0 ? null : args[0];
         addMethod(string(sig.local()), body, declared, ann.info);
-      } else if(sig == _INPUT_CSV) {
-        final CsvParserOptions opts = new CsvParserOptions(options.get(MainOptions.CSVPARSER));
-        options.set(MainOptions.CSVPARSER, parse(opts, ann));
-      } else if(sig == _INPUT_JSON) {
-        final JsonParserOptions opts = new JsonParserOptions(options.get(MainOptions.JSONPARSER));
-        options.set(MainOptions.JSONPARSER, parse(opts, ann));
-      } else if(sig == _INPUT_HTML) {
-        final HtmlOptions opts = new HtmlOptions(options.get(MainOptions.HTMLPARSER));
-        options.set(MainOptions.HTMLPARSER, parse(opts, ann));
-      } else if(sig == _INPUT_TEXT) {
-        final TextOptions opts = new TextOptions(options.get(MainOptions.TEXTPARSER));
-        options.set(MainOptions.TEXTPARSER, parse(opts, ann));
+      } else if(sig == _INPUT_CSV || sig == _INPUT_JSON || sig == _INPUT_HTML ||
+          sig == _INPUT_TEXT) {
+        input(ann, options);
+        inputs.add(ann);
       } else if(eq(sig.uri, QueryText.OUTPUT_URI)) {
         // serialization parameters
         try {
@@ -196,6 +191,38 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
     return found;
   }
 
+  /**
+   * Assigns the input options of this function.
+   * @param options main options
+   * @throws Exception any exception
+   */
+  void input(final MainOptions options) throws Exception {
+    for(final Ann ann : inputs) input(ann, options);
+  }
+
+  /**
+   * Assigns the values of an input annotation.
+   * @param ann annotation
+   * @param options main options
+   * @throws Exception any exception
+   */
+  private static void input(final Ann ann, final MainOptions options) throws Exception {
+    final Annotation sig = ann.sig;
+    if(sig == _INPUT_CSV) {
+      final CsvParserOptions opts = new CsvParserOptions(options.get(MainOptions.CSVPARSER));
+      options.set(MainOptions.CSVPARSER, parse(opts, ann));
+    } else if(sig == _INPUT_JSON) {
+      final JsonParserOptions opts = new JsonParserOptions(options.get(MainOptions.JSONPARSER));
+      options.set(MainOptions.JSONPARSER, parse(opts, ann));
+    } else if(sig == _INPUT_HTML) {
+      final HtmlOptions opts = new HtmlOptions(options.get(MainOptions.HTMLPARSER));
+      options.set(MainOptions.HTMLPARSER, parse(opts, ann));
+    } else {
+      final TextOptions opts = new TextOptions(options.get(MainOptions.TEXTPARSER));
+      options.set(MainOptions.TEXTPARSER, parse(opts, ann));
+    }
+  }
+
   /**
    * Assigns annotation values as options.
    * @param <O> option type
@@ -246,21 +273,22 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
   /**
    * Binds the annotated variables.
    * @param http http context
+   * @param sf function to be evaluated (parsed in the specified query context)
    * @param arg argument array
    * @param err optional query error
    * @param qc query context
    * @throws QueryException query exception
    * @throws IOException I/O exception
    */
-  void bind(final HTTPContext http, final Expr[] arg, final QueryException err,
-      final QueryContext qc) throws QueryException, IOException {
+  void bind(final HTTPContext http, final StaticFunc sf, final Expr[] arg,
+      final QueryException err, final QueryContext qc) throws QueryException, IOException {
 
     // bind variables from segments
     if(path != null) {
       for(final Entry<QNm, String> entry : path.values(http).entrySet()) {
-        final QNm qnm = new QNm(entry.getKey().string(), function.sc);
-        if(function.sc.elemNS != null && eq(qnm.uri(), function.sc.elemNS)) qnm.uri(EMPTY);
-        bind(qnm, arg, new Atm(entry.getValue()), qc);
+        final QNm qnm = new QNm(entry.getKey().string(), sf.sc);
+        if(sf.sc.elemNS != null && eq(qnm.uri(), sf.sc.elemNS)) qnm.uri(EMPTY);
+        bind(qnm, sf, arg, new Atm(entry.getValue()), qc);
       }
     }
 
@@ -268,15 +296,20 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
     final MainOptions mo = http.context(false).options;
     if(requestBody != null) {
       try {
-        bind(requestBody, arg, HttpPayload.value(http.params.body(), mo, http.contentType()), qc);
+        final Value body = HttpPayload.value(http.params.body(), mo, http.contentType());
+        bind(requestBody, sf, arg, body, qc);
       } catch(final IOException ex) {
         throw error(INPUT_CONV, ex);
       }
     }
 
     // bind query and form parameters
-    for(final RestXqParam rxp : queryParams) bind(rxp, arg, http.params.query().get(rxp.name), qc);
-    for(final RestXqParam rxp : formParams) bind(rxp, arg, http.params.form(mo).get(rxp.name), qc);
+    for(final RestXqParam rxp : queryParams) {
+      bind(rxp, sf, arg, http.params.query().get(rxp.name), qc);
+    }
+    for(final RestXqParam rxp : formParams) {
+      bind(rxp, sf, arg, http.params.form(mo).get(rxp.name), qc);
+    }
 
     // bind header parameters
     for(final RestXqParam rxp : headerParams) {
@@ -285,7 +318,7 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
       while(en.hasMoreElements()) {
         for(final String s : en.nextElement().toString().split(", *")) tl.add(s);
       }
-      bind(rxp, arg, StrSeq.get(tl), qc);
+      bind(rxp, sf, arg, StrSeq.get(tl), qc);
     }
 
     // bind cookie parameters
@@ -297,7 +330,7 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
           if(rxp.name.equals(c.getName())) val = Str.get(c.getValue());
         }
       }
-      bind(rxp, arg, val, qc);
+      bind(rxp, sf, arg, val, qc);
     }
 
     // bind errors
@@ -308,7 +341,7 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
       final int nl = names.length;
       for(int n = 0; n < nl; n++) errs.put(string(names[n].local()), values[n]);
     }
-    for(final RestXqParam rxp : errorParams) bind(rxp, arg, errs.get(rxp.name), qc);
+    for(final RestXqParam rxp : errorParams) bind(rxp, sf, arg, errs.get(rxp.name), qc);
   }
 
   /**
@@ -436,32 +469,34 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
   /**
    * Binds the specified parameter to a variable.
    * @param rxp parameter
+   * @param sf function to be evaluated
    * @param args argument array
    * @param value values to be bound; the parameter's default value is assigned
    *        if the argument is {@code null} or empty
    * @param qc query context
    * @throws QueryException query exception
    */
-  private void bind(final RestXqParam rxp, final Expr[] args, final Value value,
-      final QueryContext qc) throws QueryException {
-    bind(rxp.var, args, value == null || value.isEmpty() ? rxp.value : value, qc);
+  private static void bind(final RestXqParam rxp, final StaticFunc sf, final Expr[] args,
+      final Value value, final QueryContext qc) throws QueryException {
+    bind(rxp.var, sf, args, value == null || value.isEmpty() ? rxp.value : value, qc);
   }
 
   /**
    * Binds the specified value to a variable.
    * @param name variable name
+   * @param sf function to be evaluated
    * @param args argument array
    * @param value value to be bound
    * @param qc query context
    * @throws QueryException query exception
    */
-  private void bind(final QNm name, final Expr[] args, final Value value, final QueryContext qc)
-      throws QueryException {
+  private static void bind(final QNm name, final StaticFunc sf, final Expr[] args,
+      final Value value, final QueryContext qc) throws QueryException {
 
     // skip nulled values
     if(value == null) return;
 
-    final Var[] fargs = function.args;
+    final Var[] fargs = sf.args;
     final int fl = fargs.length;
     for(int f = 0; f < fl; f++) {
       final Var var = fargs[f];
@@ -469,7 +504,7 @@ final class RestXqFunction implements Comparable<RestXqFunction> {
         // casts and binds the value
         final SeqType decl = var.declaredType();
         final Value val = value.seqType().instanceOf(decl) ? value :
-          decl.cast(value, qc, function.sc, null);
+          decl.cast(value, qc, sf.sc, null);
         args[f] = var.checkType(val, qc, false);
         break;
       }
@@ -25,6 +25,8 @@ final class RestXqModule {
   private final IOFile file;
   /** Parsing timestamp. */
   private long time;
+  /** Module source, read when the module was parsed. */
+  private volatile String source;
 
   /**
    * Constructor.
@@ -32,7 +34,6 @@ final class RestXqModule {
    */
   RestXqModule(final IOFile file) {
     this.file = file;
-    time = file.timeStamp();
   }
 
   /**
@@ -43,6 +44,13 @@ final class RestXqModule {
    */
   boolean parse(final HTTPContext http) throws Exception {
     functions.clear();
+    time = file.timeStamp();
+    try {
+      source = string(file.read());
+    } catch(final IOException ex) {
+      // may be triggered when reading the file
+      throw IOERR_X.get(null, ex);
+    }
 
     // loop through all functions
     final Context ctx = http.context(false);
@@ -68,13 +76,6 @@ final class RestXqModule {
     return time == file.timeStamp();
   }
 
-  /**
-   * Updates the timestamp.
-   */
-  void touch() {
-    time = file.timeStamp();
-  }
-
   /**
    * Returns all functions.
    * @return functions
@@ -84,7 +85,8 @@ final class RestXqModule {
   }
 
   /**
-   * Processes the HTTP request.
+   * Processes the HTTP request. The cached module source is parsed in a new query context,
+   * and the annotations of the cached function are applied to the function of this context.
    * @param http HTTP context
    * @param func function to be processed
    * @param error optional error reference
@@ -97,32 +99,25 @@ final class RestXqModule {
     final Context ctx = http.context(false);
     try(final QueryContext qc = qc(ctx)) {
       final StaticFunc sf = find(qc, func.function);
-      // will only happen if file has been swapped between caching and parsing
+      // will only happen if the function is no longer found in the cached source
       if(sf == null) throw HTTPCode.NO_XQUERY.get();
-
-      final RestXqFunction rxf = new RestXqFunction(sf, qc, this);
-      rxf.parse(ctx);
-      RestXqResponse.create(rxf, qc, http, error);
+      func.input(ctx.options);
+      RestXqResponse.create(func, sf, qc, http, error);
     }
   }
 
   // PRIVATE METHODS ====================================================================
 
   /**
-   * Retrieves a query context for the given module.
+   * Parses the module source in a new query context.
    * @param ctx database context
    * @return query context
    * @throws Exception exception
    */
   private QueryContext qc(final Context ctx) throws Exception {
     final QueryContext qc = new QueryContext(ctx);
-    try {
-      qc.parse(string(file.read()), file.path(), null);
-      return qc;
-    } catch(final IOException ex) {
-      // may be triggered when reading the file
-      throw IOERR_X.get(null, ex);
-    }
+    qc.parse(source, file.path(), null);
+    return qc;
   }
 
   /**
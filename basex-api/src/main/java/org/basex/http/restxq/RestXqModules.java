@@ -24,6 +24,8 @@ public final class RestXqModules {
 
   /** Module cache. */
   private HashMap<String, RestXqModule> modules = new HashMap<>();
+  /** Routing table for the cached modules. */
+  private RestXqRoutes routes = new RestXqRoutes(modules.values());
   /** Private constructor. */
   private RestXqModules() { }
 
@@ -38,8 +40,9 @@ public final class RestXqModules {
   /**
    * Initializes the module cache.
    */
-  void init() {
+  synchronized void init() {
     modules = new HashMap<>();
+    routes = new RestXqRoutes(modules.values());
   }
 
   /**
@@ -60,13 +63,8 @@ public final class RestXqModules {
    * @throws Exception exception (including unexpected ones)
    */
   RestXqFunction find(final HTTPContext http, final QNm error) throws Exception {
-    // collect all functions
-    final ArrayList<RestXqFunction> list = new ArrayList<>();
-    for(final RestXqModule mod : cache(http).values()) {
-      for(final RestXqFunction rxf : mod.functions()) {
-        if(rxf.matches(http, error)) list.add(rxf);
-      }
-    }
+    // collect all matching functions
+    final ArrayList<RestXqFunction> list = cache(http).find(http, error);
     // no path matches
     if(list.isEmpty()) return null;
 
@@ -130,28 +128,28 @@ public final class RestXqModules {
 
   /**
    * Updates the module cache. Parses new modules and discards obsolete ones.
+   * The routing table is rebuilt if the cached modules have changed.
    * @param http http context
-   * @return module cache
+   * @return routing table
    * @throws Exception exception (including unexpected ones)
    */
-  private synchronized HashMap<String, RestXqModule> cache(final HTTPContext http)
-      throws Exception {
-
+  private synchronized RestXqRoutes cache(final HTTPContext http) throws Exception {
     final StaticOptions sopts = http.context(false).soptions;
-    HashMap<String, RestXqModule> cache = modules;
+    final HashMap<String, RestXqModule> old = modules;
 
     // create new cache if it is empty, or if cache is to be recreated every time
-    if(cache.isEmpty() || !sopts.get(StaticOptions.CACHERESTXQ)) {
-      cache = new HashMap<>();
+    if(old.isEmpty() || !sopts.get(StaticOptions.CACHERESTXQ)) {
+      final HashMap<String, RestXqModule> cache = new HashMap<>();
       final String webpath = sopts.get(StaticOptions.WEBPATH);
       final String rxqpath = sopts.get(StaticOptions.RESTXQPATH);
       final IOFile restxq = new IOFile(webpath).resolve(rxqpath);
       if(!restxq.exists()) throw HTTPCode.NO_RESTXQ.get();
 
-      cache(http, restxq, cache, modules);
+      final boolean parsed = cache(http, restxq, cache, old);
       modules = cache;
+      if(parsed || !cache.keySet().equals(old.keySet())) routes = new RestXqRoutes(cache.values());
     }
-    return cache;
+    return routes;
   }
 
   /**
@@ -160,19 +158,21 @@ public final class RestXqModules {
    * @param http http context
    * @param cache cached modules
    * @param old old cache
+   * @return {@code true} if a module has been parsed
    * @throws Exception exception (including unexpected ones)
    */
-  private static synchronized void cache(final HTTPContext http, final IOFile root,
+  private static synchronized boolean cache(final HTTPContext http, final IOFile root,
       final HashMap<String, RestXqModule> cache, final HashMap<String, RestXqModule> old)
       throws Exception {
 
     // check if directory is to be skipped
     final IOFile[] files = root.children();
-    for(final IOFile file : files) if(file.name().equals(IO.IGNORESUFFIX)) return;
+    for(final IOFile file : files) if(file.name().equals(IO.IGNORESUFFIX)) return false;
 
+    boolean changed = false;
     for(final IOFile file : files) {
       if(file.isDir()) {
-        cache(http, file, cache, old);
+        changed |= cache(http, file, cache, old);
       } else {
         final String path = file.path();
         if(file.hasSuffix(IO.XQSUFFIXES)) {
@@ -186,12 +186,11 @@ public final class RestXqModules {
             module = new RestXqModule(file);
           }
           // add module if it has been parsed, and if it contains annotations
-          if(parsed || module.parse(http)) {
-            module.touch();
-            cache.put(path, module);
-          }
+          if(!parsed) changed = true;
+          if(parsed || module.parse(http)) cache.put(path, module);
         }
       }
     }
+    return changed;
   }
 }
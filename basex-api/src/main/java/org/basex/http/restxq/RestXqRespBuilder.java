@@ -43,7 +43,8 @@ final class RestXqRespBuilder {
     for(final ANode a : response.attributes()) throw func.error(UNEXP_NODE, a);
 
     // parse response and serialization parameters
-    SerializerOptions sp = func.output;
+    // the options of the function are shared by all requests
+    SerializerOptions sp = new SerializerOptions(func.output);
     String cType = null;
     for(final ANode n : response.children()) {
       // process http:response element
@@ -81,7 +82,7 @@ final class RestXqRespBuilder {
         }
       } else if(OUTPUT_SERIAL.eq(n)) {
         // parse output:serialization-parameters
-        sp = FuncOptions.serializer(n, func.output, func.function.info);
+        sp = FuncOptions.serializer(n, sp, func.function.info);
       } else {
         throw func.error(UNEXP_NODE, n);
       }
@@ -26,19 +26,19 @@ final class RestXqResponse {
 
   /**
    * Evaluates the specified function and creates a response.
-   * @param function function to be evaluated
+   * @param function cached function
+   * @param sf function to be evaluated (parsed in the specified query context)
    * @param qc query context
    * @param http HTTP context
    * @param error optional query error
    * @throws Exception exception (including unexpected ones)
    */
-  static void create(final RestXqFunction function, final QueryContext qc,
+  static void create(final RestXqFunction function, final StaticFunc sf, final QueryContext qc,
       final HTTPContext http, final QueryException error) throws Exception {
 
     // bind variables
-    final StaticFunc sf = function.function;
     final Expr[] args = new Expr[sf.args.length];
-    function.bind(http, args, error, qc);
+    function.bind(http, sf, args, error, qc);
 
     // assign function call and http context and register process
     qc.mainModule(MainModule.get(sf, args));
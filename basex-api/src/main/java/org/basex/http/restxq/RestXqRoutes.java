@@ -0,0 +1,134 @@
+package org.basex.http.restxq;
+
+import java.util.*;
+
+import org.basex.http.*;
+import org.basex.query.value.item.*;
+
+/**
+ * This class dispatches requests to the functions of RESTXQ modules.
+ * Functions are stored in a tree, whose edges are the literal segments of the path templates.
+ * A function is attached to the node that is reached by the literal segments in front of its
+ * first template segment. When a request is dispatched, only the functions of the nodes
+ * that are visited by the segments of the request path need to be checked.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class RestXqRoutes {
+  /** Root node. */
+  private final Node root = new Node();
+  /** All functions (checked for error codes). */
+  private final ArrayList<RestXqFunction> functions = new ArrayList<>();
+
+  /**
+   * Constructor.
+   * @param modules modules
+   */
+  RestXqRoutes(final Collection<RestXqModule> modules) {
+    for(final RestXqModule mod : modules) {
+      for(final RestXqFunction rxf : mod.functions()) {
+        functions.add(rxf);
+        if(rxf.path == null) continue;
+
+        // follow literal segments of the path template
+        final String path = rxf.path.toString();
+        Node node = root;
+        for(int s = start(path); s != -1;) {
+          final int e = end(path, s);
+          final String segment = path.substring(s, e);
+          // stop at templates and at characters that will be decoded
+          if(segment.indexOf('{') != -1 || segment.indexOf('%') != -1 ||
+              segment.indexOf('+') != -1) break;
+          node = node.child(segment);
+          s = next(path, e);
+        }
+        node.functions.add(rxf);
+      }
+    }
+  }
+
+  /**
+   * Returns all functions that match the current request or the specified error code.
+   * @param http HTTP context
+   * @param error error code (optional)
+   * @return matching functions
+   */
+  ArrayList<RestXqFunction> find(final HTTPContext http, final QNm error) {
+    final ArrayList<RestXqFunction> list = new ArrayList<>(1);
+    if(error != null) {
+      for(final RestXqFunction rxf : functions) {
+        if(rxf.matches(http, error)) list.add(rxf);
+      }
+    } else {
+      // visit all nodes addressed by the segments of the request path
+      final String path = http.path();
+      Node node = root;
+      int s = start(path);
+      while(true) {
+        for(final RestXqFunction rxf : node.functions) {
+          if(rxf.matches(http, null)) list.add(rxf);
+        }
+        if(s == -1 || node.children == null) break;
+        final int e = end(path, s);
+        node = node.children.get(path.substring(s, e));
+        if(node == null) break;
+        s = next(path, e);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Returns the offset of the first path segment.
+   * @param path path
+   * @return offset
+   */
+  private static int start(final String path) {
+    return path.startsWith("/") ? 1 : 0;
+  }
+
+  /**
+   * Returns the end offset of the path segment starting at the specified offset.
+   * @param path path
+   * @param s start offset
+   * @return end offset
+   */
+  private static int end(final String path, final int s) {
+    final int e = path.indexOf('/', s);
+    return e == -1 ? path.length() : e;
+  }
+
+  /**
+   * Returns the offset of the path segment following the specified end offset.
+   * @param path path
+   * @param e end offset of the current segment
+   * @return offset, or {@code -1} if no segment follows
+   */
+  private static int next(final String path, final int e) {
+    return e < path.length() ? e + 1 : -1;
+  }
+
+  /** Node of the routing tree. */
+  private static final class Node {
+    /** Child nodes, indexed by path segments ({@code null} if no children exist). */
+    private HashMap<String, Node> children;
+    /** Functions attached to this node. */
+    private final ArrayList<RestXqFunction> functions = new ArrayList<>(1);
+
+    /**
+     * Returns the child node for the specified segment. Creates a new node if required.
+     * @param segment path segment
+     * @return child node
+     */
+    Node child(final String segment) {
+      if(children == null) children = new HashMap<>();
+      Node node = children.get(segment);
+      if(node == null) {
+        node = new Node();
+        children.put(segment, node);
+      }
+      return node;
+    }
+  }
+}
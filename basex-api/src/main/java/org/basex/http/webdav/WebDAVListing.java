@@ -0,0 +1,329 @@
+package org.basex.http.webdav;
+
+import static org.basex.http.webdav.WebDAVUtils.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.List;
+
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.locks.*;
+import org.basex.core.users.*;
+import org.basex.data.*;
+import org.basex.index.resource.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.http.*;
+import org.basex.util.list.*;
+
+/**
+ * Resource listing of a database, which is directly built from the resource index and the
+ * binary files. Listings are cached for a short time to answer the numerous requests of
+ * WebDAV clients without evaluating queries. Cached listings are invalidated whenever a
+ * database is updated via WebDAV. Updates performed by other clients (REST, XQuery, client
+ * APIs) will only be visible after the cached listing has expired ({@link #TTL}).
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class WebDAVListing {
+  /** Time (ms) after which a cached listing will be discarded. */
+  private static final long TTL = 5000;
+  /** Cached listings, indexed by database names. */
+  private static final HashMap<String, WebDAVListing> CACHE = new HashMap<>();
+  /** Generations of databases, which are incremented whenever a database is updated. */
+  private static final HashMap<String, Integer> GENERATIONS = new HashMap<>();
+
+  /** Timestamp of the database. */
+  final long timestamp;
+  /** Creation time of the listing. */
+  private final long created = System.currentTimeMillis();
+  /** Database name. */
+  private final String db;
+  /** Normalized resource paths (sorted). */
+  private final String[] keys;
+  /** Meta data of the resources (in the order of the normalized paths). */
+  private final WebDAVMetaData[] resources;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  private WebDAVListing(final Data data) {
+    db = data.meta.name;
+    timestamp = data.inMemory() ? data.meta.time : data.meta.dbtime();
+
+    final Resources res = data.resources;
+    final IntList docs = res.docs("");
+    final TokenList bins = res.binaries("");
+    final int ds = docs.size(), rs = ds + bins.size();
+    final WebDAVMetaData[] list = new WebDAVMetaData[rs];
+    for(int d = 0; d < ds; d++) {
+      final String path = string(data.text(docs.get(d), true));
+      list[d] = new WebDAVMetaData(db, path, data.meta.time, false, MediaType.APPLICATION_XML,
+          null);
+    }
+    for(int r = ds; r < rs; r++) {
+      final String path = string(bins.get(r - ds));
+      final IOFile file = data.meta.binary(path);
+      list[r] = new WebDAVMetaData(db, path, file.timeStamp(), true, MediaType.get(path),
+          file.length());
+    }
+
+    // sort resources by their normalized paths, which are computed only once
+    final String[] paths = new String[rs];
+    final Integer[] order = new Integer[rs];
+    for(int r = 0; r < rs; r++) {
+      paths[r] = key(list[r].path);
+      order[r] = r;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer r1, final Integer r2) {
+        return paths[r1].compareTo(paths[r2]);
+      }
+    });
+    keys = new String[rs];
+    resources = new WebDAVMetaData[rs];
+    for(int r = 0; r < rs; r++) {
+      keys[r] = paths[order[r]];
+      resources[r] = list[order[r]];
+    }
+  }
+
+  /**
+   * Returns the listing of the specified database. A cached listing is returned if it has
+   * been created recently.
+   * @param session session
+   * @param db database
+   * @return listing, or {@code null} if the database does not exist
+   * @throws IOException I/O exception
+   */
+  static WebDAVListing get(final LocalSession session, final String db) throws IOException {
+    WebDAVListing listing;
+    final int generation;
+    synchronized(CACHE) {
+      listing = CACHE.get(db);
+      generation = generation(db);
+    }
+    if(listing == null || listing.expired(System.currentTimeMillis())) {
+      final Read read = new Read(db);
+      session.execute(read);
+      listing = read.listing;
+      if(listing == null) return null;
+      synchronized(CACHE) {
+        // skip caching if the database has been updated while the listing was created
+        if(generation != generation(db)) return listing;
+        // discard expired listings
+        final long time = System.currentTimeMillis();
+        final Iterator<WebDAVListing> iter = CACHE.values().iterator();
+        while(iter.hasNext()) {
+          if(iter.next().expired(time)) iter.remove();
+        }
+        CACHE.put(db, listing);
+      }
+    } else {
+      // cached listings are shared by all users
+      final Context ctx = session.context();
+      if(!ctx.perm(Perm.READ, db)) throw new BaseXException(Text.PERM_REQUIRED_X, Perm.READ);
+    }
+    return listing;
+  }
+
+  /**
+   * Returns the names and timestamps of all databases.
+   * @param session session
+   * @return map with database names and timestamps
+   * @throws IOException I/O exception
+   */
+  static TreeMap<String, Long> databases(final LocalSession session) throws IOException {
+    final Read read = new Read(null);
+    session.execute(read);
+    return read.databases;
+  }
+
+  /**
+   * Invalidates the cached listing of the specified database.
+   * @param db database
+   */
+  static void invalidate(final String db) {
+    synchronized(CACHE) {
+      CACHE.remove(db);
+      GENERATIONS.put(db, generation(db) + 1);
+    }
+  }
+
+  /**
+   * Returns the generation of the specified database. Must be called by a thread that
+   * owns the lock of the cache.
+   * @param db database
+   * @return generation
+   */
+  private static int generation(final String db) {
+    final Integer generation = GENERATIONS.get(db);
+    return generation != null ? generation : 0;
+  }
+
+  /**
+   * Returns the meta data of the resource with the specified path.
+   * @param path path
+   * @return meta data, or {@code null} if the resource does not exist
+   */
+  WebDAVMetaData resource(final String path) {
+    final String key = key(path);
+    final int i = index(key);
+    return i < keys.length && keys[i].equals(key) ? resources[i] : null;
+  }
+
+  /**
+   * Checks if the specified path addresses a resource or a folder.
+   * @param path path
+   * @return result of check
+   */
+  boolean exists(final String path) {
+    if(resource(path) != null) return true;
+    final String prefix = prefix(path);
+    final int i = index(prefix);
+    return i < keys.length && keys[i].startsWith(prefix);
+  }
+
+  /**
+   * Returns the direct children of a folder. Only the resources of the specified folder are
+   * visited: the resources of each sub folder are skipped.
+   * @param service service
+   * @param path path to the folder
+   * @return children
+   */
+  List<WebDAVResource> children(final WebDAVService service, final String path) {
+    final String prefix = prefix(path);
+    final int pl = prefix.length(), depth = depth(prefix);
+
+    final List<WebDAVResource> children = new ArrayList<>();
+    final int ks = keys.length;
+    for(int i = index(prefix); i < ks && keys[i].startsWith(prefix);) {
+      final WebDAVMetaData meta = resources[i];
+      final int ix = keys[i].indexOf(SEP, pl);
+      if(ix == -1) {
+        // document or binary file
+        if(!keys[i].substring(pl).equals(DUMMY)) children.add(WebDAVFactory.file(service, meta));
+        i++;
+      } else {
+        // folder: take name from original path, skip all resources of the folder
+        final String name = meta.path.split(String.valueOf(SEP))[depth];
+        children.add(WebDAVFactory.folder(service, new WebDAVMetaData(db, path + SEP + name,
+            meta.mdate.getTime())));
+        i = index(keys[i].substring(0, ix) + (char) (SEP + 1));
+      }
+    }
+    return children;
+  }
+
+  /**
+   * Checks if the listing has expired.
+   * @param time current time
+   * @return result of check
+   */
+  private boolean expired(final long time) {
+    return time - created > TTL;
+  }
+
+  /**
+   * Returns the index of the first normalized path that is equal to or greater than the
+   * specified key.
+   * @param key key
+   * @return index
+   */
+  private int index(final String key) {
+    int l = 0, h = keys.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(keys[m].compareTo(key) < 0) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the normalized path prefix of all resources in the specified folder.
+   * @param path path to the folder
+   * @return prefix
+   */
+  private static String prefix(final String path) {
+    final String key = key(path);
+    return key.isEmpty() || key.charAt(key.length() - 1) == SEP ? key : key + SEP;
+  }
+
+  /**
+   * Returns the number of path separators in the specified prefix.
+   * @param prefix prefix
+   * @return depth
+   */
+  private static int depth(final String prefix) {
+    int d = 0;
+    final int pl = prefix.length();
+    for(int p = 0; p < pl; p++) {
+      if(prefix.charAt(p) == SEP) d++;
+    }
+    return d;
+  }
+
+  /**
+   * Returns the normalized representation of a path.
+   * @param path path
+   * @return normalized path
+   */
+  private static String key(final String path) {
+    String np = MetaData.normPath(path);
+    if(np == null) np = path;
+    np = stripLeadingSlash(np);
+    return Prop.CASE ? np : np.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Command for reading the listing of a database, or the names of all databases.
+   */
+  private static final class Read extends Command {
+    /** Listing of the database. */
+    private WebDAVListing listing;
+    /** Names and timestamps of all databases. */
+    private TreeMap<String, Long> databases;
+
+    /**
+     * Constructor.
+     * @param db database (if {@code null}, all databases will be listed)
+     */
+    private Read(final String db) {
+      super(Perm.NONE, db == null ? "" : db);
+    }
+
+    @Override
+    protected boolean run() throws IOException {
+      final String db = args[0];
+      if(db.isEmpty()) {
+        databases = new TreeMap<>();
+        for(final String name : context.filter(Perm.READ, context.databases.listDBs())) {
+          final MetaData meta = new MetaData(name, options, soptions);
+          meta.read();
+          databases.put(name, meta.dbtime());
+        }
+      } else if(soptions.dbExists(db) || context.datas.pins(db) > 0) {
+        final Data data = Open.open(db, context, options);
+        try {
+          listing = new WebDAVListing(data);
+        } finally {
+          Close.close(data, context);
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void databases(final LockResult lr) {
+      if(args[0].isEmpty()) lr.readAll = true;
+      else lr.read.add(args[0]);
+    }
+  }
+}
@@ -15,10 +15,8 @@ import org.basex.core.cmd.Set;
 import org.basex.http.*;
 import org.basex.io.in.*;
 import org.basex.io.serial.*;
-import org.basex.query.func.db.*;
 import org.basex.util.*;
 import org.basex.util.http.*;
-import org.basex.util.list.*;
 
 /**
  * Service handling the various WebDAV operations.
@@ -88,6 +86,7 @@ final class WebDAVService {
     final LocalSession session = session();
     session.execute(new Open(db));
     session.execute(new Delete(dummy));
+    WebDAVListing.invalidate(db);
   }
 
   /**
@@ -97,8 +96,7 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   boolean dbExists(final String db) throws IOException {
-    final WebDAVQuery query = new WebDAVQuery(_DB_EXISTS.args("$db")).bind("db", db);
-    return execute(query).equals(Text.TRUE);
+    return WebDAVListing.get(session(), db) != null;
   }
 
   /**
@@ -108,9 +106,7 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   long timestamp(final String db) throws IOException {
-    final WebDAVQuery query = new WebDAVQuery(DATA.args(_DB_INFO.args("$db") +
-        "/descendant::" + DbFn.toName(Text.TIMESTAMP) + "[1]")).bind("db",  db);
-    return DateTime.parse(execute(query)).getTime();
+    return listing(db).timestamp;
   }
 
   /**
@@ -121,19 +117,7 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   private WebDAVMetaData metaData(final String db, final String path) throws IOException {
-    final WebDAVQuery query = new WebDAVQuery(
-      "let $a := " + _DB_LIST_DETAILS.args("$db", "$path") + "[1] " +
-      "return string-join(($a/@raw, $a/@content-type, $a/@modified-date, $a/@size, $a),out:tab())");
-    query.bind("db", db);
-    query.bind("path", path);
-
-    final String[] result = results(query);
-    final boolean raw = Boolean.parseBoolean(result[0]);
-    final MediaType type = new MediaType(result[1]);
-    final long mod = DateTime.parse(result[2]).getTime();
-    final Long size = raw ? Long.valueOf(result[3]) : null;
-    final String pth = stripLeadingSlash(result[4]);
-    return new WebDAVMetaData(db, pth, mod, raw, type, size);
+    return listing(db).resource(path);
   }
 
   /**
@@ -146,6 +130,7 @@ final class WebDAVService {
     final LocalSession session = session();
     session.execute(new Open(db));
     session.execute(new Delete(path));
+    WebDAVListing.invalidate(db);
 
     // create dummy if parent is an empty folder
     final int ix = path.lastIndexOf(SEP);
@@ -163,6 +148,7 @@ final class WebDAVService {
     final LocalSession session = session();
     session.execute(new Open(db));
     session.execute(new Rename(path, npath));
+    WebDAVListing.invalidate(db);
 
     // create dummy if old parent is an empty folder
     final int i1 = path.lastIndexOf(SEP);
@@ -194,6 +180,7 @@ final class WebDAVService {
     query.bind("tdb", tdb);
     query.bind("tpath", tpath);
     execute(query);
+    WebDAVListing.invalidate(tdb);
   }
 
   /**
@@ -219,6 +206,7 @@ final class WebDAVService {
     query.bind("tdb", tdb);
     query.bind("tpath", tpath);
     execute(query);
+    WebDAVListing.invalidate(tdb);
   }
 
   /**
@@ -249,6 +237,7 @@ final class WebDAVService {
    */
   WebDAVResource createDb(final String db) throws IOException {
     session().execute(new CreateDB(db));
+    WebDAVListing.invalidate(db);
     return WebDAVFactory.database(this, new WebDAVMetaData(db, timestamp(db)));
   }
 
@@ -259,6 +248,7 @@ final class WebDAVService {
    */
   void dropDb(final String db) throws IOException {
     session().execute(new DropDB(db));
+    WebDAVListing.invalidate(db);
   }
 
   /**
@@ -268,7 +258,10 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   void renameDb(final String old, final String db) throws IOException {
-    session().execute(new AlterDB(old, dbName(db)));
+    final String name = dbName(db);
+    session().execute(new AlterDB(old, name));
+    WebDAVListing.invalidate(old);
+    WebDAVListing.invalidate(name);
   }
 
   /**
@@ -278,7 +271,9 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   void copyDb(final String old, final String db) throws IOException {
-    session().execute(new Copy(old, dbName(db)));
+    final String name = dbName(db);
+    session().execute(new Copy(old, name));
+    WebDAVListing.invalidate(name);
   }
 
   /**
@@ -289,34 +284,7 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   List<WebDAVResource> list(final String db, final String path) throws IOException {
-    final WebDAVQuery query = new WebDAVQuery(STRING_JOIN.args(
-      _DB_LIST_DETAILS.args("$db", "$path") + " ! (" +
-      "@raw,@content-type,@modified-date,@size," + SUBSTRING_AFTER.args("text()", "$path") + ')',
-      "out:tab()"));
-    query.bind("db", db);
-    query.bind("path", path);
-    final String[] result = results(query);
-
-    final HashSet<String> paths = new HashSet<>();
-    final List<WebDAVResource> ch = new ArrayList<>();
-    final int rs = result.length;
-    for(int r = 0; r < rs; r += 5) {
-      final boolean raw = Boolean.parseBoolean(result[r]);
-      final MediaType ctype = new MediaType(result[r + 1]);
-      final long mod = DateTime.parse(result[r + 2]).getTime();
-      final Long size = raw ? Long.valueOf(result[r + 3]) : null;
-      final String pth = stripLeadingSlash(result[r + 4]);
-      final int ix = pth.indexOf(SEP);
-      // check if document or folder
-      if(ix < 0) {
-        if(!pth.equals(DUMMY)) ch.add(WebDAVFactory.file(this,
-          new WebDAVMetaData(db, path + SEP + pth, mod, raw, ctype, size)));
-      } else {
-        final String dir = path + SEP + pth.substring(0, ix);
-        if(paths.add(dir)) ch.add(WebDAVFactory.folder(this, new WebDAVMetaData(db, dir, mod)));
-      }
-    }
-    return ch;
+    return listing(db).children(this, path);
   }
 
   /**
@@ -325,17 +293,12 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   List<WebDAVResource> listDbs() throws IOException {
-    final WebDAVQuery query = new WebDAVQuery(STRING_JOIN.args(
-        _DB_LIST_DETAILS.args() + "[. != $db] ! (text(), @modified-date)", "out:tab()"));
-    query.bind("db", WEBDAV_DB);
-
-    final String[] result = results(query);
     final List<WebDAVResource> dbs = new ArrayList<>();
-    final int rs = result.length;
-    for(int r = 0; r < rs; r += 2) {
-      final String name = result[r];
-      final long mod = DateTime.parse(result[r + 1]).getTime();
-      dbs.add(WebDAVFactory.database(this, new WebDAVMetaData(name, mod)));
+    for(final Entry<String, Long> entry : WebDAVListing.databases(session()).entrySet()) {
+      final String name = entry.getKey();
+      if(authorize(name)) {
+        dbs.add(WebDAVFactory.database(this, new WebDAVMetaData(name, entry.getValue())));
+      }
     }
     return dbs;
   }
@@ -417,10 +380,7 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   private boolean pathExists(final String db, final String path) throws IOException {
-    final WebDAVQuery query = new WebDAVQuery(EXISTS.args(_DB_LIST.args("$db", "$path")));
-    query.bind("db", db);
-    query.bind("path", path);
-    return execute(query).equals(Text.TRUE);
+    return listing(db).exists(path);
   }
 
   /**
@@ -431,10 +391,7 @@ final class WebDAVService {
    * @throws IOException I/O exception
    */
   private boolean exists(final String db, final String path) throws IOException {
-    final WebDAVQuery query = new WebDAVQuery(_DB_EXISTS.args("$db", "$path"));
-    query.bind("db", db);
-    query.bind("path", path);
-    return execute(query).equals(Text.TRUE);
+    return listing(db).resource(path) != null;
   }
 
   /**
@@ -446,6 +403,7 @@ final class WebDAVService {
    */
   private WebDAVResource createDb(final String db, final InputStream in) throws IOException {
     session().create(db, in);
+    WebDAVListing.invalidate(db);
     return WebDAVFactory.database(this, new WebDAVMetaData(db, timestamp(db)));
   }
 
@@ -464,6 +422,7 @@ final class WebDAVService {
     session.execute(new Set(MainOptions.CHOP, false));
     session.execute(new Open(db));
     session.add(path, in);
+    WebDAVListing.invalidate(db);
     return WebDAVFactory.file(this, new WebDAVMetaData(db, path, timestamp(db), false,
       MediaType.APPLICATION_XML, null));
   }
@@ -482,6 +441,7 @@ final class WebDAVService {
     final LocalSession session = session();
     session.execute(new Open(db));
     session.store(path, in);
+    WebDAVListing.invalidate(db);
     return WebDAVFactory.file(this, metaData(db, path));
   }
 
@@ -539,6 +499,7 @@ final class WebDAVService {
     final LocalSession session = session();
     session.execute(new Open(db));
     session.store(path + SEP + DUMMY, new ArrayInput(Token.EMPTY));
+    WebDAVListing.invalidate(db);
   }
 
   /**
@@ -556,17 +517,15 @@ final class WebDAVService {
   }
 
   /**
-   * Executes a query and returns all results as a list.
-   * @param query query to be executed
-   * @return result
-   * @throws IOException error during query execution
+   * Returns the resource listing of a database.
+   * @param db database
+   * @return listing
+   * @throws IOException I/O exception
    */
-  private String[] results(final WebDAVQuery query) throws IOException {
-    final StringList sl = new StringList();
-    for(final String result : Strings.split(execute(query), '\t')) {
-      if(!result.isEmpty()) sl.add(result);
-    }
-    return sl.finish();
+  private WebDAVListing listing(final String db) throws IOException {
+    final WebDAVListing listing = WebDAVListing.get(session(), db);
+    if(listing == null) throw new BaseXException(Open.dbnf(db));
+    return listing;
   }
 
   /**
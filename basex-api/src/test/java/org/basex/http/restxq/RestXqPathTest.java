@@ -32,6 +32,22 @@ public final class RestXqPathTest extends RestXqTest {
     getE("declare %R:GET %R:GET %R:path('') function m:f() { 'root' };", "");
   }
 
+  /**
+   * Invokes the same function from different sessions.
+   * @throws Exception exception
+   */
+  @Test
+  public void sessions() throws Exception {
+    install("declare %R:path('s') function m:f() { " +
+        "Q{http://basex.org/modules/session}id() };");
+    final String id1 = get("s"), id2 = get("s");
+    assertFalse(id1.isEmpty());
+    assertFalse(id1.equals(id2));
+    // updated module must be evaluated by subsequent requests
+    get("declare %R:path('s') function m:f() { 'new' };", "s", "new");
+    get("declare %R:path('s') function m:f() { 'newer' };", "s", "newer");
+  }
+
   /**
    * Retrieves paths.
    * @throws Exception exception
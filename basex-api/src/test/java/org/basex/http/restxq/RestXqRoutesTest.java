@@ -0,0 +1,89 @@
+package org.basex.http.restxq;
+
+import org.junit.*;
+
+/**
+ * This test checks the dispatching of requests to functions with different paths.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class RestXqRoutesTest extends RestXqTest {
+  /**
+   * Literal segments are preferred to templates.
+   * @throws Exception exception
+   */
+  @Test
+  public void literal() throws Exception {
+    final String f = "declare %R:path('a/b') function m:f() { 'literal' };" +
+        "declare %R:path('a/{$x}') function m:g($x) { $x };";
+    get(f, "a/b", "literal");
+    get(f, "a/c", "c");
+    getE(f, "a");
+    getE(f, "a/b/c");
+
+    // template on root level
+    final String g = "declare %R:path('a/b') function m:f() { 'literal' };" +
+        "declare %R:path('{$x}/b') function m:g($x) { $x };";
+    get(g, "a/b", "literal");
+    get(g, "c/b", "c");
+    getE(g, "c/c");
+  }
+
+  /**
+   * Templates with regular expressions that span multiple segments.
+   * @throws Exception exception
+   */
+  @Test
+  public void regex() throws Exception {
+    final String f = "declare %R:path('p/q') function m:f() { 'literal' };" +
+        "declare %R:path('p/{$x=.+}') function m:g($x) { $x };";
+    get(f, "p/q", "literal");
+    get(f, "p/q/r", "q/r");
+    get(f, "p/a/b/c", "a/b/c");
+    getE(f, "q/r");
+
+    // template in the middle of the path
+    final String g = "declare %R:path('p/{$x=.+}/z') function m:f($x) { $x };";
+    get(g, "p/a/b/z", "a/b");
+    getE(g, "p/a/b");
+  }
+
+  /**
+   * Segments with characters that are decoded before they are matched.
+   * @throws Exception exception
+   */
+  @Test
+  public void encoded() throws Exception {
+    final String f = "declare %R:path('a/b+c/d') function m:f() { 'plus' };" +
+        "declare %R:path('a/%7B/d') function m:g() { 'brace' };" +
+        "declare %R:path('a/b/d') function m:h() { 'literal' };";
+    get(f, "a/b+c/d", "plus");
+    get(f, "a/b%20c/d", "plus");
+    get(f, "a/%7b/d", "brace");
+    get(f, "a/%7B/d", "brace");
+    get(f, "a/b/d", "literal");
+    getE(f, "a/b+c");
+    getE(f, "a/%7B");
+  }
+
+  /**
+   * Empty path.
+   * @throws Exception exception
+   */
+  @Test
+  public void root() throws Exception {
+    final String f = "declare %R:path('/') function m:f() { 'root' };" +
+        "declare %R:path('a') function m:g() { 'a' };" +
+        "declare %R:path('{$x}') function m:h($x) { $x };";
+    get(f, "", "root");
+    get(f, "/", "root");
+    get(f, "a", "a");
+    get(f, "b", "b");
+    getE(f, "a/b");
+
+    // no function for the empty path
+    final String g = "declare %R:path('a') function m:f() { 'a' };";
+    getE(g, "/");
+  }
+}
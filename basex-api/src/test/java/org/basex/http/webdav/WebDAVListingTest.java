@@ -0,0 +1,130 @@
+package org.basex.http.webdav;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for resource listings of WebDAV databases.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class WebDAVListingTest extends SandboxTest {
+  /**
+   * Creates the test database.
+   */
+  @Before
+  public void before() {
+    execute(new CreateDB(NAME));
+    execute(new Add("a.xml", "<a/>"));
+    execute(new Add("dir/b.xml", "<b/>"));
+    execute(new Add("dir/sub/c.xml", "<c/>"));
+    execute(new Add("dir/sub/d.xml", "<d/>"));
+    execute(new Add("dir2/e.xml", "<e/>"));
+    execute(new Store("dir/f.bin", "<f/>"));
+    WebDAVListing.invalidate(NAME);
+  }
+
+  /**
+   * Drops the test database.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    WebDAVListing.invalidate(NAME);
+  }
+
+  /**
+   * Looks up resources.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void resource() throws IOException {
+    try(final LocalSession session = new LocalSession(context)) {
+      final WebDAVListing listing = WebDAVListing.get(session, NAME);
+      assertFalse(listing.resource("a.xml").raw);
+      assertFalse(listing.resource("/dir/b.xml").raw);
+      assertTrue(listing.resource("dir/f.bin").raw);
+      assertNull(listing.resource("dir"));
+      assertNull(listing.resource("dir/sub/x.xml"));
+      assertNull(WebDAVListing.get(session, NAME + "unknown"));
+    }
+  }
+
+  /**
+   * Checks if resources and folders exist.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void exists() throws IOException {
+    try(final LocalSession session = new LocalSession(context)) {
+      final WebDAVListing listing = WebDAVListing.get(session, NAME);
+      assertTrue(listing.exists("a.xml"));
+      assertTrue(listing.exists("dir"));
+      assertTrue(listing.exists("dir/"));
+      assertTrue(listing.exists("dir/sub"));
+      assertTrue(listing.exists("dir2"));
+      assertFalse(listing.exists("di"));
+      assertFalse(listing.exists("dir/s"));
+      assertFalse(listing.exists("a.xml/x"));
+    }
+  }
+
+  /**
+   * Lists the children of folders.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void children() throws IOException {
+    try(final LocalSession session = new LocalSession(context)) {
+      final WebDAVListing listing = WebDAVListing.get(session, NAME);
+      assertEquals("[a.xml, dir/, dir2/]", children(listing, ""));
+      // resources of sub folders are skipped
+      assertEquals("[b.xml, f.bin, sub/]", children(listing, "dir"));
+      assertEquals("[c.xml, d.xml]", children(listing, "dir/sub"));
+      assertEquals("[]", children(listing, "unknown"));
+    }
+  }
+
+  /**
+   * Caches listings until they are invalidated.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void invalidate() throws IOException {
+    try(final LocalSession session = new LocalSession(context)) {
+      final WebDAVListing listing = WebDAVListing.get(session, NAME);
+      assertSame(listing, WebDAVListing.get(session, NAME));
+
+      execute(new Add("g.xml", "<g/>"));
+      WebDAVListing.invalidate(NAME);
+      final WebDAVListing updated = WebDAVListing.get(session, NAME);
+      assertNotSame(listing, updated);
+      assertNotNull(updated.resource("g.xml"));
+    }
+  }
+
+  /**
+   * Returns the names of the children of a folder. Names of folders are suffixed with a slash.
+   * @param listing listing
+   * @param path path to the folder
+   * @return names
+   */
+  private static String children(final WebDAVListing listing, final String path) {
+    final ArrayList<String> names = new ArrayList<>();
+    for(final WebDAVResource res : listing.children(null, path)) {
+      final String[] segments = res.meta.path.split("/");
+      final String name = segments[segments.length - 1];
+      names.add(res instanceof WebDAVFolder ? name + '/' : name);
+    }
+    return names.toString();
+  }
+}
@@ -4,7 +4,9 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.api.client.*;
 import org.basex.core.*;
@@ -18,6 +20,11 @@ import org.basex.util.list.*;
  * This is the starter class for running the database server. It handles
  * concurrent requests from multiple users.
  *
+ * Client connections are handled by a single selector thread, which accepts new connections
+ * and reads incoming requests without blocking. Completely received requests are processed by
+ * a bounded pool of worker threads (see {@link StaticOptions#SERVERTHREADS}). If a worker
+ * thread needs to wait for a channel, it is resumed by the selector thread.
+ *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  * @author Andreas Weiler
@@ -25,14 +32,24 @@ import org.basex.util.list.*;
 public final class BaseXServer extends CLI implements Runnable {
   /** New sessions. */
   private final HashSet<ClientListener> auth = new HashSet<>();
+  /** Sessions waiting for the next request. */
+  private final Queue<ClientListener> idle = new ConcurrentLinkedQueue<>();
+  /** Sessions whose worker threads are waiting for the channel. */
+  private final Queue<ClientListener> waiting = new ConcurrentLinkedQueue<>();
+  /** Timer for authentication time outs. */
+  private final Timer timer = new Timer(true);
   /** Indicates if server is running. */
   private volatile boolean running;
   /** Indicates if server is to be stopped. */
   private volatile boolean stop;
   /** Initial commands. */
   private StringList commands;
-  /** Server socket. */
-  private ServerSocket socket;
+  /** Server socket channel. */
+  private ServerSocketChannel socket;
+  /** Selector for accepting connections and reading requests. */
+  private Selector selector;
+  /** Worker threads. */
+  private ExecutorService workers;
   /** Start as service. */
   private boolean service;
   /** Daemon flag. */
@@ -98,10 +115,27 @@ public final class BaseXServer extends CLI implements Runnable {
       // execute initial command-line arguments
       for(final String cmd : commands) execute(cmd);
 
-      socket = new ServerSocket();
-      socket.setReuseAddress(true);
-      socket.bind(new InetSocketAddress(addr, port));
+      socket = ServerSocketChannel.open();
+      socket.socket().setReuseAddress(true);
+      socket.socket().bind(new InetSocketAddress(addr, port));
+      socket.configureBlocking(false);
+      selector = Selector.open();
+      socket.register(selector, SelectionKey.OP_ACCEPT);
       stopFile = stopFile(port);
+
+      // bounded worker pool; idle threads will be released
+      final int threads = Math.max(1, sopts.get(StaticOptions.SERVERTHREADS));
+      final ThreadPoolExecutor tpe = new ThreadPoolExecutor(threads, threads, 60,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+              final Thread t = new Thread(r, "ServerWorker");
+              t.setDaemon(true);
+              return t;
+            }
+          });
+      tpe.allowCoreThreadTimeOut(true);
+      workers = tpe;
     } catch(final Exception ex) {
       context.log.writeServer(LogType.ERROR, Util.message(ex));
       if(ex instanceof BindException) throw new BaseXException(SRV_RUNNING_X, port);
@@ -136,39 +170,47 @@ public final class BaseXServer extends CLI implements Runnable {
     running = true;
     while(running) {
       try {
-        final Socket s = socket.accept();
-        if(stopFile.exists()) {
-          if(!stopFile.delete()) {
-            context.log.writeServer(LogType.ERROR, Util.info(FILE_NOT_DELETED_X, stopFile));
+        selector.select();
+        // register the operations worker threads are waiting for
+        for(ClientListener cl; (cl = waiting.poll()) != null;) {
+          final SelectionKey key = cl.channel().keyFor(selector);
+          if(key != null && key.isValid()) key.interestOps(cl.waiting());
+          else cl.resume();
+        }
+        // resume sessions that are waiting for the next request
+        for(ClientListener cl; (cl = idle.poll()) != null;) {
+          final SelectionKey key = cl.channel().keyFor(selector);
+          if(key != null && key.isValid()) {
+            key.interestOps(SelectionKey.OP_READ);
+            // process bytes that have been received in the meantime
+            if(cl.fill()) dispatch(key);
           }
-          quit();
-        } else {
-          // drop inactive connections
-          final long ka = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
-          if(ka > 0) {
-            final long ms = System.currentTimeMillis();
-            for(final ClientListener cs : context.sessions) {
-              if(ms - cs.last > ka) cs.quit();
+        }
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while(keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+          if(!key.isValid()) continue;
+          if(key.isAcceptable()) {
+            accept();
+          } else {
+            final ClientListener cl = (ClientListener) key.attachment();
+            if(cl.resume()) {
+              // worker thread was waiting for the channel
+              key.interestOps(0);
+            } else if(key.isReadable() && cl.fill()) {
+              dispatch(key);
             }
           }
-          final ClientListener cl = new ClientListener(s, context, this);
-          // start authentication timeout
-          final long to = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
-          if(to > 0) {
-            cl.auth.schedule(new TimerTask() {
-              @Override
-              public void run() {
-                cl.quitAuth();
-              }
-            }, to);
-            auth.add(cl);
-          }
-          cl.start();
         }
-      } catch(final SocketException ex) {
+      } catch(final ClosedSelectorException ex) {
         break;
+      } catch(final CancelledKeyException ex) {
+        // session was closed in the meantime
+        Util.debug(ex);
       } catch(final Throwable ex) {
         // socket may have been unexpectedly closed
+        if(!running) break;
         Util.errln(ex);
         context.log.writeServer(LogType.ERROR, Util.message(ex));
         break;
@@ -176,6 +218,77 @@ public final class BaseXServer extends CLI implements Runnable {
     }
   }
 
+  /**
+   * Accepts a new connection.
+   * @throws IOException I/O exception
+   */
+  private void accept() throws IOException {
+    final SocketChannel ch = socket.accept();
+    if(ch == null) return;
+    if(stopFile.exists()) {
+      if(!stopFile.delete()) {
+        context.log.writeServer(LogType.ERROR, Util.info(FILE_NOT_DELETED_X, stopFile));
+      }
+      ch.close();
+      quit();
+      return;
+    }
+
+    // drop inactive connections
+    final long ka = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
+    if(ka > 0) {
+      final long ms = System.currentTimeMillis();
+      for(final ClientListener cs : context.sessions) {
+        if(ms - cs.last > ka) cs.quit();
+      }
+    }
+    final ClientListener cl = new ClientListener(ch, context, this);
+    // start authentication timeout
+    final long to = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
+    if(to > 0) {
+      synchronized(auth) {
+        cl.auth = new TimerTask() {
+          @Override
+          public void run() {
+            cl.quitAuth();
+          }
+        };
+        timer.schedule(cl.auth, to);
+        auth.add(cl);
+      }
+    }
+    // send nonce
+    dispatch(ch.register(selector, 0, cl));
+  }
+
+  /**
+   * Passes on a session to a worker thread.
+   * @param key selection key
+   */
+  private void dispatch(final SelectionKey key) {
+    key.interestOps(0);
+    workers.execute((ClientListener) key.attachment());
+  }
+
+  /**
+   * Registers a session that waits for the next request.
+   * Called by a worker thread after all received requests have been processed.
+   * @param client client
+   */
+  public void register(final ClientListener client) {
+    idle.add(client);
+    selector.wakeup();
+  }
+
+  /**
+   * Registers a session whose worker thread waits for the channel.
+   * @param client client
+   */
+  public void await(final ClientListener client) {
+    waiting.add(client);
+    selector.wakeup();
+  }
+
   /**
    * Generates a stop file for the specified port.
    * @param port server port
@@ -192,7 +305,7 @@ public final class BaseXServer extends CLI implements Runnable {
     if(!running) return;
     running = false;
 
-    for(final ClientListener cs : auth) {
+    for(final ClientListener cs : auth.toArray(new ClientListener[auth.size()])) {
       remove(cs);
       cs.quitAuth();
     }
@@ -200,9 +313,14 @@ public final class BaseXServer extends CLI implements Runnable {
       cs.quit();
     }
 
+    synchronized(auth) {
+      timer.cancel();
+    }
+    workers.shutdown();
     try {
       // close interactive input if server was stopped by another process
       socket.close();
+      selector.close();
     } catch(final IOException ex) {
       Util.errln(ex);
       context.log.writeServer(LogType.ERROR, Util.message(ex));
@@ -321,6 +439,31 @@ public final class BaseXServer extends CLI implements Runnable {
     }
   }
 
+  /**
+   * Denies access to a session after the specified delay.
+   * @param client client
+   * @param delay delay (milliseconds)
+   */
+  public void deny(final ClientListener client, final long delay) {
+    synchronized(auth) {
+      // server is stopped: deny access without delay
+      if(!running) {
+        client.deny();
+        return;
+      }
+      if(client.auth != null) client.auth.cancel();
+      client.auth = new TimerTask() {
+        @Override
+        public void run() {
+          remove(client);
+          client.deny();
+        }
+      };
+      timer.schedule(client.auth, delay);
+      auth.add(client);
+    }
+  }
+
   /**
    * Removes an authenticated session.
    * @param client client to be removed
@@ -328,7 +471,7 @@ public final class BaseXServer extends CLI implements Runnable {
   public void remove(final ClientListener client) {
     synchronized(auth) {
       auth.remove(client);
-      client.auth.cancel();
+      if(client.auth != null) client.auth.cancel();
     }
   }
 
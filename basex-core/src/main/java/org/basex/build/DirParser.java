@@ -4,14 +4,18 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.MainOptions.MainParser;
 import org.basex.core.cmd.*;
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
+import org.basex.io.serial.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -19,6 +23,9 @@ import org.basex.util.list.*;
  * This class recursively scans files and directories and parses all
  * relevant files.
  *
+ * If {@link MainOptions#PARSETHREADS} is greater than 1, XML files are parsed in parallel into
+ * main memory instances. The instances are appended to the builder in the original order.
+ *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  */
@@ -44,6 +51,8 @@ public final class DirParser extends Parser {
   private final boolean rawParser;
   /** Archive name. */
   private final boolean archiveName;
+  /** Number of threads for parsing files. */
+  private final int threads;
   /** Database path for storing binary files. */
   private IOFile rawPath;
 
@@ -53,6 +62,10 @@ public final class DirParser extends Parser {
   private Parser parser;
   /** Element counter. */
   private int c;
+  /** Thread pool for parsing files ({@code null} if files are parsed sequentially). */
+  private ExecutorService pool;
+  /** Files that are currently parsed, in the order of their occurrence. */
+  private final ArrayDeque<ParseJob> jobs = new ArrayDeque<>();
 
   /**
    * Constructor.
@@ -71,6 +84,7 @@ public final class DirParser extends Parser {
     addRaw = options.get(MainOptions.ADDRAW);
     dtd = options.get(MainOptions.DTD);
     rawParser = options.get(MainOptions.PARSER) == MainParser.RAW;
+    threads = options.get(MainOptions.PARSETHREADS);
     filter = !isDir && !source.isArchive() ? null :
       Pattern.compile(IOFile.regex(options.get(MainOptions.CREATEFILTER)));
   }
@@ -90,7 +104,19 @@ public final class DirParser extends Parser {
   public void parse(final Builder build) throws IOException {
     build.meta.filesize = 0;
     build.meta.original = source.path();
-    parse(build, source);
+    if(threads > 1 && !rawParser) {
+      pool = Executors.newFixedThreadPool(threads);
+      try {
+        parse(build, source);
+        append(build, 0);
+      } finally {
+        pool.shutdownNow();
+        pool = null;
+        jobs.clear();
+      }
+    } else {
+      parse(build, source);
+    }
   }
 
   /**
@@ -194,7 +220,22 @@ public final class DirParser extends Parser {
         if(rawPath != null) {
           Store.store(source.inputSource(), new IOFile(rawPath, targ + name));
         }
+      } else if(pool != null && (!dtd || source instanceof IOFile)) {
+        // parse input in parallel: cache contents of streams
+        IO in = source;
+        if(!(source instanceof IOFile || source instanceof IOContent)) {
+          in = new IOContent(source.read());
+          in.name(name);
+        }
+        final ParseJob job = new ParseJob(in, targ, source.path());
+        job.future = pool.submit(job);
+        jobs.add(job);
+        // limit number of cached documents
+        append(builder, threads << 1);
       } else {
+        // parsed documents must be appended first
+        append(builder, 0);
+
         // store input as XML
         boolean ok = true;
         IO in = source;
@@ -227,6 +268,41 @@ public final class DirParser extends Parser {
     }
   }
 
+  /**
+   * Appends parsed documents to the builder.
+   * @param builder builder instance
+   * @param max maximum number of remaining documents
+   * @throws IOException I/O exception
+   */
+  private void append(final Builder builder, final int max) throws IOException {
+    while(jobs.size() > max) {
+      builder.checkStop();
+      final ParseJob job = jobs.poll();
+      final Data data;
+      try {
+        data = job.future.get();
+      } catch(final InterruptedException ex) {
+        throw new ProcException();
+      } catch(final ExecutionException ex) {
+        final Throwable th = ex.getCause();
+        if(th instanceof IOException) {
+          if(!skipCorrupt) throw (IOException) th;
+          Util.debug(th);
+          skipped.add(job.path);
+          continue;
+        }
+        throw th instanceof RuntimeException ? (RuntimeException) th : Util.notExpected(th);
+      }
+      // pipe documents to the builder
+      final Serializer ser = new BuilderSerializer(builder);
+      final IntList docs = data.resources.docs();
+      final int ds = docs.size();
+      for(int d = 0; d < ds; d++) ser.serialize(new DBNode(data, docs.get(d)));
+      // dump debug data
+      if(Prop.debug && (++c & 0x3FF) == 0) Util.err(";");
+    }
+  }
+
   @Override
   public String info() {
     final TokenBuilder tb = new TokenBuilder();
@@ -259,5 +335,35 @@ public final class DirParser extends Parser {
   @Override
   public void close() throws IOException {
     if(parser != null) parser.close();
+    if(pool != null) pool.shutdownNow();
+  }
+
+  /** Parses a single file into a main memory instance. */
+  private final class ParseJob implements Callable<Data> {
+    /** Input. */
+    private final IO input;
+    /** Target path. */
+    private final String target;
+    /** Original path of the input. */
+    private final String path;
+    /** Result. */
+    private Future<Data> future;
+
+    /**
+     * Constructor.
+     * @param input input
+     * @param target target path
+     * @param path original path of the input
+     */
+    ParseJob(final IO input, final String target, final String path) {
+      this.input = input;
+      this.target = target;
+      this.path = path;
+    }
+
+    @Override
+    public Data call() throws IOException {
+      return MemBuilder.build("", Parser.singleParser(input, options, target));
+    }
   }
 }
@@ -0,0 +1,136 @@
+package org.basex.build.json;
+
+import static org.basex.io.parse.json.JsonConstants.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.build.*;
+import org.basex.io.parse.json.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * This class converts JSON data to XML, using the direct conversion, and sends the
+ * resulting nodes to the database builder while the input is parsed.
+ * Types are stored in the elements (merging of types is not supported).
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class JsonBuilder extends JsonConverter {
+  /** Attributes. */
+  private final Atts atts = new Atts();
+  /** Namespaces. */
+  private final Atts nsp = new Atts();
+  /** Builder. */
+  private final Builder builder;
+  /** Lax QName conversion. */
+  private final boolean lax;
+  /** Include string type. */
+  private final boolean strings;
+  /** Chop whitespaces. */
+  private final boolean chop;
+
+  /** Name of next element. */
+  private byte[] name = JSON;
+
+  /**
+   * Constructor.
+   * @param opts JSON options
+   * @param chop chop whitespaces
+   * @param builder builder
+   */
+  JsonBuilder(final JsonParserOptions opts, final boolean chop, final Builder builder) {
+    super(opts);
+    this.chop = chop;
+    this.builder = builder;
+    lax = opts.get(JsonOptions.LAX);
+    strings = opts.get(JsonOptions.STRINGS);
+  }
+
+  @Override
+  protected void openObject() throws IOException {
+    open(OBJECT);
+  }
+
+  @Override
+  protected void openPair(final byte[] key, final boolean add) {
+    name = XMLToken.encode(key, lax);
+  }
+
+  @Override
+  protected void closePair(final boolean add) { }
+
+  @Override
+  protected void closeObject() throws IOException {
+    builder.closeElem();
+  }
+
+  @Override
+  protected void openArray() throws IOException {
+    open(ARRAY);
+  }
+
+  @Override
+  protected void openItem() {
+    name = VALUE;
+  }
+
+  @Override
+  protected void closeItem() { }
+
+  @Override
+  protected void closeArray() throws IOException {
+    builder.closeElem();
+  }
+
+  @Override
+  protected void numberLit(final byte[] value) throws IOException {
+    add(NUMBER, value);
+  }
+
+  @Override
+  protected void stringLit(final byte[] value) throws IOException {
+    add(STRING, value);
+  }
+
+  @Override
+  protected void nullLit() throws IOException {
+    add(NULL, EMPTY);
+  }
+
+  @Override
+  protected void booleanLit(final byte[] value) throws IOException {
+    add(BOOLEAN, value);
+  }
+
+  @Override
+  protected Item finish() {
+    return null;
+  }
+
+  /**
+   * Opens a new element with the given type.
+   * @param type JSON type
+   * @throws IOException I/O exception
+   */
+  private void open(final byte[] type) throws IOException {
+    atts.clear();
+    if(strings || type != STRING) atts.add(TYPE, type);
+    builder.openElem(name, atts, nsp);
+    name = null;
+  }
+
+  /**
+   * Adds a new element with the given type and value.
+   * @param type JSON type
+   * @param value value
+   * @throws IOException I/O exception
+   */
+  private void add(final byte[] type, final byte[] value) throws IOException {
+    open(type);
+    builder.text(chop ? trim(value) : value);
+    builder.closeElem();
+  }
+}
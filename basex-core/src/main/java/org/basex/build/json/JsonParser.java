@@ -1,11 +1,18 @@
 package org.basex.build.json;
 
+import static org.basex.query.QueryError.*;
+import static org.basex.util.Token.*;
+
 import java.io.*;
 
-import org.basex.build.xml.*;
+import org.basex.build.*;
+import org.basex.build.json.JsonOptions.*;
 import org.basex.core.*;
 import org.basex.io.*;
 import org.basex.io.parse.json.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
 
 /**
  * This class parses files in the JSON format
@@ -14,10 +21,23 @@ import org.basex.io.parse.json.*;
  * <p>The parser provides some options, which can be specified via the
  * {@link MainOptions#JSONPARSER} option.</p>
  *
+ * <p>If the direct conversion is chosen, and if types are not merged, the resulting nodes
+ * are sent to the builder while the input is parsed. Otherwise, the input is converted to
+ * a main-memory document, which is then sent to the builder.</p>
+ *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  */
-public final class JsonParser extends XMLParser {
+public final class JsonParser extends SingleParser {
+  /** JSON parser options. */
+  private final JsonParserOptions jopts;
+  /** Converter (can be {@code null}). */
+  private final JsonConverter conv;
+  /** Strip namespaces. */
+  private final boolean stripNS;
+  /** Chop whitespaces. */
+  private final boolean chop;
+
   /**
    * Constructor.
    * @param source document source
@@ -37,20 +57,54 @@ public final class JsonParser extends XMLParser {
    */
   public JsonParser(final IO source, final MainOptions opts, final JsonParserOptions jopts)
       throws IOException {
-    super(toXML(source, jopts), opts);
+    super(source, opts);
+    this.jopts = jopts;
+    stripNS = opts.get(MainOptions.STRIPNS);
+    chop = opts.get(MainOptions.CHOP);
+    final JsonFormat format = jopts.get(JsonOptions.FORMAT);
+    if(format == JsonFormat.MAP) throw BXJS_INVALID_X.getIO(JsonOptions.FORMAT.name(), format);
+    conv = format == JsonFormat.DIRECT && !jopts.get(JsonOptions.MERGE) ? null :
+      JsonConverter.get(jopts);
+  }
+
+  @Override
+  protected void parse() throws IOException {
+    if(conv == null) {
+      new JsonBuilder(jopts, chop, builder).convert(source);
+    } else {
+      for(final ANode node : ((ANode) conv.convert(source)).children()) add(node);
+    }
   }
 
   /**
-   * Converts a JSON document to XML.
-   * @param io input
-   * @param options parser options
-   * @return parser
+   * Sends the specified node and its descendants to the builder.
+   * @param node node
    * @throws IOException I/O exception
    */
-  private static IOContent toXML(final IO io, final JsonParserOptions options) throws IOException {
-    final JsonConverter conv = JsonConverter.get(options);
-    final IOContent xml = new IOContent(conv.convert(io).serialize().finish());
-    xml.name(io.name());
-    return xml;
+  private void add(final ANode node) throws IOException {
+    if(node.type == NodeType.TXT) {
+      builder.text(chop ? trim(node.string()) : node.string());
+    } else if(node.type == NodeType.ELM) {
+      atts.clear();
+      nsp.clear();
+      for(final ANode att : node.attributes()) atts.add(name(att.name()), att.string());
+      if(!stripNS) {
+        final Atts ns = node.namespaces();
+        final int nl = ns.size();
+        for(int n = 0; n < nl; n++) nsp.add(ns.name(n), ns.value(n));
+      }
+      builder.openElem(name(node.name()), atts, nsp);
+      for(final ANode child : node.children()) add(child);
+      builder.closeElem();
+    }
+  }
+
+  /**
+   * Returns the specified name, or its local name if namespaces are stripped.
+   * @param name name
+   * @return name
+   */
+  private byte[] name(final byte[] name) {
+    return stripNS ? local(name) : name;
   }
 }
@@ -337,7 +337,7 @@ public abstract class Command extends Proc {
    */
   protected final boolean finishUpdate(final Data data) {
     try {
-      Optimize.finish(data);
+      Optimize.finish(data, context.indexing);
       data.finishUpdate(options);
       return true;
     } catch(final IOException ex) {
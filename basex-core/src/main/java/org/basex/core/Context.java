@@ -30,6 +30,13 @@ public final class Context {
   public final ClientBlocker blocker;
   /** Asynchronous queries. */
   public final QueryPool queries;
+  /**
+   * Thread pool for building index structures.
+   * At least two threads are used, as disk access and indexing can overlap.
+   */
+  public final ForkJoinPool indexing;
+  /** Sources of imported modules. */
+  public final ModuleCache modules;
   /** Options. */
   public final MainOptions options;
   /** Static options. */
@@ -111,6 +118,8 @@ public final class Context {
     repo = ctx.repo;
     log = ctx.log;
     queries = ctx.queries;
+    indexing = ctx.indexing;
+    modules = ctx.modules;
     procs = ctx.procs;
   }
 
@@ -130,7 +139,9 @@ public final class Context {
     users = new Users(soptions);
     repo = new EXPathRepo(soptions);
     log = new Log(soptions);
-    queries = new QueryPool();
+    queries = new QueryPool(soptions);
+    indexing = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    modules = new ModuleCache();
     user = users.get(UserText.ADMIN);
     listener = null;
     procs = new ConcurrentHashMap<>();
@@ -159,6 +170,8 @@ public final class Context {
    */
   public synchronized void close() {
     // stop running queries
+    queries.close();
+    indexing.shutdown();
     for(final Proc proc : procs.keySet()) proc.stop();
     while(!procs.isEmpty()) Thread.yield();
     // stop sessions, close data references
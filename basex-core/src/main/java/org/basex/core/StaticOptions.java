@@ -3,6 +3,7 @@ package org.basex.core;
 import java.util.*;
 
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.options.*;
 
@@ -36,6 +37,8 @@ public final class StaticOptions extends Options {
   public static final BooleanOption LANGKEYS = new BooleanOption("LANGKEYS", false);
   /** Applied locking algorithm: local (database) vs. global (process) locking. */
   public static final BooleanOption GLOBALLOCK = new BooleanOption("GLOBALLOCK", false);
+  /** Memory budget (megabytes) for buffering database pages. */
+  public static final NumberOption BUFFERPOOL = new NumberOption("BUFFERPOOL", 64);
 
   /** Comment: written to options file. */
   public static final Comment C_CLIENT = new Comment("Client/Server Architecture");
@@ -52,6 +55,8 @@ public final class StaticOptions extends Options {
   public static final StringOption PASSWORD = new StringOption("PASSWORD", "");
   /** Server: host, used for binding the server. Empty string for wildcard. */
   public static final StringOption SERVERHOST = new StringOption("SERVERHOST", "");
+  /** Server: maximum number of worker threads for processing client requests. */
+  public static final NumberOption SERVERTHREADS = new NumberOption("SERVERTHREADS", 64);
   /** Server: proxy host (default: ignored). */
   public static final StringOption PROXYHOST = new StringOption("PROXYHOST", "");
   /** Server: proxy port (default: ignored). */
@@ -71,8 +76,16 @@ public final class StaticOptions extends Options {
   public static final BooleanOption LOG = new BooleanOption("LOG", true);
   /** Log message cut-off. */
   public static final NumberOption LOGMSGMAXLEN = new NumberOption("LOGMSGMAXLEN", 1000);
+  /** Maximum number of buffered log entries; entries are written synchronously if set to 0. */
+  public static final NumberOption LOGBUFFER = new NumberOption("LOGBUFFER", 10000);
+  /** Interval (milliseconds) for flushing buffered log entries. */
+  public static final NumberOption LOGFLUSH = new NumberOption("LOGFLUSH", 500);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption ASYNCTIMEOUT = new NumberOption("ASYNCTIMEOUT", 3600);
+  /** Maximum number of threads for asynchronous queries and fork-join tasks. */
+  public static final NumberOption ASYNCTHREADS = new NumberOption("ASYNCTHREADS", 8);
+  /** Maximum number of pending asynchronous queries per user; deactivated if set to 0. */
+  public static final NumberOption ASYNCLIMIT = new NumberOption("ASYNCLIMIT", 0);
 
   /** Comment: written to options file. */
   public static final Comment C_HTTP = new Comment("HTTP Services");
@@ -119,6 +132,7 @@ public final class StaticOptions extends Options {
     Prop.language = get(LANG);
     Prop.langkeys = get(LANGKEYS);
     Prop.debug = get(DEBUG);
+    BufferPool.budget(get(BUFFERPOOL));
     final String ph = get(PROXYHOST);
     if(!ph.isEmpty()) {
       Prop.setSystem("http.proxyHost", ph);
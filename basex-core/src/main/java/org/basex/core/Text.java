@@ -179,6 +179,22 @@ public interface Text {
   /** Index info. */
   String SORTED_LIST = "Sorted List";
 
+  /** Buffer info. */
+  String BUFFERS_X_X = "Buffers: % of % pages allocated";
+  /** Buffer info. */
+  String BUFFER_STATS_X = "%: % pages, % hits, % misses (%)";
+
+  /** Thread pool info. */
+  String THREAD_POOLS = "Thread Pools";
+  /** Thread pool info. */
+  String ASYNC_QUERIES = "Asynchronous queries";
+  /** Thread pool info. */
+  String FORK_JOIN_TASKS = "Fork-join tasks";
+  /** Thread pool info. */
+  String POOL_STATS_X = "%: % of % threads active, % queued, % finished, latency: % (avg), % (max)";
+  /** Module cache info. */
+  String MODULE_CACHE_X = "Module Cache: % of % modules, % hits, % misses (%)";
+
   /** Query hits. */
   String ITEM = "Item";
   /** Query hits. */
@@ -102,7 +102,7 @@ public final class CreateDB extends ACreate {
 
       if(!startUpdate()) return false;
       try {
-        CreateIndex.create(data, this);
+        CreateIndex.create(data, context.indexing, this);
       } finally {
         if(!finishUpdate()) return false;
       }
@@ -171,7 +171,7 @@ public final class CreateDB extends ACreate {
       data = Open.open(name, ctx, options);
     }
 
-    CreateIndex.create(data, null);
+    CreateIndex.create(data, ctx.indexing, null);
     return data;
   }
 
@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -61,7 +63,7 @@ public final class CreateIndex extends ACreate {
     if(!startUpdate()) return false;
     boolean ok = true;
     try {
-      create(type, data, this);
+      create(type, data, context.indexing, this);
       ok = info(INDEX_CREATED_X_X, type, perf);
     } catch(final IOException ex) {
       ok = error(Util.message(ex));
@@ -79,26 +81,48 @@ public final class CreateIndex extends ACreate {
   /**
    * Builds the index structures.
    * @param data data reference
+   * @param pool thread pool for building index structures
    * @param cmd calling command
    * @throws IOException I/O exception
    */
-  static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+  static void create(final Data data, final ForkJoinPool pool, final ACreate cmd)
+      throws IOException {
+    final ArrayList<IndexType> types = new ArrayList<>(4);
+    if(data.meta.createtext) types.add(IndexType.TEXT);
+    if(data.meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(data.meta.createtoken) types.add(IndexType.TOKEN);
+    if(data.meta.createft) types.add(IndexType.FULLTEXT);
+    for(final IndexType type : types) DropIndex.drop(type, data);
+    create(types, data, pool, cmd);
+  }
+
+  /**
+   * Builds the specified index structures in parallel.
+   * Existing index structures must have been dropped before.
+   * @param types index types
+   * @param data data reference
+   * @param pool thread pool for building index structures
+   * @param cmd calling command
+   * @throws IOException I/O exception
+   */
+  static void create(final ArrayList<IndexType> types, final Data data, final ForkJoinPool pool,
+      final ACreate cmd) throws IOException {
+    IndexBuilders.build(data, types, pool, cmd);
+    for(final IndexType type : types) data.meta.index(type, true);
   }
 
   /**
    * Builds the specified index.
    * @param type index to be built
    * @param data data reference
+   * @param pool thread pool for building index structures
    * @param cmd calling command
    * @throws IOException I/O exception
    */
-  static void create(final IndexType type, final Data data, final ACreate cmd) throws IOException {
+  static void create(final IndexType type, final Data data, final ForkJoinPool pool,
+      final ACreate cmd) throws IOException {
     DropIndex.drop(type, data);
-    data.createIndex(type, cmd);
+    data.createIndex(type, pool, cmd);
     data.meta.index(type, true);
   }
 }
@@ -2,6 +2,8 @@ package org.basex.core.cmd;
 
 import static org.basex.core.Text.*;
 
+import java.io.*;
+
 import org.basex.core.*;
 import org.basex.core.locks.*;
 import org.basex.core.parse.*;
@@ -9,6 +11,8 @@ import org.basex.core.parse.Commands.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
 import org.basex.util.list.*;
 
 /**
@@ -85,7 +89,21 @@ public final class DropDB extends ACreate {
    */
   public static synchronized boolean drop(final IOFile path, final String pat) {
     boolean ok = true;
-    for(final IOFile f : path.children()) ok &= !f.name().matches(pat) || f.delete();
+    for(final IOFile f : path.children()) {
+      if(!f.name().matches(pat)) continue;
+      // save original file if database is currently updated
+      final Journal journal = Journal.get(f);
+      if(journal != null) {
+        try {
+          journal.save(f);
+        } catch(final IOException ex) {
+          Util.debug(ex);
+          ok = false;
+          continue;
+        }
+      }
+      ok &= f.delete();
+    }
     return ok;
   }
 
@@ -0,0 +1,131 @@
+package org.basex.core.cmd;
+
+import static org.basex.core.Text.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+
+/**
+ * Builds several index structures of a database in parallel.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class IndexBuilders extends Proc {
+  /** Processes of the single index builders. */
+  private final Builder[] builders;
+
+  /**
+   * Constructor.
+   * @param size number of index structures
+   */
+  private IndexBuilders(final int size) {
+    builders = new Builder[size];
+    for(int b = 0; b < size; b++) builders[b] = new Builder();
+  }
+
+  /**
+   * Builds the specified index structures.
+   * @param data data reference
+   * @param types index types
+   * @param pool thread pool for building index structures
+   * @param cmd calling command (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void build(final Data data, final ArrayList<IndexType> types, final ForkJoinPool pool,
+      final Proc cmd) throws IOException {
+
+    final int ts = types.size();
+    if(ts == 1) {
+      data.createIndex(types.get(0), pool, cmd);
+    } else if(ts > 1) {
+      final IndexBuilders ib = new IndexBuilders(ts);
+      if(cmd != null) cmd.proc(ib);
+      ib.build(data, types, pool);
+    }
+  }
+
+  /**
+   * Builds the specified index structures in parallel.
+   * @param data data reference
+   * @param types index types
+   * @param pool thread pool for building index structures
+   * @throws IOException I/O exception
+   */
+  private void build(final Data data, final ArrayList<IndexType> types, final ForkJoinPool pool)
+      throws IOException {
+    final int ts = types.size();
+    final ArrayList<Future<Void>> futures = new ArrayList<>(ts);
+    for(int t = 0; t < ts; t++) {
+      final IndexType type = types.get(t);
+      final Builder builder = builders[t];
+      futures.add(pool.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          data.createIndex(type, pool, builder);
+          return null;
+        }
+      }));
+    }
+
+    // wait for all builders; stop them if the process is interrupted or if a builder fails
+    Throwable error = null;
+    for(final Future<Void> future : futures) {
+      while(true) {
+        try {
+          future.get(100, TimeUnit.MILLISECONDS);
+          break;
+        } catch(final TimeoutException ex) {
+          if(state != State.OK) stopAll();
+        } catch(final ExecutionException ex) {
+          final Throwable th = ex.getCause();
+          if(error == null || error instanceof ProcException) error = th;
+          stopAll();
+          break;
+        } catch(final InterruptedException ex) {
+          stopAll();
+        }
+      }
+    }
+    if(error instanceof IOException) throw (IOException) error;
+    if(error instanceof RuntimeException) throw (RuntimeException) error;
+    if(error instanceof Error) throw (Error) error;
+  }
+
+  /**
+   * Stops all builders.
+   */
+  private void stopAll() {
+    for(final Builder builder : builders) builder.stop();
+  }
+
+  @Override
+  protected void abort() {
+    for(final Builder builder : builders) builder.abort();
+  }
+
+  @Override
+  protected double prog() {
+    double prog = 0;
+    for(final Builder builder : builders) prog += builder.progress();
+    return prog / builders.length;
+  }
+
+  @Override
+  protected String tit() {
+    return CREATING_INDEXES;
+  }
+
+  /** Process of a single index builder. */
+  private static final class Builder extends Proc {
+    @Override
+    protected void abort() {
+      super.abort();
+    }
+  }
+}
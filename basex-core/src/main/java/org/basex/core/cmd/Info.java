@@ -47,6 +47,8 @@ public final class Info extends AInfo {
 
     final User user = context.user();
     info(tb, USED_MEM, Performance.getMemory());
+    tb.add(NL).add(context.queries.info());
+    tb.add(NL).add(context.modules.info());
 
     if(user.has(Perm.ADMIN)) {
       final StaticOptions sopts = context.soptions;
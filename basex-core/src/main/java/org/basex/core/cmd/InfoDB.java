@@ -91,6 +91,7 @@ public final class InfoDB extends AInfo {
         info(tb, MainOptions.STOPWORDS.name(), meta.stopwords);
         info(tb, MainOptions.UPDINDEX.name(), meta.updindex);
         info(tb, MainOptions.AUTOOPTIMIZE.name(), meta.autooptimize);
+        info(tb, MainOptions.MMAP.name(), meta.mmap);
         info(tb, MainOptions.MAXCATS.name(), meta.maxcats);
         info(tb, MainOptions.MAXLEN.name(), meta.maxlen);
         info(tb, MainOptions.SPLITSIZE.name(), meta.splitsize);
@@ -8,6 +8,8 @@ import org.basex.core.*;
 import org.basex.core.locks.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
 
@@ -91,9 +93,11 @@ public final class Open extends Command {
         // check if the addressed database exists
         if(!context.soptions.dbExists(name)) throw new BaseXException(dbnf(name));
 
-        // do not open a database that is currently updated
+        // do not open a database that is currently updated; roll back interrupted updates
         final MetaData meta = new MetaData(name, options, context.soptions);
-        if(meta.updateFile().exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
+        final IOFile uf = meta.updateFile();
+        if(uf.exists() && (Journal.get(uf) != null || TableDiskAccess.locked(name, context) ||
+            !Journal.recover(uf))) throw new BaseXException(DB_UPDATED_X, meta.name);
 
         // open database
         data = new DiskData(meta);
@@ -3,11 +3,14 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.ft.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -47,7 +50,13 @@ public final class Optimize extends ACreate {
         data.meta.autooptimize = autoopt;
         data.meta.dirty = true;
       }
-      optimize(data, this);
+      // reassign table access flag (will be considered when the database is reopened)
+      final boolean mmap = options.get(MainOptions.MMAP);
+      if(mmap != data.meta.mmap) {
+        data.meta.mmap = mmap;
+        data.meta.dirty = true;
+      }
+      optimize(data, context.indexing, this);
       ok = info(DB_OPTIMIZED_X, meta.name, perf);
     } catch(final IOException ex) {
       ok = error(Util.message(ex));
@@ -75,23 +84,26 @@ public final class Optimize extends ACreate {
   /**
    * Optimizes a database after updates.
    * @param data data
+   * @param pool thread pool for building index structures
    * @throws IOException I/O Exception during index rebuild
    */
-  public static void finish(final Data data) throws IOException {
+  public static void finish(final Data data, final ForkJoinPool pool) throws IOException {
     // GH-676: optimize database and rebuild index structures if ID has turned negative
-    if(data.meta.lastid < data.meta.size - 1) optimizeIds(data);
+    if(data.meta.lastid < data.meta.size - 1) optimizeIds(data, pool);
     // GH-1035: auto-optimize database
-    if(data.meta.autooptimize) optimize(data, null);
+    if(data.meta.autooptimize) optimize(data, pool, null);
   }
 
   /**
    * Optimizes the structures of a database.
    * @param data data
+   * @param pool thread pool for building index structures
    * @param cmd calling command instance (may be {@code null})
    * @throws IOException I/O Exception during index rebuild
    */
-  public static void optimize(final Data data, final Optimize cmd) throws IOException {
-    optimize(data, false, false, false, false, cmd);
+  public static void optimize(final Data data, final ForkJoinPool pool, final Optimize cmd)
+      throws IOException {
+    optimize(data, false, false, false, false, pool, cmd);
   }
 
   /**
@@ -101,12 +113,13 @@ public final class Optimize extends ACreate {
    * @param enforceAttr enforce creation or deletion of attribute index
    * @param enforceToken enforce creation or deletion of token index
    * @param enforceFt enforce creation or deletion of full-text index
+   * @param pool thread pool for building index structures
    * @param cmd calling command instance (may be {@code null})
    * @throws IOException I/O Exception during index rebuild
    */
   public static void optimize(final Data data, final boolean enforceText, final boolean enforceAttr,
-      final boolean enforceToken, final boolean enforceFt, final Optimize cmd)
-      throws IOException {
+      final boolean enforceToken, final boolean enforceFt, final ForkJoinPool pool,
+      final Optimize cmd) throws IOException {
 
     // initialize structural indexes
     final MetaData md = data.meta;
@@ -156,37 +169,46 @@ public final class Optimize extends ACreate {
     }
 
     // rebuild value indexes
-    optimize(IndexType.TEXT, data, md.createtext, enforceText, cmd);
-    optimize(IndexType.ATTRIBUTE, data, md.createattr, enforceAttr, cmd);
-    optimize(IndexType.TOKEN, data, md.createtoken, enforceToken, cmd);
-    optimize(IndexType.FULLTEXT, data, md.createft, enforceFt, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>(4);
+    optimize(IndexType.TEXT, data, md.createtext, enforceText, types);
+    optimize(IndexType.ATTRIBUTE, data, md.createattr, enforceAttr, types);
+    optimize(IndexType.TOKEN, data, md.createtoken, enforceToken, types);
+    optimize(IndexType.FULLTEXT, data, md.createft, enforceFt, types);
+    CreateIndex.create(types, data, pool, cmd);
   }
 
   /**
-   * Creates or deletes the specified index if the old and new state is different.
+   * Deletes the specified index or chooses it for being created if the old and new state
+   * is different.
    * @param type index type
    * @param data data reference
    * @param create new flag
    * @param enforce enforce operation
-   * @param cmd calling command instance
+   * @param types index structures to be created
    * @throws IOException I/O exception
    */
   private static void optimize(final IndexType type, final Data data, final boolean create,
-      final boolean enforce, final Optimize cmd) throws IOException {
+      final boolean enforce, final ArrayList<IndexType> types) throws IOException {
 
     // check if flags have changed
-    if(create == data.meta.index(type) && !enforce) return;
+    if(create == data.meta.index(type) && !enforce) {
+      // merge pending updates into the full-text index
+      if(create && data.index(type) instanceof UpdatableFTIndex &&
+          ((UpdatableFTIndex) data.index(type)).updated()) types.add(type);
+      return;
+    }
     // create or drop index
-    if(create) CreateIndex.create(type, data, cmd);
-    else DropIndex.drop(type, data);
+    DropIndex.drop(type, data);
+    if(create) types.add(type);
   }
 
   /**
    * Creates new node ids and recreates updatable index structures.
    * @param data data
+   * @param pool thread pool for building index structures
    * @throws IOException I/O Exception during index rebuild
    */
-  private static void optimizeIds(final Data data) throws IOException {
+  private static void optimizeIds(final Data data, final ForkJoinPool pool) throws IOException {
     final MetaData md = data.meta;
     final int size = md.size;
     for(int pre = 0; pre < size; ++pre) data.id(pre, pre);
@@ -195,9 +217,12 @@ public final class Optimize extends ACreate {
 
     if(data.meta.updindex) {
       data.idmap = new IdPreMap(md.lastid);
-      if(data.meta.textindex) optimize(IndexType.TEXT, data, true, true, null);
-      if(data.meta.attrindex) optimize(IndexType.ATTRIBUTE, data, true, true, null);
-      if(data.meta.tokenindex) optimize(IndexType.TOKEN, data, true, true, null);
+      final ArrayList<IndexType> types = new ArrayList<>(4);
+      if(data.meta.textindex) optimize(IndexType.TEXT, data, true, true, types);
+      if(data.meta.attrindex) optimize(IndexType.ATTRIBUTE, data, true, true, types);
+      if(data.meta.tokenindex) optimize(IndexType.TOKEN, data, true, true, types);
+      if(data.meta.ftindex) optimize(IndexType.FULLTEXT, data, true, true, types);
+      CreateIndex.create(types, data, pool, null);
     }
   }
 }
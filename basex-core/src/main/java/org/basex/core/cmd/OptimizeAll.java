@@ -12,6 +12,7 @@ import org.basex.core.parse.Commands.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.io.serial.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
@@ -143,13 +144,12 @@ public final class OptimizeAll extends ACreate {
         dt.meta.createft = ometa.createft;
         dt.meta.filesize = ometa.filesize;
         dt.meta.dirty = true;
-        CreateIndex.create(dt, cmd);
+        CreateIndex.create(dt, context.indexing, cmd);
 
         // move binary files
         final IOFile bin = data.meta.binaries();
         if(bin.exists()) bin.rename(dt.meta.binaries());
-        final IOFile upd = odata.meta.updateFile();
-        if(upd.exists()) upd.copyTo(dt.meta.updateFile());
+        if(odata.meta.updateFile().exists()) Journal.create(dt.meta.updateFile());
       } finally {
         dt.close();
       }
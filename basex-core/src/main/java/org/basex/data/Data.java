@@ -4,6 +4,7 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.index.*;
@@ -105,6 +106,8 @@ public abstract class Data {
   public boolean updateDists = true;
   /** ID->PRE mapping. */
   public IdPreMap idmap;
+  /** ID->PRE runs, used if no updatable indexes exist (lazy instantiation). */
+  protected volatile IdPreRuns idruns;
 
   /** Table access file. */
   protected TableAccess table;
@@ -125,10 +128,12 @@ public abstract class Data {
   /**
    * Drops the specified index.
    * @param type index to be dropped
-   * @param cmd calling command
+   * @param pool thread pool for building the index
+   * @param proc calling process (can be {@code null})
    * @throws IOException I/O exception
    */
-  public abstract void createIndex(IndexType type, Command cmd) throws IOException;
+  public abstract void createIndex(IndexType type, ForkJoinPool pool, Proc proc)
+      throws IOException;
 
   /**
    * Drops the specified index.
@@ -252,14 +257,17 @@ public abstract class Data {
    */
   public final int pre(final int id) {
     if(meta.updindex) return idmap.pre(id);
+    final IdPreRuns ir = idruns;
+    return (ir != null ? ir : idRuns()).pre(id);
+  }
 
-    // find pre value in the table; start with specified id
-    final int size = meta.size;
-    for(int p = Math.max(0, id); p < meta.size; ++p) if(id == id(p)) return p;
-    final int ps = Math.min(size, id);
-    for(int p = 0; p < ps; ++p) if(id == id(p)) return p;
-    // id not found
-    return -1;
+  /**
+   * Returns the ID->PRE runs. They will be read or created if they have not been requested before.
+   * @return runs
+   */
+  private synchronized IdPreRuns idRuns() {
+    if(idruns == null) idruns = IdPreRuns.get(this);
+    return idruns;
   }
 
   /**
@@ -511,18 +519,23 @@ public abstract class Data {
       } else {
         // update element name
         final IntList pres = new IntList();
-        // update text index
-        if(meta.updindex && meta.textindex) {
+        // update text and full-text index
+        final boolean text = meta.updindex && meta.textindex, ft = meta.updindex && meta.ftindex;
+        if(text || ft) {
           final int last = pre + sz;
           for(int curr = pre + attSize(pre, kind); curr < last; curr += size(curr, kind(curr))) {
             if(kind(curr) == TEXT) pres.add(curr);
           }
-          textIndex.delete(new ValueCache(pres, IndexType.TEXT, this));
+          if(text) textIndex.delete(new ValueCache(pres, IndexType.TEXT, this));
+          if(ft) ftIndex.delete(new ValueCache(pres, IndexType.FULLTEXT, this));
         }
         table.write1(pre, 3, uriId);
         final int nameId = elemNames.index(name, null, false);
         table.write2(nsPre, 1, (nsFlag || nsFlag(nsPre) ? 1 << 15 : 0) | nameId);
-        if(!pres.isEmpty()) textIndex.add(new ValueCache(pres, IndexType.TEXT, this));
+        if(!pres.isEmpty()) {
+          if(text) textIndex.add(new ValueCache(pres, IndexType.TEXT, this));
+          if(ft) ftIndex.add(new ValueCache(pres, IndexType.FULLTEXT, this));
+        }
       }
     }
   }
@@ -832,6 +845,7 @@ public abstract class Data {
    */
   public final void id(final int pre, final int value) {
     table.write4(pre, 12, value);
+    idruns = null;
   }
 
   /**
@@ -1048,7 +1062,10 @@ public abstract class Data {
       if(meta.textindex) textIndex.delete(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.delete(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.delete(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.delete(new ValueCache(pre, size, IndexType.FULLTEXT, this));
       if(id != -1) idmap.delete(pre, id, -size);
+    } else if(id != -1 && idruns != null) {
+      idruns.delete(pre, size);
     }
   }
 
@@ -1066,6 +1083,9 @@ public abstract class Data {
       if(meta.textindex) textIndex.add(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.add(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.add(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.add(new ValueCache(pre, size, IndexType.FULLTEXT, this));
+    } else if(id != -1 && idruns != null) {
+      idruns.insert(pre, id, size);
     }
   }
 
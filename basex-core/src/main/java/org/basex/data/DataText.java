@@ -40,6 +40,8 @@ public interface DataText {
   String DBUPDIDX = "UPDINDEX";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
+  /** Memory-mapped table access. */
+  String DBMMAP = "MMAP";
   /** Text index. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute index. */
@@ -127,6 +129,8 @@ public interface DataText {
   String DATAPTH = "pth";
   /** Database - ID->PRE mapping. */
   String DATAIDP = "idp";
+  /** Database - ID->PRE runs. */
+  String DATAIDR = "idr";
 
   // XML SERIALIZATION ============================================================================
 
@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -36,6 +37,8 @@ public final class DiskData extends Data {
   private DataAccess values;
   /** Closed flag. */
   private boolean closed;
+  /** Journal of the current update ({@code null} if no journal exists). */
+  private Journal journal;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -72,7 +75,7 @@ public final class DiskData extends Data {
       if(meta.attrindex) attrIndex = new DiskValues(this, IndexType.ATTRIBUTE);
       if(meta.tokenindex) tokenIndex = new DiskValues(this, IndexType.TOKEN);
     }
-    if(meta.ftindex) ftIndex = new FTIndex(this);
+    if(meta.ftindex) ftIndex = meta.updindex ? new UpdatableFTIndex(this) : new FTIndex(this);
   }
 
   /**
@@ -102,7 +105,7 @@ public final class DiskData extends Data {
    * @throws IOException I/O exception
    */
   private void init() throws IOException {
-    table = new TableDiskAccess(meta, false);
+    table = meta.mmap ? TableMappedAccess.get(meta, false) : new TableDiskAccess(meta, false);
     texts = new DataAccess(meta.dbfile(DATATXT));
     values = new DataAccess(meta.dbfile(DATAATV));
   }
@@ -114,6 +117,9 @@ public final class DiskData extends Data {
   private void write() throws IOException {
     if(!meta.dirty) return;
 
+    final IdPreRuns ir = idruns;
+    if(ir != null) ir.write(meta);
+
     try(final DataOutput out = new DataOutput(meta.dbfile(DATAINF))) {
       meta.write(out);
       out.writeToken(token(DBTAGS));
@@ -136,17 +142,23 @@ public final class DiskData extends Data {
   public synchronized void close() {
     if(closed) return;
     closed = true;
+    // all resources must be closed, even if writing fails
     try {
       write();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    try {
       table.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    } finally {
       texts.close();
       values.close();
       close(IndexType.TEXT);
       close(IndexType.ATTRIBUTE);
       close(IndexType.TOKEN);
       close(IndexType.FULLTEXT);
-    } catch(final IOException ex) {
-      Util.stack(ex);
     }
   }
 
@@ -164,16 +176,17 @@ public final class DiskData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
+  public void createIndex(final IndexType type, final ForkJoinPool pool, final Proc proc)
+      throws IOException {
     // close existing index
     close(type);
     final IndexBuilder ib;
     switch(type) {
-      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type); break;
-      case FULLTEXT: ib = new FTBuilder(this); break;
+      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type, pool); break;
+      case FULLTEXT: ib = new FTBuilder(this, pool); break;
       default: throw Util.notExpected();
     }
-    if(cmd != null) cmd.proc(ib);
+    if(proc != null) proc.proc(ib);
     set(type, ib.build());
   }
 
@@ -206,25 +219,32 @@ public final class DiskData extends Data {
     if(opts.get(MainOptions.AUTOFLUSH)) {
       final IOFile uf = meta.updateFile();
       if(uf.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
-      if(!uf.touch()) throw Util.notExpected("%: could not create lock file.", meta.name);
+      journal = Journal.start(uf);
     }
   }
 
   @Override
   public synchronized void finishUpdate(final MainOptions opts) {
-    // remove updating file
-    final boolean auto = opts.get(MainOptions.AUTOFLUSH);
-    if(auto) {
-      final IOFile uf = meta.updateFile();
-      if(!uf.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
-      if(!uf.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
-    }
-
     // db:optimize(..., true) will close the database before this function is called
+    final boolean auto = opts.get(MainOptions.AUTOFLUSH);
     if(!closed) {
       flush(auto);
       if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
     }
+
+    // commit changes: sync all modified files and remove journal
+    if(auto) {
+      final IOFile uf = meta.updateFile();
+      if(!uf.exists()) throw Util.notExpected("%: journal does not exist.", meta.name);
+      try {
+        if(journal != null) journal.commit();
+        else if(!uf.delete()) throw new IOException("Could not delete " + uf);
+      } catch(final IOException ex) {
+        throw Util.notExpected("%: %", meta.name, ex);
+      } finally {
+        journal = null;
+      }
+    }
   }
 
   @Override
@@ -237,6 +257,7 @@ public final class DiskData extends Data {
         values.flush();
         if(textIndex != null) textIndex.flush();
         if(attrIndex != null) attrIndex.flush();
+        if(ftIndex != null) ftIndex.flush();
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -266,9 +287,12 @@ public final class DiskData extends Data {
     final long o = textRef(pre);
     if(number(o)) return numDigits((int) o);
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(o & IO.OFFCOMP - 1);
-    // compressed: next number contains number of compressed bytes
-    return compressed(o) ? da.readNum() : l;
+    // lock access, as the cursor must not be moved by other threads
+    synchronized(da) {
+      final int l = da.readNum(o & IO.OFFCOMP - 1);
+      // compressed: next number contains number of compressed bytes
+      return compressed(o) ? da.readNum() : l;
+    }
   }
 
   /**
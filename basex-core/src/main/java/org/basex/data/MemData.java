@@ -3,6 +3,7 @@ package org.basex.data;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.index.*;
@@ -74,17 +75,18 @@ public final class MemData extends Data {
   public void close() { }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
+  public void createIndex(final IndexType type, final ForkJoinPool pool, final Proc proc)
+      throws IOException {
     final IndexBuilder ib;
     switch(type) {
       case TEXT: case ATTRIBUTE: case TOKEN:
-        ib = new MemValuesBuilder(this, type); break;
+        ib = new MemValuesBuilder(this, type, pool); break;
       case FULLTEXT:
         throw new BaseXException(NO_MAINMEM);
       default:
         throw Util.notExpected();
     }
-    if(cmd != null) cmd.proc(ib);
+    if(proc != null) proc.proc(ib);
     set(type, ib.build());
   }
 
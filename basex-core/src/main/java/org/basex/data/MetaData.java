@@ -53,6 +53,8 @@ public final class MetaData {
   public boolean updindex;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
+  /** Flag for memory-mapped table access. */
+  public boolean mmap;
 
   /** Indicates if the text index is to be recreated. */
   public boolean createtext;
@@ -136,6 +138,7 @@ public final class MetaData {
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    mmap = options.get(MainOptions.MMAP);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -378,6 +381,7 @@ public final class MetaData {
         else if(k.equals(DBCHOP))     chop         = toBool(v);
         else if(k.equals(DBUPDIDX))   updindex     = toBool(v);
         else if(k.equals(DBAUTOOPT))  autooptimize = toBool(v);
+        else if(k.equals(DBMMAP))     mmap         = toBool(v);
         else if(k.equals(DBTXTIDX))   textindex    = toBool(v);
         else if(k.equals(DBATVIDX))   attrindex    = toBool(v);
         else if(k.equals(DBTOKIDX))   tokenindex   = toBool(v);
@@ -409,6 +413,8 @@ public final class MetaData {
     corrupt = dbfile(DATAUPD).exists();
     // deactivate full-text index if obsolete trie structure was used
     if(wcindex) ftindex = false;
+    // deactivate full-text index if it was created without support for updates
+    if(updindex && ftindex && !dbfile(DATAFTX + 'u').exists()) ftindex = false;
   }
 
   /**
@@ -427,6 +433,7 @@ public final class MetaData {
     writeInfo(out, DBCHOP,     chop);
     writeInfo(out, DBUPDIDX,   updindex);
     writeInfo(out, DBAUTOOPT,  autooptimize);
+    writeInfo(out, DBMMAP,     mmap);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
@@ -464,8 +471,8 @@ public final class MetaData {
       textindex = false;
       attrindex = false;
       tokenindex = false;
+      ftindex = false;
     }
-    ftindex = false;
   }
 
   /**
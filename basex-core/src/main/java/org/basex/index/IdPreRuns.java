@@ -0,0 +1,259 @@
+package org.basex.index;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Compact ID -> PRE mapping for databases without updatable index structures.
+ *
+ * As ids are assigned in ascending order, most of them are monotone in document order.
+ * The mapping is represented by runs of consecutive ids and pre values, which are sorted by
+ * their first id. A pre value can be found via binary search, and updates are applied by
+ * shifting, splitting and trimming the affected runs.
+ *
+ * The runs are stored in a database file ({@link DataText#DATAIDR}), which has the following
+ * format: {@code [time, size, lastid, ids, pres, sizes]}. The file is ignored if the database
+ * has been modified after it was written.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class IdPreRuns {
+  /** First ids of the runs (sorted). */
+  private int[] ids;
+  /** First pre values of the runs. */
+  private int[] pres;
+  /** Sizes of the runs. */
+  private int[] sizes;
+  /** Number of runs. */
+  private int runs;
+  /** Dirty flag. */
+  private boolean dirty;
+
+  /**
+   * Constructor.
+   * @param ids first ids
+   * @param pres first pre values
+   * @param sizes sizes
+   */
+  private IdPreRuns(final int[] ids, final int[] pres, final int[] sizes) {
+    this.ids = ids;
+    this.pres = pres;
+    this.sizes = sizes;
+    runs = ids.length;
+  }
+
+  /**
+   * Returns the mapping of the specified database. It will be read from disk if it is up-to-date,
+   * or created from the table otherwise.
+   * @param data data reference
+   * @return mapping
+   */
+  public static IdPreRuns get(final Data data) {
+    if(!data.inMemory()) {
+      final IOFile file = data.meta.dbfile(DATAIDR);
+      if(file.exists()) {
+        try(final DataInput in = new DataInput(file)) {
+          final MetaData meta = data.meta;
+          if(in.readNum() == (int) meta.time && in.readNum() == (int) (meta.time >>> 32) &&
+             in.readNum() == meta.size && in.readNum() == meta.lastid) {
+            return new IdPreRuns(in.readNums(), in.readNums(), in.readNums());
+          }
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+      }
+    }
+
+    // collect runs in document order
+    final IntList il = new IntList(), pl = new IntList(), sl = new IntList();
+    final int size = data.meta.size;
+    for(int pre = 0, last = -2; pre < size; pre++) {
+      final int id = data.id(pre);
+      if(id == last + 1) {
+        sl.set(sl.size() - 1, sl.peek() + 1);
+      } else {
+        il.add(id);
+        pl.add(pre);
+        sl.add(1);
+      }
+      last = id;
+    }
+    // sort runs by their ids
+    final int[] order = il.createOrder();
+    final int rs = order.length;
+    final int[] pres = new int[rs], sizes = new int[rs];
+    for(int r = 0; r < rs; r++) {
+      pres[r] = pl.get(order[r]);
+      sizes[r] = sl.get(order[r]);
+    }
+    final IdPreRuns ipr = new IdPreRuns(il.finish(), pres, sizes);
+    ipr.dirty = true;
+    return ipr;
+  }
+
+  /**
+   * Returns the pre value for the specified id.
+   * @param id id
+   * @return pre value or {@code -1} if the id was not found
+   */
+  public int pre(final int id) {
+    int l = 0, h = runs - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1, d = id - ids[m];
+      if(d < 0) h = m - 1;
+      else if(d >= sizes[m]) l = m + 1;
+      else return pres[m] + d;
+    }
+    return -1;
+  }
+
+  /**
+   * Inserts new ids.
+   * @param pre first pre value
+   * @param id first id
+   * @param size number of inserted ids
+   */
+  public void insert(final int pre, final int id, final int size) {
+    final Runs rs = new Runs(runs + 2);
+    boolean added = false;
+    for(int r = 0; r < runs; r++) {
+      final int ri = ids[r], rp = pres[r], re = rp + sizes[r];
+      // new ids are not contained in existing runs
+      if(!added && id < ri) {
+        rs.add(id, pre, size);
+        added = true;
+      }
+      if(rp >= pre) {
+        rs.add(ri, rp + size, re - rp);
+      } else if(re <= pre) {
+        rs.add(ri, rp, re - rp);
+      } else {
+        // split run
+        rs.add(ri, rp, pre - rp);
+        rs.add(ri + pre - rp, pre + size, re - pre);
+      }
+    }
+    if(!added) rs.add(id, pre, size);
+    assign(rs);
+  }
+
+  /**
+   * Deletes ids.
+   * @param pre first pre value
+   * @param size number of deleted ids
+   */
+  public void delete(final int pre, final int size) {
+    final Runs rs = new Runs(runs + 1);
+    final int end = pre + size;
+    for(int r = 0; r < runs; r++) {
+      final int ri = ids[r], rp = pres[r], re = rp + sizes[r];
+      if(re <= pre) {
+        rs.add(ri, rp, re - rp);
+      } else if(rp >= end) {
+        rs.add(ri, rp - size, re - rp);
+      } else {
+        // trim or split run
+        if(rp < pre) rs.add(ri, rp, pre - rp);
+        if(re > end) rs.add(ri + end - rp, pre, re - end);
+      }
+    }
+    assign(rs);
+  }
+
+  /**
+   * Writes the mapping to disk if it has been changed.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  public void write(final MetaData meta) throws IOException {
+    if(!dirty) return;
+    try(final DataOutput out = new DataOutput(meta.dbfile(DATAIDR))) {
+      out.writeNum((int) meta.time);
+      out.writeNum((int) (meta.time >>> 32));
+      out.writeNum(meta.size);
+      out.writeNum(meta.lastid);
+      out.writeNums(Arrays.copyOf(ids, runs));
+      out.writeNums(Arrays.copyOf(pres, runs));
+      out.writeNums(Arrays.copyOf(sizes, runs));
+    }
+    dirty = false;
+  }
+
+  /**
+   * Returns the number of runs.
+   * @return number of runs
+   */
+  public int runs() {
+    return runs;
+  }
+
+  /**
+   * Assigns new runs.
+   * @param rs runs
+   */
+  private void assign(final Runs rs) {
+    ids = rs.ids;
+    pres = rs.pres;
+    sizes = rs.sizes;
+    runs = rs.size;
+    dirty = true;
+  }
+
+  /** Temporary list of runs. */
+  private static final class Runs {
+    /** First ids. */
+    int[] ids;
+    /** First pre values. */
+    int[] pres;
+    /** Sizes. */
+    int[] sizes;
+    /** Number of runs. */
+    int size;
+
+    /**
+     * Constructor.
+     * @param capacity initial capacity
+     */
+    Runs(final int capacity) {
+      ids = new int[capacity];
+      pres = new int[capacity];
+      sizes = new int[capacity];
+    }
+
+    /**
+     * Adds a run. Runs that directly follow the previous run are merged.
+     * @param id first id
+     * @param pre first pre value
+     * @param sz size
+     */
+    void add(final int id, final int pre, final int sz) {
+      if(sz == 0) return;
+      if(size > 0) {
+        final int s = size - 1, ps = sizes[s];
+        if(ids[s] + ps == id && pres[s] + ps == pre) {
+          sizes[s] += sz;
+          return;
+        }
+      }
+      if(size == ids.length) {
+        final int c = Array.newSize(size);
+        ids = Arrays.copyOf(ids, c);
+        pres = Arrays.copyOf(pres, c);
+        sizes = Arrays.copyOf(sizes, c);
+      }
+      ids[size] = id;
+      pres[size] = pre;
+      sizes[size++] = sz;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package org.basex.index;
+
+import static org.basex.core.Text.*;
+
+import java.util.concurrent.atomic.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * Memory budget of an index worker. The budget is shared by all workers that build index
+ * structures at the same time:
+ *
+ * <ul>
+ *   <li> If a fixed split size has been specified, it will be divided by the number of
+ *     running workers.</li>
+ *   <li> Otherwise, if the memory limit is reached, all workers will be asked to write their
+ *     temporary index structures to disk.</li>
+ * </ul>
+ *
+ * A budget must be closed if the worker has finished.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexBudget implements AutoCloseable {
+  /** Maximum memory to consume. */
+  private static final long MAXMEM = (long) (Runtime.getRuntime().maxMemory() * 0.8);
+  /** Number of running workers. */
+  private static final AtomicInteger WORKERS = new AtomicInteger();
+  /** Number of split requests. */
+  private static final AtomicInteger REQUESTS = new AtomicInteger();
+  /** Number of workers that have not responded to the last split request yet. */
+  private static final AtomicInteger PENDING = new AtomicInteger();
+
+  /** Number of index operations to perform before writing a partial index (0: estimate). */
+  private final long splitSize;
+  /** Number of index operations at the time of the last split. */
+  private long last;
+  /** Last split request noticed by this worker. */
+  private int request;
+  /** Threshold for freeing memory when estimating main memory consumption. */
+  private int gcCount;
+
+  /**
+   * Constructor.
+   * @param splitSize number of index operations to perform before writing a partial index
+   *   ({@code 0}: estimate main memory consumption)
+   */
+  IndexBudget(final long splitSize) {
+    this.splitSize = splitSize;
+    request = REQUESTS.get();
+    WORKERS.incrementAndGet();
+  }
+
+  /**
+   * Decides whether the temporary index structures of the worker are so large
+   * that they must be flushed to disk before continuing.
+   * @param count total number of index operations performed by the worker
+   * @return true if structures shall be flushed to disk
+   * @throws BaseXException database exception
+   */
+  public boolean split(final long count) throws BaseXException {
+    final boolean split;
+    if(splitSize > 0) {
+      // fixed split size: share it with all running workers
+      split = count - last >= Math.max(1, splitSize / Math.max(1, WORKERS.get()));
+    } else {
+      final int req = REQUESTS.get();
+      if(req != request) {
+        // memory limit was reached by another worker: flush non-empty structures
+        request = req;
+        PENDING.decrementAndGet();
+        split = count > last;
+      } else if(exhausted()) {
+        // wait until all workers have flushed their structures
+        if(PENDING.get() > 0) return false;
+        // stop operation if index splitting degenerates
+        if(gcCount >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
+        gcCount = 30;
+        PENDING.set(WORKERS.get() - 1);
+        request = REQUESTS.incrementAndGet();
+        split = true;
+      } else {
+        gcCount = Math.max(-1, gcCount - 1);
+        split = false;
+      }
+    }
+    if(split) {
+      last = count;
+      if(Prop.debug) Util.err("|");
+    }
+    return split;
+  }
+
+  @Override
+  public void close() {
+    if(request != REQUESTS.get()) PENDING.decrementAndGet();
+    WORKERS.decrementAndGet();
+  }
+
+  /**
+   * Checks if the memory limit has been reached.
+   * @return result of check
+   */
+  static boolean exhausted() {
+    return Performance.memory() >= MAXMEM;
+  }
+}
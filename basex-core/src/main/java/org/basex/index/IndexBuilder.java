@@ -3,6 +3,8 @@ package org.basex.index;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -17,11 +19,16 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public abstract class IndexBuilder extends Proc {
+  /** Minimum number of pre values of a partition. */
+  private static final int PARTITION = 1 << 16;
+
   /** Performance. */
   protected final Performance perf = new Performance();
 
   /** Data reference. */
   protected final Data data;
+  /** Thread pool for building index partitions. */
+  protected final ForkJoinPool pool;
   /** Total parsing value. */
   protected final int size;
   /** Index type. */
@@ -31,8 +38,6 @@ public abstract class IndexBuilder extends Proc {
 
   /** Number of index operations to perform before writing a partial index to disk. */
   private final int splitSize;
-  /** Maximum memory to consume. */
-  private final long maxMem = (long) (Runtime.getRuntime().maxMemory() * 0.8);
 
   /** Names and namespace uri of element or attributes to include. */
   private final IndexNames includeNames;
@@ -43,24 +48,24 @@ public abstract class IndexBuilder extends Proc {
   protected long count;
   /** Number of partial index structures. */
   protected int splits;
-  /** Threshold for freeing memory when estimating main memory consumption. */
-  private int gcCount;
 
   /**
    * Constructor.
    * @param data reference
    * @param type index type
+   * @param pool thread pool for building index structures
    */
-  protected IndexBuilder(final Data data, final IndexType type) {
+  protected IndexBuilder(final Data data, final IndexType type, final ForkJoinPool pool) {
     this.data = data;
     this.type = type;
+    this.pool = pool;
     splitSize = (int) Math.min(Integer.MAX_VALUE, (long) data.meta.splitsize * splitFactor());
     size = data.meta.size;
     includeNames = new IndexNames(type, data);
     text = type == IndexType.TEXT || type == IndexType.FULLTEXT;
 
     // run garbage collection if memory maximum is already reached
-    if(Performance.memory() >= maxMem) clean();
+    if(IndexBudget.exhausted()) clean();
   }
 
   /**
@@ -81,39 +86,47 @@ public abstract class IndexBuilder extends Proc {
   }
 
   /**
-   * Checks if the current entry should be indexed.
+   * Checks if the specified entry should be indexed.
+   * @param p pre value
    * @return result of check
    */
-  protected final boolean indexEntry() {
-    return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
+  protected final boolean indexEntry(final int p) {
+    return data.kind(p) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(p, text);
   }
 
   /**
-   * Decides whether in-memory temporary index structures are so large
-   * that we must flush them to disk before continuing.
-   * @return true if structures shall be flushed to disk
-   * @throws IOException I/O Exception
+   * Returns a new memory budget for an index worker. The budget must be closed if the worker
+   * has finished.
+   * @return budget
    */
-  protected final boolean splitRequired() throws IOException {
-    // checks if a fixed split size has been specified
-    final boolean split;
-    if(splitSize > 0) {
-      split = count >= (splits + 1L) * splitSize;
-    } else {
-      // if not, estimate how much main memory is left
-      split = Performance.memory() >= maxMem;
-      // stop operation if index splitting degenerates
-      int gc = gcCount;
-      if(split) {
-        if(gc >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
-        gc = 30;
-      } else {
-        gc = Math.max(-1, gc - 1);
-      }
-      gcCount = gc;
-    }
-    if(split && Prop.debug) Util.err("|");
-    return split;
+  protected final IndexBudget budget() {
+    return new IndexBudget(splitSize);
+  }
+
+  /**
+   * Returns the number of partitions in which the pre values can be indexed in parallel.
+   * @return number of partitions
+   */
+  protected final int partitions() {
+    return size < PARTITION << 1 ? 1 : Math.min(pool.getParallelism(), size / PARTITION);
+  }
+
+  /**
+   * Adds the number of processed pre values and index operations of an index worker.
+   * @param pres number of pre values
+   * @param ops number of index operations
+   */
+  protected final synchronized void processed(final int pres, final long ops) {
+    pre += pres;
+    count += ops;
+  }
+
+  /**
+   * Returns the next number of a partial index structure.
+   * @return split number
+   */
+  protected final synchronized int nextSplit() {
+    return splits++;
   }
 
   /**
@@ -139,6 +152,29 @@ public abstract class IndexBuilder extends Proc {
     Util.errln(sb);
   }
 
+  /**
+   * Runs the specified jobs in parallel and waits until all of them have finished.
+   * @param jobs jobs
+   * @throws IOException I/O exception
+   */
+  protected final void invoke(final Collection<? extends Callable<Void>> jobs)
+      throws IOException {
+    Throwable error = null;
+    for(final Future<Void> future : pool.invokeAll(jobs)) {
+      try {
+        future.get();
+      } catch(final ExecutionException ex) {
+        // prefer original exceptions to the ones caused by stopping the other jobs
+        if(error == null || error instanceof ProcException) error = ex.getCause();
+      } catch(final InterruptedException ex) {
+        throw new ProcException();
+      }
+    }
+    if(error instanceof IOException) throw (IOException) error;
+    if(error instanceof RuntimeException) throw (RuntimeException) error;
+    if(error instanceof Error) throw (Error) error;
+  }
+
   /**
    * Returns the split factor dependent on the index type.
    * The following values are returned:
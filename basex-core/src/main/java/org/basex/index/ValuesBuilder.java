@@ -1,5 +1,7 @@
 package org.basex.index;
 
+import java.util.concurrent.*;
+
 import org.basex.data.*;
 
 /**
@@ -16,9 +18,10 @@ public abstract class ValuesBuilder extends IndexBuilder {
    * Constructor.
    * @param data reference
    * @param type index type
+   * @param pool thread pool for building index structures
    */
-  protected ValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+  protected ValuesBuilder(final Data data, final IndexType type, final ForkJoinPool pool) {
+    super(data, type, pool);
     tokenize = type == IndexType.TOKEN;
   }
 }
@@ -5,17 +5,23 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
 import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.ft.*;
+import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
 /**
  * This class contains common methods for full-text index builders.
+ * If the database contains an updatable full-text index with pending updates, and if this index
+ * has not been dropped before, the updates will be merged into the existing index structures.
  *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
@@ -27,14 +33,17 @@ public final class FTBuilder extends IndexBuilder {
   private final FTLexer lexer;
   /** Number of indexed tokens. */
   private long ntok;
+  /** Ids of deleted nodes (only assigned if updates are merged into an existing index). */
+  private IntSet deleted;
 
   /**
    * Constructor.
    * @param data data reference
+   * @param pool thread pool for building index structures
    * @throws IOException IOException
    */
-  public FTBuilder(final Data data) throws IOException {
-    super(data, IndexType.FULLTEXT);
+  public FTBuilder(final Data data, final ForkJoinPool pool) throws IOException {
+    super(data, IndexType.FULLTEXT, pool);
     final MetaData meta = data.meta;
     tree = new FTIndexTrees(data.meta.maxlen);
 
@@ -57,35 +66,88 @@ public final class FTBuilder extends IndexBuilder {
   public FTIndex build() throws IOException {
     Util.debug(det());
 
-    for(pre = 0; pre < size; ++pre) {
-      if((pre & 0x0FFF) == 0) check();
-      if(!indexEntry()) continue;
-
-      // current lexer position
-      final StopWords sw = lexer.ftOpt().sw;
-      lexer.init(data.text(pre, true));
-      int pos = -1;
-      while(lexer.hasNext()) {
-        final byte[] tok = lexer.nextToken();
-        ++pos;
-        // skip too long and stopword tokens
-        if(tok.length <= data.meta.maxlen && (sw.isEmpty() || !sw.contains(tok))) {
-          // check if main memory is exhausted
-          if((ntok++ & 0xFFFF) == 0 && splitRequired()) {
-            writeIndex(true);
-            clean();
+    final boolean updindex = data.meta.updindex;
+    final IOFile file = data.meta.dbfile(DATAFTX + 'u');
+    if(updindex && file.exists()) {
+      mergeUpdates(new FTUpdates(file));
+    } else {
+      index(updindex);
+    }
+    // create empty file for updates
+    if(updindex) new FTUpdates().write(file, true);
+
+    finishIndex();
+    return updindex ? new UpdatableFTIndex(data) : new FTIndex(data);
+  }
+
+  /**
+   * Indexes all texts.
+   * @param updindex updatable index
+   * @throws IOException I/O exception
+   */
+  private void index(final boolean updindex) throws IOException {
+    try(final IndexBudget budget = budget()) {
+      for(pre = 0; pre < size; ++pre) {
+        if((pre & 0x0FFF) == 0) check();
+        if(!indexEntry(pre)) continue;
+
+        // current lexer position
+        final StopWords sw = lexer.ftOpt().sw;
+        lexer.init(data.text(pre, true));
+        int pos = -1;
+        while(lexer.hasNext()) {
+          final byte[] tok = lexer.nextToken();
+          ++pos;
+          // skip too long and stopword tokens
+          if(tok.length <= data.meta.maxlen && (sw.isEmpty() || !sw.contains(tok))) {
+            // check if main memory is exhausted
+            if((ntok++ & 0xFFFF) == 0 && budget.split(count)) {
+              writeIndex(true);
+              clean();
+            }
+            tree.index(tok, updindex ? data.id(pre) : pre, pos, splits);
+            count++;
           }
-          tree.index(tok, pre, pos, splits);
-          count++;
         }
       }
     }
 
     // finalize partial or all index structures
     write(splits > 0);
+  }
 
-    finishIndex();
-    return new FTIndex(data);
+  /**
+   * Merges updates into the existing index structures. The existing structures are treated as
+   * first partial index, and the added entries are written to a second partial index.
+   * @param updates updates
+   * @throws IOException I/O exception
+   */
+  private void mergeUpdates(final FTUpdates updates) throws IOException {
+    for(final char ch : new char[] { 'x', 'y', 'z' }) {
+      final IOFile source = data.meta.dbfile(DATAFTX + ch);
+      final IOFile target = data.meta.dbfile(DATAFTX + splits + ch);
+      // original files will be restored if the update is interrupted
+      final Journal journal = Journal.get(source);
+      if(journal != null) {
+        journal.save(source);
+        journal.touch(target);
+        journal.sync();
+      }
+      if(!source.rename(target)) throw new IOException("Could not rename " + source);
+    }
+    deleted = updates.deleted;
+    splits++;
+
+    for(final byte[] tok : updates.added) {
+      final IntList list = updates.get(tok);
+      if(list == null) continue;
+      final int ls = list.size();
+      for(int l = 0; l < ls; l += 2) {
+        tree.index(tok, list.get(l), list.get(l + 1), splits);
+        count++;
+      }
+    }
+    write(true);
   }
 
   /**
@@ -106,7 +168,7 @@ public final class FTBuilder extends IndexBuilder {
 
       // open all temporary sorted lists
       final FTList[] v = new FTList[splits];
-      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, b);
+      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, b, b == 0 ? deleted : null);
 
       final IntList il = new IntList();
       while(check(v)) {
@@ -127,19 +189,25 @@ public final class FTBuilder extends IndexBuilder {
           }
         }
 
-        if(ind.isEmpty() || ind.get(ind.size() - 2) < v[m].tok.length) {
-          ind.add(v[m].tok.length);
+        // merge data, skip tokens without entries
+        final byte[] tok = v[m].tok;
+        final long off = outZ.size();
+        final int s = merge(outZ, il, v);
+        if(s == 0) continue;
+
+        if(ind.isEmpty() || ind.get(ind.size() - 2) < tok.length) {
+          ind.add(tok.length);
           ind.add((int) outY.size());
         }
 
         // write token
-        outY.writeBytes(v[m].tok);
+        outY.writeBytes(tok);
         // pointer on full-text data
-        outY.write5(outZ.size());
-        // merge and write data size
-        outY.write4(merge(outZ, il, v));
+        outY.write5(off);
+        // write data size
+        outY.write4(s);
       }
-      writeInd(outX, ind, ind.get(ind.size() - 2) + 1, (int) outY.size());
+      writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1, (int) outY.size());
     }
   }
 
@@ -46,10 +46,13 @@ import org.basex.util.similarity.*;
  *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
  * </ul>
  *
+ * <p>If {@link MetaData#updindex} is enabled, ids are stored instead of pre values, and the
+ * index is represented by an {@link UpdatableFTIndex} instance.</p>
+ *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  */
-public final class FTIndex extends ValueIndex {
+public class FTIndex extends ValueIndex {
   /** Entry size. */
   private static final int ENTRY = 9;
 
@@ -128,7 +131,7 @@ public final class FTIndex extends ValueIndex {
 
     // return cached or new result
     final IndexEntry e = entry(tok);
-    return e.size > 0 ? iter(e.offset, e.size, inZ, tok) : FTIndexIterator.FTEMPTY;
+    return iter(tok, e.offset, e.size);
   }
 
   /**
@@ -136,7 +139,7 @@ public final class FTIndex extends ValueIndex {
    * @param token token to be found or cached
    * @return cache entry
    */
-  private IndexEntry entry(final byte[] token) {
+  protected final IndexEntry entry(final byte[] token) {
     final IndexEntry e = cache.get(token);
     if(e != null) return e;
 
@@ -345,12 +348,17 @@ public final class FTIndex extends ValueIndex {
       int t = s + 1, r = -1;
       while(t < tl && r == -1) r = tp[t++];
       while(p < r) {
-        if(ls.similar(inY.readBytes(p, s), token, k)) {
-          it = FTIndexIterator.union(iter(pointer(p, s), size(p, s), inZ, token), it);
+        final byte[] tok = inY.readBytes(p, s);
+        if(ls.similar(tok, token, k)) {
+          it = FTIndexIterator.union(iter(tok, pointer(p, s), size(p, s)), it);
         }
         p += s + ENTRY;
       }
     }
+    // tokens that only exist in updated entries
+    for(final byte[] tok : added()) {
+      if(ls.similar(tok, token, k)) it = FTIndexIterator.union(iter(tok, 0, 0), it);
+    }
     return it;
   }
 
@@ -381,37 +389,77 @@ public final class FTIndex extends ValueIndex {
         final byte[] t = inY.readBytes(i, ti);
         if(!startsWith(t, pref)) break;
         if(wc.match(t)) {
-          inZ.cursor(pointer(i, ti));
-          final int s = size(i, ti);
-          for(int d = 0; d < s; d++) {
-            pr.add(inZ.readNum());
-            ps.add(inZ.readNum());
-          }
+          read(pointer(i, ti), size(i, ti), pr, ps);
+          added(t, pr, ps);
         }
         i += ti + ENTRY;
       }
     }
+    // tokens that only exist in updated entries
+    for(final byte[] t : added()) {
+      if(wc.match(t)) added(t, pr, ps);
+    }
     return iter(new FTCache(pr, ps), token);
   }
 
   /**
    * Returns an iterator for an index entry.
+   * @param token index token
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
-   * @param token index token
    * @return iterator
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
-    final IntList pr = new IntList(size);
-    final IntList ps = new IntList(size);
+  private FTIndexIterator iter(final byte[] token, final long off, final int size) {
+    final IntList pr = new IntList(size), ps = new IntList(size);
+    read(off, size, pr, ps);
+    added(token, pr, ps);
+    return pr.isEmpty() ? FTIndexIterator.FTEMPTY : iter(new FTCache(pr, ps), token);
+  }
+
+  /**
+   * Reads the pre values and positions of an index entry.
+   * @param off offset on entries
+   * @param size number of id/pos entries
+   * @param pres pre values
+   * @param poss positions
+   */
+  protected final void read(final long off, final int size, final IntList pres,
+      final IntList poss) {
+    if(size == 0) return;
+    inZ.cursor(off);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      final int pre = pre(inZ.readNum()), pos = inZ.readNum();
+      if(pre == -1) continue;
+      pres.add(pre);
+      poss.add(pos);
     }
-    return iter(new FTCache(pr, ps), token);
+  }
+
+  /**
+   * Returns the pre value for the specified id.
+   * @param id id value
+   * @return pre value, or {@code -1} if the index entry is obsolete
+   */
+  protected int pre(final int id) {
+    return id;
+  }
+
+  /**
+   * Adds the pre values and positions of the entries that have been added for the specified
+   * token.
+   * @param token token
+   * @param pres pre values
+   * @param poss positions
+   */
+  @SuppressWarnings("unused")
+  protected void added(final byte[] token, final IntList pres, final IntList poss) { }
+
+  /**
+   * Returns the tokens that have only been added by updates.
+   * @return tokens
+   */
+  protected TokenList added() {
+    return new TokenList(0);
   }
 
   /**
@@ -4,10 +4,12 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.random.*;
+import org.basex.util.hash.*;
 
 /**
  * This class provides temporary access to sorted list data.
@@ -41,6 +43,8 @@ final class FTList {
 
   /** Indexed tokens. */
   private final DataAccess str;
+  /** Ids of deleted nodes, which will be skipped (can be {@code null}). */
+  private final IntSet deleted;
 
   /** Current data size. */
   int size;
@@ -55,9 +59,11 @@ final class FTList {
    * Constructor, initializing the index structure.
    * @param data data
    * @param prefix prefix
+   * @param deleted ids of deleted nodes (can be {@code null})
    * @throws IOException I/O exception
    */
-  FTList(final Data data, final int prefix) throws IOException {
+  FTList(final Data data, final int prefix, final IntSet deleted) throws IOException {
+    this.deleted = deleted;
     files = data.meta.dbfile(DATAFTX + prefix + 'y');
     filed = data.meta.dbfile(DATAFTX + prefix + 'z');
     str = new DataAccess(files);
@@ -92,9 +98,16 @@ final class FTList {
     } else {
       prv = new int[size];
       pov = new int[size];
+      int s = 0;
       for(int j = 0; j < size; ++j) {
-        prv[j] = dat.readNum();
-        pov[j] = dat.readNum();
+        prv[s] = dat.readNum();
+        pov[s] = dat.readNum();
+        if(deleted == null || !deleted.contains(prv[s])) s++;
+      }
+      if(s < size) {
+        prv = Arrays.copyOf(prv, s);
+        pov = Arrays.copyOf(pov, s);
+        size = s;
       }
     }
   }
@@ -0,0 +1,154 @@
+package org.basex.index.ft;
+
+import java.io.*;
+
+import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class organizes the updates of a full-text index. The updates are stored in an additional
+ * index file ({@link org.basex.data.DataText#DATAFTX} + {@code 'u'}), which has the following
+ * format:
+ *
+ * <ul>
+ *   <li> The ids of all deleted nodes. The entries of these nodes in the main index structures
+ *     are obsolete: {@code [n, id1, id2, ...]} [{@link org.basex.util.Num}]</li>
+ *   <li> The added tokens, followed by their ids and positions:
+ *     {@code [n, token1, s1, id1, pos1, id2, pos2, ..., token2, ...]}</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class FTUpdates {
+  /** Ids of nodes whose entries in the main index structures are obsolete. */
+  final IntSet deleted = new IntSet();
+  /** Added tokens, and their ids and positions (stored in alternating order). */
+  final TokenObjMap<IntList> added = new TokenObjMap<>();
+  /** Number of added entries. */
+  private int entries;
+  /** Dirty flag. */
+  private boolean dirty;
+
+  /**
+   * Constructor.
+   */
+  FTUpdates() { }
+
+  /**
+   * Constructor, reading the updates from disk.
+   * @param file index file
+   * @throws IOException I/O Exception
+   */
+  FTUpdates(final IOFile file) throws IOException {
+    if(!file.exists()) return;
+    try(final DataInput in = new DataInput(file)) {
+      for(final int id : in.readNums()) deleted.add(id);
+      for(int n = in.readNum(); n > 0; n--) {
+        final byte[] token = in.readToken();
+        final int s = in.readNum();
+        final IntList list = new IntList(s << 1);
+        for(int i = 0; i < s; i++) list.add(in.readNum()).add(in.readNum());
+        added.put(token, list);
+        entries += s;
+      }
+    }
+  }
+
+  /**
+   * Adds index entries.
+   * @param values value cache
+   */
+  void add(final ValueCache values) {
+    for(final byte[] token : values.keys) {
+      final IntList ids = values.ids(token), pos = values.pos(token);
+      IntList list = added.get(token);
+      if(list == null) {
+        list = new IntList();
+        added.put(token, list);
+      }
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) list.add(ids.get(i)).add(pos.get(i));
+      entries += is;
+      dirty = true;
+    }
+  }
+
+  /**
+   * Deletes index entries.
+   * @param values value cache
+   */
+  void delete(final ValueCache values) {
+    for(final byte[] token : values.keys) {
+      final IntList ids = values.ids(token);
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) deleted.add(ids.get(i));
+      dirty = true;
+
+      // remove entries that have been added before (empty lists will not be written to disk)
+      final IntList list = added.get(token);
+      if(list == null) continue;
+      final IntSet set = new IntSet();
+      for(int i = 0; i < is; i++) set.add(ids.get(i));
+      final int ls = list.size();
+      int l = 0;
+      for(int i = 0; i < ls; i += 2) {
+        final int id = list.get(i);
+        if(set.contains(id)) continue;
+        list.set(l++, id);
+        list.set(l++, list.get(i + 1));
+      }
+      list.size(l);
+      entries -= ls - l >> 1;
+    }
+  }
+
+  /**
+   * Returns the ids and positions of an added token.
+   * @param token token
+   * @return ids and positions in alternating order, or {@code null}
+   */
+  IntList get(final byte[] token) {
+    final IntList list = added.get(token);
+    return list == null || list.isEmpty() ? null : list;
+  }
+
+  /**
+   * Checks if the main index structures are up-to-date.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return deleted.isEmpty() && entries == 0;
+  }
+
+  /**
+   * Writes the updates to disk.
+   * @param file index file
+   * @param all write the updates, even if nothing has changed
+   * @throws IOException I/O Exception
+   */
+  void write(final IOFile file, final boolean all) throws IOException {
+    if(!dirty && !all) return;
+    try(final DataOutput out = new DataOutput(file)) {
+      out.writeNums(deleted.toArray());
+      int n = 0;
+      for(final IntList list : added.values()) {
+        if(!list.isEmpty()) n++;
+      }
+      out.writeNum(n);
+      for(final byte[] token : added) {
+        final IntList list = added.get(token);
+        if(list.isEmpty()) continue;
+        final int ls = list.size();
+        out.writeToken(token);
+        out.writeNum(ls >> 1);
+        for(int i = 0; i < ls; i++) out.writeNum(list.get(i));
+      }
+    }
+    dirty = false;
+  }
+}
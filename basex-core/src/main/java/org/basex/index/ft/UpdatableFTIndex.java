@@ -0,0 +1,179 @@
+package org.basex.index.ft;
+
+import static org.basex.data.DataText.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.ft.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access and update functions to a full-text index structure stored on disk.
+ * The main index structures are described in the {@link FTIndex} class. Updates are collected
+ * in main memory and in an additional file (see {@link FTUpdates}), and they are considered
+ * when the index is accessed. They are merged into the main index structures if the database
+ * is optimized.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class UpdatableFTIndex extends FTIndex {
+  /** Index file with updates. */
+  private final IOFile file;
+  /** Updates. */
+  private final FTUpdates updates;
+  /** Lexer for tokenizing updated texts. */
+  private FTLexer lexer;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @throws IOException I/O Exception
+   */
+  public UpdatableFTIndex(final Data data) throws IOException {
+    super(data);
+    file = data.meta.dbfile(DATAFTX + 'u');
+    updates = new FTUpdates(file);
+  }
+
+  /**
+   * Returns a lexer for tokenizing texts with the options of the index.
+   * @return lexer
+   */
+  public FTLexer lexer() {
+    if(lexer == null) {
+      final FTOpt opt = new FTOpt().copy(data.meta);
+      opt.sw = new StopWords();
+      opt.sw.comp(data);
+      lexer = new FTLexer(opt);
+    }
+    return lexer;
+  }
+
+  /**
+   * Indicates if updates need to be merged into the main index structures.
+   * @return result of check
+   */
+  public synchronized boolean updated() {
+    return !updates.isEmpty();
+  }
+
+  @Override
+  public synchronized int costs(final IndexToken it) {
+    final int costs = super.costs(it);
+    if(costs == Integer.MAX_VALUE) return costs;
+    final IntList list = updates.get(it.get());
+    return list == null ? costs : costs + (list.size() >> 1);
+  }
+
+  @Override
+  public EntryIterator entries(final IndexEntries entries) {
+    if(!updated()) return super.entries(entries);
+
+    // cache and sort all entries with the current number of occurrences
+    final byte[] prefix = entries.get();
+    final ArrayList<byte[]> tokens = new ArrayList<>();
+    final IntList counts = new IntList();
+    final EntryIterator ei = super.entries(entries);
+    synchronized(this) {
+      for(byte[] token; (token = ei.next()) != null;) tokens.add(token);
+      for(final byte[] token : added()) {
+        if(startsWith(token, prefix)) tokens.add(token);
+      }
+      Collections.sort(tokens, new Comparator<byte[]>() {
+        @Override
+        public int compare(final byte[] token1, final byte[] token2) {
+          final int d = token1.length - token2.length;
+          return d != 0 ? d : diff(token1, token2);
+        }
+      });
+      final IntList pres = new IntList(), poss = new IntList();
+      for(final Iterator<byte[]> it = tokens.iterator(); it.hasNext();) {
+        final byte[] token = it.next();
+        final IndexEntry e = entry(token);
+        pres.reset();
+        poss.reset();
+        read(e.offset, e.size, pres, poss);
+        added(token, pres, poss);
+        if(pres.isEmpty()) it.remove();
+        else counts.add(pres.size());
+      }
+    }
+
+    return new EntryIterator() {
+      int c = -1;
+
+      @Override
+      public byte[] next() {
+        return ++c < tokens.size() ? tokens.get(c) : null;
+      }
+      @Override
+      public int count() {
+        return counts.get(c);
+      }
+    };
+  }
+
+  @Override
+  public synchronized int size() {
+    return super.size() + added().size();
+  }
+
+  @Override
+  public synchronized void add(final ValueCache values) {
+    updates.add(values);
+  }
+
+  @Override
+  public synchronized void delete(final ValueCache values) {
+    updates.delete(values);
+  }
+
+  @Override
+  public synchronized void flush() {
+    try {
+      updates.write(file, false);
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    flush();
+    super.close();
+  }
+
+  @Override
+  protected int pre(final int id) {
+    return updates.deleted.contains(id) ? -1 : data.pre(id);
+  }
+
+  @Override
+  protected void added(final byte[] token, final IntList pres, final IntList poss) {
+    final IntList list = updates.get(token);
+    if(list == null) return;
+    final int ls = list.size();
+    for(int l = 0; l < ls; l += 2) {
+      pres.add(data.pre(list.get(l)));
+      poss.add(list.get(l + 1));
+    }
+  }
+
+  @Override
+  protected TokenList added() {
+    final TokenList tokens = new TokenList();
+    for(final byte[] token : updates.added) {
+      if(updates.get(token) != null && entry(token).size == 0) tokens.add(token);
+    }
+    return tokens;
+  }
+}
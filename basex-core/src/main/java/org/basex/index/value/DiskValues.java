@@ -12,6 +12,7 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
@@ -35,6 +36,8 @@ public class DiskValues extends ValueIndex {
   final IntObjMap<byte[]> ctext = new IntObjMap<>();
   /** Number of current index entries. */
   final AtomicInteger size = new AtomicInteger();
+  /** Numeric keys ({@code null} if they are not available). */
+  final NumericKeys numbers;
 
   /** Synchronization object. */
   private final Object monitor = new Object();
@@ -62,6 +65,8 @@ public class DiskValues extends ValueIndex {
     idxl = new DataAccess(data.meta.dbfile(pref + 'l'));
     idxr = new DataAccess(data.meta.dbfile(pref + 'r'));
     size.set(idxl.read4());
+    final IOFile num = data.meta.dbfile(pref + 'n');
+    numbers = num.exists() ? new NumericKeys(num) : null;
   }
 
   @Override
@@ -93,7 +98,14 @@ public class DiskValues extends ValueIndex {
   @Override
   public final int costs(final IndexToken it) {
     if(it instanceof StringRange) return Math.max(1, data.meta.size / 10);
-    if(it instanceof NumericRange) return Math.max(1, data.meta.size / 3);
+    if(it instanceof NumericRange) {
+      if(numbers == null) return Math.max(1, data.meta.size / 3);
+      // return exact number of results
+      final NumericRange nr = (NumericRange) it;
+      synchronized(monitor) {
+        return numbers.count(nr.min, nr.max);
+      }
+    }
     return entry(it.get()).size;
   }
 
@@ -115,6 +127,7 @@ public class DiskValues extends ValueIndex {
     synchronized(monitor) {
       idxl.close();
       idxr.close();
+      if(numbers != null) numbers.close();
     }
   }
 
@@ -140,6 +153,16 @@ public class DiskValues extends ValueIndex {
   public final void flush() {
     idxl.flush();
     idxr.flush();
+    if(numbers != null) numbers.flush();
+  }
+
+  /**
+   * Indicates if numeric keys are indexed and numeric range queries can be answered
+   * without scanning all index entries.
+   * @return result of check
+   */
+  public final boolean numeric() {
+    return numbers != null;
   }
 
   /**
@@ -411,8 +434,25 @@ public class DiskValues extends ValueIndex {
    * @return results
    */
   private IndexIterator idRange(final NumericRange tok) {
-    // check if min and max are positive integers with the same number of digits
     final double min = tok.min, max = tok.max;
+    if(numbers != null) {
+      // numeric keys are available: only visit keys in the specified range
+      final IntList pres;
+      synchronized(monitor) {
+        pres = new IntList(Math.max(1, numbers.count(min, max)));
+        final int ns = numbers.size();
+        for(int n = numbers.first(min); n < ns && numbers.value(n) <= max; n++) {
+          final int count = idxl.readNum(idxr.read5(numbers.index(n) * 5L));
+          for(int c = 0, id = 0; c < count; c++) {
+            id += idxl.readNum();
+            pres.add(pre(id));
+          }
+        }
+      }
+      return iter(pres.sort());
+    }
+
+    // check if min and max are positive integers with the same number of digits
     final int len = max > 0 && (long) max == max ? token(max).length : 0;
     final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
 
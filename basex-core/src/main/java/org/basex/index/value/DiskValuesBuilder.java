@@ -3,6 +3,8 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
@@ -26,67 +28,58 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'n'}: contains the numeric keys, sorted by their
+ *   double values, and the positions of the keys in the reference file
+ *   (see {@link NumericKeys}).
+ * </li>
  * </ul>
  *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  */
 public final class DiskValuesBuilder extends ValuesBuilder {
-  /** Temporary value tree. */
-  private IndexTree index;
+  /** Numeric keys ({@code null} for token indexes). */
+  private final NumericKeys.DoubleCache numbers;
 
   /**
    * Constructor.
    * @param data data reference
    * @param type index type
+   * @param pool thread pool for building index structures
    */
-  public DiskValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
-    index = new IndexTree(type);
+  public DiskValuesBuilder(final Data data, final IndexType type, final ForkJoinPool pool) {
+    super(data, type, pool);
+    numbers = type == IndexType.TOKEN ? null : new NumericKeys.DoubleCache();
   }
 
   @Override
   public DiskValues build() throws IOException {
     Util.debug(det());
 
-    final boolean updindex = data.meta.updindex;
-    for(pre = 0; pre < size; ++pre) {
-      if((pre & 0x0FFF) == 0) check();
-      if(indexEntry()) {
-        final int id = updindex ? data.id(pre) : pre;
-        if(tokenize) {
-          int pos = 0;
-          for(final byte[] token : distinctTokens(data.text(pre, text))) {
-            index.add(token, id, pos++);
-            count++;
-          }
-        } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-          index.add(data.text(pre, text), id, 0);
-          count++;
-        }
+    final int parts = partitions();
+    if(parts == 1) {
+      final Partition part = new Partition(0, size);
+      part.call();
+      writeIndex(part.index, splits > 0);
+    } else {
+      // index partitions in parallel; all partitions are written as partial indexes
+      final ArrayList<Partition> list = new ArrayList<>(parts);
+      for(int p = 0; p < parts; p++) {
+        list.add(new Partition((int) ((long) size * p / parts),
+            (int) ((long) size * (p + 1) / parts)));
       }
+      invoke(list);
     }
-
-    writeIndex(splits > 0);
     if(splits > 1) {
-      index = null;
       clean();
       merge();
     }
 
-    finishIndex();
-    return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
-  }
-
-  @Override
-  protected void check() throws IOException {
-    super.check();
-    // check if main memory is exhausted
-    if(splitRequired()) {
-      writeIndex(true);
-      index = new IndexTree(type);
-      clean();
+    if(numbers != null) {
+      NumericKeys.write(data.meta.dbfile(DiskValues.fileSuffix(type) + 'n'), numbers);
     }
+    finishIndex();
+    return data.meta.updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
   }
 
   /**
@@ -144,6 +137,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
           t.next();
         }
         // write final structure to disk
+        if(numbers != null) numbers.add(vm[min].key, entries, id.size());
         write(outL, outR, id, pos);
         ++entries;
       }
@@ -156,21 +150,24 @@ public final class DiskValuesBuilder extends ValuesBuilder {
   }
 
   /**
-   * Writes the current index tree to disk.
+   * Writes an index tree to disk.
+   * @param index index tree
    * @param partial partial flag
    * @throws IOException I/O exception
    */
-  private void writeIndex(final boolean partial) throws IOException {
+  private void writeIndex(final IndexTree index, final boolean partial) throws IOException {
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final int split = nextSplit();
+    final String name = DiskValues.fileSuffix(type) + (partial ? split : "");
     try(final DataOutput outL = new DataOutput(data.meta.dbfile(name + 'l'));
         final DataOutput outR = new DataOutput(data.meta.dbfile(name + 'r'))) {
       outL.write4(index.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
       index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      for(int entries = 0; index.more(); entries++) {
+        final int i = index.next();
+        final byte[] values = index.ids.get(i);
         final int vs = Num.size(values);
 
         if(partial) {
@@ -187,6 +184,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
             }
           }
           // write final structure to disk
+          if(numbers != null) numbers.add(index.keys.get(i), entries, id.size());
           write(outL, outR, id, pos);
         }
       }
@@ -199,8 +197,6 @@ public final class DiskValuesBuilder extends ValuesBuilder {
         while(index.more()) outT.writeToken(index.keys.get(index.next()));
       }
     }
-    // increase split counter
-    splits++;
   }
 
   /**
@@ -242,4 +238,72 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     // drop index files
     data.meta.drop(DiskValues.fileSuffix(type) + ".+");
   }
+
+  /** Builds temporary index structures for a range of pre values. */
+  private final class Partition implements Callable<Void> {
+    /** First pre value. */
+    private final int start;
+    /** Pre value after the last entry. */
+    private final int end;
+    /** Temporary value tree. */
+    private IndexTree index = new IndexTree(type);
+
+    /**
+     * Constructor.
+     * @param start first pre value
+     * @param end pre value after the last entry
+     */
+    Partition(final int start, final int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      // partial indexes are written by all partitions if the table has been partitioned
+      final boolean all = start != 0 || end != size;
+      final boolean updindex = data.meta.updindex;
+      int done = start;
+      long ops = 0, reported = 0;
+      try(final IndexBudget budget = budget()) {
+        for(int p = start; p < end; ++p) {
+          if((p & 0x0FFF) == 0) {
+            checkStop();
+            processed(p - done, ops - reported);
+            done = p;
+            reported = ops;
+            // check if main memory is exhausted
+            if(budget.split(ops)) {
+              writeIndex(index, true);
+              index = new IndexTree(type);
+              clean();
+            }
+          }
+          if(indexEntry(p)) {
+            final int id = updindex ? data.id(p) : p;
+            if(tokenize) {
+              int pos = 0;
+              for(final byte[] token : distinctTokens(data.text(p, text))) {
+                index.add(token, id, pos++);
+                ops++;
+              }
+            } else if(data.textLen(p, text) <= data.meta.maxlen) {
+              index.add(data.text(p, text), id, 0);
+              ops++;
+            }
+          }
+        }
+        if(all) {
+          writeIndex(index, true);
+          index = null;
+        }
+      } catch(final IOException | RuntimeException ex) {
+        // stop other partitions
+        stop();
+        throw ex;
+      }
+      processed(end - done, ops - reported);
+      return null;
+    }
+  }
 }
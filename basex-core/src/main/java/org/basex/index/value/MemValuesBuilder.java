@@ -3,6 +3,7 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
@@ -19,9 +20,10 @@ public class MemValuesBuilder extends ValuesBuilder {
    * Constructor.
    * @param data data reference
    * @param type index type
+   * @param pool thread pool for building index structures
    */
-  public MemValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+  public MemValuesBuilder(final Data data, final IndexType type, final ForkJoinPool pool) {
+    super(data, type, pool);
   }
 
   @Override
@@ -32,7 +34,7 @@ public class MemValuesBuilder extends ValuesBuilder {
     final boolean updindex = data.meta.updindex;
     for(pre = 0; pre < size; pre++) {
       if((pre & 0x0FFF) == 0) check();
-      if(indexEntry()) {
+      if(indexEntry(pre)) {
         if(tokenize) {
           for(final byte[] token : distinctTokens(data.text(pre, text))) {
             index.add(token, updindex ? data.id(pre) : pre);
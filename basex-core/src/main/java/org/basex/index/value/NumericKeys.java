@@ -0,0 +1,370 @@
+package org.basex.index.value;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access to the numeric keys of a value index, which are sorted by their
+ * double values. It is stored in an additional index file ({@code DATATXT/ATV + 'n'}):
+ * the number of entries is stored in the first 4 bytes, and each entry consists of the
+ * 8-byte double value of a key, the 4-byte position of the key in the reference file, and
+ * the 4-byte number of ids of all keys up to and including this entry. The number of ids in
+ * a range of keys can thus be computed from two entries.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class NumericKeys {
+  /** Size of an entry. */
+  private static final int ENTRY = 16;
+
+  /** Entries. */
+  private final DataAccess da;
+  /** Number of entries. */
+  private int size;
+
+  /**
+   * Constructor.
+   * @param file index file
+   * @throws IOException I/O Exception
+   */
+  NumericKeys(final IOFile file) throws IOException {
+    da = new DataAccess(file);
+    size = da.read4(0);
+  }
+
+  /**
+   * Writes the numeric keys of an index to disk.
+   * @param file index file
+   * @param cache numeric keys
+   * @throws IOException I/O Exception
+   */
+  static void write(final IOFile file, final DoubleCache cache) throws IOException {
+    final int sz = cache.size;
+    final double[] values = Arrays.copyOf(cache.values, sz);
+    final int[] order = Array.createOrder(values, true);
+    try(final DataOutput out = new DataOutput(file)) {
+      out.write4(sz);
+      final byte[] entry = new byte[ENTRY];
+      for(int o = 0, total = 0; o < sz; o++) {
+        total += cache.counts[order[o]];
+        entry(entry, 0, values[o], cache.indexes[order[o]], total);
+        out.writeBytes(entry);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries.
+   * @return number of entries
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the double value of the specified entry.
+   * @param entry entry
+   * @return value
+   */
+  double value(final int entry) {
+    final long hi = da.read4(4L + entry * (long) ENTRY);
+    return Double.longBitsToDouble(hi << 32 | da.read4() & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the position of the key of the specified entry in the reference file.
+   * @param entry entry
+   * @return key position
+   */
+  int index(final int entry) {
+    return da.read4(4L + entry * (long) ENTRY + 8);
+  }
+
+  /**
+   * Returns the first entry with a value greater than or equal to the specified value.
+   * @param min minimum value
+   * @return entry, or number of entries if all values are smaller
+   */
+  int first(final double min) {
+    return search(min, false);
+  }
+
+  /**
+   * Returns the number of ids of all keys in the specified range.
+   * @param min minimum value
+   * @param max maximum value
+   * @return number of ids
+   */
+  int count(final double min, final double max) {
+    final int first = search(min, false), last = search(max, true);
+    return first < last ? total(last) - total(first) : 0;
+  }
+
+  /**
+   * Updates the entries after new keys have been inserted into the reference file.
+   * @param points insertion points of the new keys in the old reference file (ascending)
+   * @param keys new keys (ascending)
+   * @param counts number of ids of the new keys
+   * @param updated positions of existing keys with new ids (ascending)
+   * @param added number of new ids of the existing keys
+   */
+  void insert(final IntList points, final TokenList keys, final IntList counts,
+      final IntList updated, final IntList added) {
+    // collect numeric keys and their new positions
+    final DoubleCache cache = new DoubleCache();
+    final int ks = keys.size();
+    for(int k = 0; k < ks; k++) cache.add(keys.get(k), points.get(k) + k, counts.get(k));
+    final int ns = cache.size;
+    if(ns == 0 && (size == 0 || updated.isEmpty())) return;
+
+    final double[] values = Arrays.copyOf(cache.values, ns);
+    final int[] order = Array.createOrder(values, true);
+
+    // merge old and new entries, adjust positions of old keys
+    final byte[] old = entries();
+    final byte[] entries = new byte[(size + ns) * ENTRY];
+    int o = 0, n = 0, e = 0, total = 0, prev = 0;
+    while(o < size || n < ns) {
+      final double ov = o < size ? value(old, o) : Double.NaN;
+      if(n < ns && !(ov <= values[n])) {
+        total += cache.counts[order[n]];
+        entry(entries, e++, values[n], cache.indexes[order[n]], total);
+        n++;
+      } else {
+        final int index = index(old, o), t = total(old, o);
+        total += t - prev + delta(updated, added, index);
+        prev = t;
+        entry(entries, e++, ov, index + count(points, index), total);
+        o++;
+      }
+    }
+    write(entries, size + ns);
+  }
+
+  /**
+   * Updates the entries after ids and keys have been deleted from the reference file.
+   * @param keys positions of the deleted keys (ascending)
+   * @param updated positions of remaining keys with deleted ids (ascending)
+   * @param deleted number of deleted ids of the remaining keys
+   */
+  void delete(final IntList keys, final IntList updated, final IntList deleted) {
+    if(size == 0 || keys.isEmpty() && updated.isEmpty()) return;
+
+    final byte[] entries = entries();
+    int e = 0, total = 0, prev = 0;
+    for(int o = 0; o < size; o++) {
+      final int index = index(entries, o), c = count(keys, index), t = total(entries, o);
+      final int ids = t - prev;
+      prev = t;
+      if(c > 0 && keys.get(c - 1) == index) continue;
+      total += ids - delta(updated, deleted, index);
+      entry(entries, e++, value(entries, o), index - c, total);
+    }
+    write(entries, e);
+  }
+
+  /**
+   * Flushes the buffered data.
+   */
+  void flush() {
+    da.flush();
+  }
+
+  /**
+   * Closes the file.
+   */
+  void close() {
+    da.close();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the first entry with a value greater than (or equal to) the specified value.
+   * @param value value
+   * @param greater only accept greater values
+   * @return entry, or number of entries if all values are smaller
+   */
+  private int search(final double value, final boolean greater) {
+    int l = 0, h = size;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      final double v = value(m);
+      if(v < value || greater && v == value) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the number of ids of all entries before the specified entry.
+   * @param entry entry
+   * @return number of ids
+   */
+  private int total(final int entry) {
+    return entry == 0 ? 0 : da.read4(4L + entry * (long) ENTRY - 4);
+  }
+
+  /**
+   * Returns the changed number of ids of the key at the specified position.
+   * @param positions positions of the changed keys (ascending)
+   * @param deltas changed numbers of ids
+   * @param index key position
+   * @return changed number of ids, or {@code 0}
+   */
+  private static int delta(final IntList positions, final IntList deltas, final int index) {
+    final int p = positions.sortedIndexOf(index);
+    return p < 0 ? 0 : deltas.get(p);
+  }
+
+  /**
+   * Returns all entries.
+   * @return entries
+   */
+  private byte[] entries() {
+    return da.readBytes(4, size * ENTRY);
+  }
+
+  /**
+   * Writes entries and assigns the number of entries.
+   * @param entries entries
+   * @param sz number of entries
+   */
+  private void write(final byte[] entries, final int sz) {
+    size = sz;
+    da.write4(0, sz);
+    da.writeBytes(entries, 0, sz * ENTRY);
+  }
+
+  /**
+   * Returns the number of list values that are smaller than or equal to the specified value.
+   * @param list sorted list
+   * @param value value
+   * @return count
+   */
+  private static int count(final IntList list, final int value) {
+    int l = 0, h = list.size();
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(list.get(m) <= value) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the double value of an entry.
+   * @param entries entries
+   * @param e entry offset
+   * @return value
+   */
+  private static double value(final byte[] entries, final int e) {
+    final long hi = int4(entries, e * ENTRY), lo = int4(entries, e * ENTRY + 4);
+    return Double.longBitsToDouble(hi << 32 | lo & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the key position of an entry.
+   * @param entries entries
+   * @param e entry offset
+   * @return key position
+   */
+  private static int index(final byte[] entries, final int e) {
+    return int4(entries, e * ENTRY + 8);
+  }
+
+  /**
+   * Returns the number of ids of all keys up to and including an entry.
+   * @param entries entries
+   * @param e entry offset
+   * @return number of ids
+   */
+  private static int total(final byte[] entries, final int e) {
+    return int4(entries, e * ENTRY + 12);
+  }
+
+  /**
+   * Writes an entry.
+   * @param entries entries
+   * @param e entry offset
+   * @param value double value
+   * @param index key position
+   * @param total number of ids of all keys up to and including this entry
+   */
+  private static void entry(final byte[] entries, final int e, final double value,
+      final int index, final int total) {
+    final long bits = Double.doubleToLongBits(value);
+    final int o = e * ENTRY;
+    int4(entries, o, (int) (bits >>> 32));
+    int4(entries, o + 4, (int) bits);
+    int4(entries, o + 8, index);
+    int4(entries, o + 12, total);
+  }
+
+  /**
+   * Reads an integer from a byte array.
+   * @param array array
+   * @param o offset
+   * @return integer
+   */
+  private static int int4(final byte[] array, final int o) {
+    return (array[o] & 0xFF) << 24 | (array[o + 1] & 0xFF) << 16 | (array[o + 2] & 0xFF) << 8 |
+        array[o + 3] & 0xFF;
+  }
+
+  /**
+   * Writes an integer to a byte array.
+   * @param array array
+   * @param o offset
+   * @param value value
+   */
+  private static void int4(final byte[] array, final int o, final int value) {
+    array[o] = (byte) (value >>> 24);
+    array[o + 1] = (byte) (value >>> 16);
+    array[o + 2] = (byte) (value >>> 8);
+    array[o + 3] = (byte) value;
+  }
+
+  /**
+   * Cache for the numeric keys of an index.
+   */
+  static final class DoubleCache {
+    /** Values. */
+    double[] values = new double[Array.CAPACITY];
+    /** Key positions. */
+    int[] indexes = new int[Array.CAPACITY];
+    /** Number of ids of the keys. */
+    int[] counts = new int[Array.CAPACITY];
+    /** Number of values. */
+    int size;
+
+    /**
+     * Adds a value if the specified key is numeric.
+     * @param key key
+     * @param index position of the key
+     * @param count number of ids of the key
+     */
+    void add(final byte[] key, final int index, final int count) {
+      final double d = toDouble(key);
+      if(d != d) return;
+      if(size == values.length) {
+        final int s = Array.newSize(size);
+        values = Arrays.copyOf(values, s);
+        indexes = Arrays.copyOf(indexes, s);
+        counts = Arrays.copyOf(counts, s);
+      }
+      values[size] = d;
+      indexes[size] = index;
+      counts[size++] = count;
+    }
+  }
+}
@@ -37,6 +37,8 @@ public final class UpdatableDiskValues extends DiskValues {
   public synchronized void add(final ValueCache values) {
     // create a sorted list of the new keys and update the old keys
     final TokenList newKeys = new TokenList();
+    // positions of the old keys with new ids, and number of new ids
+    final IntList updated = new IntList(), added = new IntList();
 
     // update id lists of keys (in ascending order; speeds up binary search)
     int index = 0;
@@ -62,6 +64,8 @@ public final class UpdatableDiskValues extends DiskValues {
 
         // mark old slot as empty
         free.add((int) (idxl.cursor() - off), off);
+        updated.add(index);
+        added.add(ids.size());
         writeIds(key, newIds, newPos, index++);
       } else {
         index = -(index + 1);
@@ -71,10 +75,12 @@ public final class UpdatableDiskValues extends DiskValues {
 
     // insert new keys in descending order
     final int ns = newKeys.size();
+    final int[] points = new int[ns], counts = new int[ns];
     for(int j = ns - 1, oldIndex = sz - 1, newIndex = sz + j; j >= 0; --j) {
       final byte[] key = newKeys.get(j);
       final int idx = -(1 + get(key, 0, oldIndex + 1));
       if(idx < 0) throw Util.notExpected("Key should not exist: '%'", key);
+      points[j] = idx;
 
       // create space for new entry
       while(oldIndex >= idx) {
@@ -82,25 +88,38 @@ public final class UpdatableDiskValues extends DiskValues {
         writeIndex(newIndex--, off, ctext.put(oldIndex--, null));
       }
       // add the new key and its ids
-      writeIds(key, values.ids(key), values.pos(key), newIndex--);
+      final IntList ids = values.ids(key);
+      counts[j] = ids.size();
+      writeIds(key, ids, values.pos(key), newIndex--);
     }
     size(sz + ns);
+    if(numbers != null) {
+      numbers.insert(new IntList(points), newKeys, new IntList(counts), updated, added);
+    }
   }
 
   @Override
   public synchronized void delete(final ValueCache values) {
     // create a list of the indexes of the keys which should be completely deleted
     final IntList keys = new IntList();
+    // positions of the remaining keys with deleted ids, and number of deleted ids
+    final IntList updated = new IntList(), deleted = new IntList();
     int p = 0;
     final int sz = size();
     // update id lists of keys (in ascending order; speeds up binary search)
     for(final byte[] key : values) {
       p = get(key, p, sz);
       if(p < 0) throw Util.notExpected("Key does not exist: '%'", key);
-      if(deleteIds(p, key, values)) keys.add(p);
+      if(deleteIds(p, key, values)) {
+        keys.add(p);
+      } else {
+        updated.add(p);
+        deleted.add(values.ids(key).size());
+      }
       p++;
     }
     deleteKeys(keys);
+    if(numbers != null) numbers.delete(keys, updated, deleted);
   }
 
   /**
@@ -6,6 +6,8 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.ft.*;
+import org.basex.util.ft.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
@@ -51,10 +53,11 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param data data reference
    */
   public ValueCache(final IntList pres, final IndexType type, final Data data) {
-    pos = type == IndexType.TOKEN ? new ArrayList<IntList>() : null;
+    final boolean ft = type == IndexType.FULLTEXT;
+    pos = type == IndexType.TOKEN || ft ? new ArrayList<IntList>() : null;
 
     final IndexNames in = new IndexNames(type, data);
-    final boolean text = type == IndexType.TEXT;
+    final boolean text = type == IndexType.TEXT || ft;
     final int pl = pres.size(), kind = text ? Data.TEXT : Data.ATTR;
     for(int p = 0; p < pl; p++) {
       final int pre = pres.get(p);
@@ -64,6 +67,19 @@ public final class ValueCache implements Iterable<byte[]> {
           for(final byte[] token : distinctTokens(data.text(pre, text))) {
             addId(token, pre, ps++, data);
           }
+        } else if(ft) {
+          // skip too long tokens and stopwords (see FTBuilder)
+          final FTLexer lexer = ((UpdatableFTIndex) data.ftIndex).lexer();
+          lexer.init(data.text(pre, text));
+          final StopWords sw = lexer.ftOpt().sw;
+          int ps = -1;
+          while(lexer.hasNext()) {
+            final byte[] token = lexer.nextToken();
+            ps++;
+            if(token.length <= data.meta.maxlen && (sw.isEmpty() || !sw.contains(token))) {
+              addId(token, pre, ps, data);
+            }
+          }
         } else if(data.textLen(pre, text) <= data.meta.maxlen) {
           addId(data.text(pre, text), pre, 0, data);
         }
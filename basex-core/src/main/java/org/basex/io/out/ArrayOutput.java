@@ -31,6 +31,19 @@ public final class ArrayOutput extends PrintOutput {
     size = s + 1;
   }
 
+  @Override
+  public void write(final byte[] b, final int off, final int len) {
+    final int s = (int) size, l = (int) Math.min(len, max - s);
+    if(l <= 0) return;
+
+    byte[] bffr = buffer;
+    final int ns = s + l;
+    if(ns > bffr.length) bffr = Arrays.copyOf(bffr, Math.max(ns, Array.newSize(s)));
+    System.arraycopy(b, off, bffr, s, l);
+    buffer = bffr;
+    size = ns;
+  }
+
   /**
    * Normalizes newlines in the byte array.
    * @return self reference
@@ -3,6 +3,7 @@ package org.basex.io.out;
 import java.io.*;
 
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -44,6 +45,8 @@ public final class DataOutput extends OutputStream {
    * @throws IOException I/O exception
    */
   public DataOutput(final IOFile db, final int bufs) throws IOException {
+    final Journal journal = Journal.get(db);
+    if(journal != null) journal.save(db);
     os = new BufferOutput(new FileOutputStream(db.file()), bufs);
   }
 
@@ -66,6 +66,18 @@ public class PrintOutput extends OutputStream {
     if(size++ < max) os.write(b);
   }
 
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if(os != null && max == Long.MAX_VALUE) {
+      // no limit: pass on bytes in a single chunk
+      os.write(b, off, len);
+      size += len;
+    } else {
+      final int l = off + len;
+      for(int o = off; o < l; o++) write(b[o]);
+    }
+  }
+
   /**
    * Prints a single codepoint.
    * @param cp codepoint to be printed
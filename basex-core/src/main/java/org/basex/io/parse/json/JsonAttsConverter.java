@@ -25,12 +25,12 @@ public final class JsonAttsConverter extends JsonXmlConverter {
   }
 
   @Override
-  void openObject() {
+  protected void openObject() {
     addType(OBJECT);
   }
 
   @Override
-  void openPair(final byte[] name, final boolean add) {
+  protected void openPair(final byte[] name, final boolean add) {
     if(add) {
       final FElem e = new FElem(PAIR).add(NAME, name);
       curr.add(e);
@@ -40,53 +40,53 @@ public final class JsonAttsConverter extends JsonXmlConverter {
   }
 
   @Override
-  void closePair(final boolean add) {
+  protected void closePair(final boolean add) {
     if(add) curr = (FElem) curr.parent();
   }
 
   @Override
-  void closeObject() {
+  protected void closeObject() {
   }
 
   @Override
-  void openArray() {
+  protected void openArray() {
     addType(ARRAY);
     nm = null;
   }
 
   @Override
-  void openItem() {
+  protected void openItem() {
     final FElem e = new FElem(ITEM);
     curr.add(e);
     curr = e;
   }
 
   @Override
-  void closeItem() {
+  protected void closeItem() {
     curr = (FElem) curr.parent();
   }
 
   @Override
-  void closeArray() {
+  protected void closeArray() {
   }
 
   @Override
-  public void numberLit(final byte[] value) {
+  protected void numberLit(final byte[] value) {
     addType(NUMBER).add(value);
   }
 
   @Override
-  public void stringLit(final byte[] value) {
+  protected void stringLit(final byte[] value) {
     addType(STRING).add(value);
   }
 
   @Override
-  public void nullLit() {
+  protected void nullLit() {
     addType(NULL);
   }
 
   @Override
-  public void booleanLit(final byte[] value) {
+  protected void booleanLit(final byte[] value) {
     addType(BOOLEAN).add(value);
   }
 
@@ -39,49 +39,49 @@ public final class JsonBasicConverter extends JsonXmlConverter {
   }
 
   @Override
-  void openObject() {
+  protected void openObject() {
     open(MAP);
   }
 
   @Override
-  void openPair(final byte[] key, final boolean add) {
+  protected void openPair(final byte[] key, final boolean add) {
     name = key;
     addPairs.add(add() && add);
   }
 
   @Override
-  void closePair(final boolean add) {
+  protected void closePair(final boolean add) {
     addPairs.pop();
   }
 
   @Override
-  void closeObject() {
+  protected void closeObject() {
     close();
   }
 
   @Override
-  void openArray() {
+  protected void openArray() {
     open(ARRAY);
   }
 
   @Override
-  void openItem() { }
+  protected void openItem() { }
 
   @Override
-  void closeItem() { }
+  protected void closeItem() { }
 
   @Override
-  void closeArray() {
+  protected void closeArray() {
     close();
   }
 
   @Override
-  public void numberLit(final byte[] value) {
+  protected void numberLit(final byte[] value) {
     if(add()) addElem(NUMBER).add(value);
   }
 
   @Override
-  public void stringLit(final byte[] value) {
+  protected void stringLit(final byte[] value) {
     if(add()) {
       final FElem e = addElem(STRING).add(value);
       if(escape && contains(value, '\\')) e.add(ESCAPED, TRUE);
@@ -89,12 +89,12 @@ public final class JsonBasicConverter extends JsonXmlConverter {
   }
 
   @Override
-  public void nullLit() {
+  protected void nullLit() {
     if(add()) addElem(NULL);
   }
 
   @Override
-  public void booleanLit(final byte[] value) {
+  protected void booleanLit(final byte[] value) {
     if(add()) addElem(BOOLEAN).add(value);
   }
 
@@ -25,7 +25,7 @@ public abstract class JsonConverter {
    * Constructor.
    * @param jopts json options
    */
-  JsonConverter(final JsonParserOptions jopts) {
+  protected JsonConverter(final JsonParserOptions jopts) {
     this.jopts = jopts;
   }
 
@@ -47,7 +47,9 @@ public abstract class JsonConverter {
    */
   public Item convert(final IO input) throws IOException {
     final String encoding = jopts.get(JsonParserOptions.ENCODING);
-    return convert(new NewlineInput(input).encoding(encoding).content(), input.path());
+    try(final NewlineInput ni = new NewlineInput(input)) {
+      return convert(ni.encoding(encoding), input.path());
+    }
   }
 
   /**
@@ -58,7 +60,25 @@ public abstract class JsonConverter {
    * @return result
    */
   public Item convert(final byte[] input, final String path) throws QueryIOException {
-    JsonParser.parse(Token.string(input), path, jopts, this);
+    try {
+      return convert(new TextInput(new IOContent(input)), path);
+    } catch(final QueryIOException ex) {
+      throw ex;
+    } catch(final IOException ex) {
+      // input is read from main memory
+      throw Util.notExpected(ex);
+    }
+  }
+
+  /**
+   * Converts the specified input to an XQuery item. The input is parsed incrementally.
+   * @param input text input
+   * @param path input path (can be {@code null)}
+   * @throws IOException I/O exception
+   * @return result
+   */
+  public Item convert(final TextInput input, final String path) throws IOException {
+    JsonParser.parse(input, path, jopts, this);
     return finish();
   }
 
@@ -80,82 +100,86 @@ public abstract class JsonConverter {
 
   /**
    * Called when a JSON object is opened.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void openObject() throws QueryIOException;
+  protected abstract void openObject() throws IOException;
 
   /**
    * Called when a pair of a JSON object is opened.
    * @param key the key of the entry
    * @param add add pair
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void openPair(byte[] key, boolean add) throws QueryIOException;
+  protected abstract void openPair(byte[] key, boolean add) throws IOException;
 
   /**
    * Called when a pair of a JSON object is closed.
    * @param add add pair
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void closePair(boolean add) throws QueryIOException;
+  protected abstract void closePair(boolean add) throws IOException;
 
   /**
    * Called when a JSON object is closed.
+   * @throws IOException I/O exception
    */
-  abstract void closeObject();
+  protected abstract void closeObject() throws IOException;
 
   /**
    * Called when a JSON array is opened.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void openArray() throws QueryIOException;
+  protected abstract void openArray() throws IOException;
 
   /**
    * Called when an item of a JSON array is opened.
+   * @throws IOException I/O exception
    */
-  abstract void openItem();
+  protected abstract void openItem() throws IOException;
 
   /**
    * Called when an item of a JSON array is closed.
+   * @throws IOException I/O exception
    */
-  abstract void closeItem();
+  protected abstract void closeItem() throws IOException;
 
   /**
    * Called when a JSON array is closed.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void closeArray() throws QueryIOException;
+  protected abstract void closeArray() throws IOException;
 
   /**
    * Called when a number literal is encountered.
    * @param value string representation of the number literal
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void numberLit(byte[] value) throws QueryIOException;
+  protected abstract void numberLit(byte[] value) throws IOException;
 
   /**
    * Called when a string literal is encountered.
    * @param bs the string
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void stringLit(byte[] bs) throws QueryIOException;
+  protected abstract void stringLit(byte[] bs) throws IOException;
 
   /**
    * Called when a {@code null} literal is encountered.
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void nullLit() throws QueryIOException;
+  protected abstract void nullLit() throws IOException;
 
   /**
    * Called when a boolean literal is encountered.
    * @param b the boolean
-   * @throws QueryIOException query exception
+   * @throws IOException I/O exception
    */
-  abstract void booleanLit(byte[] b) throws QueryIOException;
+  protected abstract void booleanLit(byte[] b) throws IOException;
 
   /**
    * Returns the resulting XQuery value.
    * @return result
+   * @throws IOException I/O exception
    */
-  abstract Item finish();
+  protected abstract Item finish() throws IOException;
 }
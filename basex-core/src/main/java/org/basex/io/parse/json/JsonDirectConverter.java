@@ -64,59 +64,59 @@ public final class JsonDirectConverter extends JsonXmlConverter {
   }
 
   @Override
-  void openObject() {
+  protected void openObject() {
     curr = addElem(OBJECT);
   }
 
   @Override
-  void openPair(final byte[] key, final boolean add) {
+  protected void openPair(final byte[] key, final boolean add) {
     name = XMLToken.encode(key, lax);
   }
 
   @Override
-  void closePair(final boolean add) { }
+  protected void closePair(final boolean add) { }
 
   @Override
-  void closeObject() {
+  protected void closeObject() {
     final FElem par = (FElem) curr.parent();
     if(par != null) curr = par;
   }
 
   @Override
-  void openArray() {
+  protected void openArray() {
     curr = addElem(ARRAY);
   }
 
   @Override
-  void openItem() {
+  protected void openItem() {
     name = VALUE;
   }
 
   @Override
-  void closeItem() { }
+  protected void closeItem() { }
 
   @Override
-  void closeArray() {
+  protected void closeArray() {
     closeObject();
   }
 
   @Override
-  public void numberLit(final byte[] value) {
+  protected void numberLit(final byte[] value) {
     addElem(NUMBER).add(value);
   }
 
   @Override
-  public void stringLit(final byte[] value) {
+  protected void stringLit(final byte[] value) {
     addElem(STRING).add(value);
   }
 
   @Override
-  public void nullLit() {
+  protected void nullLit() {
     addElem(NULL);
   }
 
   @Override
-  public void booleanLit(final byte[] value) {
+  protected void booleanLit(final byte[] value) {
     addElem(BOOLEAN).add(value);
   }
 
@@ -61,28 +61,28 @@ final class JsonMLConverter extends JsonXmlConverter {
   }
 
   @Override
-  public void openObject() throws QueryIOException {
+  protected void openObject() throws QueryIOException {
     if(curr == null || attName != null || stack.peek() != null)
       error("No object allowed at this stage");
   }
 
   @Override
-  public void openPair(final byte[] key, final boolean add) throws QueryIOException {
+  protected void openPair(final byte[] key, final boolean add) throws QueryIOException {
     attName = check(key);
   }
 
   @Override
-  public void closePair(final boolean add) { }
+  protected void closePair(final boolean add) { }
 
   @Override
-  public void closeObject() {
+  protected void closeObject() {
     stack.pop();
     stack.push(curr);
     curr = null;
   }
 
   @Override
-  public void openArray() throws QueryIOException {
+  protected void openArray() throws QueryIOException {
     if(!stack.isEmpty()) {
       if(attName == null && curr != null && stack.peek() == null) {
         stack.pop();
@@ -97,13 +97,13 @@ final class JsonMLConverter extends JsonXmlConverter {
   }
 
   @Override
-  public void openItem() { }
+  protected void openItem() { }
 
   @Override
-  public void closeItem() { }
+  protected void closeItem() { }
 
   @Override
-  public void closeArray() throws QueryIOException {
+  protected void closeArray() throws QueryIOException {
     FElem val = stack.pop();
     if(val == null) {
       val = curr;
@@ -117,7 +117,7 @@ final class JsonMLConverter extends JsonXmlConverter {
   }
 
   @Override
-  public void stringLit(final byte[] value) throws QueryIOException {
+  protected void stringLit(final byte[] value) throws QueryIOException {
     if(attName == null && curr != null && stack.peek() == null) {
       stack.pop();
       stack.push(curr);
@@ -137,17 +137,17 @@ final class JsonMLConverter extends JsonXmlConverter {
   }
 
   @Override
-  public void numberLit(final byte[] value) throws QueryIOException {
+  protected void numberLit(final byte[] value) throws QueryIOException {
     error("No numbers allowed");
   }
 
   @Override
-  public void nullLit() throws QueryIOException {
+  protected void nullLit() throws QueryIOException {
     error("No 'null' allowed");
   }
 
   @Override
-  public void booleanLit(final byte[] b) throws QueryIOException {
+  protected void booleanLit(final byte[] b) throws QueryIOException {
     error("No booleans allowed");
   }
 }
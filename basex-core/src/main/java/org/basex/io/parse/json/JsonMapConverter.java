@@ -62,17 +62,17 @@ public final class JsonMapConverter extends JsonConverter {
   }
 
   @Override
-  void openObject() {
+  protected void openObject() {
     maps.push(Map.EMPTY);
   }
 
   @Override
-  void openPair(final byte[] key, final boolean add) {
+  protected void openPair(final byte[] key, final boolean add) {
     stack.push(Str.get(key));
   }
 
   @Override
-  void closePair(final boolean add) throws QueryIOException {
+  protected void closePair(final boolean add) throws QueryIOException {
     final Value val = stack.pop();
     final Item key = (Item) stack.pop();
     if(add) {
@@ -85,31 +85,31 @@ public final class JsonMapConverter extends JsonConverter {
   }
 
   @Override
-  void closeObject() {
+  protected void closeObject() {
     stack.push(maps.pop());
   }
 
   @Override
-  void openArray() {
+  protected void openArray() {
     arrays.push(new ValueList());
   }
 
   @Override
-  void openItem() {
+  protected void openItem() {
   }
 
   @Override
-  void closeItem() {
+  protected void closeItem() {
     arrays.peek().add(stack.pop());
   }
 
   @Override
-  void closeArray() {
+  protected void closeArray() {
     stack.push(arrays.pop().array());
   }
 
   @Override
-  public void numberLit(final byte[] value) throws QueryIOException {
+  protected void numberLit(final byte[] value) throws QueryIOException {
     try {
       stack.push(Dbl.get(value, null));
     } catch(final QueryException ex) {
@@ -118,17 +118,17 @@ public final class JsonMapConverter extends JsonConverter {
   }
 
   @Override
-  public void stringLit(final byte[] value) {
+  protected void stringLit(final byte[] value) {
     stack.push(Str.get(value));
   }
 
   @Override
-  public void nullLit() {
+  protected void nullLit() {
     stack.push(Empty.SEQ);
   }
 
   @Override
-  public void booleanLit(final byte[] value) {
+  protected void booleanLit(final byte[] value) {
     stack.push(Bln.get(Token.eq(value, Token.TRUE)));
   }
 }
@@ -3,20 +3,26 @@ package org.basex.io.parse.json;
 import static org.basex.query.QueryError.*;
 import static org.basex.util.Token.*;
 
+import java.io.*;
+
 import org.basex.build.json.*;
 import org.basex.build.json.JsonOptions.*;
 import org.basex.build.json.JsonParserOptions.JsonDuplicates;
+import org.basex.core.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 
 /**
  * A JSON parser generating parse events similar to a SAX XML parser.
+ * The input is read incrementally, so memory consumption only depends on the nesting depth
+ * and the size of the generated result.
  *
  * @author BaseX Team 2005-16, BSD License
  * @author Leo Woerteler
  */
-final class JsonParser extends InputParser {
+final class JsonParser {
   /** Names of control characters not allowed in string literals. */
   private static final String[] CTRL = {
     // U+0000 -- U+001F
@@ -26,6 +32,10 @@ final class JsonParser extends InputParser {
     "CAN", "EM",  "SUB", "ESC", "FS",  "GS",  "RS",  "US",
   };
 
+  /** Input. */
+  private final TextInput input;
+  /** Input path (can be {@code null}). */
+  private final String path;
   /** Converter. */
   private final JsonConverter conv;
   /** Spec. */
@@ -36,57 +46,70 @@ final class JsonParser extends InputParser {
   private final JsonDuplicates duplicates;
   /** Token builder for string literals. */
   private final TokenBuilder tb = new TokenBuilder();
+  /** Original representation of the current character of a string literal
+   * ({@code null} if no fallback function is specified). */
+  private final StringBuilder raw;
+
+  /** Current codepoint ({@code -1} if input is exhausted). */
+  private int curr;
+  /** Line of the current codepoint. */
+  private int line = 1;
+  /** Column of the current codepoint. */
+  private int col = 1;
 
   /**
-   * Constructor taking the input string and the spec according to which it is parsed.
-   * @param in input string
+   * Constructor taking the input and the spec according to which it is parsed.
+   * @param input input
+   * @param path input path (can be {@code null)}
    * @param opts options
    * @param conv converter
    */
-  private JsonParser(final String in, final JsonParserOptions opts, final JsonConverter conv) {
-    super(in);
+  private JsonParser(final TextInput input, final String path, final JsonParserOptions opts,
+      final JsonConverter conv) {
+    this.input = input;
+    this.path = path;
     liberal = opts.get(JsonParserOptions.LIBERAL);
     escape = opts.get(JsonParserOptions.ESCAPE);
     final JsonDuplicates dupl = opts.get(JsonParserOptions.DUPLICATES);
     duplicates = dupl != null ? dupl : opts.get(JsonOptions.FORMAT) == JsonFormat.BASIC ?
       JsonDuplicates.RETAIN : JsonDuplicates.USE_FIRST;
+    raw = !escape && conv.fallback != null ? new StringBuilder() : null;
     this.conv = conv;
   }
 
   /**
-   * Parses the input string, directs the parse events to the given handler and returns
-   * the resulting value.
-   * @param input input string
+   * Parses the input and directs the parse events to the given converter.
+   * @param input input
    * @param path input path (can be {@code null)}
    * @param opts options
    * @param conv converter
-   * @throws QueryIOException parse exception
+   * @throws IOException I/O exception
    */
-  static void parse(final String input, final String path, final JsonParserOptions opts,
-      final JsonConverter conv) throws QueryIOException {
-    final JsonParser parser = new JsonParser(input, opts, conv);
-    parser.file = path;
-    parser.parse();
+  static void parse(final TextInput input, final String path, final JsonParserOptions opts,
+      final JsonConverter conv) throws IOException {
+    new JsonParser(input, path, opts, conv).parse();
   }
 
   /**
    * Parses a JSON expression.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void parse() throws QueryIOException {
-    consume('\uFEFF');
+  private void parse() throws IOException {
+    curr = input.read();
+    if(curr == '\uFEFF') consume();
     skipWs();
     value();
-    if(more()) throw error("Unexpected trailing content: %", rest());
+    if(curr != -1) throw error("Unexpected trailing content: %", rest());
   }
 
   /**
    * Parses a JSON value.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void value() throws QueryIOException {
-    if(pos >= length) throw eof(", expected JSON value.");
-    switch(curr()) {
+  private void value() throws IOException {
+    switch(curr) {
+      case -1:
+        throw eof(", expected JSON value.");
       case '[':
         array();
         break;
@@ -123,15 +146,15 @@ final class JsonParser extends InputParser {
 
   /**
    * Parses a JSON object.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void object() throws QueryIOException {
+  private void object() throws IOException {
     consumeWs('{', true);
     conv.openObject();
     if(!consumeWs('}', false)) {
       final TokenSet set = new TokenSet();
       do {
-        final byte[] key = !liberal || curr() == '"' ? string() : unquoted();
+        final byte[] key = !liberal || curr == '"' ? string() : unquoted();
         final boolean dupl = set.contains(key);
         if(dupl && duplicates == JsonDuplicates.REJECT)
           throw error(BXJS_DUPLICATE_X, "Key '%' occurs more than once.", key);
@@ -142,7 +165,7 @@ final class JsonParser extends InputParser {
         value();
         conv.closePair(add);
         set.put(key);
-      } while(consumeWs(',', false) && !(liberal && curr() == '}'));
+      } while(consumeWs(',', false) && !(liberal && curr == '}'));
       consumeWs('}', true);
     }
     conv.closeObject();
@@ -150,9 +173,9 @@ final class JsonParser extends InputParser {
 
   /**
    * Parses a JSON array.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void array() throws QueryIOException {
+  private void array() throws IOException {
     consumeWs('[', true);
     conv.openArray();
     if(!consumeWs(']', false)) {
@@ -160,7 +183,7 @@ final class JsonParser extends InputParser {
         conv.openItem();
         value();
         conv.closeItem();
-      } while(consumeWs(',', false) && !(liberal && curr() == ']'));
+      } while(consumeWs(',', false) && !(liberal && curr == ']'));
       consumeWs(']', true);
     }
     conv.closeArray();
@@ -169,17 +192,15 @@ final class JsonParser extends InputParser {
   /**
    * Reads an unquoted string literal.
    * @return the string
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private byte[] unquoted() throws QueryIOException {
-    int cp = more() ? input.codePointAt(pos) : -1;
-    if(cp < 0 || !Character.isJavaIdentifierStart(cp))
+  private byte[] unquoted() throws IOException {
+    if(curr == -1 || !Character.isJavaIdentifierStart(curr))
       throw error("Expected unquoted string, found %", rest());
     tb.reset();
     do {
-      tb.add(cp);
-      cp = input.codePointAt(pos += cp < 0x10000 ? 1 : 2);
-    } while(Character.isJavaIdentifierPart(cp));
+      tb.add(consume());
+    } while(curr != -1 && Character.isJavaIdentifierPart(curr));
     skipWs();
     return tb.toArray();
   }
@@ -187,9 +208,9 @@ final class JsonParser extends InputParser {
   /**
    * Parses a number literal.
    * @return string representation
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private byte[] number() throws QueryIOException {
+  private byte[] number() throws IOException {
     tb.reset();
 
     // integral part
@@ -202,7 +223,7 @@ final class JsonParser extends InputParser {
     }
 
     final boolean zero = ch == '0';
-    ch = curr();
+    ch = curr;
     if(zero && ch >= '0' && ch <= '9') throw error("No digit allowed after '0'");
     loop: while(true) {
       switch(ch) {
@@ -216,9 +237,8 @@ final class JsonParser extends InputParser {
         case '7':
         case '8':
         case '9':
-          tb.add(ch);
-          pos++;
-          ch = curr();
+          tb.add(consume());
+          ch = curr;
           break;
         case '.':
         case 'e':
@@ -232,12 +252,11 @@ final class JsonParser extends InputParser {
 
     if(consume('.')) {
       tb.add('.');
-      ch = curr();
+      ch = curr;
       if(ch < '0' || ch > '9') throw error("Number expected after '.'");
       do {
-        tb.add(ch);
-        pos++;
-        ch = curr();
+        tb.add(consume());
+        ch = curr;
       } while(ch >= '0' && ch <= '9');
       if(ch != 'e' && ch != 'E') {
         skipWs();
@@ -247,15 +266,15 @@ final class JsonParser extends InputParser {
 
     // 'e' or 'E'
     tb.add(consume());
-    ch = curr();
+    ch = curr;
     if(ch == '-' || ch == '+') {
       tb.add(consume());
-      ch = curr();
+      ch = curr;
     }
 
     if(ch < '0' || ch > '9') throw error("Exponent expected");
     do tb.add(consume());
-    while((ch = curr()) >= '0' && ch <= '9');
+    while((ch = curr) >= '0' && ch <= '9');
     skipWs();
     return tb.toArray();
   }
@@ -263,27 +282,30 @@ final class JsonParser extends InputParser {
   /**
    * Parses a string literal.
    * @return the string
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private byte[] string() throws QueryIOException {
-    if(!consume('"')) throw error("Expected string, found '%'", curr());
+  private byte[] string() throws IOException {
+    if(!consume('"')) throw error("Expected string, found '%'", found());
     tb.reset();
-    char high = 0; // cached high surrogate
-    while(pos < length) {
-      final int p = pos;
-      int ch = consume();
+    // cached high surrogate, and its original representation
+    int high = 0;
+    String highRaw = null;
+    while(true) {
+      if(raw != null) raw.setLength(0);
+      int ch = read();
+      if(ch == -1) throw eof(" in string literal");
 
       // string is closed..
       if(ch == '"') {
         // unpaired surrogate?
-        if(high != 0) add(high, pos - 7, p);
+        if(high != 0) add(high, highRaw);
         skipWs();
         return tb.toArray();
       }
 
       // escape sequence
       if(ch == '\\') {
-        ch = consume();
+        ch = read();
         switch(ch) {
           case '\\':
           case '/':
@@ -305,52 +327,54 @@ final class JsonParser extends InputParser {
             ch = '\t';
             break;
           case 'u':
-            if(pos + 4 >= length) throw eof(", expected four-digit hex value");
             ch = 0;
             for(int i = 0; i < 4; i++) {
-              final char x = consume();
+              final int x = read();
               if(x >= '0' && x <= '9')      ch = 16 * ch + x      - '0';
               else if(x >= 'a' && x <= 'f') ch = 16 * ch + x + 10 - 'a';
               else if(x >= 'A' && x <= 'F') ch = 16 * ch + x + 10 - 'A';
-              else throw error("Illegal hexadecimal digit: '%'", x);
+              else if(x == -1) throw eof(", expected four-digit hex value");
+              else throw error("Illegal hexadecimal digit: '%'", chr(x));
             }
             break;
-
+          case -1:
+            throw eof(" in string literal");
           default:
-            throw error("Unknown character escape: '\\%'", ch);
+            throw error("Unknown character escape: '\\%'", chr(ch));
         }
       } else if(!liberal && ch <= 0x1F) {
         throw error("Non-escaped control character: '\\%'", CTRL[ch]);
       }
 
+      final String chRaw = raw != null ? raw.toString() : null;
       if(high != 0) {
         if(ch >= 0xDC00 && ch <= 0xDFFF) {
           // compute resulting codepoint
           ch = (high - 0xD800 << 10) + ch - 0xDC00 + 0x10000;
         } else {
           // add invalid high surrogate, treat expected low surrogate as new character
-          add(high, p, pos);
+          add(high, highRaw);
         }
         high = 0;
       }
 
       if(ch >= 0xD800 && ch <= 0xDBFF) {
         // remember high surrogate
-        high = (char) ch;
+        high = ch;
+        highRaw = chRaw;
       } else {
-        add(ch, p, pos);
+        add(ch, chRaw);
       }
     }
-    throw eof(" in string literal");
   }
 
   /**
    * Adds the specified character.
    * @param ch character
-   * @param s start position of invalid unicode sequence
-   * @param e end position
+   * @param original original representation of the character in the input
+   *   (can be {@code null} if no fallback function is specified)
    */
-  private void add(final int ch, final int s, final int e) {
+  private void add(final int ch, final String original) {
     if(escape) {
       if(ch == '\\') {
         tb.add("\\\\");
@@ -375,20 +399,87 @@ final class JsonParser extends InputParser {
     } else if(conv.fallback == null) {
       tb.add(INVALID);
     } else {
-      tb.add(conv.fallback.convert(input.substring(s, e)));
+      tb.add(conv.fallback.convert(original));
+    }
+  }
+
+  /**
+   * Consumes the current codepoint.
+   * @return consumed codepoint, or {@code -1} if input is exhausted
+   * @throws IOException I/O exception
+   */
+  private int consume() throws IOException {
+    final int ch = curr;
+    if(ch != -1) {
+      if(ch == '\n') {
+        line++;
+        col = 1;
+      } else {
+        col++;
+      }
+      curr = input.read();
+    }
+    return ch;
+  }
+
+  /**
+   * Consumes the current codepoint of a string literal and remembers its original
+   * representation.
+   * @return consumed codepoint, or {@code -1} if input is exhausted
+   * @throws IOException I/O exception
+   */
+  private int read() throws IOException {
+    final int ch = consume();
+    if(raw != null && ch != -1) raw.appendCodePoint(ch);
+    return ch;
+  }
+
+  /**
+   * Consumes the current codepoint if it equals the specified one.
+   * @param ch codepoint to consume
+   * @return true if codepoint was consumed
+   * @throws IOException I/O exception
+   */
+  private boolean consume(final int ch) throws IOException {
+    if(curr != ch) return false;
+    consume();
+    return true;
+  }
+
+  /**
+   * Consumes the specified literal if the current codepoint equals its first character.
+   * @param literal literal to consume
+   * @return true if literal was consumed
+   * @throws IOException I/O exception
+   */
+  private boolean consume(final String literal) throws IOException {
+    if(curr != literal.charAt(0)) return false;
+    final int ln = line, cl = col, ll = literal.length();
+    for(int l = 0; l < ll; l++) {
+      if(curr != literal.charAt(l)) {
+        final String rest = literal.substring(0, l) + rest();
+        line = ln;
+        col = cl;
+        throw error("Unexpected JSON value: '%'", rest);
+      }
+      consume();
     }
+    return true;
   }
 
-  /** Consumes all whitespace characters from the remaining query. */
-  private void skipWs() {
-    while(pos < length) {
-      switch(input.charAt(pos)) {
+  /**
+   * Consumes all whitespace characters from the remaining input.
+   * @throws IOException I/O exception
+   */
+  private void skipWs() throws IOException {
+    while(true) {
+      switch(curr) {
         case ' ':
         case '\t':
         case '\r':
         case '\n':
         case '\u00A0': // non-breaking space
-          pos++;
+          consume();
           break;
         default:
           return;
@@ -402,17 +493,49 @@ final class JsonParser extends InputParser {
    * @param ch character to be consumed
    * @param err error flag
    * @return if the character was consumed
-   * @throws QueryIOException parse error
+   * @throws IOException I/O exception
    */
-  private boolean consumeWs(final char ch, final boolean err) throws QueryIOException {
+  private boolean consumeWs(final char ch, final boolean err) throws IOException {
     if(consume(ch)) {
       skipWs();
       return true;
     }
-    if(err) throw error("Expected '%', found '%'", ch, curr());
+    if(err) throw error("Expected '%', found '%'", ch, found());
     return false;
   }
 
+  /**
+   * Returns the current character as string.
+   * @return character, or empty string if input is exhausted
+   */
+  private String found() {
+    return chr(curr);
+  }
+
+  /**
+   * Returns the next characters of the input, up to the end of the line.
+   * Input will be consumed; the position of the current character will be preserved.
+   * @return input substring
+   * @throws IOException I/O exception
+   */
+  private String rest() throws IOException {
+    final int ln = line, cl = col;
+    final StringBuilder sb = new StringBuilder();
+    for(int c = 0; c < 15 && curr != -1 && curr != '\n'; c++) sb.appendCodePoint(consume());
+    line = ln;
+    col = cl;
+    return sb + (curr == -1 ? "" : Text.DOTS);
+  }
+
+  /**
+   * Returns the string representation of a codepoint.
+   * @param cp codepoint
+   * @return string, or empty string for {@code -1}
+   */
+  private static String chr(final int cp) {
+    return cp == -1 ? "" : new String(Character.toChars(cp));
+  }
+
   /**
    * Throws an end-of-input error.
    * @param desc description
@@ -441,7 +564,7 @@ final class JsonParser extends InputParser {
    * @return build exception
    */
   private QueryIOException error(final QueryError err, final String msg, final Object... ext) {
-    final InputInfo ii = new InputInfo(this);
-    return new QueryIOException(err.get(ii, ii.line(), ii.column(), Util.inf(msg, ext)));
+    final InputInfo ii = new InputInfo(path, line, col);
+    return new QueryIOException(err.get(ii, line, col, Util.inf(msg, ext)));
   }
 }
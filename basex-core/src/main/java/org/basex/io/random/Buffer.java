@@ -15,4 +15,12 @@ final class Buffer {
   long pos = -1;
   /** Dirty flag. */
   boolean dirty;
+  /** Reference flag (set if the buffer was requested again). */
+  boolean ref;
+  /** Hot flag (set if the buffer is frequently requested). */
+  boolean hot;
+  /** Waiting flag (set if the buffer is waiting for promotion). */
+  boolean waiting;
+  /** Journal that contains the original contents of the page (can be {@code null}). */
+  Journal journal;
 }
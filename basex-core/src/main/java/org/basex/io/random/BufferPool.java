@@ -0,0 +1,156 @@
+package org.basex.io.random;
+
+import static org.basex.core.Text.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class manages the process-wide memory budget for buffering database pages.
+ * Each {@link DataAccess} and {@link TableDiskAccess} instance owns a minimum number of
+ * buffers. Additional buffers are granted as long as the budget is not exhausted,
+ * and they are returned to the pool when the file is closed.
+ *
+ * If a file is denied buffers while it owns less than its fair share of the budget, the pool
+ * is under pressure for a short while: no file will then grow beyond its share, and files
+ * exceeding it will return their surplus buffers on their next page miss.
+ * Buffers are granted and returned without locking.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPool {
+  /** Duration of pressure after a denied request (nanoseconds). */
+  private static final long PRESSURE = 1000000000L;
+  /** Registered buffer managers. */
+  private static final ArrayList<Buffers> BUFFERS = new ArrayList<>();
+  /** Number of allocated buffers. */
+  private static final AtomicInteger ALLOCATED = new AtomicInteger();
+  /** Maximum number of buffers. */
+  private static volatile int max = pages(64);
+  /** Number of registered buffer managers. */
+  private static volatile int managers;
+  /** Time of the last request that was denied although the fair share was not reached. */
+  private static volatile long denied = System.nanoTime() - PRESSURE;
+
+  /** Private constructor. */
+  private BufferPool() { }
+
+  /**
+   * Assigns the memory budget.
+   * @param mb budget in megabytes
+   */
+  public static void budget(final int mb) {
+    max = pages(mb);
+  }
+
+  /**
+   * Returns buffer statistics for all open files in the specified directory.
+   * @param dir database directory
+   * @return info string
+   */
+  public static synchronized String info(final IOFile dir) {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.addExt(BUFFERS_X_X, ALLOCATED.get(), max).add(NL);
+    for(final Buffers bm : BUFFERS) {
+      final IOFile file = bm.file;
+      if(!dir.eq(file.parent())) continue;
+      final long req = bm.hits + bm.misses;
+      final String ratio = req == 0 ? "-" : String.format(Locale.ENGLISH, "%.2f%%",
+          bm.hits * 100d / req);
+      tb.add(LI).addExt(BUFFER_STATS_X, file.name(), bm.size(), bm.hits, bm.misses, ratio);
+      tb.add(NL);
+    }
+    return tb.toString();
+  }
+
+  // PACKAGE METHODS ==============================================================================
+
+  /**
+   * Registers a buffer manager and allocates its minimum number of buffers.
+   * @param bm buffer manager
+   */
+  static synchronized void register(final Buffers bm) {
+    BUFFERS.add(bm);
+    managers = BUFFERS.size();
+    ALLOCATED.addAndGet(Buffers.MIN);
+  }
+
+  /**
+   * Unregisters a buffer manager and releases its buffers.
+   * @param bm buffer manager
+   */
+  static synchronized void unregister(final Buffers bm) {
+    if(BUFFERS.remove(bm)) {
+      managers = BUFFERS.size();
+      ALLOCATED.addAndGet(-bm.capacity());
+    }
+  }
+
+  /**
+   * Tries to allocate additional buffers.
+   * @param n number of requested buffers
+   * @param capacity number of buffers that are currently owned by the requester
+   * @return number of granted buffers
+   */
+  static int acquire(final int n, final int capacity) {
+    final int share = share();
+    // other files are waiting for buffers: do not grow beyond fair share
+    if(capacity >= share && pressure()) return 0;
+    while(true) {
+      final int a = ALLOCATED.get(), g = Math.min(n, max - a);
+      if(g <= 0) {
+        if(capacity < share) denied = System.nanoTime();
+        return 0;
+      }
+      if(ALLOCATED.compareAndSet(a, a + g)) return g;
+    }
+  }
+
+  /**
+   * Returns buffers to the pool.
+   * @param n number of buffers
+   */
+  static void release(final int n) {
+    ALLOCATED.addAndGet(-n);
+  }
+
+  /**
+   * Returns the number of buffers that should be returned to the pool.
+   * @param capacity number of buffers that are currently owned by the requester
+   * @return number of surplus buffers
+   */
+  static int surplus(final int capacity) {
+    return pressure() ? Math.max(0, capacity - Math.max(Buffers.MIN, share())) : 0;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the fair share of buffers of each file.
+   * @return number of buffers
+   */
+  private static int share() {
+    return max / Math.max(1, managers);
+  }
+
+  /**
+   * Checks if requests have recently been denied.
+   * @return result of check
+   */
+  private static boolean pressure() {
+    return System.nanoTime() - denied < PRESSURE;
+  }
+
+  /**
+   * Returns the number of pages for the specified memory size.
+   * @param mb memory size in megabytes
+   * @return number of pages
+   */
+  private static int pages(final int mb) {
+    return (int) Math.min(Integer.MAX_VALUE, ((long) Math.max(0, mb) << 20) >>> IO.BLOCKPOWER);
+  }
+}
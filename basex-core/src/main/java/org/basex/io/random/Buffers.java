@@ -1,24 +1,65 @@
 package org.basex.io.random;
 
+import java.util.*;
+
+import org.basex.io.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class provides a scan-resistant, clock-based buffer management.
+ *
+ * Buffers are either hot or cold: new pages are cold, and they will only be promoted to hot
+ * pages if they are requested again before the clock hand has passed them, or if they have
+ * recently been replaced (the positions of replaced pages are remembered in a small table).
+ * Only cold pages will be replaced, and hot pages will only be demoted if other pages are waiting
+ * for promotion. Pages that are only requested once, such as the pages of sequential scans,
+ * will thus never evict frequently used pages. The number of buffers grows on demand, as long
+ * as the budget of the {@link BufferPool} is not exhausted, and clean buffers are returned to the
+ * pool if other files are waiting for buffers.
  *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  */
 final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
+  /** Minimum number of buffers (must be 1 << n). */
+  static final int MIN = 1 << 4;
+
+  /** File storing the buffered pages. */
+  final IOFile file;
+  /** Number of page requests that could be served by buffers. */
+  long hits;
+  /** Number of page requests that required disk access. */
+  long misses;
+
   /** Buffers. */
-  private final Buffer[] buf = new Buffer[BUFFERS];
+  private Buffer[] buf = new Buffer[MIN];
+  /** Number of buffers. */
+  private int size;
+  /** Number of hot buffers. */
+  private int hot;
+  /** Number of cold buffers waiting for promotion. */
+  private int demand;
   /** Current buffer offset. */
   private int off;
+  /** Clock hand. */
+  private int hand;
+
+  /** Hash buckets (buffer offsets + 1). */
+  private int[] buckets = new int[MIN << 1];
+  /** Next buffer in hash chain (buffer offsets + 1). */
+  private int[] next = new int[MIN];
+  /** Assigned positions. */
+  private long[] keys = new long[MIN];
+  /** Positions of recently replaced pages (direct-mapped, same size as hash buckets). */
+  private long[] ghosts = ghosts(MIN << 1);
 
   /**
    * Constructor.
+   * @param file file storing the buffered pages
    */
-  Buffers() {
-    for(int b = 0; b < BUFFERS; ++b) buf[b] = new Buffer();
+  Buffers(final IOFile file) {
+    this.file = file;
+    add();
+    BufferPool.register(this);
   }
 
   /**
@@ -26,7 +67,7 @@ final class Buffers {
    * @return buffers
    */
   Buffer[] all() {
-    return buf;
+    return size == buf.length ? buf : Arrays.copyOf(buf, size);
   }
 
   /**
@@ -37,17 +78,235 @@ final class Buffers {
     return buf[off];
   }
 
+  /**
+   * Returns the number of buffers.
+   * @return number of buffers
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of buffers that have been allocated from the pool.
+   * @return capacity
+   */
+  int capacity() {
+    return buf.length;
+  }
+
   /**
    * Chooses a buffer and sets the offset.
+   * If the cursor has changed, the current buffer must be (written and) filled by the caller.
    * @param p buffer pointer
    * @return true if cursor has changed
    */
   boolean cursor(final long p) {
-    final int o = off;
-    do {
-      if(buf[off].pos == p) return false;
-    } while((off = off + 1 & BUFFERS - 1) != o);
-    off = o + 1 & BUFFERS - 1;
+    if(keys[off] == p) return false;
+
+    // check if page is buffered
+    for(int b = buckets[bucket(p)]; b != 0; b = next[b - 1]) {
+      if(keys[b - 1] == p) {
+        off = b - 1;
+        buf[off].ref = true;
+        hits++;
+        return false;
+      }
+    }
+
+    // choose new or least valuable buffer
+    misses++;
+    final int surplus = BufferPool.surplus(buf.length);
+    if(surplus > 0) shrink(surplus);
+    off = size < buf.length || grow() ? add() : victim();
+    unlink(off);
+    keys[off] = p;
+    link(off);
+
+    // recently replaced page: mark as referenced
+    final int g = bucket(p);
+    if(ghosts[g] == p) {
+      ghosts[g] = -1;
+      buf[off].ref = true;
+    }
     return true;
   }
+
+  /**
+   * Releases all buffers.
+   */
+  void close() {
+    BufferPool.unregister(this);
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Tries to increase the number of buffers.
+   * @return success flag
+   */
+  private boolean grow() {
+    final int n = BufferPool.acquire(size, buf.length);
+    if(n == 0) return false;
+    resize(size + n);
+    return true;
+  }
+
+  /**
+   * Returns surplus buffers to the pool. Unused and clean cold buffers are released first,
+   * followed by clean hot buffers. Dirty buffers and the current buffer are retained.
+   * @param n number of buffers to be released
+   */
+  private void shrink(final int n) {
+    int r = Math.min(n, buf.length - size);
+    for(int pass = 0; pass < 2 && r < n; pass++) {
+      for(int b = 0; b < size && r < n; b++) {
+        final Buffer bf = buf[b];
+        if(bf != null && b != off && !bf.dirty && bf.hot == (pass == 1)) {
+          buf[b] = null;
+          r++;
+        }
+      }
+    }
+    if(r == 0) return;
+
+    // compact buffers, recompute counters
+    int s = 0;
+    hot = 0;
+    demand = 0;
+    for(int b = 0; b < size; b++) {
+      final Buffer bf = buf[b];
+      if(bf == null) continue;
+      if(b == off) off = s;
+      if(bf.hot) hot++;
+      if(bf.waiting) demand++;
+      buf[s] = bf;
+      keys[s++] = keys[b];
+    }
+    Arrays.fill(buf, s, size, null);
+    size = s;
+    hand = 0;
+    resize(buf.length - r);
+    BufferPool.release(r);
+  }
+
+  /**
+   * Resizes the arrays and rehashes all buffers.
+   * @param n new capacity
+   */
+  private void resize(final int n) {
+    buf = Arrays.copyOf(buf, n);
+    next = new int[n];
+    keys = Arrays.copyOf(keys, n);
+    buckets = new int[Integer.highestOneBit(n - 1) << 2];
+    ghosts = ghosts(buckets.length);
+    for(int b = 0; b < size; b++) link(b);
+  }
+
+  /**
+   * Adds a new buffer.
+   * @return offset of new buffer
+   */
+  private int add() {
+    buf[size] = new Buffer();
+    keys[size] = -1;
+    return size++;
+  }
+
+  /**
+   * Returns the offset of the buffer to be replaced.
+   * @return offset
+   */
+  private int victim() {
+    // at least a quarter of all buffers remains cold
+    final int max = size - (size >>> 2);
+    while(true) {
+      final int b = hand;
+      hand = (hand + 1) % size;
+      // skip current buffer
+      if(b == off) continue;
+
+      final Buffer bf = buf[b];
+      if(bf.ref) {
+        if(bf.hot) {
+          // referenced hot buffer: give second chance
+          bf.ref = false;
+        } else if(hot < max) {
+          // referenced cold buffer: promote
+          bf.ref = false;
+          bf.hot = true;
+          hot++;
+          if(bf.waiting) {
+            bf.waiting = false;
+            demand--;
+          }
+        } else if(!bf.waiting && demand < hot) {
+          // too many hot buffers: register demand, keep reference until promotion
+          bf.waiting = true;
+          demand++;
+        }
+      } else if(bf.hot) {
+        // unreferenced hot buffer: demote if more cold buffers are waiting than can be promoted
+        if(demand > max - hot) {
+          bf.hot = false;
+          hot--;
+        }
+      } else {
+        // unreferenced cold buffer: replace, remember position
+        final long p = keys[b];
+        if(p != -1) ghosts[bucket(p)] = p;
+        return b;
+      }
+    }
+  }
+
+  /**
+   * Creates an empty table for replaced positions.
+   * @param n size
+   * @return table
+   */
+  private static long[] ghosts(final int n) {
+    final long[] ghosts = new long[n];
+    Arrays.fill(ghosts, -1);
+    return ghosts;
+  }
+
+  /**
+   * Returns the hash bucket for the specified position.
+   * @param p position
+   * @return bucket
+   */
+  private int bucket(final long p) {
+    final long h = p * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32) & buckets.length - 1;
+  }
+
+  /**
+   * Adds the specified buffer to the hash chains.
+   * @param b buffer offset
+   */
+  private void link(final int b) {
+    final long p = keys[b];
+    if(p == -1) return;
+    final int h = bucket(p);
+    next[b] = buckets[h];
+    buckets[h] = b + 1;
+  }
+
+  /**
+   * Removes the specified buffer from the hash chains.
+   * @param b buffer offset
+   */
+  private void unlink(final int b) {
+    final long p = keys[b];
+    if(p == -1) return;
+    final int h = bucket(p);
+    if(buckets[h] == b + 1) {
+      buckets[h] = next[b];
+    } else {
+      int c = buckets[h];
+      while(next[c - 1] != b + 1) c = next[c - 1];
+      next[c - 1] = next[b];
+    }
+    next[b] = 0;
+  }
 }
@@ -13,7 +13,7 @@ import org.basex.util.*;
  */
 public final class DataAccess implements Closeable {
   /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  private final Buffers bm;
   /** Reference to the data input stream. */
   private final RandomAccessFile raf;
   /** File length. */
@@ -29,11 +29,15 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
+    final Journal journal = Journal.get(file);
+    if(journal != null) journal.touch(file);
+
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(file.file(), "rw");
       length = f.length();
       raf = f;
+      bm = new Buffers(file);
       cursor(0);
     } catch(final IOException ex) {
       if(f != null) f.close();
@@ -48,6 +52,11 @@ public final class DataAccess implements Closeable {
     try {
       for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
       if(changed) {
+        final Journal journal = Journal.get(bm.file);
+        if(journal != null) {
+          journal.truncate(bm.file, raf, length);
+          journal.sync();
+        }
         raf.setLength(length);
         changed = false;
       }
@@ -64,6 +73,7 @@ public final class DataAccess implements Closeable {
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    bm.close();
   }
 
   /**
@@ -221,6 +231,7 @@ public final class DataAccess implements Closeable {
     try {
       if(bf.dirty) writeBlock(bf);
       bf.pos = b;
+      bf.journal = null;
       raf.seek(bf.pos);
       if(bf.pos < raf.length())
         raf.readFully(bf.data, 0, (int) Math.min(length - bf.pos, IO.BLOCKSIZE));
@@ -421,12 +432,29 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O exception
    */
   private void writeBlock(final Buffer buffer) throws IOException {
+    final Journal journal = Journal.get(bm.file);
+    if(journal != null && buffer.journal != journal) journal(journal);
     final long pos = buffer.pos, len = Math.min(IO.BLOCKSIZE, length - pos);
     raf.seek(pos);
     raf.write(buffer.data, 0, (int) len);
     buffer.dirty = false;
   }
 
+  /**
+   * Records the original contents of all dirty pages and syncs the journal.
+   * @param journal journal
+   * @throws IOException I/O exception
+   */
+  private void journal(final Journal journal) throws IOException {
+    for(final Buffer b : bm.all()) {
+      if(b.dirty && b.journal != journal) {
+        journal.page(bm.file, raf, b.pos, IO.BLOCKSIZE);
+        b.journal = journal;
+      }
+    }
+    journal.sync();
+  }
+
   /**
    * Returns a buffer which can be used for writing new bytes.
    * @return buffer
@@ -0,0 +1,320 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.list.*;
+
+/**
+ * This class journals the original contents of database files that are modified by an updating
+ * operation. The journal is stored in the update file of a database.
+ *
+ * Before a modified page is written back, its original contents are recorded, and before a file
+ * is rewritten or deleted, its complete contents are saved. Records are collected in main memory
+ * and written in groups: a single sync covers all pages that are about to be written.
+ * An update is committed by syncing all modified files and deleting the journal. If a database
+ * with an existing journal is opened, all records will be applied in reverse order, and the
+ * database will be restored to its state before the interrupted update.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class Journal {
+  /** Journal header. */
+  private static final int MAGIC = 0x42584A31;
+  /** Record type: original file length. */
+  private static final int LENGTH = 1;
+  /** Record type: original page. */
+  private static final int PAGE = 2;
+  /** Record type: original file. */
+  private static final int FILE = 3;
+  /** Active journals, indexed by database directories. */
+  private static final HashMap<String, Journal> JOURNALS = new HashMap<>();
+
+  /** Journal file. */
+  private final IOFile file;
+  /** Database directory. */
+  private final IOFile dir;
+  /** Original lengths of journaled files ({@code -1}: file did not exist). */
+  private final HashMap<String, Long> lengths = new HashMap<>();
+  /** Files whose original contents have been saved. */
+  private final HashSet<String> saved = new HashSet<>();
+  /** Journaled pages. */
+  private final HashSet<String> pages = new HashSet<>();
+  /** Records that have not been written yet. */
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  /** Output stream for pending records. */
+  private final DataOutputStream out = new DataOutputStream(pending);
+
+  /**
+   * Constructor.
+   * @param file journal file
+   * @throws IOException I/O exception
+   */
+  private Journal(final IOFile file) throws IOException {
+    this.file = file;
+    dir = file.parent();
+    out.writeInt(MAGIC);
+    sync();
+  }
+
+  /**
+   * Creates and registers a new journal.
+   * @param file journal file
+   * @return journal
+   * @throws IOException I/O exception
+   */
+  public static Journal start(final IOFile file) throws IOException {
+    final Journal journal = new Journal(file);
+    synchronized(JOURNALS) {
+      JOURNALS.put(journal.dir.path(), journal);
+    }
+    return journal;
+  }
+
+  /**
+   * Creates an empty journal.
+   * @param file journal file
+   * @throws IOException I/O exception
+   */
+  public static void create(final IOFile file) throws IOException {
+    new Journal(file);
+  }
+
+  /**
+   * Returns the active journal for the directory of the specified file.
+   * @param file database file
+   * @return journal, or {@code null} if no update is running
+   */
+  public static Journal get(final IOFile file) {
+    synchronized(JOURNALS) {
+      if(JOURNALS.isEmpty()) return null;
+      final IOFile parent = file.parent();
+      return parent == null ? null : JOURNALS.get(parent.path());
+    }
+  }
+
+  /**
+   * Rolls back an interrupted update and deletes the journal.
+   * @param file journal file
+   * @return {@code true} if the database was restored, {@code false} if the journal is invalid
+   * @throws IOException I/O exception
+   */
+  public static boolean recover(final IOFile file) throws IOException {
+    final IOFile dir = file.parent();
+    try(final RandomAccessFile in = new RandomAccessFile(file.file(), "r")) {
+      final long size = in.length();
+      if(size < 4 || in.readInt() != MAGIC) return false;
+
+      // parse records; incomplete records at the end have not been synced, and may be ignored
+      final IntList types = new IntList();
+      final StringList names = new StringList();
+      final LongList positions = new LongList(), lengths = new LongList(), offsets = new LongList();
+      try {
+        while(in.getFilePointer() < size) {
+          final int type = in.readByte();
+          final String name = in.readUTF();
+          final long pos = type == PAGE ? in.readLong() : 0;
+          final long len = type == PAGE ? in.readInt() : in.readLong();
+          final long off = in.getFilePointer();
+          if(type == PAGE || type == FILE && len > 0) {
+            if(off + len > size) break;
+            in.seek(off + len);
+          } else if(type != LENGTH && type != FILE) {
+            return false;
+          }
+          types.add(type);
+          names.add(name);
+          positions.add(pos);
+          lengths.add(len);
+          offsets.add(off);
+        }
+      } catch(final EOFException ex) {
+        // ignore incomplete record
+      }
+
+      // restore original contents in reverse order
+      final HashSet<String> files = new HashSet<>();
+      for(int r = types.size() - 1; r >= 0; r--) {
+        final IOFile trg = new IOFile(dir, names.get(r));
+        final int type = types.get(r);
+        final long len = lengths.get(r);
+        files.add(trg.name());
+        if(type != PAGE && len == -1) {
+          if(!trg.delete()) throw new IOException("Could not delete " + trg);
+          continue;
+        }
+        try(final RandomAccessFile ra = new RandomAccessFile(trg.file(), "rw")) {
+          if(type == PAGE) {
+            final byte[] data = new byte[(int) len];
+            in.seek(offsets.get(r));
+            in.readFully(data);
+            ra.seek(positions.get(r));
+            ra.write(data);
+          } else {
+            ra.setLength(len);
+            if(type == FILE) copy(in.getChannel(), offsets.get(r), len, ra.getChannel());
+          }
+        }
+      }
+      for(final String name : files) force(new IOFile(dir, name));
+    }
+    return file.delete();
+  }
+
+  /**
+   * Records the original length of the specified file.
+   * Must be called before the file is opened for writing.
+   * @param df database file
+   * @throws IOException I/O exception
+   */
+  public synchronized void touch(final IOFile df) throws IOException {
+    final String name = df.name();
+    if(lengths.containsKey(name)) return;
+    final long len = df.exists() ? df.length() : -1;
+    lengths.put(name, len);
+    record(LENGTH, name).writeLong(len);
+  }
+
+  /**
+   * Saves the original contents of the specified file.
+   * Must be called before the file is rewritten or deleted.
+   * @param df database file
+   * @throws IOException I/O exception
+   */
+  public synchronized void save(final IOFile df) throws IOException {
+    touch(df);
+    final String name = df.name();
+    if(!saved.add(name)) return;
+    final long len = df.exists() ? df.length() : -1;
+    record(FILE, name).writeLong(len);
+    if(len > 0) {
+      try(final RandomAccessFile ra = new RandomAccessFile(file.file(), "rw");
+          final RandomAccessFile in = new RandomAccessFile(df.file(), "r")) {
+        ra.seek(ra.length());
+        ra.write(pending.toByteArray());
+        pending.reset();
+        copy(in.getChannel(), 0, len, ra.getChannel());
+        ra.getChannel().force(false);
+      }
+    } else {
+      sync();
+    }
+  }
+
+  /**
+   * Writes all pending records and syncs the journal.
+   * Must be called before journaled pages are written.
+   * @throws IOException I/O exception
+   */
+  public synchronized void sync() throws IOException {
+    if(pending.size() == 0) return;
+    try(final RandomAccessFile ra = new RandomAccessFile(file.file(), "rw")) {
+      ra.seek(ra.length());
+      ra.write(pending.toByteArray());
+      ra.getChannel().force(false);
+    }
+    pending.reset();
+  }
+
+  /**
+   * Commits the update: syncs all modified files and deletes the journal.
+   * @throws IOException I/O exception
+   */
+  public synchronized void commit() throws IOException {
+    synchronized(JOURNALS) {
+      if(JOURNALS.get(dir.path()) == this) JOURNALS.remove(dir.path());
+    }
+    for(final String name : lengths.keySet()) force(new IOFile(dir, name));
+    if(!file.delete()) throw new IOException("Could not delete " + file);
+  }
+
+  // PACKAGE METHODS ==============================================================================
+
+  /**
+   * Records the original contents of a page, unless they have already been recorded.
+   * @param df database file
+   * @param ra random access to the database file
+   * @param pos file position
+   * @param len page length
+   * @throws IOException I/O exception
+   */
+  synchronized void page(final IOFile df, final RandomAccessFile ra, final long pos,
+      final int len) throws IOException {
+
+    touch(df);
+    final String name = df.name();
+    if(saved.contains(name) || !pages.add(name + ':' + pos)) return;
+    // skip pages that have been appended by this update
+    final int l = (int) Math.min(len, lengths.get(name) - pos);
+    if(l <= 0) return;
+
+    final byte[] data = new byte[l];
+    ra.seek(pos);
+    ra.readFully(data);
+    final DataOutputStream o = record(PAGE, name);
+    o.writeLong(pos);
+    o.writeInt(l);
+    o.write(data);
+  }
+
+  /**
+   * Records the original contents of all pages that will be removed if the specified file
+   * is truncated.
+   * @param df database file
+   * @param ra random access to the database file
+   * @param len new file length
+   * @throws IOException I/O exception
+   */
+  synchronized void truncate(final IOFile df, final RandomAccessFile ra, final long len)
+      throws IOException {
+    final long l = ra.length();
+    for(long p = len & -IO.BLOCKSIZE; p < l; p += IO.BLOCKSIZE) page(df, ra, p, IO.BLOCKSIZE);
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Starts a new record.
+   * @param type record type
+   * @param name file name
+   * @return output stream
+   * @throws IOException I/O exception
+   */
+  private DataOutputStream record(final int type, final String name) throws IOException {
+    out.writeByte(type);
+    out.writeUTF(name);
+    return out;
+  }
+
+  /**
+   * Copies bytes from one channel to another.
+   * @param in input channel
+   * @param pos input position
+   * @param len number of bytes
+   * @param fc output channel, positioned at the target offset
+   * @throws IOException I/O exception
+   */
+  private static void copy(final FileChannel in, final long pos, final long len,
+      final FileChannel fc) throws IOException {
+    for(long c = 0; c < len;) {
+      final long n = in.transferTo(pos + c, len - c, fc);
+      if(n <= 0) throw new EOFException();
+      c += n;
+    }
+  }
+
+  /**
+   * Forces all changes of the specified file to disk.
+   * @param df database file
+   * @throws IOException I/O exception
+   */
+  private static void force(final IOFile df) throws IOException {
+    if(!df.exists()) return;
+    try(final RandomAccessFile ra = new RandomAccessFile(df.file(), "rw")) {
+      ra.getChannel().force(true);
+    }
+  }
+}
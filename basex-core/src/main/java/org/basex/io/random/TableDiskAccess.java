@@ -24,7 +24,7 @@ import org.basex.util.*;
  */
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  private final Buffers bm;
   /** File storing all pages. */
   private final RandomAccessFile file;
   /** Bitmap storing free (=0) and used (=1) pages. */
@@ -82,8 +82,13 @@ public final class TableDiskAccess extends TableAccess {
     }
 
     // initialize data file
-    file = new RandomAccessFile(meta.dbfile(DATATBL).file(), "rw");
-    if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, md.name);
+    final IOFile tbl = meta.dbfile(DATATBL);
+    file = new RandomAccessFile(tbl.file(), "rw");
+    bm = new Buffers(tbl);
+    if(!lock(write)) {
+      close();
+      throw new BaseXException(Text.DB_PINNED_X, md.name);
+    }
   }
 
   /**
@@ -98,7 +103,7 @@ public final class TableDiskAccess extends TableAccess {
 
     try(final FileChannel fc = new RandomAccessFile(table.file(), "rw").getChannel()) {
       return fc.tryLock() == null;
-    } catch(final IOException ex) {
+    } catch(final IOException | OverlappingFileLockException ex) {
       return true;
     }
   }
@@ -127,6 +132,7 @@ public final class TableDiskAccess extends TableAccess {
   public synchronized void close() throws IOException {
     flush(true);
     file.close();
+    bm.close();
   }
 
   @Override
@@ -431,6 +437,32 @@ public final class TableDiskAccess extends TableAccess {
     dirty = true;
   }
 
+  // PACKAGE METHODS ==========================================================
+
+  /**
+   * Returns the channel of the table file.
+   * @return file channel
+   */
+  FileChannel channel() {
+    return file.getChannel();
+  }
+
+  /**
+   * Returns a copy of the first pre values of all used pages.
+   * @return first pre values, or {@code null} if the page index is regular
+   */
+  synchronized int[] firstPres() {
+    return fpres == null ? null : Arrays.copyOf(fpres, used);
+  }
+
+  /**
+   * Returns a copy of the indexes of all used pages.
+   * @return page indexes, or {@code null} if the page index is regular
+   */
+  synchronized int[] pages() {
+    return pages == null ? null : Arrays.copyOf(pages, used);
+  }
+
   // PRIVATE METHODS ==========================================================
 
   /**
@@ -512,6 +544,7 @@ public final class TableDiskAccess extends TableAccess {
     try {
       if(bf.dirty) write(bf);
       bf.pos = p;
+      bf.journal = null;
       if(p >= size) {
         size = p + 1;
       } else {
@@ -540,11 +573,28 @@ public final class TableDiskAccess extends TableAccess {
    * @throws IOException I/O exception
    */
   private void write(final Buffer bf) throws IOException {
+    final Journal journal = Journal.get(bm.file);
+    if(journal != null && bf.journal != journal) journal(journal);
     file.seek(bf.pos * IO.BLOCKSIZE);
     file.write(bf.data);
     bf.dirty = false;
   }
 
+  /**
+   * Records the original contents of all dirty pages and syncs the journal.
+   * @param journal journal
+   * @throws IOException I/O exception
+   */
+  private void journal(final Journal journal) throws IOException {
+    for(final Buffer b : bm.all()) {
+      if(b.dirty && b.journal != journal) {
+        journal.page(bm.file, file, b.pos * IO.BLOCKSIZE, IO.BLOCKSIZE);
+        b.journal = journal;
+      }
+    }
+    journal.sync();
+  }
+
   /**
    * Updates the firstPre index entries.
    * @param nr number of entries to move
@@ -0,0 +1,311 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class maps the database table into memory and serves reads without locks.
+ *
+ * The table file is mapped in segments, which are accessed via absolute offsets. Write operations
+ * are delegated to the paged {@link TableDiskAccess} implementation. As long as the table contains
+ * changes that have not been flushed, all reads will be served by the paged implementation, too.
+ * The mapping will be renewed when the table is completely flushed.
+ *
+ * Mapped segments are released when the table is modified or closed. At that time, the database
+ * locks guarantee that no other thread reads the table. If segments cannot be released (which
+ * depends on the JVM), they will be released by the garbage collector. As mapped files stay
+ * locked on Windows until then, the paged implementation is used instead (see {@link #get}).
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class TableMappedAccess extends TableAccess {
+  /** Power of the segment size (1 GB; must be a multiple of the block size). */
+  private static final int SEGPOWER = 30;
+  /** Segment mask. */
+  private static final long SEGMASK = (1L << SEGPOWER) - 1;
+  /** Number of entries per page (power). */
+  private static final int ENTRYPOWER = IO.BLOCKPOWER - IO.NODEPOWER;
+
+  /** Unsafe instance for releasing buffers (Java 9 and later; otherwise {@code null}). */
+  private static final Object UNSAFE;
+  /** Method for releasing buffers ({@code null} if buffers cannot be released). */
+  private static final Method CLEAN;
+  /** Method for returning the cleaner of a buffer (Java 8 and earlier; otherwise {@code null}). */
+  private static final Method CLEANER;
+
+  static {
+    final Class<?> unsafe = Reflect.find("sun.misc.Unsafe");
+    final Method invoke = Reflect.method(unsafe, "invokeCleaner", ByteBuffer.class);
+    Object instance = null;
+    if(invoke != null) {
+      try {
+        final Field field = unsafe.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        instance = field.get(null);
+      } catch(final Exception ex) {
+        Util.debug(ex);
+      }
+    }
+    if(instance != null) {
+      UNSAFE = instance;
+      CLEAN = invoke;
+      CLEANER = null;
+    } else {
+      UNSAFE = null;
+      CLEANER = Reflect.method(Reflect.find("sun.nio.ch.DirectBuffer"), "cleaner");
+      CLEAN = CLEANER == null ? null : Reflect.method(Reflect.find("sun.misc.Cleaner"), "clean");
+    }
+  }
+
+  /** Paged table access, used for write operations. */
+  private final TableDiskAccess disk;
+  /** Current mapping ({@code null} if table contains unflushed changes). */
+  private volatile Mapping mapping;
+
+  /**
+   * Constructor.
+   * @param md meta data
+   * @param write write lock
+   * @throws IOException I/O exception
+   */
+  private TableMappedAccess(final MetaData md, final boolean write) throws IOException {
+    super(md);
+    disk = new TableDiskAccess(md, write);
+    mapping = map();
+  }
+
+  /**
+   * Returns a mapped table access, or a paged table access if mapped segments cannot be
+   * released and if mapped files are locked by the operating system.
+   * @param md meta data
+   * @param write write lock
+   * @return table access
+   * @throws IOException I/O exception
+   */
+  public static TableAccess get(final MetaData md, final boolean write) throws IOException {
+    return CLEAN == null && Prop.WIN ? new TableDiskAccess(md, write) :
+      new TableMappedAccess(md, write);
+  }
+
+  @Override
+  public synchronized void flush(final boolean all) throws IOException {
+    disk.flush(all);
+    if(all && mapping == null) mapping = map();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      unmap();
+    } finally {
+      disk.close();
+    }
+  }
+
+  @Override
+  public boolean lock(final boolean write) {
+    return disk.lock(write);
+  }
+
+  @Override
+  public int read1(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m == null) return disk.read1(pre, off);
+    final long pos = m.pos(pre, off);
+    return m.segment(pos).get(index(pos)) & 0xFF;
+  }
+
+  @Override
+  public int read2(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m == null) return disk.read2(pre, off);
+    final long pos = m.pos(pre, off);
+    return m.segment(pos).getShort(index(pos)) & 0xFFFF;
+  }
+
+  @Override
+  public int read4(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m == null) return disk.read4(pre, off);
+    final long pos = m.pos(pre, off);
+    return m.segment(pos).getInt(index(pos));
+  }
+
+  @Override
+  public long read5(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m == null) return disk.read5(pre, off);
+    final long pos = m.pos(pre, off);
+    final ByteBuffer bb = m.segment(pos);
+    final int i = index(pos);
+    return (long) (bb.get(i) & 0xFF) << 32 | bb.getInt(i + 1) & 0xFFFFFFFFL;
+  }
+
+  @Override
+  public void write1(final int pre, final int off, final int v) {
+    dirty();
+    disk.write1(pre, off, v);
+  }
+
+  @Override
+  public void write2(final int pre, final int off, final int v) {
+    dirty();
+    disk.write2(pre, off, v);
+  }
+
+  @Override
+  public void write4(final int pre, final int off, final int v) {
+    dirty();
+    disk.write4(pre, off, v);
+  }
+
+  @Override
+  public void write5(final int pre, final int off, final long v) {
+    dirty();
+    disk.write5(pre, off, v);
+  }
+
+  @Override
+  public void delete(final int pre, final int nr) {
+    dirty();
+    disk.delete(pre, nr);
+  }
+
+  @Override
+  public void insert(final int pre, final byte[] entries) {
+    dirty();
+    disk.insert(pre, entries);
+  }
+
+  @Override
+  protected void dirty() {
+    unmap();
+    dirty = true;
+    disk.dirty();
+  }
+
+  @Override
+  protected void copy(final byte[] entries, final int pre, final int last) {
+    dirty();
+    disk.copy(entries, pre, last);
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the offset of a position in its segment.
+   * @param pos file position
+   * @return offset
+   */
+  private static int index(final long pos) {
+    return (int) (pos & SEGMASK);
+  }
+
+  /**
+   * Drops the current mapping and releases its segments.
+   */
+  private void unmap() {
+    final Mapping m = mapping;
+    if(m == null) return;
+    mapping = null;
+    for(final MappedByteBuffer segment : m.segments) release(segment);
+  }
+
+  /**
+   * Releases a mapped buffer.
+   * @param buffer buffer
+   */
+  private static void release(final MappedByteBuffer buffer) {
+    if(CLEANER != null) {
+      final Object cleaner = Reflect.invoke(CLEANER, buffer);
+      if(cleaner != null) Reflect.invoke(CLEAN, cleaner);
+    } else {
+      Reflect.invoke(CLEAN, UNSAFE, buffer);
+    }
+  }
+
+  /**
+   * Creates a new mapping of the flushed table file.
+   * @return mapping
+   * @throws IOException I/O exception
+   */
+  private Mapping map() throws IOException {
+    final FileChannel fc = disk.channel();
+    final long length = fc.size();
+    final int segs = (int) ((length + SEGMASK) >>> SEGPOWER);
+    final MappedByteBuffer[] segments = new MappedByteBuffer[segs];
+    for(int s = 0; s < segs; s++) {
+      final long start = (long) s << SEGPOWER;
+      segments[s] = fc.map(MapMode.READ_ONLY, start, Math.min(SEGMASK + 1, length - start));
+    }
+    dirty = false;
+    return new Mapping(segments, disk.firstPres(), disk.pages());
+  }
+
+  /**
+   * Immutable snapshot of the mapped file segments and the page index.
+   */
+  private static final class Mapping {
+    /** Mapped segments. */
+    private final MappedByteBuffer[] segments;
+    /** First pre values of the used pages ({@code null} if the page index is regular). */
+    private final int[] fpres;
+    /** Page index ({@code null} if the page index is regular). */
+    private final int[] pages;
+
+    /**
+     * Constructor.
+     * @param segments mapped segments
+     * @param fpres first pre values
+     * @param pages page index
+     */
+    private Mapping(final MappedByteBuffer[] segments, final int[] fpres, final int[] pages) {
+      this.segments = segments;
+      this.fpres = fpres;
+      this.pages = pages;
+    }
+
+    /**
+     * Returns the file position of the specified entry.
+     * @param pre pre value
+     * @param off offset
+     * @return file position
+     */
+    private long pos(final int pre, final int off) {
+      final long page;
+      final int first;
+      if(fpres == null) {
+        page = pre >>> ENTRYPOWER;
+        first = pre & ~(IO.ENTRIES - 1);
+      } else {
+        // find last page with a first pre value smaller than or equal to the specified value
+        int l = 0, h = fpres.length - 1;
+        while(l < h) {
+          final int m = l + h + 1 >>> 1;
+          if(fpres[m] <= pre) l = m;
+          else h = m - 1;
+        }
+        page = pages[l];
+        first = fpres[l];
+      }
+      return (page << IO.BLOCKPOWER) + (pre - first << IO.NODEPOWER) + off;
+    }
+
+    /**
+     * Returns the segment containing the specified file position.
+     * @param pos file position
+     * @return segment
+     */
+    private ByteBuffer segment(final long pos) {
+      return segments[(int) (pos >>> SEGPOWER)];
+    }
+  }
+}
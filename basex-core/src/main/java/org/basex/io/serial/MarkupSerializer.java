@@ -49,6 +49,8 @@ abstract class MarkupSerializer extends StandardSerializer {
 
   /** Media type. */
   private final String media;
+  /** Indicates if ASCII characters can be written without being encoded or mapped. */
+  private final boolean ascii;
 
   /**
    * Constructor.
@@ -78,6 +80,7 @@ abstract class MarkupSerializer extends StandardSerializer {
     content = sopts.yes(INCLUDE_CONTENT_TYPE);
     undecl  = sopts.yes(UNDECLARE_PREFIXES);
 
+    ascii = map == null && encoding == Strings.UTF8;
     if(docsys.isEmpty()) docsys = null;
     if(docpub.isEmpty()) docpub = null;
 
@@ -130,20 +133,9 @@ abstract class MarkupSerializer extends StandardSerializer {
       throws IOException {
 
     if(!standalone) out.print(' ');
-    out.print(name);
+    printName(name);
     out.print(ATT1);
-    final byte[] val = norm(value);
-    final int vl = val.length;
-    for(int k = 0; k < vl; k += cl(val, k)) {
-      final int cp = cp(val, k);
-      if(cp == '"') {
-        out.print(E_QUOT);
-      } else if(cp == 0x9 || cp == 0xA) {
-        printHex(cp);
-      } else {
-        printChar(cp);
-      }
-    }
+    printEscaped(norm(value), true);
     out.print(ATT2);
   }
 
@@ -152,12 +144,10 @@ abstract class MarkupSerializer extends StandardSerializer {
     final byte[] val = norm(value);
     if(ftp == null) {
       final ArrayList<QNm> qnames = cdata();
-      final int vl = val.length;
       if(qnames.isEmpty() || elems.isEmpty() || !qnames.contains(elems.peek())) {
-        for(int k = 0; k < vl; k += cl(val, k)) {
-          printChar(cp(val, k));
-        }
+        printEscaped(val, false);
       } else {
+        final int vl = val.length;
         out.print(CDATA_O);
         int c = 0;
         for(int k = 0; k < vl; k += cl(val, k)) {
@@ -218,7 +208,7 @@ abstract class MarkupSerializer extends StandardSerializer {
     doctype(name);
     if(sep) indent();
     out.print(ELEM_O);
-    out.print(name.string());
+    printName(name.string());
     sep = true;
   }
 
@@ -236,7 +226,7 @@ abstract class MarkupSerializer extends StandardSerializer {
   protected void finishClose() throws IOException {
     if(sep) indent();
     out.print(ELEM_OS);
-    out.print(elem.string());
+    printName(elem.string());
     out.print(ELEM_C);
     sep = true;
   }
@@ -355,6 +345,51 @@ abstract class MarkupSerializer extends StandardSerializer {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Prints the name of an element or attribute.
+   * @param name name
+   * @throws IOException I/O exception
+   */
+  private void printName(final byte[] name) throws IOException {
+    // names are valid UTF8 tokens and contain no newlines
+    if(ascii) out.write(name);
+    else out.print(name);
+  }
+
+  /**
+   * Encodes and prints a text or attribute value. If possible, runs of ASCII characters
+   * that need not be escaped are written in a single chunk.
+   * @param value value
+   * @param attr attribute flag
+   * @throws IOException I/O exception
+   */
+  private void printEscaped(final byte[] value, final boolean attr) throws IOException {
+    final int vl = value.length;
+    int s = 0;
+    for(int v = 0; v < vl;) {
+      final byte b = value[v];
+      if(ascii && b >= ' ' && b < 0x7F && b != '&' && b != '<' && b != '>' &&
+          (b != '"' || !attr)) {
+        v++;
+        continue;
+      }
+      if(s < v) out.write(value, s, v - s);
+      final int cp = cp(value, v);
+      if(!attr) {
+        printChar(cp);
+      } else if(cp == '"') {
+        out.print(E_QUOT);
+      } else if(cp == 0x9 || cp == 0xA) {
+        printHex(cp);
+      } else {
+        printChar(cp);
+      }
+      v += cl(value, v);
+      s = v;
+    }
+    if(s < vl) out.write(value, s, vl - s);
+  }
+
   /**
    * Retrieves a value from the specified option and checks for supported values.
    * @param option option
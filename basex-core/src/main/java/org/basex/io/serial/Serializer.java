@@ -50,6 +50,10 @@ public abstract class Serializer implements Closeable {
   protected boolean more;
   /** Indicates if an element is currently being opened. */
   private boolean opening;
+  /** Database of the cached element names. */
+  private Data names;
+  /** Cached element names, indexed by their name and namespace uri ids. */
+  private IntObjMap<QNm> qnames;
 
   /**
    * Returns a default serializer.
@@ -374,9 +378,9 @@ public abstract class Serializer implements Closeable {
         preparePi(data.name(pre, Data.PI), data.atom(pre++));
       } else {
         // add element node
-        final byte[] name = data.name(pre, kind);
-        final byte[] uri = data.nspaces.uri(data.uriId(pre, kind));
-        openElement(new QNm(name, uri));
+        final QNm qname = qname(data, pre);
+        final byte[] name = qname.string(), uri = qname.uri();
+        openElement(qname);
 
         // add namespace definitions
         if(nsp != null) {
@@ -385,7 +389,7 @@ public abstract class Serializer implements Closeable {
           int pp = pre;
 
           // check namespace of current element
-          namespace(prefix(name), uri == null ? EMPTY : uri, false);
+          namespace(prefix(name), uri, false);
 
           do {
             final Atts ns = data.namespaces(pp);
@@ -474,6 +478,27 @@ public abstract class Serializer implements Closeable {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Returns the name of a database element. Names are cached, as they will usually be
+   * requested many times while a database fragment is serialized.
+   * @param data data reference
+   * @param pre pre value
+   * @return name
+   */
+  private QNm qname(final Data data, final int pre) {
+    if(names != data) {
+      names = data;
+      qnames = new IntObjMap<>();
+    }
+    final int uriId = data.uriId(pre, Data.ELEM), key = data.nameId(pre) | uriId << 15;
+    QNm qname = qnames.get(key);
+    if(qname == null) {
+      qname = new QNm(data.name(pre, Data.ELEM), data.nspaces.uri(uriId));
+      qnames.put(key, qname);
+    }
+    return qname;
+  }
+
   /**
    * Serializes a comment.
    * @param value value
@@ -0,0 +1,102 @@
+package org.basex.query;
+
+import static org.basex.core.Text.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * Sources of imported modules, which are shared by all queries.
+ * A cached source is returned as long as the time stamp and the size of its file are unchanged.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class ModuleCache {
+  /** Maximum number of cached modules. */
+  private static final int MAX = 256;
+
+  /** Cached modules, ordered by their last access. */
+  private final LinkedHashMap<String, Module> modules =
+      new LinkedHashMap<String, Module>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, Module> eldest) {
+      return size() > MAX;
+    }
+  };
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+
+  /**
+   * Returns the source of the specified module.
+   * Only the sources of local files are cached.
+   * @param io input reference
+   * @return source
+   * @throws IOException I/O exception
+   */
+  public String read(final IO io) throws IOException {
+    if(!(io instanceof IOFile)) return string(io.read());
+
+    final String path = io.path();
+    final long time = io.timeStamp(), length = io.length();
+    synchronized(this) {
+      final Module module = modules.get(path);
+      if(module != null && module.time == time && module.length == length) {
+        hits++;
+        return module.source;
+      }
+      misses++;
+    }
+    // the file is read outside the monitor; concurrent misses store the same source
+    final String source = string(io.read());
+    synchronized(this) {
+      modules.put(path, new Module(source, time, length));
+    }
+    return source;
+  }
+
+  /**
+   * Returns information on the cached modules.
+   * @return info string
+   */
+  public synchronized String info() {
+    final long req = hits + misses;
+    final String ratio = req == 0 ? "-" : String.format(Locale.ENGLISH, "%.2f%%",
+        hits * 100d / req);
+    return new TokenBuilder().addExt(MODULE_CACHE_X, modules.size(), MAX, hits, misses,
+        ratio).add(NL).toString();
+  }
+
+  /**
+   * Source of a module file.
+   *
+   * @author BaseX Team 2005-16, BSD License
+   * @author Christian Gruen
+   */
+  private static final class Module {
+    /** Source. */
+    final String source;
+    /** Time stamp of the file. */
+    final long time;
+    /** File size. */
+    final long length;
+
+    /**
+     * Constructor.
+     * @param source source
+     * @param time time stamp of the file
+     * @param length file size
+     */
+    Module(final String source, final long time, final long length) {
+      this.source = source;
+      this.time = time;
+      this.length = length;
+    }
+  }
+}
@@ -123,6 +123,8 @@ public final class QueryContext extends Proc implements Closeable {
   private Value[] args;
   /** Counter for variable IDs. */
   public int varIDs;
+  /** Number of node constructors that are currently evaluated. */
+  public int constructors;
 
   /** Parsed modules, containing the file path and module uri. */
   public final TokenMap modParsed = new TokenMap();
@@ -71,6 +71,8 @@ public enum QueryError {
   ASYNC_UNKNOWN_X(ASYNC, "unknown", "Unknown query id: %."),
   /** ASYN0004. */
   ASYNC_RUNNING_X(ASYNC, "running", "Query is still running: %."),
+  /** ASYN0005. */
+  ASYNC_LIMIT_X(ASYNC, "limit", "Maximum number of pending queries reached: %."),
 
   // Client module
 
@@ -428,6 +430,10 @@ public enum QueryError {
   /** File error. */
   FILE_OUT_OF_RANGE_X_X(FILE, "out-of-range", "Requested file chunk [%,%] exceeds file bounds."),
   /** File error. */
+  FILE_LINE_OFFSET_X(FILE, "out-of-range", "Requested line offset % exceeds file bounds."),
+  /** File error. */
+  FILE_LINE_LENGTH_X(FILE, "out-of-range", "Requested number of lines is negative: %."),
+  /** File error. */
   FILE_INVALID_PATH_X(FILE, "invalid-path", "Invalid file path: '%'."),
   /** File error. */
   FILE_IO_ERROR_X(FILE, "io-error", "%"),
@@ -113,6 +113,10 @@ public class QueryParser extends InputParser {
   private QNm alterFunc;
   /** Alternative position. */
   private int alterPos;
+  /** Start position of the last skipped whitespaces. */
+  private int wsStart = -1;
+  /** End position of the last skipped whitespaces. */
+  private int wsEnd;
 
   /** Declared flags. */
   private final HashSet<String> decl = new HashSet<>();
@@ -800,7 +804,7 @@ public class QueryParser extends InputParser {
     // read module
     final String qu;
     try {
-      qu = string(io.read());
+      qu = qc.context.modules.read(io);
     } catch(final IOException ex) {
       throw error(WHICHMODFILE_X, io);
     }
@@ -4009,16 +4013,28 @@ public class QueryParser extends InputParser {
    * @throws QueryException query exception
    */
   private boolean skipWs() throws QueryException {
+    // skip whitespaces that have already been scanned at the same position
     final int i = pos;
+    if(i == wsStart) {
+      pos = wsEnd;
+      return i != pos;
+    }
+    boolean cmt = false;
     while(more()) {
       final int c = curr();
       if(c == '(' && next() == ':') {
         comment();
+        cmt = true;
       } else {
-        if(c <= 0 || c > ' ') return i != pos;
+        if(c <= 0 || c > ' ') break;
         ++pos;
       }
     }
+    // comments are not cached, as they may contain documentation
+    if(!cmt) {
+      wsStart = i;
+      wsEnd = pos;
+    }
     return i != pos;
   }
 
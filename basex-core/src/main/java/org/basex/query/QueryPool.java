@@ -1,9 +1,11 @@
 package org.basex.query;
 
+import static org.basex.core.Text.*;
 import static org.basex.query.QueryError.*;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -15,7 +17,10 @@ import org.basex.util.*;
 import org.basex.util.list.*;
 
 /**
- * Pool with asynchronous queries.
+ * Pool with asynchronous queries. Queries and fork-join tasks are evaluated by thread pools
+ * that are shared by all clients. The number of threads is limited by
+ * {@link StaticOptions#ASYNCTHREADS}; queries that exceed this limit are queued.
+ * The fork-join pool is also used for parallel evaluation and sorting.
  *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
@@ -23,6 +28,24 @@ import org.basex.util.list.*;
 public final class QueryPool {
   /** Queries. */
   private final Map<String, Query> queries = new ConcurrentHashMap<>();
+  /** Static options. */
+  private final StaticOptions soptions;
+  /** Thread pool for queries ({@code null} if not created yet). */
+  private ThreadPoolExecutor executor;
+  /** Thread pool for fork-join tasks ({@code null} if not created yet). */
+  private ForkJoinPool forkJoin;
+  /** Latencies of asynchronous queries (from submission to completion). */
+  private final Latency queryLatency = new Latency();
+  /** Latencies of fork-join invocations (from submission to completion). */
+  private final Latency taskLatency = new Latency();
+
+  /**
+   * Constructor.
+   * @param soptions static options
+   */
+  public QueryPool(final StaticOptions soptions) {
+    this.soptions = soptions;
+  }
 
   /**
    * Adds and registers query.
@@ -30,13 +53,118 @@ public final class QueryPool {
    * @param cache cache results
    * @param info input info
    * @return query id
+   * @throws QueryException query exception
    */
-  public String add(final QueryProcessor qp, final boolean cache, final InputInfo info) {
+  public String add(final QueryProcessor qp, final boolean cache, final InputInfo info)
+      throws QueryException {
+
     final String id = "Query-" + UUID.randomUUID();
-    queries.put(id, new Query(qp, id, cache, info));
+    final Query query = new Query(qp, id, cache, info);
+    synchronized(this) {
+      // check number of pending queries of the current user
+      final int limit = soptions.get(StaticOptions.ASYNCLIMIT);
+      if(limit > 0) {
+        int c = 0;
+        for(final Query q : queries.values()) {
+          if(q.qp != null && q.user.equals(query.user) && ++c >= limit)
+            throw ASYNC_LIMIT_X.get(info, limit);
+        }
+      }
+      queries.put(id, query);
+    }
+    executor().execute(query);
     return id;
   }
 
+  /**
+   * Returns the number of threads of the fork-join pool.
+   * @return number of threads
+   */
+  public int parallelism() {
+    return forkJoin().getParallelism();
+  }
+
+  /**
+   * Evaluates a task in the fork-join pool and waits for its result.
+   * @param <T> result type
+   * @param task task
+   * @return result
+   */
+  public <T> T invoke(final ForkJoinTask<T> task) {
+    final long start = System.nanoTime();
+    try {
+      return forkJoin().invoke(task);
+    } finally {
+      taskLatency.add(start);
+    }
+  }
+
+  /**
+   * Returns information on the thread pools.
+   * @return info string
+   */
+  public synchronized String info() {
+    final TokenBuilder tb = new TokenBuilder().add(THREAD_POOLS).add(COL).add(NL);
+    final int threads = threads();
+    final ThreadPoolExecutor ex = executor;
+    final ForkJoinPool fj = forkJoin;
+    queryLatency.info(tb, ASYNC_QUERIES, ex != null ? ex.getActiveCount() : 0, threads,
+        ex != null ? ex.getQueue().size() : 0);
+    taskLatency.info(tb, FORK_JOIN_TASKS, fj != null ? fj.getActiveThreadCount() : 0, threads,
+        fj != null ? fj.getQueuedSubmissionCount() + fj.getQueuedTaskCount() : 0);
+    return tb.toString();
+  }
+
+  /**
+   * Stops all queries and shuts down the thread pools.
+   */
+  public synchronized void close() {
+    for(final Query query : queries.values()) query.close();
+    if(executor != null) executor.shutdown();
+    if(forkJoin != null) forkJoin.shutdown();
+    executor = null;
+    forkJoin = null;
+  }
+
+  /**
+   * Returns the thread pool for queries.
+   * @return thread pool
+   */
+  private synchronized ThreadPoolExecutor executor() {
+    if(executor == null) {
+      // bounded worker pool; idle threads will be released
+      final int threads = threads();
+      executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+              final Thread t = new Thread(r, "AsyncQuery");
+              t.setDaemon(true);
+              return t;
+            }
+          });
+      executor.allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+
+  /**
+   * Returns the thread pool for fork-join tasks.
+   * @return thread pool
+   */
+  private synchronized ForkJoinPool forkJoin() {
+    if(forkJoin == null) forkJoin = new ForkJoinPool(threads());
+    return forkJoin;
+  }
+
+  /**
+   * Returns the maximum number of threads.
+   * @return number of threads
+   */
+  private int threads() {
+    return Math.max(1, soptions.get(StaticOptions.ASYNCTHREADS));
+  }
+
   /**
    * Retrieves the query result.
    * @param id id
@@ -124,9 +252,11 @@ public final class QueryPool {
    * @author BaseX Team 2005-16, BSD License
    * @author Christian Gruen
    */
-  final class Query extends Thread {
+  final class Query implements Runnable {
     /** Query id. */
     final String id;
+    /** Name of the user who started the query. */
+    final String user;
     /** Input info. */
     final InputInfo info;
     /** Cache results. */
@@ -139,6 +269,8 @@ public final class QueryPool {
     Timer timer;
     /** Exception. */
     QueryException exception;
+    /** Time of submission (nanoseconds). */
+    final long start = System.nanoTime();
 
     /**
      * Constructor.
@@ -152,7 +284,7 @@ public final class QueryPool {
       this.id = id;
       this.info = info;
       this.cache = cache;
-      start();
+      user = qp.qc.context.user().name();
     }
 
     @Override
@@ -161,6 +293,8 @@ public final class QueryPool {
       QueryException exc = null;
       Value value = null;
       try {
+        // skip queries that have been stopped while being queued
+        qp.checkStop();
         // register and evaluate query, cache results
         ctx.register(qp);
         value = copy(qp.iter(), ctx);
@@ -190,8 +324,9 @@ public final class QueryPool {
 
         // close and invalidate query after result has been assigned
         qp.close();
-        ctx.unregister(qp);
+        if(qp.registered()) ctx.unregister(qp);
         qp = null;
+        queryLatency.add(start);
       }
     }
 
@@ -204,4 +339,46 @@ public final class QueryPool {
       queries.remove(id);
     }
   }
+
+  /**
+   * Latencies of finished jobs.
+   *
+   * @author BaseX Team 2005-16, BSD License
+   * @author Christian Gruen
+   */
+  private static final class Latency {
+    /** Number of finished jobs. */
+    private final AtomicLong count = new AtomicLong();
+    /** Total time (nanoseconds). */
+    private final AtomicLong total = new AtomicLong();
+    /** Maximum time (nanoseconds). */
+    private volatile long max;
+
+    /**
+     * Adds the latency of a finished job.
+     * @param start time of submission (nanoseconds)
+     */
+    void add(final long start) {
+      final long time = System.nanoTime() - start;
+      count.incrementAndGet();
+      total.addAndGet(time);
+      if(time > max) max = time;
+    }
+
+    /**
+     * Adds information on the pool and the latencies.
+     * @param tb token builder
+     * @param name name of the pool
+     * @param active number of active threads
+     * @param threads maximum number of threads
+     * @param queued number of queued jobs
+     */
+    void info(final TokenBuilder tb, final String name, final int active, final int threads,
+        final long queued) {
+      final long c = count.get();
+      tb.add(LI).addExt(POOL_STATS_X, name, active, threads, queued, c,
+          Performance.getTime(c == 0 ? 0 : total.get() / c, 1), Performance.getTime(max, 1));
+      tb.add(NL);
+    }
+  }
 }
@@ -199,6 +199,7 @@ public interface QueryText {
   /** Parser token. */ String READ_LOCK = "read-lock";
   /** Parser token. */ String WRITE_LOCK = "write-lock";
   /** Parser token. */ String NON_DETERMNISTIC = "non-deterministic";
+  /** Parser token. */ String PARALLEL = "parallel";
 
   // PARSER KEYWORDS (IGNORED BY THE SYNTAX HIGHLIGHTER) ==========================================
 
@@ -388,6 +389,7 @@ public interface QueryText {
 
   /** Optimization info. */ String OPTDESC = "rewriting descendant-or-self step(s)";
   /** Optimization info. */ String OPTATOMIC_X = "atomic evaluation of %";
+  /** Optimization info. */ String OPTHASH_X = "hashed evaluation of %";
   /** Optimization info. */ String OPTPRE_X = "pre-evaluating %";
   /** Optimization info. */ String OPTTYPE_X = "type check removed: %";
   /** Optimization info. */ String OPTREWRITE_X = "rewriting %";
@@ -401,6 +403,7 @@ public interface QueryText {
   /** Optimization info. */ String OPTINLINE_X = "inlining %";
   /** Optimization info. */ String OPTWHERE = "rewriting where clause(s)";
   /** Optimization info. */ String OPTPRED_X = "rewriting % to predicate(s)";
+  /** Optimization info. */ String OPTJOIN_X = "rewriting % to hash join";
   /** Optimization info. */ String OPTVAR_X = "removing variable %";
   /** Optimization info. */ String OPTNAME_X = "removing unknown element/attribute %";
   /** Optimization info. */ String OPTPATH_X = "removing non-existing path %";
@@ -11,6 +11,8 @@ import org.basex.query.func.fn.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
+import org.basex.query.util.hash.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
@@ -108,12 +110,21 @@ public final class CmpG extends Cmp {
     public String toString() { return name; }
   }
 
+  /** Minimum number of items in both operands for hashing items of a variant operand. */
+  private static final int HASH = 8;
+
   /** Static context. */
   final StaticContext sc;
   /** Comparator. */
   OpG op;
   /** Flag for atomic evaluation. */
   private boolean atomic;
+  /** Flag for hashed evaluation. */
+  private boolean hash;
+  /** Indicates if the second operand yields the same items in all evaluations. */
+  private boolean invariant;
+  /** Hashed items of the invariant second operand (assigned when first requested). */
+  private volatile CmpItemSet cache;
 
   /**
    * Constructor.
@@ -195,6 +206,11 @@ public final class CmpG extends Cmp {
     if(st1.zeroOrOne() && !st1.mayBeArray() && st2.zeroOrOne() && !st2.mayBeArray()) {
       atomic = true;
       qc.compInfo(OPTATOMIC_X, this);
+    } else if(op == OpG.EQ && coll == null && CmpItemSet.supported(e1, e2)) {
+      // equality tests on strings or numbers: compare hash values
+      hash = true;
+      invariant = invariant(e2);
+      qc.compInfo(OPTHASH_X, this);
     }
 
     // pre-evaluate values
@@ -228,6 +244,8 @@ public final class CmpG extends Cmp {
       if(it2 == null) return Bln.FALSE;
       return Bln.get(eval(it1, it2));
     }
+    // hashed evaluation
+    if(hash) return Bln.get(hash(qc));
 
     // retrieve iterators
     Iter ir1 = exprs[0].atomIter(qc, info);
@@ -277,6 +295,59 @@ public final class CmpG extends Cmp {
     return Bln.FALSE;
   }
 
+  /**
+   * Checks if one of the items of the first operand is found in the hashed items of the
+   * second operand. The hash set of an invariant operand is only created once.
+   * @param qc query context
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean hash(final QueryContext qc) throws QueryException {
+    final Iter ir1 = exprs[0].atomIter(qc, info);
+    if(ir1.size() == 0) return false;
+    CmpItemSet set = cache;
+    if(set == null) {
+      final Value v2 = exprs[1].atomValue(qc, info);
+      final long is1 = ir1.size(), is2 = v2.size();
+      if(!invariant && (is1 != -1 && is1 < HASH || is2 < HASH)) {
+        // small operands: compare all items
+        for(Item it1; (it1 = ir1.next()) != null;) {
+          for(final Item it2 : v2) if(eval(it1, it2)) return true;
+        }
+        return false;
+      }
+      set = new CmpItemSet(sc);
+      for(final Item it2 : v2) {
+        qc.checkStop();
+        set.add(it2, info);
+      }
+      if(invariant) cache = set;
+    }
+    for(Item it1; (it1 = ir1.next()) != null;) {
+      if(set.contains(it1, info)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the specified operand yields the same items whenever it is evaluated.
+   * This is the case if it is a value, or if it depends neither on the focus nor on
+   * local variables, and if it is deterministic.
+   * @param expr operand
+   * @return result of check
+   */
+  private static boolean invariant(final Expr expr) {
+    if(expr instanceof Value) return true;
+    if(expr.has(Flag.CTX) || expr.has(Flag.POS) || expr.has(Flag.NDT) || expr.has(Flag.UPD) ||
+        expr.has(Flag.CNS) || expr.has(Flag.HOF)) return false;
+    return expr.accept(new ASTVisitor() {
+      @Override
+      public boolean used(final VarRef ref) {
+        return false;
+      }
+    });
+  }
+
   /**
    * Compares a single item.
    * @param it1 first item to be compared
@@ -315,9 +386,21 @@ public final class CmpG extends Cmp {
     final CmpG cmp = new CmpG(exprs[0], list, op, coll, sc, info);
     final SeqType st = list.seqType();
     cmp.atomic = atomic && st.zeroOrOne() && !st.mayBeArray();
+    if(!cmp.atomic && hash && CmpItemSet.supported(exprs[0], list)) {
+      cmp.hash = true;
+      cmp.invariant = invariant(list);
+    }
     return cmp;
   }
 
+  /**
+   * Checks if this is an equality comparison with the default collation.
+   * @return result of check
+   */
+  public boolean equality() {
+    return op == OpG.EQ && coll == null;
+  }
+
   @Override
   public boolean indexAccessible(final IndexInfo ii) throws QueryException {
     // only equality expressions on default collation can be rewritten
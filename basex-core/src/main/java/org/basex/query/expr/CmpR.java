@@ -8,6 +8,7 @@ import org.basex.index.*;
 import org.basex.index.name.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.index.value.*;
 import org.basex.query.*;
 import org.basex.query.expr.index.*;
 import org.basex.query.expr.path.*;
@@ -150,35 +151,43 @@ public final class CmpR extends Single {
   public boolean indexAccessible(final IndexInfo ii) {
     // accept only location path, string and equality expressions
     final Data data = ii.ic.data;
-    // sequential main memory scan is assumed to be faster than range index access;
     // no support for main-memory databases
-    if(!mni || !mxi || data.inMemory()) return false;
+    if(data.inMemory()) return false;
     final IndexType type = ii.type(expr, null);
     if(type == null) return false;
 
+    // without numeric keys, sequential scans are assumed to be faster than range index access
+    final Index index = data.index(type);
+    final boolean numeric = index instanceof DiskValues && ((DiskValues) index).numeric();
+    if(!numeric && (!mni || !mxi)) return false;
+
     final Stats key = key(ii, type);
     if(key == null) return false;
 
-    // estimate costs for range access; all values out of range: no results
-    final NumericRange nr = new NumericRange(type, Math.max(min, key.min), Math.min(max, key.max));
+    // exclusive bounds: choose adjacent double values
+    final double mn = mni ? min : Math.nextUp(min);
+    final double mx = mxi ? max : Math.nextAfter(max, Double.NEGATIVE_INFINITY);
+    final NumericRange nr = new NumericRange(type, Math.max(mn, key.min), Math.min(mx, key.max));
     // skip queries with no results
     if(nr.min > nr.max || nr.max < key.min || nr.min > key.max) {
       ii.costs = 0;
       return true;
     }
 
-    // estimate costs
+    // estimate costs (exact if numeric keys are available)
     ii.costs = data.costs(nr);
     if(ii.costs == -1) return false;
 
-    // skip if numbers are negative, doubles, or of different string length
-    final int mnl = min >= 0 && (long) min == min ? token(min).length : -1;
-    final int mxl = max >= 0 && (long) max == max ? token(max).length : -1;
-    if(mnl != mxl || mnl == -1) return false;
+    if(!numeric) {
+      // skip if numbers are negative, doubles, or of different string length
+      final int mnl = min >= 0 && (long) min == min ? token(min).length : -1;
+      final int mxl = max >= 0 && (long) max == max ? token(max).length : -1;
+      if(mnl != mxl || mnl == -1) return false;
 
-    // don't use index if min/max values are infinite
-    if(min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY ||
-        token((int) nr.min).length != token((int) nr.max).length) return false;
+      // don't use index if min/max values are infinite
+      if(min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY ||
+          token((int) nr.min).length != token((int) nr.max).length) return false;
+    }
 
     final TokenBuilder tb = new TokenBuilder();
     tb.add(mni ? '[' : '(').addExt(min).add(',').addExt(max).add(mxi ? ']' : ')');
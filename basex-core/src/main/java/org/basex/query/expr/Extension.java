@@ -3,6 +3,7 @@ package org.basex.query.expr;
 import static org.basex.query.QueryText.*;
 
 import org.basex.query.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.*;
 import org.basex.query.value.node.*;
@@ -63,12 +64,27 @@ public final class Extension extends Single {
   public Value value(final QueryContext qc) throws QueryException {
     try {
       for(final Pragma p : pragmas) p.init(qc, info);
+      if(parallel() && expr instanceof GFLWOR) {
+        final Value value = ((GFLWOR) expr).parallel(qc);
+        if(value != null) return value;
+      }
       return qc.value(expr);
     } finally {
       for(final Pragma p : pragmas) p.finish(qc);
     }
   }
 
+  /**
+   * Indicates if the enclosed expression is to be evaluated in parallel.
+   * @return result of check
+   */
+  private boolean parallel() {
+    for(final Pragma p : pragmas) {
+      if(p instanceof BaseXPragma && ((BaseXPragma) p).parallel()) return true;
+    }
+    return false;
+  }
+
   @Override
   public Expr copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
     final Pragma[] prag = pragmas.clone();
@@ -30,16 +30,21 @@ public final class CDoc extends CNode {
   }
 
   @Override
-  public FDoc item(final QueryContext qc, final InputInfo ii) throws QueryException {
+  public ANode item(final QueryContext qc, final InputInfo ii) throws QueryException {
     // create document node and add children
     final Constr c = new Constr(info, sc);
     final FDoc doc = new FDoc(c.children, Token.EMPTY);
-    c.add(qc, exprs);
-    if(c.errAtt != null) throw DOCATTS_X.get(info, c.errAtt);
-    if(!c.atts.isEmpty()) throw DOCATTS_X.get(info, c.atts.get(0).name());
-    if(c.errNS != null) throw DOCNS_X.get(info, c.errNS);
-    if(!c.nspaces.isEmpty()) throw DOCNS_X.get(info, c.nspaces.name(0));
-    return doc.optimize();
+    c.compact(doc, this).add(qc, exprs);
+    prepare(c, doc);
+    return c.compact() ? c.finish() : doc.optimize();
+  }
+
+  @Override
+  void prepare(final Constr constr, final FNode node) throws QueryException {
+    if(constr.errAtt != null) throw DOCATTS_X.get(info, constr.errAtt);
+    if(!constr.atts.isEmpty()) throw DOCATTS_X.get(info, constr.atts.get(0).name());
+    if(constr.errNS != null) throw DOCNS_X.get(info, constr.errNS);
+    if(!constr.nspaces.isEmpty()) throw DOCNS_X.get(info, constr.nspaces.name(0));
   }
 
   @Override
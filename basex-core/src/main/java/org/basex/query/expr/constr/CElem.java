@@ -53,7 +53,7 @@ public final class CElem extends CName {
   }
 
   @Override
-  public FElem item(final QueryContext qc, final InputInfo ii) throws QueryException {
+  public ANode item(final QueryContext qc, final InputInfo ii) throws QueryException {
     final int s = addNS();
     try {
       // adds in-scope namespaces
@@ -91,39 +91,13 @@ public final class CElem extends CName {
       final FElem node = new FElem(nm, ns, constr.children, constr.atts);
 
       // add child and attribute nodes
-      constr.add(qc, exprs);
-      if(constr.errAtt != null) throw NOATTALL_X.get(info, constr.errAtt);
-      if(constr.errNS != null) throw NONSALL_X.get(info, constr.errNS);
-      if(constr.duplAtt != null) throw CATTDUPL_X.get(info, constr.duplAtt);
-      if(constr.duplNS != null) throw DUPLNSCONS_X.get(info, constr.duplNS);
-
-      // check namespaces
-      if(constr.nspaces.contains(EMPTY) && !nm.hasURI()) throw DUPLNSCONS_X.get(info, EMPTY);
-
-      // add namespaces from constructor
-      final Atts cns = constr.nspaces;
-      final int cl = cns.size();
-      for(int c = 0; c < cl; c++) addNS(cns.name(c), cns.value(c), ns);
-
-      // add namespaces
-      final int al = constr.atts.size();
-      for(int a = 0; a < al; a++) {
-        final ANode att = constr.atts.get(a);
-        final QNm qnm = att.qname();
-        // skip attributes without prefixes or URIs
-        if(!qnm.hasPrefix() || !qnm.hasURI()) continue;
-
-        // skip XML namespace
-        final byte[] apref = qnm.prefix();
-        if(eq(apref, XML)) continue;
-
-        final byte[] auri = qnm.uri();
-        final byte[] npref = addNS(apref, auri, ns);
-        if(npref != null) {
-          final QNm aname = new QNm(concat(npref, COLON, qnm.local()), auri);
-          constr.atts.set(a, new FAttr(aname, att.string()));
-        }
+      constr.compact(node, this).add(qc, exprs);
+      if(constr.compact()) {
+        // node has already been finalized and written to a main-memory table
+        check(constr);
+        return constr.finish();
       }
+      prepare(constr, node);
 
       // update and optimize child nodes
       for(final ANode ch : constr.children) ch.optimize();
@@ -141,6 +115,52 @@ public final class CElem extends CName {
         copyAll(qc, scp, vs, exprs));
   }
 
+  @Override
+  void prepare(final Constr constr, final FNode node) throws QueryException {
+    check(constr);
+
+    // check namespaces
+    final QNm nm = node.qname();
+    if(constr.nspaces.contains(EMPTY) && !nm.hasURI()) throw DUPLNSCONS_X.get(info, EMPTY);
+
+    // add namespaces from constructor
+    final Atts ns = node.namespaces(), cns = constr.nspaces;
+    final int cl = cns.size();
+    for(int c = 0; c < cl; c++) addNS(cns.name(c), cns.value(c), ns);
+
+    // add namespaces
+    final int al = constr.atts.size();
+    for(int a = 0; a < al; a++) {
+      final ANode att = constr.atts.get(a);
+      final QNm qnm = att.qname();
+      // skip attributes without prefixes or URIs
+      if(!qnm.hasPrefix() || !qnm.hasURI()) continue;
+
+      // skip XML namespace
+      final byte[] apref = qnm.prefix();
+      if(eq(apref, XML)) continue;
+
+      final byte[] auri = qnm.uri();
+      final byte[] npref = addNS(apref, auri, ns);
+      if(npref != null) {
+        final QNm aname = new QNm(concat(npref, COLON, qnm.local()), auri);
+        constr.atts.set(a, new FAttr(aname, att.string()));
+      }
+    }
+  }
+
+  /**
+   * Checks the constructed attributes and namespaces for errors.
+   * @param constr constructor
+   * @throws QueryException query exception
+   */
+  private void check(final Constr constr) throws QueryException {
+    if(constr.errAtt != null) throw NOATTALL_X.get(info, constr.errAtt);
+    if(constr.errNS != null) throw NONSALL_X.get(info, constr.errNS);
+    if(constr.duplAtt != null) throw CATTDUPL_X.get(info, constr.duplAtt);
+    if(constr.duplNS != null) throw DUPLNSCONS_X.get(info, constr.duplNS);
+  }
+
   /**
    * Adds the specified namespace to the namespace array.
    * If the prefix is already used for another URI, a new
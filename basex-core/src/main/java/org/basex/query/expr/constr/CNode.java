@@ -31,6 +31,16 @@ public abstract class CNode extends Arr {
   @Override
   public abstract ANode item(final QueryContext qc, final InputInfo ii) throws QueryException;
 
+  /**
+   * Checks and finalizes the specified node before its children are written to a
+   * main-memory table. All attributes and namespaces have been added at this stage.
+   * @param constr constructor
+   * @param node node to be finalized
+   * @throws QueryException query exception
+   */
+  @SuppressWarnings("unused")
+  void prepare(final Constr constr, final FNode node) throws QueryException { }
+
   @Override
   public boolean has(final Flag flag) {
     return flag == Flag.CNS || super.has(flag);
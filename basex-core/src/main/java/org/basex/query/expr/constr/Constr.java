@@ -2,9 +2,12 @@ package org.basex.query.expr.constr;
 
 import static org.basex.query.QueryError.*;
 
+import org.basex.core.*;
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.array.Array;
@@ -43,6 +46,20 @@ public final class Constr {
   private final TokenBuilder text = new TokenBuilder();
   /** Space separator flag. */
   private boolean more;
+  /** Constructor expression ({@code null} if the node will not be stored in a table). */
+  private CNode cnode;
+  /** Node to be constructed. */
+  private FNode root;
+  /** Minimum number of nodes for storing the constructed node in a main-memory table. */
+  private int compact;
+  /** Number of copied nodes (only counted until the minimum is reached). */
+  private int nodes;
+  /** Builder for the main-memory table ({@code null} if children are cached as nodes). */
+  private DataBuilder builder;
+  /** Main-memory table. */
+  private MemData data;
+  /** Pre value of the constructed node in the main-memory table. */
+  private int pre;
 
   /**
    * Creates the children of the constructor.
@@ -62,20 +79,38 @@ public final class Constr {
    * @throws QueryException query exception
    */
   public Constr add(final QueryContext qc, final Expr... exprs) throws QueryException {
+    // only the outermost constructor stores its node in a table
+    if(cnode != null && qc.constructors == 0) {
+      compact = qc.context.options.get(MainOptions.COMPACTSIZE);
+    }
     final int s = sc.ns.size();
+    qc.constructors++;
     try {
       for(final Expr expr : exprs) {
         more = false;
         final Iter iter = qc.iter(expr);
         for(Item it; (it = iter.next()) != null && add(qc, it););
       }
-      if(!text.isEmpty()) children.add(new FTxt(text.toArray()));
+      if(!text.isEmpty()) text(text.toArray());
       return this;
     } finally {
+      qc.constructors--;
       sc.ns.size(s);
     }
   }
 
+  /**
+   * Allows the constructed node to be stored in a main-memory table.
+   * @param nd node to be constructed
+   * @param cn constructor expression
+   * @return self reference
+   */
+  Constr compact(final FNode nd, final CNode cn) {
+    root = nd;
+    cnode = cn;
+    return this;
+  }
+
   /**
    * Recursively adds nodes to the element arrays.
    * @param qc query context
@@ -109,7 +144,7 @@ public final class Constr {
 
         // check if attribute is specified after texts or child nodes
         final QNm name = node.qname();
-        if(!text.isEmpty() || !children.isEmpty()) {
+        if(!text.isEmpty() || !children.isEmpty() || builder != null) {
           errAtt = name;
           return false;
         }
@@ -129,7 +164,7 @@ public final class Constr {
         // type: namespace node
 
         // no attribute allowed after texts or child nodes
-        if(!text.isEmpty() || !children.isEmpty()) {
+        if(!text.isEmpty() || !children.isEmpty() || builder != null) {
           errNS = node.qname();
           return false;
         }
@@ -154,9 +189,8 @@ public final class Constr {
         // type: element/comment/processing instruction node
 
         // add text node
-        if(!text.isEmpty()) children.add(new FTxt(text.next()));
-        node = node.deepCopy(qc.context.options);
-        children.add(node);
+        if(!text.isEmpty()) text(text.next());
+        add(node, qc);
       }
       more = false;
     } else {
@@ -168,4 +202,81 @@ public final class Constr {
     }
     return true;
   }
+
+  /**
+   * Indicates if the constructed node is stored in a main-memory table.
+   * @return result of check
+   */
+  boolean compact() {
+    return builder != null;
+  }
+
+  /**
+   * Finishes the main-memory table and returns the constructed node.
+   * @return constructed node
+   */
+  DBNode finish() {
+    builder.close(pre);
+    return new DBNode(data, pre);
+  }
+
+  /**
+   * Adds a text node.
+   * @param value text
+   */
+  private void text(final byte[] value) {
+    final FTxt txt = new FTxt(value);
+    if(builder != null) builder.add(txt, pre);
+    else children.add(txt);
+  }
+
+  /**
+   * Adds a child node. The node is copied, or written to the main-memory table.
+   * As soon as the copied nodes reach {@link MainOptions#COMPACTSIZE}, the table is created.
+   * @param child child node
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  private void add(final ANode child, final QueryContext qc) throws QueryException {
+    if(builder != null) {
+      builder.add(child, pre);
+      return;
+    }
+    final ANode copy = child.deepCopy(qc.context.options);
+    children.add(copy);
+    if(nodes < compact) {
+      nodes += size(copy, compact - nodes);
+      if(nodes >= compact) {
+        // finalize the constructed node, write it and the copied children to the table
+        cnode.prepare(this, root);
+        data = new MemData(qc.context.options);
+        builder = new DataBuilder(data);
+        pre = builder.open(root);
+        for(final ANode ch : children) builder.add(ch, pre);
+        children.reset();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of nodes of the specified node, including attributes and descendants.
+   * Counting is stopped when the specified maximum is reached.
+   * @param node node
+   * @param max maximum number of nodes to be counted
+   * @return number of nodes
+   */
+  private static int size(final ANode node, final int max) {
+    if(node instanceof DBNode) {
+      final DBNode dbnode = (DBNode) node;
+      return dbnode.data().size(dbnode.pre(), dbnode.kind());
+    }
+    int size = 1;
+    final BasicNodeIter iter = node.attributes();
+    while(iter.next() != null) size++;
+    for(final ANode child : node.children()) {
+      if(size >= max) break;
+      size += size(child, max - size);
+    }
+    return size;
+  }
 }
@@ -1,13 +1,16 @@
 package org.basex.query.expr.gflwor;
 
 import java.util.*;
+import java.util.List;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.path.*;
 import org.basex.query.func.fn.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
+import org.basex.query.util.hash.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
@@ -103,6 +106,43 @@ public final class GFLWOR extends ParseExpr {
     };
   }
 
+  /**
+   * Evaluates the expression in parallel. The items of the first {@code for} clause are
+   * partitioned, and the remaining clauses and the return expression are evaluated for each
+   * partition. {@code null} is returned if the expression cannot be evaluated in parallel.
+   * @param qc query context
+   * @return resulting value or {@code null}
+   * @throws QueryException query exception
+   */
+  public Value parallel(final QueryContext qc) throws QueryException {
+    // only let clauses may precede the partitioned for clause
+    final int cs = clauses.size();
+    int f = 0;
+    while(f < cs && clauses.get(f) instanceof Let) f++;
+    if(f == cs) return null;
+    final Clause clause = clauses.get(f);
+    if(!(clause instanceof For)) return null;
+    final For fr = (For) clause;
+    if(fr.pos != null || fr.score != null || fr.empty) return null;
+
+    // tuple streams must not depend on each other, and no side effects must occur
+    final List<Clause> sub = clauses.subList(f + 1, cs);
+    for(final Clause cls : sub) {
+      if(!(cls instanceof For || cls instanceof Let || cls instanceof Where ||
+          cls instanceof Window)) return null;
+    }
+    for(final Clause cls : clauses) {
+      if(cls.has(Flag.UPD) || cls.has(Flag.NDT)) return null;
+    }
+    if(ret.has(Flag.UPD) || ret.has(Flag.NDT)) return null;
+
+    // bind preceding let clauses and evaluate the input of the for clause
+    Eval eval = new StartEval();
+    for(int c = 0; c < f; c++) eval = clauses.get(c).eval(eval);
+    if(!eval.next(qc)) return Empty.SEQ;
+    return Parallel.value(qc.value(fr.expr), fr.var, sub, ret, qc);
+  }
+
   @Override
   public Expr compile(final QueryContext qc, final VarScope scp) throws QueryException {
     final ListIterator<Clause> iter = clauses.listIterator();
@@ -486,7 +526,7 @@ public final class GFLWOR extends ParseExpr {
         if(!curr.skippable(let)) break;
         // insert directly above the highest skippable for or window clause
         // this guarantees that no unnecessary swaps occur
-        if(curr instanceof For || curr instanceof Window) insert = j;
+        if(curr instanceof For || curr instanceof Window || curr instanceof Join) insert = j;
       }
 
       if(insert >= 0) {
@@ -546,7 +586,14 @@ public final class GFLWOR extends ParseExpr {
           final Clause before = clauses.get(b4);
           if(before instanceof For) {
             final For f = (For) before;
-            if(f.toPredicate(qc, scp, where.expr)) {
+            final Join join = join(f, b4, where, qc, scp);
+            if(join != null) {
+              qc.compInfo(QueryText.OPTJOIN_X, f);
+              clauses.set(b4, join);
+              clauses.remove(newPos);
+              i--;
+              changed = true;
+            } else if(f.toPredicate(qc, scp, where.expr)) {
               fors.add((For) before);
               clauses.remove(newPos);
               i--;
@@ -565,6 +612,54 @@ public final class GFLWOR extends ParseExpr {
     return changed;
   }
 
+  /**
+   * Tries to rewrite a for clause and a subsequent where clause to a hash join.
+   * The where clause must compare the items bound by the for clause with the incoming tuples,
+   * and the bound expression must not depend on the incoming tuples.
+   * @param fr for clause
+   * @param pos position of the for clause
+   * @param where where clause
+   * @param qc query context
+   * @param scp variable scope
+   * @return join clause or {@code null}
+   * @throws QueryException query exception
+   */
+  private Join join(final For fr, final int pos, final Where where, final QueryContext qc,
+      final VarScope scp) throws QueryException {
+
+    if(fr.empty || fr.vars.length != 1 || !(where.expr instanceof CmpG) ||
+        !((CmpG) where.expr).equality()) return null;
+
+    // a join is only beneficial if the bound expression would be evaluated repeatedly
+    int loop = 0;
+    while(loop < pos) {
+      final Clause cl = clauses.get(loop);
+      if(cl instanceof For || cl instanceof Window || cl instanceof Join ||
+          cl instanceof GroupBy) break;
+      loop++;
+    }
+    if(loop == pos) return null;
+
+    // skip join if the comparison may be rewritten for index access
+    final Data data = fr.expr.data();
+    if(data != null && data.meta.uptodate &&
+        (data.meta.textindex || data.meta.attrindex || data.meta.tokenindex)) return null;
+
+    final Expr[] ops = ((CmpG) where.expr).exprs;
+    final boolean first = ops[0].uses(fr.var);
+    final Expr key = ops[first ? 0 : 1], probe = ops[first ? 1 : 0];
+    if(!key.uses(fr.var) || probe.uses(fr.var) || !CmpItemSet.supported(key, probe)) return null;
+
+    // bound expression and key must not depend on the incoming tuples
+    for(final Expr expr : new Expr[] { fr.expr, key }) {
+      if(expr.has(Flag.NDT) || expr.has(Flag.UPD) || expr.has(Flag.CNS)) return null;
+      for(int c = loop; c < pos; c++) {
+        for(final Var var : clauses.get(c).vars()) if(expr.uses(var)) return null;
+      }
+    }
+    return new Join(fr.var, fr.expr, key, probe, scp.sc).optimize(qc, scp);
+  }
+
   /**
    * Rewrite positional variables to predicates.
    * @param qc query context
@@ -639,6 +734,25 @@ public final class GFLWOR extends ParseExpr {
     }
   }
 
+  /**
+   * Limits the number of tuples that will be sorted by a trailing {@code order by} clause.
+   * Called if only the specified number of results will be requested.
+   * @param max maximum number of requested results
+   */
+  public void limit(final long max) {
+    // each tuple must yield at least one item
+    if(max < 1 || ret.seqType().mayBeZero()) return;
+    for(final Iterator<Clause> iter = clauses.descendingIterator(); iter.hasNext();) {
+      final Clause cl = iter.next();
+      if(cl instanceof OrderBy) {
+        ((OrderBy) cl).limit(max);
+        return;
+      }
+      // clauses that may change the number of tuples
+      if(!(cl instanceof Let || cl instanceof Count)) return;
+    }
+  }
+
   @Override
   public boolean isVacuous() {
     return ret.isVacuous();
@@ -740,7 +854,7 @@ public final class GFLWOR extends ParseExpr {
     // check if an outer clause can prevent the error
     while(iter.hasPrevious()) {
       final Clause b4 = iter.previous();
-      if(b4 instanceof For || b4 instanceof Window || b4 instanceof Where) {
+      if(b4 instanceof For || b4 instanceof Window || b4 instanceof Where || b4 instanceof Join) {
         iter.next();
         while(iter.hasNext()) {
           iter.next();
@@ -4,6 +4,7 @@ import static org.basex.query.QueryText.*;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.gflwor.GFLWOR.Clause;
@@ -27,6 +28,8 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class GroupBy extends Clause {
+  /** Number of partitions on disk (must be a power of two). */
+  private static final int PARTITIONS = 32;
   /** Grouping specs. */
   private final Spec[] specs;
   /** Non-grouping variable expressions. */
@@ -92,11 +95,23 @@ public final class GroupBy extends Clause {
       private Group[] groups;
       /** Current position. */
       private int pos;
+      /** Partitions that have been written to disk ({@code null} if all groups are cached). */
+      private TupleFile[] parts;
+      /** Current partition. */
+      private int part;
+      /** Remaining groups that cannot be written to disk ({@code null} if all were written). */
+      private Groups rest;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
         if(groups == null) groups = init(qc);
-        if(pos == groups.length) return false;
+        while(pos == groups.length) {
+          if(parts == null || part == parts.length) return false;
+          // group the tuples of the next partition
+          groups = read(parts[part], part);
+          parts[part++] = null;
+          pos = 0;
+        }
 
         final Group curr = groups[pos];
         // be nice to the garbage collector
@@ -115,70 +130,104 @@ public final class GroupBy extends Clause {
       }
 
       /**
-       * Builds up the groups.
+       * Builds up the groups. If the number of cached tuples exceeds
+       * {@link MainOptions#SPILLSIZE}, the groups will be distributed to partitions on disk.
        * @param qc query context
+       * @return groups
        * @throws QueryException query exception
        */
       private Group[] init(final QueryContext qc) throws QueryException {
-        final ArrayList<Group> grps = new ArrayList<>();
-        final IntObjMap<Group> map = new IntObjMap<>();
-        final Collation[] colls = new Collation[nonOcc];
-        int c = 0;
-        for(final Spec spec : specs) {
-          if(!spec.occluded) colls[c++] = spec.coll;
-        }
+        final int max = qc.context.options.get(MainOptions.SPILLSIZE);
+        boolean spill = max > 0;
 
+        Groups grps = new Groups();
+        int cached = 0;
         while(sub.next(qc)) {
           final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
+          int p = 0;
           for(final Spec spec : specs) {
             final Item atom = spec.atomItem(qc, info);
-            if(!spec.occluded) {
-              key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash + (atom == null || spec.coll != null ? 0 : atom.hash(info));
-            }
+            if(!spec.occluded) key[p++] = atom;
             qc.set(spec.var, atom == null ? Empty.SEQ : atom);
           }
 
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, colls)) {
-              grp = g;
-              break;
-            }
-          }
-
+          // add values of non-grouping variables to the group
           final int pl = preExpr.length;
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[pl];
-            final int nl = ngs.length;
-            for(int n = 0; n < nl; n++) ngs[n] = new ValueBuilder();
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
+          final Value[] vals = new Value[pl];
+          for(int g = 0; g < pl; g++) vals[g] = preExpr[g].value(qc);
+          grps.add(key, vals);
+
+          if(spill && ++cached == max) {
+            spill = grps.supported();
+            if(spill) {
+              write(grps, qc);
+              grps = new Groups();
+              cached = 0;
             }
           }
+        }
 
-          // add values of non-grouping variables to the group
-          for(int g = 0; g < pl; g++) grp.ngv[g].add(preExpr[g].value(qc));
+        if(parts == null) return grps.finish();
+        // groups with unsupported items are kept in memory and merged with the partitions
+        if(grps.supported()) write(grps, qc);
+        else rest = grps;
+        return new Group[0];
+      }
+
+      /**
+       * Distributes the groups to the partitions.
+       * @param grps groups
+       * @param qc query context
+       * @throws QueryException query exception
+       */
+      private void write(final Groups grps, final QueryContext qc) throws QueryException {
+        if(parts == null) {
+          parts = new TupleFile[PARTITIONS];
+          for(int t = 0; t < PARTITIONS; t++) parts[t] = new TupleFile(qc, info);
         }
+        final int pl = preExpr.length;
+        final Value[] vals = new Value[pl];
+        for(final Group grp : grps.list) {
+          for(int g = 0; g < pl; g++) vals[g] = grp.ngv[g].value();
+          parts[partition(grp.hash)].write(grp.key, vals);
+        }
+      }
 
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(new Group[grps.size()]);
+      /**
+       * Returns the partition of a group.
+       * @param hash hash value of the group
+       * @return partition
+       */
+      private int partition(final int hash) {
+        return (hash ^ hash >>> 16) & PARTITIONS - 1;
+      }
+
+      /**
+       * Reads and groups the tuples of a partition, and adds the remaining groups of the
+       * partition that have been kept in memory.
+       * @param file partition
+       * @param p partition offset
+       * @return groups
+       * @throws QueryException query exception
+       */
+      private Group[] read(final TupleFile file, final int p) throws QueryException {
+        final Groups grps = new Groups();
+        final int pl = preExpr.length;
+        while(true) {
+          final Item[] key = new Item[nonOcc];
+          final Value[] vals = new Value[pl];
+          if(!file.read(key, vals)) break;
+          grps.add(key, vals);
+        }
+        if(rest != null) {
+          for(final Group grp : rest.list) {
+            if(partition(grp.hash) != p) continue;
+            final Value[] vals = new Value[pl];
+            for(int g = 0; g < pl; g++) vals[g] = grp.ngv[g].value();
+            grps.add(grp.key, vals);
+          }
+        }
+        return grps.finish();
       }
     };
   }
@@ -405,6 +454,8 @@ public final class GroupBy extends Clause {
   private static final class Group {
     /** Grouping key, may contain {@code null} values. */
     final Item[] key;
+    /** Hash value of the key. */
+    final int hash;
     /** Non-grouping variables. */
     final ValueBuilder[] ngv;
     /** Overflow list. */
@@ -413,11 +464,109 @@ public final class GroupBy extends Clause {
     /**
      * Constructor.
      * @param k grouping key
+     * @param h hash value of the key
      * @param ng non-grouping variables
      */
-    Group(final Item[] k, final ValueBuilder[] ng) {
+    Group(final Item[] k, final int h, final ValueBuilder[] ng) {
       key = k;
+      hash = h;
       ngv = ng;
     }
   }
+
+  /**
+   * Groups in main memory.
+   */
+  private final class Groups {
+    /** Groups in the order of their creation. */
+    final ArrayList<Group> list = new ArrayList<>();
+    /** Hash table. */
+    private final IntObjMap<Group> map = new IntObjMap<>();
+    /** Collations of the non-occluded grouping specs. */
+    private final Collation[] colls = new Collation[nonOcc];
+
+    /**
+     * Constructor.
+     */
+    Groups() {
+      int c = 0;
+      for(final Spec spec : specs) {
+        if(!spec.occluded) colls[c++] = spec.coll;
+      }
+    }
+
+    /**
+     * Adds the values of non-grouping variables to the group with the specified key.
+     * @param key grouping key
+     * @param vals values of non-grouping variables
+     * @throws QueryException query exception
+     */
+    void add(final Item[] key, final Value[] vals) throws QueryException {
+      int hash = 1;
+      final int kl = key.length;
+      for(int k = 0; k < kl; k++) {
+        // If the values are compared using a special collation, we let them collide
+        // here and let the comparison do all the work later.
+        // This enables other non-collation specs to avoid the collision.
+        final Item atom = key[k];
+        hash = 31 * hash + (atom == null || colls[k] != null ? 0 : atom.hash(info));
+      }
+
+      // find the group for this key
+      final Group fst;
+      Group grp = null;
+      // no collations, so we can use hashing
+      for(Group g = fst = map.get(hash); g != null; g = g.next) {
+        if(eq(key, g.key, colls)) {
+          grp = g;
+          break;
+        }
+      }
+
+      final int pl = vals.length;
+      if(grp == null) {
+        // new group, add it to the list
+        final ValueBuilder[] ngs = new ValueBuilder[pl];
+        for(int n = 0; n < pl; n++) ngs[n] = new ValueBuilder();
+        grp = new Group(key, hash, ngs);
+        list.add(grp);
+
+        // insert the group into the hash table
+        if(fst == null) {
+          map.put(hash, grp);
+        } else {
+          final Group nxt = fst.next;
+          fst.next = grp;
+          grp.next = nxt;
+        }
+      }
+
+      for(int g = 0; g < pl; g++) grp.ngv[g].add(vals[g]);
+    }
+
+    /**
+     * Checks if the groups can be written to disk.
+     * @return result of check
+     */
+    boolean supported() {
+      for(final Group grp : list) {
+        for(final Item it : grp.key) {
+          if(it != null && !TupleFile.supported(it)) return false;
+        }
+        for(final ValueBuilder vb : grp.ngv) {
+          if(!TupleFile.supported(vb.value())) return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns the groups.
+     * @return groups
+     */
+    Group[] finish() {
+      // we're finished, copy the array so the list can be garbage-collected
+      return list.toArray(new Group[list.size()]);
+    }
+  }
 }
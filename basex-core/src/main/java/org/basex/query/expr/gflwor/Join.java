@@ -0,0 +1,421 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.CmpV.OpV;
+import org.basex.query.expr.gflwor.GFLWOR.Clause;
+import org.basex.query.expr.gflwor.GFLWOR.Eval;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.util.hash.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.value.type.SeqType.Occ;
+import org.basex.query.var.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * FLWOR {@code for} clause that is followed by a {@code where} clause with a general
+ * equality comparison (hash join). The comparison checks if a key of the bound items equals
+ * a key of the incoming tuples. The bound expression does not depend on the incoming tuples:
+ * it is evaluated once, and its items are indexed by their keys. If the number of items exceeds
+ * the value of {@link MainOptions#SPILLSIZE}, the items and their keys are written to disk.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class Join extends Clause {
+  /** Tuples written to disk have no sort keys. */
+  private static final Item[] NOKEYS = {};
+
+  /** Item variable. */
+  final Var var;
+  /** Bound expression. */
+  Expr expr;
+  /** Key of the bound items. */
+  Expr key;
+  /** Key of the incoming tuples. */
+  Expr probe;
+  /** Static context. */
+  private final StaticContext sc;
+
+  /**
+   * Constructor.
+   * @param var item variable
+   * @param expr bound expression
+   * @param key key of the bound items
+   * @param probe key of the incoming tuples
+   * @param sc static context
+   */
+  Join(final Var var, final Expr expr, final Expr key, final Expr probe, final StaticContext sc) {
+    super(var.info, var);
+    this.var = var;
+    this.expr = expr;
+    this.key = key;
+    this.probe = probe;
+    this.sc = sc;
+  }
+
+  @Override
+  Eval eval(final Eval sub) {
+    return new Eval() {
+      /** Indexed items. */
+      private Table table;
+      /** Positions of the items that match the current tuple. */
+      private int[] matches;
+      /** Current match. */
+      private int m;
+
+      @Override
+      public boolean next(final QueryContext qc) throws QueryException {
+        while(true) {
+          if(matches != null && m < matches.length) {
+            qc.set(var, table.item(matches[m++]));
+            return true;
+          }
+          if(!sub.next(qc)) {
+            if(table != null) table.close();
+            matches = null;
+            return false;
+          }
+          // the items are indexed when the first tuple arrives
+          if(table == null || table.outdated(qc)) {
+            if(table != null) table.close();
+            table = new Table(qc);
+          }
+          matches = table.matches(qc);
+          m = 0;
+        }
+      }
+    };
+  }
+
+  @Override
+  public Join compile(final QueryContext qc, final VarScope scp) throws QueryException {
+    expr = expr.compile(qc, scp);
+    key = key.compile(qc, scp);
+    probe = probe.compile(qc, scp);
+    return optimize(qc, scp);
+  }
+
+  @Override
+  public Join optimize(final QueryContext qc, final VarScope scp) throws QueryException {
+    seqType = SeqType.get(expr.seqType().type, Occ.ONE);
+    var.refineType(seqType, qc);
+    size = 1;
+    var.size = size;
+    var.data = expr.data();
+    return this;
+  }
+
+  @Override
+  public Join inline(final QueryContext qc, final VarScope scp, final Var v, final Expr ex)
+      throws QueryException {
+
+    final Expr e = expr.inline(qc, scp, v, ex), k = key.inline(qc, scp, v, ex);
+    final Expr p = probe.inline(qc, scp, v, ex);
+    if(e == null && k == null && p == null) return null;
+    if(e != null) expr = e;
+    if(k != null) key = k;
+    if(p != null) probe = p;
+    return compile(qc, scp);
+  }
+
+  @Override
+  public Join copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
+    final Expr e = expr.copy(qc, scp, vs), p = probe.copy(qc, scp, vs);
+    final Var v = scp.addCopy(var, qc);
+    vs.put(var.id, v);
+    return new Join(v, e, key.copy(qc, scp, vs), p, sc);
+  }
+
+  @Override
+  public boolean has(final Flag flag) {
+    return expr.has(flag) || key.has(flag) || probe.has(flag);
+  }
+
+  @Override
+  public boolean removable(final Var v) {
+    return expr.removable(v) && key.removable(v) && probe.removable(v);
+  }
+
+  @Override
+  public VarUsage count(final Var v) {
+    // the key is evaluated for each bound item
+    return expr.count(v).plus(key.count(v).times(expr.size())).plus(probe.count(v));
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return expr.accept(visitor) && probe.accept(visitor) && visitor.declared(var) &&
+        key.accept(visitor);
+  }
+
+  @Override
+  public void checkUp() throws QueryException {
+    checkNoneUp(expr, key, probe);
+  }
+
+  @Override
+  void calcSize(final long[] minMax) {
+    final long sz = expr.size();
+    minMax[0] = 0;
+    final long max = minMax[1];
+    minMax[1] = sz < 0 ? -1 : max > 0 ? max * sz : max;
+  }
+
+  @Override
+  public int exprSize() {
+    return expr.exprSize() + key.exprSize() + probe.exprSize();
+  }
+
+  @Override
+  public void plan(final FElem plan) {
+    final FElem e = planElem();
+    var.plan(e);
+    expr.plan(e);
+    key.plan(e);
+    probe.plan(e);
+    plan.add(e);
+  }
+
+  @Override
+  public String toString() {
+    return "join " + var + ' ' + IN + ' ' + expr + " on " + key + " = " + probe;
+  }
+
+  /**
+   * Hash table with the bound items.
+   */
+  private final class Table {
+    /** Variables referenced by the bound expression and the key. */
+    private final Var[] vars;
+    /** Values of the referenced variables. */
+    private final Value[] values;
+    /** Number of bound items. */
+    private int count;
+    /** Bound items ({@code null} if the items have been written to disk). */
+    private ItemList items = new ItemList();
+    /** Temporary file with items and their keys ({@code null} if the items are cached). */
+    private TupleFile file;
+    /** Offsets of the items in the temporary file. */
+    private final LongList offsets = new LongList();
+    /** Items that cannot be written to disk. */
+    private final IntObjMap<Item> memory = new IntObjMap<>();
+
+    /** Hash buckets, referencing the first entry plus one. */
+    private int[] buckets = new int[8];
+    /** Entries: hash values. */
+    private final IntList hashes = new IntList();
+    /** Entries: next entry in the same bucket plus one. */
+    private final IntList next = new IntList();
+    /** Entries: positions of the items. */
+    private final IntList positions = new IntList();
+    /** Entries: keys ({@code null} if the items have been written to disk). */
+    private ItemList keys = new ItemList();
+
+    /**
+     * Constructor, indexing the bound items.
+     * @param qc query context
+     * @throws QueryException query exception
+     */
+    Table(final QueryContext qc) throws QueryException {
+      // remember the values of variables that may be declared by preceding clauses
+      vars = vars(qc);
+      final int vl = vars.length;
+      values = new Value[vl];
+      for(int v = 0; v < vl; v++) values[v] = qc.get(vars[v]);
+
+      final int max = qc.context.options.get(MainOptions.SPILLSIZE);
+      final Iter iter = qc.iter(expr);
+      for(Item it; (it = iter.next()) != null;) {
+        qc.checkStop();
+        final int pos = count++;
+        qc.set(var, it);
+        final Value ks = key.atomValue(qc, info);
+        for(final Item k : ks) {
+          add(CmpItemSet.hashCode(k, info), pos);
+          if(file == null) keys.add(k);
+        }
+        if(file == null) {
+          items.add(it);
+          if(max > 0 && count > max) spill(qc);
+        } else {
+          write(pos, it, ks);
+        }
+      }
+    }
+
+    /**
+     * Returns the variables that are referenced by the bound expression and the key.
+     * @param qc query context
+     * @return variables
+     */
+    private Var[] vars(final QueryContext qc) {
+      final ArrayList<Var> list = new ArrayList<>();
+      final ArrayList<Var> declared = new ArrayList<>();
+      final ASTVisitor visitor = new ASTVisitor() {
+        @Override
+        public boolean declared(final Var v) {
+          declared.add(v);
+          return true;
+        }
+        @Override
+        public boolean used(final VarRef ref) {
+          final Var v = ref.var;
+          if(!v.is(var) && !declared.contains(v) && !list.contains(v) && qc.get(v) != null)
+            list.add(v);
+          return true;
+        }
+      };
+      expr.accept(visitor);
+      key.accept(visitor);
+      return list.toArray(new Var[list.size()]);
+    }
+
+    /**
+     * Checks if the values of the referenced variables have changed.
+     * @param qc query context
+     * @return result of check
+     */
+    boolean outdated(final QueryContext qc) {
+      final int vl = vars.length;
+      for(int v = 0; v < vl; v++) {
+        if(qc.get(vars[v]) != values[v]) return true;
+      }
+      return false;
+    }
+
+    /**
+     * Returns the positions of the items whose keys match a key of the current tuple.
+     * @param qc query context
+     * @return positions
+     * @throws QueryException query exception
+     */
+    int[] matches(final QueryContext qc) throws QueryException {
+      final IntList list = new IntList();
+      final Iter iter = probe.atomIter(qc, info);
+      for(Item it; (it = iter.next()) != null;) {
+        final int h = CmpItemSet.hashCode(it, info);
+        for(int e = buckets[h & buckets.length - 1]; e != 0; e = next.get(e - 1)) {
+          if(hashes.get(e - 1) == h && matches(e - 1, it)) list.add(positions.get(e - 1));
+        }
+      }
+      // return items in their original order
+      if(list.size() > 1) list.sort().distinct();
+      return list.finish();
+    }
+
+    /**
+     * Returns the item at the specified position.
+     * @param pos position
+     * @return item
+     * @throws QueryException query exception
+     */
+    Item item(final int pos) throws QueryException {
+      if(file == null) return items.get(pos);
+      final Item it = memory.get(pos);
+      return it != null ? it : (Item) read(pos)[0];
+    }
+
+    /**
+     * Deletes a temporary file.
+     */
+    void close() {
+      if(file != null) file.close();
+    }
+
+    /**
+     * Adds an entry.
+     * @param hash hash value
+     * @param pos position of the item
+     */
+    private void add(final int hash, final int pos) {
+      final int entries = hashes.size();
+      if(entries == buckets.length) {
+        // double the number of buckets
+        final int[] bckts = new int[entries << 1];
+        final int mask = bckts.length - 1;
+        for(int e = 0; e < entries; e++) {
+          final int b = hashes.get(e) & mask;
+          next.set(e, bckts[b]);
+          bckts[b] = e + 1;
+        }
+        buckets = bckts;
+      }
+      final int b = hash & buckets.length - 1;
+      hashes.add(hash);
+      next.add(buckets[b]);
+      positions.add(pos);
+      buckets[b] = entries + 1;
+    }
+
+    /**
+     * Checks if the key of the specified entry equals the specified key.
+     * @param entry entry
+     * @param it key of the current tuple
+     * @return result of check
+     * @throws QueryException query exception
+     */
+    private boolean matches(final int entry, final Item it) throws QueryException {
+      if(file == null) return OpV.EQ.eval(it, keys.get(entry), null, sc, info);
+      // compare the key with all keys of the item
+      for(final Item k : read(positions.get(entry))[1]) {
+        if(OpV.EQ.eval(it, k, null, sc, info)) return true;
+      }
+      return false;
+    }
+
+    /**
+     * Writes all cached items and their keys to disk.
+     * @param qc query context
+     * @throws QueryException query exception
+     */
+    private void spill(final QueryContext qc) throws QueryException {
+      file = new TupleFile(qc, info);
+      final int sz = items.size();
+      for(int pos = 0; pos < sz; pos++) {
+        final Item it = items.get(pos);
+        qc.set(var, it);
+        write(pos, it, key.atomValue(qc, info));
+      }
+      items = null;
+      keys = null;
+    }
+
+    /**
+     * Writes an item and its keys to disk.
+     * @param pos position of the item
+     * @param it item
+     * @param ks keys
+     * @throws QueryException query exception
+     */
+    private void write(final int pos, final Item it, final Value ks) throws QueryException {
+      final boolean supported = TupleFile.supported(it);
+      if(!supported) memory.put(pos, it);
+      offsets.add(file.write(NOKEYS, new Value[] { supported ? it : Empty.SEQ, ks }));
+    }
+
+    /**
+     * Reads an item and its keys from disk.
+     * @param pos position of the item
+     * @return item and keys
+     * @throws QueryException query exception
+     */
+    private Value[] read(final int pos) throws QueryException {
+      final Value[] tuple = new Value[2];
+      file.read(offsets.get(pos), NOKEYS, tuple);
+      return tuple;
+    }
+  }
+}
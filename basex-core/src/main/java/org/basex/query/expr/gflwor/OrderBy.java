@@ -4,14 +4,15 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
-import java.util.List;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.gflwor.GFLWOR.Clause;
 import org.basex.query.expr.gflwor.GFLWOR.Eval;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
+import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
@@ -26,10 +27,14 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class OrderBy extends Clause {
+  /** Maximum number of sorted runs that will be merged at the same time. */
+  private static final int MERGE = 64;
   /** References to the variables to be sorted. */
   private VarRef[] refs;
   /** Sort keys. */
   private final Key[] keys;
+  /** Maximum number of tuples that will be requested. */
+  private long limit = Long.MAX_VALUE;
 
   /**
    * Constructor.
@@ -46,89 +51,318 @@ public final class OrderBy extends Clause {
   @Override
   Eval eval(final Eval sub) {
     return new Eval() {
-      /** Sorted output tuples. */
-      private Value[][] tpls;
-      /** Permutation of the values. */
-      private Integer[] perm;
-      /** Current position. */
-      int pos;
+      /** Sorted runs of tuples ({@code null} if the tuples have not been sorted yet). */
+      private MinHeap<Run, Run> runs;
+
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
+        if(runs == null) runs = sort(qc);
+        if(runs.isEmpty()) return false;
+
+        final Run run = remove(runs);
+        final Value[] values = run.values;
         final int rl = refs.length;
-        for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
+        for(int r = 0; r < rl; r++) qc.set(refs[r].var, values[r]);
+        if(run.next()) insert(runs, run);
         return true;
       }
 
       /**
-       * Caches and sorts all incoming tuples.
+       * Caches and sorts all incoming tuples. If the number of cached tuples exceeds
+       * {@link MainOptions#SPILLSIZE}, sorted runs will be written to disk.
        * @param qc query context
+       * @return heap with sorted runs
        * @throws QueryException evaluation exception
        */
-      private void sort(final QueryContext qc) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
+      private MinHeap<Run, Run> sort(final QueryContext qc) throws QueryException {
+        final int max = qc.context.options.get(MainOptions.SPILLSIZE);
+        if(limit < Integer.MAX_VALUE && (max == 0 || limit <= max)) return top(qc);
+        boolean spill = max > 0;
+
+        // keys are cached column-wise, values row-wise
+        final int kl = keys.length, rl = refs.length;
+        final ArrayList<Run> list = new ArrayList<>();
+        ItemList[] ks = lists();
+        ArrayList<Value[]> tuples = new ArrayList<>();
         while(sub.next(qc)) {
-          final int kl = keys.length;
-          final Item[] key = new Item[kl];
-          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info);
-          tuples.add(key);
+          for(int k = 0; k < kl; k++) ks[k].add(keys[k].expr.atomItem(qc, keys[k].info));
 
-          final int rl = refs.length;
           final Value[] vals = new Value[rl];
           for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
           tuples.add(vals);
-        }
 
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
-        }
-        // be nice to the garbage collector
-        tuples = null;
-        try {
-          Arrays.sort(perm, new Comparator<Integer>() {
-            @Override
-            public int compare(final Integer x, final Integer y) {
-              try {
-                final Item[] a = ks[x], b = ks[y];
-                final int kl = keys.length;
-                for(int k = 0; k < kl; k++) {
-                  final Key or = keys[k];
-                  Item m = a[k], n = b[k];
-                  if(m == Dbl.NAN || m == Flt.NAN) m = null;
-                  if(n == Dbl.NAN || n == Flt.NAN) n = null;
-                  if(m != null && n != null && !m.comparable(n))
-                    throw castError(n, m.type, or.info);
-
-                  final int c = m == null
-                      ? n == null ? 0                 : or.least ? -1 : 1
-                      : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
-                  if(c != 0) return or.desc ? -c : c;
+          if(spill && tuples.size() == max) {
+            spill = supported(ks, tuples);
+            if(spill) {
+              list.add(write(ks, tuples, list.size(), qc));
+              ks = lists();
+              tuples = new ArrayList<>();
+              // limit the number of runs that need to be merged at the same time
+              if(list.size() == MERGE) {
+                final TupleFile file = new TupleFile(qc, info);
+                final MinHeap<Run, Run> heap = heap(list);
+                while(!heap.isEmpty()) {
+                  final Run run = remove(heap);
+                  file.write(run.key, run.values);
+                  if(run.next()) insert(heap, run);
                 }
-                return 0;
-              } catch(final QueryException ex) {
-                throw new QueryRTException(ex);
+                list.clear();
+                list.add(run(file, 0));
               }
             }
-          });
-        } catch(final QueryRTException ex) {
-          throw ex.getCause();
+          }
+        }
+        list.add(new MemoryRun(ks, tuples, list.size(), qc));
+        return heap(list);
+      }
+
+      /**
+       * Returns a heap with the specified runs.
+       * @param list runs
+       * @return heap
+       * @throws QueryException evaluation exception
+       */
+      private MinHeap<Run, Run> heap(final ArrayList<Run> list) throws QueryException {
+        final MinHeap<Run, Run> heap = new MinHeap<>(list.size(), OrderBy.this.<Run>comparator());
+        for(final Run run : list) {
+          if(run.next()) insert(heap, run);
+        }
+        return heap;
+      }
+
+      /**
+       * Caches the tuples that will be requested, and returns them as single run.
+       * @param qc query context
+       * @return heap with a single run
+       * @throws QueryException evaluation exception
+       */
+      private MinHeap<Run, Run> top(final QueryContext qc) throws QueryException {
+        // the first tuple in the heap will be the one that is ordered last
+        final Comparator<Tuple> cmp = Collections.reverseOrder(OrderBy.this.<Tuple>comparator());
+        final MinHeap<Tuple, Tuple> heap = new MinHeap<>(cmp);
+        final int kl = keys.length, rl = refs.length;
+        long index = 0;
+        while(sub.next(qc)) {
+          final Item[] key = new Item[kl];
+          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info);
+          final Tuple tuple = new Tuple(key, new Value[rl], index++);
+
+          if(heap.size() == limit) {
+            // skip tuples that are not ordered before the last cached tuple
+            try {
+              if(cmp.compare(tuple, heap.minKey()) <= 0) continue;
+            } catch(final QueryRTException ex) {
+              throw ex.getCause();
+            }
+            remove(heap);
+          }
+          for(int r = 0; r < rl; r++) tuple.values[r] = refs[r].value(qc);
+          insert(heap, tuple);
+        }
+
+        final Tuple[] tuples = new Tuple[heap.size()];
+        for(int t = tuples.length - 1; t >= 0; t--) tuples[t] = remove(heap);
+        final ArrayList<Run> list = new ArrayList<>(1);
+        list.add(new Run(kl, rl, 0) {
+          private int t;
+          @Override
+          boolean next() {
+            if(t == tuples.length) return false;
+            final Tuple tuple = tuples[t];
+            // free the space occupied by the tuple
+            tuples[t++] = null;
+            System.arraycopy(tuple.key, 0, key, 0, kl);
+            values = tuple.values;
+            return true;
+          }
+        });
+        return heap(list);
+      }
+
+      /**
+       * Sorts the cached tuples and writes them to disk.
+       * @param ks keys
+       * @param tuples tuples
+       * @param index index of the run
+       * @param qc query context
+       * @return run
+       * @throws QueryException evaluation exception
+       */
+      private Run write(final ItemList[] ks, final ArrayList<Value[]> tuples, final int index,
+          final QueryContext qc) throws QueryException {
+
+        final TupleFile file = new TupleFile(qc, info);
+        final int kl = keys.length;
+        final Item[] key = new Item[kl];
+        for(final int o : order(ks, tuples.size(), qc)) {
+          for(int k = 0; k < kl; k++) key[k] = ks[k].get(o);
+          file.write(key, tuples.get(o));
         }
+        return run(file, index);
+      }
+
+      /**
+       * Returns a run for the specified file.
+       * @param file file with sorted tuples
+       * @param index index of the run
+       * @return run
+       * @throws QueryException evaluation exception
+       */
+      private Run run(final TupleFile file, final int index) throws QueryException {
+        file.finish();
+        return new Run(keys.length, refs.length, index) {
+          @Override
+          boolean next() throws QueryException {
+            return file.read(key, values);
+          }
+        };
+      }
+
+      /**
+       * Returns new lists for caching keys.
+       * @return lists
+       */
+      private ItemList[] lists() {
+        final int kl = keys.length;
+        final ItemList[] ks = new ItemList[kl];
+        for(int k = 0; k < kl; k++) ks[k] = new ItemList();
+        return ks;
       }
     };
   }
 
+  /**
+   * Computes the order of the cached tuples.
+   * @param ks keys
+   * @param len number of tuples
+   * @param qc query context
+   * @return order
+   * @throws QueryException evaluation exception
+   */
+  private int[] order(final ItemList[] ks, final int len, final QueryContext qc)
+      throws QueryException {
+    final int kl = keys.length;
+    final KeySorter.Column[] columns = new KeySorter.Column[kl];
+    for(int k = 0; k < kl; k++) {
+      final Key key = keys[k];
+      final Item[] items = ks[k].internal();
+      columns[k] = KeySorter.column(items, len, key.desc, key.least, true, key.coll,
+          key.info, new KeySorter.Column() {
+        @Override
+        protected int compare(final int x, final int y) throws QueryException {
+          return OrderBy.compare(items[x], items[y], key);
+        }
+      });
+    }
+    return KeySorter.sort(len, qc, columns);
+  }
+
+  /**
+   * Compares two sort keys.
+   * @param it1 first key (can be {@code null})
+   * @param it2 second key (can be {@code null})
+   * @param key key specification
+   * @return result of comparison
+   * @throws QueryException evaluation exception
+   */
+  private static int compare(final Item it1, final Item it2, final Key key)
+      throws QueryException {
+
+    final Item m = it1 == Dbl.NAN || it1 == Flt.NAN ? null : it1;
+    final Item n = it2 == Dbl.NAN || it2 == Flt.NAN ? null : it2;
+    if(m != null && n != null && !m.comparable(n)) throw castError(n, m.type, key.info);
+
+    final int c = m == null
+        ? n == null ? 0                   : key.least ? -1 : 1
+        : n == null ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
+    return key.desc ? -c : c;
+  }
+
+  /**
+   * Checks if the cached tuples can be written to disk.
+   * @param ks keys
+   * @param tuples tuples
+   * @return result of check
+   */
+  private static boolean supported(final ItemList[] ks, final ArrayList<Value[]> tuples) {
+    for(final ItemList items : ks) {
+      for(final Item it : items) {
+        if(it != null && !TupleFile.supported(it)) return false;
+      }
+    }
+    for(final Value[] tuple : tuples) {
+      for(final Value value : tuple) {
+        if(!TupleFile.supported(value)) return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a comparator for tuples.
+   * The {@link Comparator#compare(Object, Object)} method throws a
+   * {@link QueryRTException} if the comparison throws a {@link QueryException}.
+   * @param <T> tuple type
+   * @return comparator
+   */
+  private <T extends Tuple> Comparator<T> comparator() {
+    final int kl = keys.length;
+    return new Comparator<T>() {
+      @Override
+      public int compare(final T tuple1, final T tuple2) {
+        try {
+          final Item[] key1 = tuple1.key, key2 = tuple2.key;
+          for(int k = 0; k < kl; k++) {
+            final int c = OrderBy.compare(key1[k], key2[k], keys[k]);
+            if(c != 0) return c;
+          }
+          return Long.compare(tuple1.index, tuple2.index);
+        } catch(final QueryException ex) {
+          throw new QueryRTException(ex);
+        }
+      }
+    };
+  }
+
+  /**
+   * Removes the entry with the smallest key from the heap.
+   * @param <T> entry type
+   * @param heap heap
+   * @return entry
+   * @throws QueryException evaluation exception
+   */
+  private static <T> T remove(final MinHeap<T, T> heap) throws QueryException {
+    try {
+      return heap.removeMin();
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Inserts an entry into the heap.
+   * @param <T> entry type
+   * @param heap heap
+   * @param entry entry
+   * @throws QueryException evaluation exception
+   */
+  private static <T> void insert(final MinHeap<T, T> heap, final T entry)
+      throws QueryException {
+    try {
+      heap.insert(entry, entry);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Limits the number of tuples that will be requested.
+   * @param max maximum number of tuples
+   */
+  void limit(final long max) {
+    limit = Math.min(limit, max);
+  }
+
   @Override
   public void plan(final FElem plan) {
     final FElem e = planElem();
@@ -183,7 +417,10 @@ public final class OrderBy extends Clause {
 
   @Override
   public OrderBy copy(final QueryContext qc, final VarScope scp, final IntObjMap<Var> vs) {
-    return new OrderBy(Arr.copyAll(qc, scp, vs, refs), Arr.copyAll(qc, scp, vs, keys), info);
+    final OrderBy ob = new OrderBy(Arr.copyAll(qc, scp, vs, refs), Arr.copyAll(qc, scp, vs, keys),
+        info);
+    ob.limit = limit;
+    return ob;
   }
 
   @Override
@@ -231,6 +468,97 @@ public final class OrderBy extends Clause {
     return sz;
   }
 
+  /**
+   * Tuple with sort keys.
+   */
+  private static class Tuple {
+    /** Sort keys. */
+    final Item[] key;
+    /** Values. */
+    Value[] values;
+    /** Index (smaller indexes denote earlier tuples). */
+    final long index;
+
+    /**
+     * Constructor.
+     * @param key sort keys
+     * @param values values
+     * @param index index
+     */
+    Tuple(final Item[] key, final Value[] values, final long index) {
+      this.key = key;
+      this.values = values;
+      this.index = index;
+    }
+  }
+
+  /**
+   * Run of sorted tuples. The index of a run is smaller than the index of all
+   * runs with later tuples.
+   */
+  private abstract static class Run extends Tuple {
+    /**
+     * Constructor.
+     * @param kl number of keys
+     * @param rl number of values
+     * @param index index of the run
+     */
+    Run(final int kl, final int rl, final int index) {
+      super(new Item[kl], new Value[rl], index);
+    }
+
+    /**
+     * Proceeds to the next tuple.
+     * @return {@code true} if a tuple was found, {@code false} if the run is exhausted
+     * @throws QueryException evaluation exception
+     */
+    abstract boolean next() throws QueryException;
+  }
+
+  /**
+   * Run of sorted tuples in main memory.
+   */
+  private final class MemoryRun extends Run {
+    /** Keys. */
+    private final ItemList[] ks;
+    /** Cached tuples. */
+    private final Value[][] tpls;
+    /** Query context. */
+    private final QueryContext qc;
+    /** Permutation of the tuples ({@code null} if not sorted yet). */
+    private int[] perm;
+    /** Current position. */
+    private int pos;
+
+    /**
+     * Constructor.
+     * @param ks keys
+     * @param tuples tuples
+     * @param index index of the run
+     * @param qc query context
+     */
+    MemoryRun(final ItemList[] ks, final ArrayList<Value[]> tuples, final int index,
+        final QueryContext qc) {
+      super(ks.length, refs.length, index);
+      this.ks = ks;
+      this.qc = qc;
+      tpls = tuples.toArray(new Value[tuples.size()][]);
+    }
+
+    @Override
+    boolean next() throws QueryException {
+      if(perm == null) perm = order(ks, tpls.length, qc);
+      if(pos == perm.length) return false;
+      final int p = perm[pos++];
+      final int kl = key.length;
+      for(int k = 0; k < kl; k++) key[k] = ks[k].get(p);
+      values = tpls[p];
+      // free the space occupied by the tuple
+      tpls[p] = null;
+      return true;
+    }
+  }
+
   /**
    * Sort key.
    *
@@ -0,0 +1,144 @@
+package org.basex.query.expr.gflwor;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.GFLWOR.Clause;
+import org.basex.query.expr.gflwor.GFLWOR.Eval;
+import org.basex.query.value.*;
+import org.basex.query.var.*;
+
+/**
+ * Parallel evaluation of a FLWOR expression. The items of a {@code for} clause are split
+ * into partitions, which are evaluated by separate query contexts. The results of the
+ * partitions are concatenated in their original order.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class Parallel extends RecursiveTask<Value> {
+  /** Serial version UID. */
+  private static final long serialVersionUID = 1L;
+  /** Number of partitions per thread (small partitions balance the work load). */
+  private static final int PARTITIONS = 4;
+
+  /** Input items. */
+  private final Value input;
+  /** Variable of the for clause. */
+  private final Var var;
+  /** Remaining clauses. */
+  private final List<Clause> clauses;
+  /** Return expression. */
+  private final Expr ret;
+  /** Parent query context. */
+  private final QueryContext qc;
+  /** Start position. */
+  private final long s;
+  /** End position. */
+  private final long e;
+  /** Maximum number of items that will be evaluated sequentially. */
+  private final long max;
+
+  /**
+   * Constructor.
+   * @param input input items
+   * @param var variable of the for clause
+   * @param clauses remaining clauses
+   * @param ret return expression
+   * @param qc parent query context
+   * @param s start position
+   * @param e end position
+   * @param max maximum number of items that will be evaluated sequentially
+   */
+  private Parallel(final Value input, final Var var, final List<Clause> clauses,
+      final Expr ret, final QueryContext qc, final long s, final long e, final long max) {
+    this.input = input;
+    this.var = var;
+    this.clauses = clauses;
+    this.ret = ret;
+    this.qc = qc;
+    this.s = s;
+    this.e = e;
+    this.max = max;
+  }
+
+  /**
+   * Evaluates the remaining clauses and the return expression for all input items.
+   * @param input input items
+   * @param var variable of the for clause
+   * @param clauses remaining clauses
+   * @param ret return expression
+   * @param qc query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  static Value value(final Value input, final Var var, final List<Clause> clauses,
+      final Expr ret, final QueryContext qc) throws QueryException {
+
+    // date and time must be identical in all partitions
+    qc.initDateTime();
+    final QueryPool pool = qc.context.queries;
+    final long size = input.size();
+    final long max = Math.max(1, size / (pool.parallelism() * PARTITIONS));
+    try {
+      return pool.invoke(new Parallel(input, var, clauses, ret, qc, 0, size, max));
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  @Override
+  protected Value compute() {
+    try {
+      if(e - s <= max) return evaluate();
+      final long m = s + e >>> 1;
+      final Parallel task = new Parallel(input, var, clauses, ret, qc, m, e, max);
+      task.fork();
+      final Value value = new Parallel(input, var, clauses, ret, qc, s, m, max).compute();
+      return new ValueBuilder().add(value).add(task.join()).value();
+    } catch(final QueryException ex) {
+      throw new QueryRTException(ex);
+    }
+  }
+
+  /**
+   * Evaluates a partition.
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value evaluate() throws QueryException {
+    final QueryContext ctx = new QueryContext(qc);
+    ctx.stack.enterFrame(qc.stack);
+    ctx.value = qc.value;
+    ctx.pos = qc.pos;
+    ctx.size = qc.size;
+    ctx.date = qc.date;
+    ctx.datm = qc.datm;
+    ctx.time = qc.time;
+    ctx.zone = qc.zone;
+    ctx.nano = qc.nano;
+    ctx.constructors = qc.constructors;
+
+    Eval eval = new Eval() {
+      /** Current position. */
+      private long p = s;
+      @Override
+      boolean next(final QueryContext q) throws QueryException {
+        if(p == e) return false;
+        q.set(var, input.itemAt(p++));
+        return true;
+      }
+    };
+    for(final Clause clause : clauses) eval = clause.eval(eval);
+
+    final ValueBuilder vb = new ValueBuilder();
+    while(eval.next(ctx)) {
+      // the parent context will be stopped if the query is interrupted
+      qc.checkStop();
+      vb.add(ret.value(ctx));
+    }
+    return vb.value();
+  }
+}
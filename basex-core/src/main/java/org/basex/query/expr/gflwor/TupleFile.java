@@ -0,0 +1,389 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Temporary file with tuples of keys and values. Tuples are written to disk by the
+ * {@code order by} and {@code group by} clauses and by hash joins if the number of cached
+ * tuples exceeds the value of {@link org.basex.core.MainOptions#SPILLSIZE}.
+ * Tuples can be read sequentially or from a given offset.
+ *
+ * Atomic items of the most common types and database nodes can be written to disk.
+ * As database nodes are represented by their pre values, the referenced databases are
+ * kept in main memory.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class TupleFile {
+  /** Item type: empty key. */
+  private static final int EMPTY = 0;
+  /** Item type: database node. */
+  private static final int NODE = 1;
+  /** Item type: integer. */
+  private static final int INT = 2;
+  /** Item type: double. */
+  private static final int DBL = 3;
+  /** Item type: float. */
+  private static final int FLT = 4;
+  /** Item type: decimal. */
+  private static final int DEC = 5;
+  /** Item type: string. */
+  private static final int STR = 6;
+  /** Item type: untyped atomic. */
+  private static final int ATM = 7;
+  /** Item type: boolean. */
+  private static final int BLN = 8;
+  /** Item type: URI. */
+  private static final int URI = 9;
+
+  /** File. */
+  private final IOFile file;
+  /** Referenced databases. */
+  private final ArrayList<Data> datas = new ArrayList<>();
+  /** Input info. */
+  private final InputInfo info;
+  /** Query resource, which deletes all files when the query is closed. */
+  private final Files files;
+  /** Output stream ({@code null} if closed). */
+  private DataOutput out;
+  /** Input ({@code null} if not opened yet). */
+  private DataAccess in;
+  /** Number of written tuples. */
+  private long written;
+  /** Number of read tuples. */
+  private long read;
+
+  /**
+   * Constructor.
+   * @param qc query context
+   * @param info input info
+   * @throws QueryException query exception
+   */
+  TupleFile(final QueryContext qc, final InputInfo info) throws QueryException {
+    this.info = info;
+    final IOFile dir = qc.context.soptions.dbPath();
+    try {
+      dir.md();
+      file = new IOFile(File.createTempFile(Prop.NAME + '-', IO.TMPSUFFIX, dir.file()));
+      out = new DataOutput(file);
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+    files = Files.get(qc);
+    files.add(this);
+  }
+
+  /**
+   * Checks if the specified value can be written to disk.
+   * @param value value
+   * @return result of check
+   */
+  static boolean supported(final Value value) {
+    for(final Item it : value) {
+      if(!(it instanceof DBNode) && type(it) == -1) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Writes a tuple.
+   * @param keys keys ({@code null} references represent empty keys)
+   * @param values values
+   * @return offset of the tuple
+   * @throws QueryException query exception
+   */
+  long write(final Item[] keys, final Value[] values) throws QueryException {
+    try {
+      final long offset = out.size();
+      for(final Item key : keys) write(key);
+      for(final Value value : values) {
+        out.writeNum((int) value.size());
+        for(final Item it : value) write(it);
+      }
+      written++;
+      return offset;
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads the next tuple. The file will be deleted if all tuples have been read.
+   * @param keys array for keys
+   * @param values array for values
+   * @return {@code true} if a tuple was read, {@code false} if no tuples are left
+   * @throws QueryException query exception
+   */
+  boolean read(final Item[] keys, final Value[] values) throws QueryException {
+    open();
+    if(read == written) {
+      close();
+      return false;
+    }
+    read(keys, values, in);
+    read++;
+    return true;
+  }
+
+  /**
+   * Reads the tuple at the specified offset. Must not be mixed with sequential reads.
+   * @param offset offset of the tuple
+   * @param keys array for keys
+   * @param values array for values
+   * @throws QueryException query exception
+   */
+  void read(final long offset, final Item[] keys, final Value[] values) throws QueryException {
+    open();
+    in.cursor(offset);
+    read(keys, values, in);
+  }
+
+  /**
+   * Opens the file for reading.
+   * @throws QueryException query exception
+   */
+  private void open() throws QueryException {
+    if(in != null) return;
+    finish();
+    try {
+      in = new DataAccess(file);
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads a tuple.
+   * @param keys array for keys
+   * @param values array for values
+   * @param da input
+   * @throws QueryException query exception
+   */
+  private void read(final Item[] keys, final Value[] values, final DataAccess da)
+      throws QueryException {
+    final int kl = keys.length, vl = values.length;
+    for(int k = 0; k < kl; k++) keys[k] = read(da);
+    for(int v = 0; v < vl; v++) {
+      final int size = da.readNum();
+      final ValueBuilder vb = new ValueBuilder();
+      for(int s = 0; s < size; s++) vb.add(read(da));
+      values[v] = vb.value();
+    }
+  }
+
+  /**
+   * Closes the output stream. Must be called after all tuples have been written.
+   * @throws QueryException query exception
+   */
+  void finish() throws QueryException {
+    if(out == null) return;
+    try {
+      out.close();
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    } finally {
+      out = null;
+    }
+  }
+
+  /**
+   * Closes and deletes the file.
+   */
+  void close() {
+    try {
+      if(out != null) out.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    if(in != null) in.close();
+    out = null;
+    in = null;
+    file.delete();
+    datas.clear();
+    files.remove(this);
+  }
+
+  /**
+   * Writes an item.
+   * @param it item (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  private void write(final Item it) throws IOException {
+    if(it == null) {
+      out.write(EMPTY);
+    } else if(it instanceof DBNode) {
+      final DBNode node = (DBNode) it;
+      int d = datas.size();
+      while(--d >= 0 && datas.get(d) != node.data());
+      if(d == -1) {
+        d = datas.size();
+        datas.add(node.data());
+      }
+      out.write(NODE);
+      out.writeNum(d);
+      out.writeNum(node.pre());
+    } else {
+      final int type = type(it);
+      out.write(type);
+      try {
+        switch(type) {
+          case INT:
+            out.writeNum(((AtomType) it.type).ordinal());
+            writeLong(it.itr(info));
+            break;
+          case DBL:
+            writeLong(Double.doubleToRawLongBits(it.dbl(info)));
+            break;
+          case FLT:
+            out.writeNum(Float.floatToRawIntBits(it.flt(info)));
+            break;
+          case DEC:
+            out.writeToken(Token.token(it.dec(info).toString()));
+            break;
+          case STR:
+            out.writeNum(((AtomType) it.type).ordinal());
+            out.writeToken(it.string(info));
+            break;
+          case BLN:
+            out.writeBool(it.bool(info));
+            break;
+          default:
+            out.writeToken(it.string(info));
+            break;
+        }
+      } catch(final QueryException ex) {
+        throw Util.notExpected(ex);
+      }
+    }
+  }
+
+  /**
+   * Reads an item.
+   * @param da input
+   * @return item (can be {@code null})
+   * @throws QueryException query exception
+   */
+  private Item read(final DataAccess da) throws QueryException {
+    switch(da.read1()) {
+      case EMPTY: return null;
+      case NODE:  return new DBNode(datas.get(da.readNum()), da.readNum());
+      case INT:
+        final AtomType itr = AtomType.VALUES[da.readNum()];
+        return Int.get(readLong(da), itr);
+      case DBL:   return Dbl.get(Double.longBitsToDouble(readLong(da)));
+      case FLT:   return Flt.get(Float.intBitsToFloat(da.readNum()));
+      case DEC:   return Dec.get(new BigDecimal(Token.string(da.readToken())));
+      case STR:
+        final AtomType str = AtomType.VALUES[da.readNum()];
+        final byte[] value = da.readToken();
+        return str == AtomType.STR ? Str.get(value) : new Str(value, str);
+      case ATM:   return new Atm(da.readToken());
+      case BLN:   return Bln.get(da.read1() != 0);
+      case URI:   return Uri.uri(da.readToken(), false);
+      default:    throw IOERR_X.get(info, "Corrupt file: " + file);
+    }
+  }
+
+  /**
+   * Writes a long value.
+   * @param v value
+   * @throws IOException I/O exception
+   */
+  private void writeLong(final long v) throws IOException {
+    out.writeNum((int) (v >>> 32));
+    out.writeNum((int) v);
+  }
+
+  /**
+   * Reads a long value.
+   * @param da input
+   * @return value
+   */
+  private static long readLong(final DataAccess da) {
+    return (long) da.readNum() << 32 | da.readNum() & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Returns the type of an atomic item that can be written to disk.
+   * @param it item
+   * @return type, or {@code -1} if the item cannot be written to disk
+   */
+  private static int type(final Item it) {
+    final Type type = it.type;
+    if(it instanceof Int) return INT;
+    if(it instanceof Str) return STR;
+    if(type == AtomType.DBL) return DBL;
+    if(type == AtomType.FLT) return FLT;
+    if(type == AtomType.DEC) return DEC;
+    if(type == AtomType.ATM) return ATM;
+    if(type == AtomType.BLN) return BLN;
+    if(type == AtomType.URI) return URI;
+    return -1;
+  }
+
+  /**
+   * Temporary files of a query, which will be deleted when the query is closed.
+   */
+  static final class Files implements QueryResource {
+    /** Open files. */
+    private final Set<TupleFile> files = Collections.newSetFromMap(
+        new IdentityHashMap<TupleFile, Boolean>());
+
+    /**
+     * Returns the temporary files of the specified query.
+     * @param qc query context
+     * @return files
+     */
+    static Files get(final QueryContext qc) {
+      synchronized(qc.resources) {
+        Files files = qc.resources.get(Files.class);
+        if(files == null) {
+          files = new Files();
+          qc.resources.add(files);
+        }
+        return files;
+      }
+    }
+
+    /**
+     * Registers a file.
+     * @param file file
+     */
+    synchronized void add(final TupleFile file) {
+      files.add(file);
+    }
+
+    /**
+     * Unregisters a file.
+     * @param file file
+     */
+    synchronized void remove(final TupleFile file) {
+      files.remove(file);
+    }
+
+    @Override
+    public void close() {
+      final ArrayList<TupleFile> list;
+      synchronized(this) {
+        list = new ArrayList<>(files);
+      }
+      for(final TupleFile file : list) file.close();
+    }
+  }
+}
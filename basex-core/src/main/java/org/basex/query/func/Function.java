@@ -914,8 +914,9 @@ public enum Function {
   _FILE_READ_TEXT(FileReadText.class, "read-text(path[,encoding])",
       arg(STR, STR), STR, flag(NDT), FILE_URI),
   /** XQuery function. */
-  _FILE_READ_TEXT_LINES(FileReadTextLines.class, "read-text-lines(path[,encoding])",
-      arg(STR, STR), STR_ZM, flag(NDT), FILE_URI),
+  _FILE_READ_TEXT_LINES(FileReadTextLines.class,
+      "read-text-lines(path[,encoding[,offset[,length]]])",
+      arg(STR, STR, ITR, ITR), STR_ZM, flag(NDT), FILE_URI),
   /** XQuery function. */
   _FILE_READ_BINARY(FileReadBinary.class, "read-binary(path[,offset[,length]])",
       arg(STR, ITR, ITR), B64, flag(NDT), FILE_URI),
@@ -34,6 +34,8 @@ public final class AdminLogs extends AdminFn {
   public Value value(final QueryContext qc) throws QueryException {
     checkAdmin(qc);
 
+    // write buffered log entries
+    qc.context.log.flush();
     final ValueBuilder vb = new ValueBuilder();
     if(exprs.length == 0) {
       // return list of all log files
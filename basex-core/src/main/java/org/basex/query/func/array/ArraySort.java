@@ -30,7 +30,7 @@ public final class ArraySort extends StandardFunc {
     } else {
       for(final Value value : array.members()) vl.add(value.atomValue(qc, info));
     }
-    for(final int order : FnSort.sort(vl, this)) builder.append(array.get(order));
+    for(final int order : FnSort.sort(vl, this, qc)) builder.append(array.get(order));
     return builder.freeze();
   }
 }
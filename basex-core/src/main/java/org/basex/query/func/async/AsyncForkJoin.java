@@ -2,8 +2,7 @@ package org.basex.query.func.async;
 
 import static org.basex.query.QueryError.*;
 
-import java.util.concurrent.*;
-
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
@@ -25,16 +24,15 @@ public final class AsyncForkJoin extends StandardFunc {
         throw ZEROFUNCS_X_X.get(info, func.type, func);
     }
 
-    final ForkJoinPool pool = new ForkJoinPool();
     final ForkJoinTask task = new ForkJoinTask(funcs, qc, info);
     try {
-      return pool.invoke(task);
+      return qc.context.queries.invoke(task);
+    } catch(final ProcException ex) {
+      // query was interrupted
+      throw ex;
     } catch(final Exception ex) {
       final Throwable e = Util.rootException(ex);
       throw e instanceof QueryException ? (QueryException) e : ASYNC_UNEXPECTED_X.get(info, e);
-    } finally {
-      // required?
-      pool.shutdown();
     }
   }
 
@@ -15,7 +15,7 @@ import org.basex.util.*;
 public final class ForkJoinTask extends RecursiveTask<Value> {
   /** Functions to evaluate in parallel. */
   private final Value funcs;
-  /** Query context. */
+  /** Query context of the calling query. */
   private final QueryContext qc;
   /** Input info. */
   private final InputInfo ii;
@@ -45,7 +45,7 @@ public final class ForkJoinTask extends RecursiveTask<Value> {
   private ForkJoinTask(final Value funcs, final QueryContext qc, final InputInfo ii,
       final int start, final int end) {
     this.funcs = funcs;
-    this.qc = new QueryContext(qc);
+    this.qc = qc;
     this.ii = ii;
     this.start = start;
     this.end = end;
@@ -56,9 +56,10 @@ public final class ForkJoinTask extends RecursiveTask<Value> {
     final ValueBuilder vb = new ValueBuilder();
     final int s = start, e = end, l = e - s;
     if(l == 1) {
-      // perform the work
+      // perform the work, skip it if the query was interrupted
+      qc.checkStop();
       try {
-        vb.add(((FItem) funcs.itemAt(s)).invokeValue(qc, ii));
+        vb.add(((FItem) funcs.itemAt(s)).invokeValue(new QueryContext(qc), ii));
       } catch(final QueryException ex) {
         completeExceptionally(ex);
         cancel(true);
@@ -22,10 +22,21 @@ abstract class FileRead extends FileFn {
    * @throws QueryException query exception
    */
   final StrStream text(final QueryContext qc) throws QueryException {
-    final Path path = toPath(0, qc);
+    final IOFile file = file(qc);
     final String enc = toEncoding(1, FILE_UNKNOWN_ENCODING_X, qc);
+    return new StrStream(file, enc, FILE_IO_ERROR_X, qc);
+  }
+
+  /**
+   * Returns the file addressed by the first argument.
+   * @param qc query context
+   * @return file
+   * @throws QueryException query exception
+   */
+  final IOFile file(final QueryContext qc) throws QueryException {
+    final Path path = toPath(0, qc);
     if(!Files.exists(path)) throw FILE_NOT_FOUND_X.get(info, path);
     if(Files.isDirectory(path)) throw FILE_IS_DIR_X.get(info, path);
-    return new StrStream(new IOFile(path.toFile()), enc, FILE_IO_ERROR_X, qc);
+    return new IOFile(path.toFile());
   }
 }
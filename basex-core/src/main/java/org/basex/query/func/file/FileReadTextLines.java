@@ -1,5 +1,12 @@
 package org.basex.query.func.file;
 
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.query.func.fn.*;
 import org.basex.query.iter.*;
@@ -14,6 +21,30 @@ public final class FileReadTextLines extends FileRead {
   @Override
   public Iter iter(final QueryContext qc) throws QueryException {
     checkCreate(qc);
-    return Parse.textIter(text(qc).string(info));
+    final IOFile file = file(qc);
+    final String enc = toEncoding(1, FILE_UNKNOWN_ENCODING_X, qc);
+    final long off = exprs.length > 2 ? toLong(exprs[2], qc) : 0;
+    final long len = exprs.length > 3 ? toLong(exprs[3], qc) : Long.MAX_VALUE;
+    if(off < 0) throw FILE_LINE_OFFSET_X.get(info, off);
+    if(len < 0) throw FILE_LINE_LENGTH_X.get(info, len);
+
+    NewlineInput nli = null;
+    try {
+      nli = new NewlineInput(file);
+      nli.encoding(enc).validate(qc.context.options.get(MainOptions.CHECKSTRINGS));
+      return new LinesIter(nli, off, len, qc) {
+        @Override
+        protected QueryException error(final IOException ex) {
+          return FILE_IO_ERROR_X.get(info, ex);
+        }
+        @Override
+        protected QueryException error(final long offset) {
+          return FILE_LINE_OFFSET_X.get(info, offset);
+        }
+      };
+    } catch(final IOException ex) {
+      if(nli != null) try { nli.close(); } catch(final IOException ignore) { }
+      throw FILE_IO_ERROR_X.get(info, ex);
+    }
   }
 }
@@ -1,5 +1,8 @@
 package org.basex.query.func.fn;
 
+import java.io.*;
+
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
@@ -13,7 +16,11 @@ import org.basex.util.*;
 public final class FnJsonDoc extends FnParseJson {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    final Item it = unparsedText(qc, false, false);
-    return it == null ? null : parse(it.string(info), false, qc, info);
+    return unparsedText(qc, false, false);
+  }
+
+  @Override
+  Item text(final TextInput ti, final QueryContext qc) throws QueryException, IOException {
+    return parse(ti, false, qc, info);
   }
 }
@@ -2,8 +2,12 @@ package org.basex.query.func.fn;
 
 import static org.basex.query.QueryError.*;
 
+import java.io.*;
+
 import org.basex.build.json.*;
 import org.basex.build.json.JsonOptions.JsonFormat;
+import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.parse.json.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
@@ -31,7 +35,7 @@ public class FnParseJson extends Parse {
 
   /**
    * Parses the specified JSON string.
-   * @param json json string
+   * @param json JSON string
    * @param xml convert to xml
    * @param qc query context
    * @param ii input info
@@ -40,6 +44,26 @@ public class FnParseJson extends Parse {
    */
   final Item parse(final byte[] json, final boolean xml, final QueryContext qc,
       final InputInfo ii) throws QueryException {
+    try {
+      return parse(new TextInput(new IOContent(json)), xml, qc, ii);
+    } catch(final IOException ex) {
+      // input is read from main memory
+      throw Util.notExpected(ex);
+    }
+  }
+
+  /**
+   * Parses the specified JSON input.
+   * @param input text input
+   * @param xml convert to xml
+   * @param qc query context
+   * @param ii input info
+   * @return resulting item
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  final Item parse(final TextInput input, final boolean xml, final QueryContext qc,
+      final InputInfo ii) throws QueryException, IOException {
 
     final JsonParserOptions opts = new JsonParserOptions();
     if(exprs.length > 1) {
@@ -71,7 +95,7 @@ public class FnParseJson extends Parse {
           }
         }
       });
-      return conv.convert(json, null);
+      return conv.convert(input, null);
     } catch(final QueryRTException ex) {
       throw ex.getCause();
     } catch(final QueryIOException ex) {
@@ -2,11 +2,10 @@ package org.basex.query.func.fn;
 
 import static org.basex.query.QueryError.*;
 
-import java.util.*;
-
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
@@ -31,7 +30,7 @@ public final class FnSort extends StandardFunc {
       for(final Item it : value) vl.add(it.atomValue(qc, info));
     }
 
-    final Integer[] order = sort(vl, this);
+    final int[] order = sort(vl, this, qc);
     return new ValueIter() {
       int c;
       @Override
@@ -58,39 +57,41 @@ public final class FnSort extends StandardFunc {
    * Sort the input data.
    * @param vl value list.
    * @param sf calling function
+   * @param qc query context
    * @return item order
    * @throws QueryException query exception
    */
-  public static Integer[] sort(final ValueList vl, final StandardFunc sf) throws QueryException {
+  public static int[] sort(final ValueList vl, final StandardFunc sf, final QueryContext qc)
+      throws QueryException {
     final int al = vl.size();
-    final Integer[] order = new Integer[al];
-    for(int o = 0; o < al; o++) order[o] = o;
-    try {
-      Arrays.sort(order, new Comparator<Integer>() {
-        @Override
-        public int compare(final Integer i1, final Integer i2) {
-          try {
-            final Value v1 = vl.get(i1), v2 = vl.get(i2);
-            final long s1 = v1.size(), s2 = v2.size(), sl = Math.min(s1, s2);
-            for(int v = 0; v < sl; v++) {
-              final Item it1 = v1.itemAt(v), it2 = v2.itemAt(v);
-              if(!it1.comparable(it2)) {
-                throw it1 instanceof FItem ? FIEQ_X.get(sf.info, it1.type) :
-                      it2 instanceof FItem ? FIEQ_X.get(sf.info, it2.type) :
-                      diffError(it1, it2, sf.info);
-              }
-              final int d = it1.diff(it2, sf.sc.collation, sf.info);
-              if(d != 0 && d != Item.UNDEF) return d;
-            }
-            return (int) (s1 - s2);
-          } catch(final QueryException ex) {
-            throw new QueryRTException(ex);
+    final KeySorter.Column values = new KeySorter.Column() {
+      @Override
+      protected int compare(final int i1, final int i2) throws QueryException {
+        final Value v1 = vl.get(i1), v2 = vl.get(i2);
+        final long s1 = v1.size(), s2 = v2.size(), sl = Math.min(s1, s2);
+        for(int v = 0; v < sl; v++) {
+          final Item it1 = v1.itemAt(v), it2 = v2.itemAt(v);
+          if(!it1.comparable(it2)) {
+            throw it1 instanceof FItem ? FIEQ_X.get(sf.info, it1.type) :
+                  it2 instanceof FItem ? FIEQ_X.get(sf.info, it2.type) :
+                  diffError(it1, it2, sf.info);
           }
+          final int d = it1.diff(it2, sf.sc.collation, sf.info);
+          if(d != 0 && d != Item.UNDEF) return d;
         }
-      });
-    } catch(final QueryRTException ex) {
-      throw ex.getCause();
+        return (int) (s1 - s2);
+      }
+    };
+
+    // single or empty keys: try to compare primitive values
+    final Item[] items = new Item[al];
+    for(int i = 0; i < al; i++) {
+      final Value value = vl.get(i);
+      final long size = value.size();
+      if(size > 1) return KeySorter.sort(al, qc, values);
+      if(size == 1) items[i] = value.itemAt(0);
     }
-    return order;
+    return KeySorter.sort(al, qc, KeySorter.column(items, al, false, true, false, sf.sc.collation,
+        sf.info, values));
   }
 }
@@ -2,6 +2,7 @@ package org.basex.query.func.fn;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.util.*;
 import org.basex.query.iter.*;
@@ -136,7 +137,16 @@ public class FnSubsequence extends StandardFunc {
   }
 
   @Override
-  protected Expr opt(final QueryContext qc, final VarScope scp) {
+  protected Expr opt(final QueryContext qc, final VarScope scp) throws QueryException {
+    // only the first results of a sorted FLWOR expression will be requested
+    final Expr e = exprs[0];
+    if(e instanceof GFLWOR && exprs.length > 2 && exprs[1] instanceof Item &&
+        exprs[2] instanceof Item) {
+      final long[] range = range(qc);
+      if(range != null && range != ALL && range[1] != Long.MAX_VALUE) {
+        ((GFLWOR) e).limit(range[0] + range[1] - 1);
+      }
+    }
     final SeqType st = exprs[0].seqType();
     seqType = SeqType.get(st.type, st.zeroOrOne() ? Occ.ZERO_ONE : Occ.ZERO_MORE);
     return this;
@@ -3,8 +3,6 @@ package org.basex.query.func.fn;
 import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.*;
-import org.basex.query.value.item.*;
-import org.basex.query.value.seq.*;
 
 /**
  * Function implementation.
@@ -15,8 +13,7 @@ import org.basex.query.value.seq.*;
 public final class FnUnparsedTextLines extends Parse {
   @Override
   public Iter iter(final QueryContext qc) throws QueryException {
-    final Item it = unparsedText(qc, false, true);
-    return it == null ? Empty.ITER : textIter(it.string(info));
+    return unparsedTextLines(qc);
   }
 
   @Override
@@ -0,0 +1,103 @@
+package org.basex.query.func.fn;
+
+import java.io.*;
+
+import org.basex.io.in.*;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * Iterator over the lines of a text input. Lines are only decoded when they are requested.
+ * The input is closed as soon as the last line has been returned, or when the query is closed.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public abstract class LinesIter extends Iter {
+  /** Token builder. */
+  private final TokenBuilder tb = new TokenBuilder();
+  /** Input ({@code null} if it has been closed). */
+  private NewlineInput input;
+  /** Open inputs of the query (can be {@code null}). */
+  private final TextInputs inputs;
+  /** Offset of the first line to be returned. */
+  private final long offset;
+  /** Number of lines to be skipped. */
+  private long skip;
+  /** Maximum number of lines to be returned. */
+  private long left;
+
+  /**
+   * Constructor.
+   * @param input input
+   * @param offset number of lines to be skipped
+   * @param length maximum number of lines to be returned
+   * @param qc query context (if {@code null}, the input is a main-memory array)
+   */
+  protected LinesIter(final NewlineInput input, final long offset, final long length,
+      final QueryContext qc) {
+    this.input = input;
+    this.offset = offset;
+    skip = offset;
+    left = length;
+    inputs = qc != null ? TextInputs.get(qc) : null;
+    if(inputs != null) inputs.add(input);
+  }
+
+  @Override
+  public final Item next() throws QueryException {
+    final NewlineInput in = input;
+    if(in == null) return null;
+    try {
+      for(; skip > 0; skip--) {
+        if(!in.readLine(tb)) {
+          close();
+          final QueryException ex = error(offset);
+          if(ex != null) throw ex;
+          return null;
+        }
+      }
+      if(left == 0 || !in.readLine(tb)) return close();
+      left--;
+      return Str.get(tb.toArray());
+    } catch(final IOException ex) {
+      close();
+      throw error(ex);
+    }
+  }
+
+  /**
+   * Returns an error for an exception that was raised while reading the input.
+   * @param ex exception
+   * @return query exception
+   */
+  protected abstract QueryException error(IOException ex);
+
+  /**
+   * Returns an error if the offset exceeds the number of lines of the input.
+   * By default, an empty sequence will be returned.
+   * @param off offset
+   * @return query exception, or {@code null} if no error will be raised
+   */
+  protected QueryException error(final long off) {
+    return null;
+  }
+
+  /**
+   * Closes the input.
+   * @return {@code null}
+   */
+  private Item close() {
+    final NewlineInput in = input;
+    input = null;
+    if(inputs != null) inputs.remove(in);
+    try {
+      in.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    return null;
+  }
+}
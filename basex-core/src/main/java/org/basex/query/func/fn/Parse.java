@@ -15,6 +15,7 @@ import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.util.*;
 
 /**
@@ -39,36 +40,10 @@ public abstract class Parse extends StandardFunc {
     final Item it = exprs[0].atomItem(qc, info);
     if(it == null) return check ? Bln.FALSE : null;
 
-    final byte[] path = toToken(it);
-
-    String enc = null;
-    IO io = null;
+    final TextResource tr = new TextResource();
     try {
-      enc = encoding ? toEncoding(1, ENCODING_X, qc) : null;
-
-      final String p = string(path);
-      if(p.indexOf('#') != -1) throw FRAGID_X.get(info, p);
-      final Uri uri = Uri.uri(p);
-      if(!uri.isValid()) throw INVURL_X.get(info, p);
-
-      if(uri.isAbsolute()) {
-        io = IO.get(p);
-      } else {
-        if(sc.baseURI() == Uri.EMPTY) throw STBASEURI.get(info);
-        io = sc.resolve(p);
-      }
-
-      // overwrite path with global resource files
-      String[] rp = qc.resources.text(p);
-      if(rp == null) rp = qc.resources.text(io.path());
-      if(rp != null && rp.length > 0) {
-        io = IO.get(rp[0]);
-        if(rp.length > 1) enc = rp[1];
-      }
-
-      try(final InputStream is = io.inputStream()) {
-        final TextInput ti = new TextInput(io).encoding(enc).validate(true);
-        if(!check) return Str.get(ti.content());
+      try(final TextInput ti = tr.open(toToken(it), encoding, false, qc)) {
+        if(!check) return text(ti, qc);
         while(ti.read() != -1);
         return Bln.TRUE;
       }
@@ -77,14 +52,49 @@ public abstract class Parse extends StandardFunc {
       throw ex;
     } catch(final IOException ex) {
       if(check) return Bln.FALSE;
-      if(ex instanceof InputException) {
-        final boolean inv = ex instanceof EncodingException || enc != null;
-        throw (inv ? INVCHARS_X : WHICHCHARS_X).get(info, ex);
-      }
-      throw RESNF_X.get(info, io);
+      throw tr.error(ex);
     }
   }
 
+  /**
+   * Performs the unparsed-text-lines function. Lines are decoded on demand, and the input is
+   * closed as soon as the last line has been returned.
+   * @param qc query context
+   * @return line iterator
+   * @throws QueryException query exception
+   */
+  Iter unparsedTextLines(final QueryContext qc) throws QueryException {
+    checkCreate(qc);
+    final Item it = exprs[0].atomItem(qc, info);
+    if(it == null) return Empty.ITER;
+
+    final TextResource tr = new TextResource();
+    try {
+      final NewlineInput nli = (NewlineInput) tr.open(toToken(it), true, true, qc);
+      return new LinesIter(nli, 0, Long.MAX_VALUE, qc) {
+        @Override
+        protected QueryException error(final IOException ex) {
+          return tr.error(ex);
+        }
+      };
+    } catch(final IOException ex) {
+      throw tr.error(ex);
+    }
+  }
+
+  /**
+   * Returns the result of an unparsed-text function for the specified input.
+   * Overwritten by functions that process the input incrementally.
+   * @param ti text input
+   * @param qc query context
+   * @return result
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  Item text(final TextInput ti, final QueryContext qc) throws QueryException, IOException {
+    return Str.get(ti.content());
+  }
+
   /**
    * Returns a document node for the parsed XML input.
    * @param qc query context
@@ -118,20 +128,82 @@ public abstract class Parse extends StandardFunc {
   public static Iter textIter(final byte[] str) {
     // no I/O exception expected, as input is a main-memory array
     try {
-      final NewlineInput nli = new NewlineInput(new ArrayInput(str));
-      final TokenBuilder tb = new TokenBuilder();
-      return new Iter() {
+      return new LinesIter(new NewlineInput(new ArrayInput(str)), 0, Long.MAX_VALUE, null) {
         @Override
-        public Item next() {
-          try {
-            return nli.readLine(tb) ? Str.get(tb.toArray()) : null;
-          } catch(final IOException ex) {
-            throw Util.notExpected(ex);
-          }
+        protected QueryException error(final IOException ex) {
+          throw Util.notExpected(ex);
         }
       };
     } catch(final IOException ex) {
       throw Util.notExpected(ex);
     }
   }
+
+  /**
+   * Resolves and opens the text resource addressed by a function argument.
+   */
+  private final class TextResource {
+    /** Input reference. */
+    private IO io;
+    /** Encoding (can be {@code null}). */
+    private String enc;
+
+    /**
+     * Opens the resource.
+     * @param path path to the resource
+     * @param encoding parse encoding argument
+     * @param lines return an input that normalizes newlines
+     * @param qc query context
+     * @return text input
+     * @throws QueryException query exception
+     * @throws IOException I/O exception
+     */
+    TextInput open(final byte[] path, final boolean encoding, final boolean lines,
+        final QueryContext qc) throws QueryException, IOException {
+
+      enc = encoding ? toEncoding(1, ENCODING_X, qc) : null;
+
+      final String p = string(path);
+      if(p.indexOf('#') != -1) throw FRAGID_X.get(info, p);
+      final Uri uri = Uri.uri(p);
+      if(!uri.isValid()) throw INVURL_X.get(info, p);
+
+      if(uri.isAbsolute()) {
+        io = IO.get(p);
+      } else {
+        if(sc.baseURI() == Uri.EMPTY) throw STBASEURI.get(info);
+        io = sc.resolve(p);
+      }
+
+      // overwrite path with global resource files
+      String[] rp = qc.resources.text(p);
+      if(rp == null) rp = qc.resources.text(io.path());
+      if(rp != null && rp.length > 0) {
+        io = IO.get(rp[0]);
+        if(rp.length > 1) enc = rp[1];
+      }
+
+      final TextInput ti = lines ? new NewlineInput(io) : new TextInput(io);
+      try {
+        ti.encoding(enc).validate(true);
+      } catch(final IOException ex) {
+        ti.close();
+        throw ex;
+      }
+      return ti;
+    }
+
+    /**
+     * Returns an error for an exception that was raised while reading the resource.
+     * @param ex exception
+     * @return query exception
+     */
+    QueryException error(final IOException ex) {
+      if(ex instanceof InputException) {
+        final boolean inv = ex instanceof EncodingException || enc != null;
+        return (inv ? INVCHARS_X : WHICHCHARS_X).get(info, ex);
+      }
+      return RESNF_X.get(info, io);
+    }
+  }
 }
@@ -0,0 +1,65 @@
+package org.basex.query.func.fn;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.in.*;
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Text inputs that are read on demand, and that will be closed after the query has been
+ * evaluated if they have not been fully consumed.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class TextInputs implements QueryResource {
+  /** Open inputs. */
+  private final Set<TextInput> inputs = Collections.newSetFromMap(
+      new IdentityHashMap<TextInput, Boolean>());
+
+  /**
+   * Returns the open inputs of the specified query.
+   * @param qc query context
+   * @return inputs
+   */
+  static TextInputs get(final QueryContext qc) {
+    synchronized(qc.resources) {
+      TextInputs inputs = qc.resources.get(TextInputs.class);
+      if(inputs == null) {
+        inputs = new TextInputs();
+        qc.resources.add(inputs);
+      }
+      return inputs;
+    }
+  }
+
+  /**
+   * Registers an input.
+   * @param input input
+   */
+  synchronized void add(final TextInput input) {
+    inputs.add(input);
+  }
+
+  /**
+   * Unregisters an input.
+   * @param input input
+   */
+  synchronized void remove(final TextInput input) {
+    inputs.remove(input);
+  }
+
+  @Override
+  public synchronized void close() {
+    for(final TextInput input : inputs) {
+      try {
+        input.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    inputs.clear();
+  }
+}
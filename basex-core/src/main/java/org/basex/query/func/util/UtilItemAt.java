@@ -2,6 +2,7 @@ package org.basex.query.func.util;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
@@ -37,7 +38,14 @@ public final class UtilItemAt extends StandardFunc {
   }
 
   @Override
-  protected Expr opt(final QueryContext qc, final VarScope scp) {
+  protected Expr opt(final QueryContext qc, final VarScope scp) throws QueryException {
+    // only the first results of a sorted FLWOR expression will be requested
+    final Expr e = exprs[0];
+    if(e instanceof GFLWOR && exprs[1] instanceof Item) {
+      final double ds = toDouble(exprs[1], qc);
+      final long pos = (long) ds;
+      if(ds == pos) ((GFLWOR) e).limit(pos);
+    }
     seqType = exprs[0].seqType().withOcc(Occ.ZERO_ONE);
     return this;
   }
@@ -179,7 +179,7 @@ final class DataUpdates {
     for(final Put put : puts.values()) put.apply();
 
     try {
-      Optimize.finish(data);
+      Optimize.finish(data, qc.context.indexing);
     } catch(final IOException ex) {
       throw UPDBOPTERR_X.get(null, ex);
     }
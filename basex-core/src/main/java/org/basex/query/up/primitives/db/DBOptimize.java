@@ -75,6 +75,7 @@ public final class DBOptimize extends DBUpdate {
     options.assignIfEmpty(MainOptions.SPLITSIZE, meta.splitsize);
     options.assignIfEmpty(MainOptions.UPDINDEX, meta.updindex);
     options.assignIfEmpty(MainOptions.AUTOOPTIMIZE, meta.autooptimize);
+    options.assignIfEmpty(MainOptions.MMAP, meta.mmap);
     options.assignTo(opts);
 
     // adopt options to database meta data
@@ -85,6 +86,7 @@ public final class DBOptimize extends DBUpdate {
 
     meta.updindex = opts.get(MainOptions.UPDINDEX);
     meta.autooptimize = opts.get(MainOptions.AUTOOPTIMIZE);
+    meta.mmap = opts.get(MainOptions.MMAP);
     meta.splitsize = opts.get(MainOptions.SPLITSIZE);
 
     // check if other indexing options have changed
@@ -122,7 +124,8 @@ public final class DBOptimize extends DBUpdate {
 
     try {
       if(all) OptimizeAll.optimizeAll(data, qc.context, opts, null);
-      else Optimize.optimize(data, rebuildText, rebuildAttr, rebuildToken, rebuildFt, null);
+      else Optimize.optimize(data, rebuildText, rebuildAttr, rebuildToken, rebuildFt,
+          qc.context.indexing, null);
     } catch(final IOException ex) {
       throw UPDBOPTERR_X.get(info, ex);
     }
@@ -67,7 +67,7 @@ public final class DBCreate extends NameUpdate {
         data.startUpdate(mopts);
         try {
           data.insert(data.meta.size, -1, new DataClip(newDocs.data));
-          Optimize.optimize(data, null);
+          Optimize.optimize(data, qc.context.indexing, null);
         } finally {
           data.finishUpdate(mopts);
         }
@@ -65,6 +65,59 @@ public final class DataBuilder {
     for(final ANode n : nodes) next = addNode(n, next, -1);
   }
 
+  /**
+   * Opens an element or document node. The attributes of an element are added, and its
+   * namespaces are opened. Children must then be added via {@link #add(ANode, int)}, and the
+   * node must be closed via {@link #close(int)}.
+   * @param node element or document node (its children will be ignored)
+   * @return pre value of the node
+   */
+  public int open(final ANode node) {
+    data.meta.update();
+    final int pre = data.meta.size;
+    if(node.type == NodeType.DOC) {
+      data.doc(1, node.baseURI());
+      data.insert(pre);
+    } else {
+      final Atts ns = node.nsScope(null);
+      data.nspaces.open(pre, ns);
+      final QNm qname = node.qname();
+      final int asize = size(node, true);
+      final int nameId = data.elemNames.index(qname.string(), null, false);
+      final int uriId = data.nspaces.uriId(qname.uri());
+      data.elem(pre + 1, nameId, asize, asize, uriId, !ns.isEmpty());
+      data.insert(pre);
+      int next = pre + 1;
+      for(final ANode attr : node.attributes()) next = addAttr(attr, next, pre);
+    }
+    return pre;
+  }
+
+  /**
+   * Adds a child to an opened node. If the child is a database node, its in-scope namespaces
+   * will be preserved.
+   * @param node node to be added
+   * @param par pre value of the opened node
+   */
+  public void add(final ANode node, final int par) {
+    final int pre = data.meta.size;
+    if(node instanceof DBNode && node.type == NodeType.ELM) {
+      addElem(node, pre, par, node.nsScope(null));
+    } else {
+      addNode(node, pre, par);
+    }
+  }
+
+  /**
+   * Closes an opened node.
+   * @param pre pre value of the opened node
+   */
+  public void close(final int pre) {
+    final int kind = data.kind(pre);
+    if(kind == Data.ELEM) data.nspaces.close(pre);
+    data.size(pre, kind, data.meta.size - pre);
+  }
+
   /**
    * Adds a node.
    * @param node node to be added
@@ -199,10 +252,21 @@ public final class DataBuilder {
    * @return pre value of next node
    */
   private int addElem(final ANode node, final int pre, final int par) {
+    return addElem(node, pre, par, par == -1 ? node.nsScope(null) : node.namespaces());
+  }
+
+  /**
+   * Adds an element node.
+   * @param node node to be added
+   * @param pre pre reference
+   * @param par parent reference
+   * @param ns namespaces to be declared
+   * @return pre value of next node
+   */
+  private int addElem(final ANode node, final int pre, final int par, final Atts ns) {
     final int last = data.meta.size;
 
     // add new namespaces
-    final Atts ns = par == -1 ? node.nsScope(null) : node.namespaces();
     data.nspaces.open(last, ns);
 
     // collect node name properties
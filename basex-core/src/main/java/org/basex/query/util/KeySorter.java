@@ -0,0 +1,365 @@
+package org.basex.query.util;
+
+import java.util.concurrent.*;
+
+import org.basex.query.*;
+import org.basex.query.util.collation.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * Computes the order of tuples with one or more sort keys.
+ * If all keys of a column have the same numeric or string type, they will be extracted to
+ * primitive arrays, and large inputs will be sorted in parallel. The sort is stable.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class KeySorter {
+  /** Minimum number of tuples to be sorted by a single parallel task. */
+  private static final int PARALLEL = 1 << 15;
+  /** Maximum length of ranges that will be sorted via insertion sort. */
+  private static final int INSERT = 7;
+
+  /** Sort columns. */
+  private final Column[] columns;
+
+  /**
+   * Constructor.
+   * @param columns sort columns
+   */
+  private KeySorter(final Column[] columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Returns the order of the tuples, sorted by the specified columns.
+   * Large inputs are sorted in parallel by the fork-join pool of the query pool.
+   * @param size number of tuples
+   * @param qc query context
+   * @param columns sort columns
+   * @return positions of the sorted tuples
+   * @throws QueryException query exception
+   */
+  public static int[] sort(final int size, final QueryContext qc, final Column... columns)
+      throws QueryException {
+    return sort(size, qc.context.queries, 0, columns);
+  }
+
+  /**
+   * Returns the order of the tuples, sorted by the specified columns.
+   * @param size number of tuples
+   * @param pool query pool
+   * @param threads maximum number of threads (0: number of threads of the fork-join pool)
+   * @param columns sort columns
+   * @return positions of the sorted tuples
+   * @throws QueryException query exception
+   */
+  static int[] sort(final int size, final QueryPool pool, final int threads,
+      final Column... columns) throws QueryException {
+
+    final int[] order = new int[size];
+    for(int o = 0; o < size; o++) order[o] = o;
+    if(size < 2) return order;
+
+    boolean parallel = size >= PARALLEL << 1;
+    for(final Column column : columns) parallel &= column.parallel();
+    final int tc = parallel ? threads > 0 ? threads : pool.parallelism() : 1;
+
+    final KeySorter sorter = new KeySorter(columns);
+    final int[] tmp = order.clone();
+    if(tc > 1) {
+      pool.invoke(sorter.new Task(tmp, order, 0, size, Math.max(PARALLEL, size / tc)));
+    } else {
+      sorter.sort(tmp, order, 0, size);
+    }
+    return order;
+  }
+
+  /**
+   * Returns a column for the specified sort keys. If all keys are of the same primitive type,
+   * they will be extracted to an array. Otherwise, the specified fallback column will be returned.
+   * @param items sort keys ({@code null} references represent empty keys)
+   * @param size number of keys
+   * @param desc descending order
+   * @param least empty keys are sorted first
+   * @param nan treat NaN values as empty keys (if {@code false}, the fallback is chosen)
+   * @param coll collation (can be {@code null})
+   * @param ii input info
+   * @param fallback fallback column
+   * @return column
+   * @throws QueryException query exception
+   */
+  public static Column column(final Item[] items, final int size, final boolean desc,
+      final boolean least, final boolean nan, final Collation coll, final InputInfo ii,
+      final Column fallback) throws QueryException {
+
+    // check if all keys are integers, doubles, floats, or strings
+    boolean itr = true, dbl = true, flt = true, str = true, empty = false;
+    for(int i = 0; i < size; i++) {
+      final Item it = items[i];
+      if(it == null) {
+        empty = true;
+      } else {
+        if(it instanceof Dbl || it instanceof Flt) {
+          if(Double.isNaN(it.dbl(ii))) {
+            if(!nan) return fallback;
+            empty = true;
+          }
+        }
+        itr &= it instanceof Int;
+        dbl &= it instanceof Dbl;
+        flt &= it instanceof Flt;
+        str &= it.type.isStringOrUntyped();
+        if(!(itr || dbl || flt || str)) return fallback;
+      }
+    }
+
+    final boolean[] empties = empty ? new boolean[size] : null;
+    if(itr) {
+      final long[] values = new long[size];
+      for(int i = 0; i < size; i++) {
+        final Item it = items[i];
+        if(it == null) empties[i] = true;
+        else values[i] = it.itr(ii);
+      }
+      return new Column(empties, desc, least) {
+        @Override
+        int diff(final int a, final int b) {
+          final long va = values[a], vb = values[b];
+          return va < vb ? -1 : va > vb ? 1 : 0;
+        }
+      };
+    }
+    if(dbl || flt) {
+      final double[] values = new double[size];
+      for(int i = 0; i < size; i++) {
+        final Item it = items[i];
+        if(it == null) {
+          empties[i] = true;
+        } else {
+          values[i] = it.dbl(ii);
+          if(Double.isNaN(values[i])) empties[i] = true;
+        }
+      }
+      return new Column(empties, desc, least) {
+        @Override
+        int diff(final int a, final int b) {
+          final double va = values[a], vb = values[b];
+          return va < vb ? -1 : va > vb ? 1 : 0;
+        }
+      };
+    }
+    final byte[][] values = new byte[size][];
+    for(int i = 0; i < size; i++) {
+      final Item it = items[i];
+      if(it == null) empties[i] = true;
+      else values[i] = it.string(ii);
+    }
+    // collations may not be thread-safe
+    if(coll != null) return new Column(empties, desc, least) {
+      @Override
+      int diff(final int a, final int b) {
+        return coll.compare(values[a], values[b]);
+      }
+      @Override
+      boolean parallel() {
+        return false;
+      }
+    };
+    return new Column(empties, desc, least) {
+      @Override
+      int diff(final int a, final int b) {
+        return Token.diff(values[a], values[b]);
+      }
+    };
+  }
+
+  /**
+   * Compares two tuples.
+   * @param a position of first tuple
+   * @param b position of second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  private int compare(final int a, final int b) throws QueryException {
+    for(final Column column : columns) {
+      final int c = column.compare(a, b);
+      if(c != 0) return c;
+    }
+    return 0;
+  }
+
+  /**
+   * Sorts the specified range. Both arrays must contain the same entries in the given range.
+   * The algorithm is derived from the legacy merge sort of {@link java.util.Arrays}.
+   * @param src source array
+   * @param dst target array
+   * @param s start position
+   * @param e end position
+   * @throws QueryException query exception
+   */
+  private void sort(final int[] src, final int[] dst, final int s, final int e)
+      throws QueryException {
+
+    if(e - s < INSERT) {
+      for(int i = s + 1; i < e; i++) {
+        for(int j = i; j > s && compare(dst[j - 1], dst[j]) > 0; j--) {
+          final int t = dst[j];
+          dst[j] = dst[j - 1];
+          dst[j - 1] = t;
+        }
+      }
+    } else {
+      final int m = s + e >>> 1;
+      sort(dst, src, s, m);
+      sort(dst, src, m, e);
+      merge(src, dst, s, m, e);
+    }
+  }
+
+  /**
+   * Merges two sorted ranges of the source array into the target array.
+   * @param src source array
+   * @param dst target array
+   * @param s start position
+   * @param m start of second range
+   * @param e end position
+   * @throws QueryException query exception
+   */
+  private void merge(final int[] src, final int[] dst, final int s, final int m, final int e)
+      throws QueryException {
+
+    // skip comparisons if ranges are already ordered
+    if(compare(src[m - 1], src[m]) <= 0) {
+      System.arraycopy(src, s, dst, s, e - s);
+    } else {
+      for(int i = s, p = s, q = m; i < e; i++) {
+        dst[i] = q >= e || p < m && compare(src[p], src[q]) <= 0 ? src[p++] : src[q++];
+      }
+    }
+  }
+
+  /**
+   * Column with sort keys.
+   */
+  public abstract static class Column {
+    /** Empty keys ({@code null} if all keys exist). */
+    private final boolean[] empty;
+    /** Descending order. */
+    private final boolean desc;
+    /** Empty keys are sorted first. */
+    private final boolean least;
+    /** Indicates if the keys are stored in a primitive array. */
+    private final boolean primitive;
+
+    /**
+     * Constructor for columns that compare the tuples themselves.
+     */
+    protected Column() {
+      empty = null;
+      desc = false;
+      least = false;
+      primitive = false;
+    }
+
+    /**
+     * Constructor.
+     * @param empty empty keys (can be {@code null})
+     * @param desc descending order
+     * @param least empty keys are sorted first
+     */
+    private Column(final boolean[] empty, final boolean desc, final boolean least) {
+      this.empty = empty;
+      this.desc = desc;
+      this.least = least;
+      primitive = true;
+    }
+
+    /**
+     * Compares the keys of two tuples.
+     * @param a position of first tuple
+     * @param b position of second tuple
+     * @return result of comparison
+     * @throws QueryException query exception
+     */
+    protected int compare(final int a, final int b) throws QueryException {
+      final int c;
+      if(empty != null && (empty[a] || empty[b])) {
+        c = empty[a] ? empty[b] ? 0 : least ? -1 : 1 : least ? 1 : -1;
+      } else {
+        c = diff(a, b);
+      }
+      return desc ? -c : c;
+    }
+
+    /**
+     * Compares two existing primitive keys.
+     * @param a position of first tuple
+     * @param b position of second tuple
+     * @return result of comparison
+     */
+    @SuppressWarnings("unused")
+    int diff(final int a, final int b) {
+      throw Util.notExpected();
+    }
+
+    /**
+     * Indicates if keys can be compared by several threads.
+     * @return result of check
+     */
+    boolean parallel() {
+      return primitive;
+    }
+  }
+
+  /**
+   * Task for sorting a range in parallel.
+   */
+  private final class Task extends RecursiveAction {
+    /** Serial version UID. */
+    private static final long serialVersionUID = 1L;
+    /** Source array. */
+    private final int[] src;
+    /** Target array. */
+    private final int[] dst;
+    /** Start position. */
+    private final int s;
+    /** End position. */
+    private final int e;
+    /** Maximum length of a range that will be sorted sequentially. */
+    private final int max;
+
+    /**
+     * Constructor.
+     * @param src source array
+     * @param dst target array
+     * @param s start position
+     * @param e end position
+     * @param max maximum length of a range that will be sorted sequentially
+     */
+    Task(final int[] src, final int[] dst, final int s, final int e, final int max) {
+      this.src = src;
+      this.dst = dst;
+      this.s = s;
+      this.e = e;
+      this.max = max;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        if(e - s <= max) {
+          sort(src, dst, s, e);
+        } else {
+          final int m = s + e >>> 1;
+          invokeAll(new Task(dst, src, s, m, max), new Task(dst, src, m, e, max));
+          merge(src, dst, s, m, e);
+        }
+      } catch(final QueryException ex) {
+        // only primitive columns are compared in parallel
+        throw Util.notExpected(ex);
+      }
+    }
+  }
+}
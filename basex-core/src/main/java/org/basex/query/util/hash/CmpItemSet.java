@@ -0,0 +1,91 @@
+package org.basex.query.util.hash;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * This set stores items that are compared by general and value comparisons.
+ * Strings and untyped items are hashed by their string values, and numbers are hashed by
+ * their double values. This way, equal items of different types end up in the same bucket.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class CmpItemSet extends HashItemSet {
+  /** Static context. */
+  private final StaticContext sc;
+
+  /**
+   * Constructor.
+   * @param sc static context
+   */
+  public CmpItemSet(final StaticContext sc) {
+    this.sc = sc;
+  }
+
+  /**
+   * Checks if the items of the specified expressions can be compared by their hash values.
+   * This is the case if all items will be compared as strings, or as numbers that are not
+   * converted to floats.
+   * @param expr1 first expression
+   * @param expr2 second expression
+   * @return result of check
+   */
+  public static boolean supported(final Expr expr1, final Expr expr2) {
+    final SeqType st1 = expr1.seqType(), st2 = expr2.seqType();
+    if(st1.mayBeArray() || st2.mayBeArray()) return false;
+    final Type t1 = st1.type, t2 = st2.type;
+    if(t1 == AtomType.JAVA || t2 == AtomType.JAVA) return false;
+    return t1.isStringOrUntyped() && t2.isStringOrUntyped() || number(t1) && number(t2);
+  }
+
+  /**
+   * Checks if the specified type is a number that is compared as decimal or double.
+   * @param type type
+   * @return result of check
+   */
+  private static boolean number(final Type type) {
+    return type.instanceOf(AtomType.DEC) || type.instanceOf(AtomType.DBL);
+  }
+
+  /**
+   * Checks if an item is stored that equals the specified item.
+   * @param key key to be looked up
+   * @param ii input info
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  public boolean contains(final Item key, final InputInfo ii) throws QueryException {
+    return id(key, ii) != 0;
+  }
+
+  @Override
+  protected int hash(final Item key, final InputInfo ii) throws QueryException {
+    return hashCode(key, ii);
+  }
+
+  /**
+   * Returns the hash value of an item. Items that are equal have the same hash value.
+   * @param key item
+   * @param ii input info
+   * @return hash value
+   * @throws QueryException query exception
+   */
+  public static int hashCode(final Item key, final InputInfo ii) throws QueryException {
+    if(key.type.isStringOrUntyped()) return Token.hash(key.string(ii));
+    double d = key.dbl(ii);
+    // positive and negative zero are equal
+    if(d == 0) d = 0;
+    final long l = Double.doubleToLongBits(d);
+    return (int) (l ^ l >>> 32);
+  }
+
+  @Override
+  protected boolean equal(final Item key1, final Item key2, final InputInfo ii)
+      throws QueryException {
+    return key2.eq(key1, null, sc, ii);
+  }
+}
@@ -54,10 +54,10 @@ public class HashItemSet extends ASet implements ItemSet {
    * @throws QueryException query exception
    */
   public final int id(final Item key, final InputInfo ii) throws QueryException {
-    final int h = key.hash(ii);
+    final int h = hash(key, ii);
     final int p = h & buckets.length - 1;
     for(int id = buckets[p]; id != 0; id = next[id]) {
-      if(keys[id].equiv(key, null, ii)) return -id;
+      if(equal(keys[id], key, ii)) return -id;
     }
     return 0;
   }
@@ -72,10 +72,10 @@ public class HashItemSet extends ASet implements ItemSet {
    */
   private int index(final Item key, final InputInfo ii) throws QueryException {
     checkSize();
-    final int h = key.hash(ii);
+    final int h = hash(key, ii);
     final int b = h & buckets.length - 1;
     for(int r = buckets[b]; r != 0; r = next[r]) {
-      if(keys[r].equiv(key, null, ii)) return -r;
+      if(equal(keys[r], key, ii)) return -r;
     }
     next[size] = buckets[b];
     keys[size] = key;
@@ -84,6 +84,30 @@ public class HashItemSet extends ASet implements ItemSet {
     return size++;
   }
 
+  /**
+   * Returns the hash value of the specified key.
+   * @param key key
+   * @param ii input info
+   * @return hash value
+   * @throws QueryException query exception
+   */
+  protected int hash(final Item key, final InputInfo ii) throws QueryException {
+    return key.hash(ii);
+  }
+
+  /**
+   * Checks if the specified keys are equal.
+   * @param key1 stored key
+   * @param key2 key to be compared
+   * @param ii input info
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  protected boolean equal(final Item key1, final Item key2, final InputInfo ii)
+      throws QueryException {
+    return key1.equiv(key2, null, ii);
+  }
+
   @Override
   public Iterator<Item> iterator() {
     return new ArrayIterator<>(keys, 1, size);
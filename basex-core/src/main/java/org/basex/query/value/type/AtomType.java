@@ -14,6 +14,7 @@ import org.basex.query.*;
 import org.basex.query.util.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * XQuery atomic types.
@@ -754,6 +755,16 @@ public enum AtomType implements Type {
 
   /** Cached enums (faster). */
   public static final AtomType[] VALUES = values();
+  /** Types, indexed by their local names. */
+  private static final TokenObjMap<AtomType[]> LOCALNAMES = new TokenObjMap<>();
+
+  static {
+    for(final AtomType t : VALUES) {
+      final byte[] ln = t.name.local();
+      final AtomType[] types = LOCALNAMES.get(ln);
+      LOCALNAMES.put(ln, types == null ? new AtomType[] { t } : Array.add(types, t));
+    }
+  }
   /** Name. */
   public final QNm name;
   /** Parent type. */
@@ -978,8 +989,11 @@ public enum AtomType implements Type {
    */
   public static AtomType find(final QNm type, final boolean all) {
     if(!Token.eq(type.uri(), BASEX_URI)) {
-      for(final AtomType t : VALUES) {
-        if(t.name.eq(type) && (all || t.parent != null)) return t;
+      final AtomType[] types = LOCALNAMES.get(type.local());
+      if(types != null) {
+        for(final AtomType t : types) {
+          if(t.name.eq(type) && (all || t.parent != null)) return t;
+        }
       }
     }
     return null;
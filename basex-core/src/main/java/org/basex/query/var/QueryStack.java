@@ -48,6 +48,17 @@ public final class QueryStack {
     end = s + size;
   }
 
+  /**
+   * Enters a new stack frame with the bindings of the current frame of another stack.
+   * @param qs stack to copy the bindings from
+   */
+  public void enterFrame(final QueryStack qs) {
+    final int s = qs.start, size = qs.end - s;
+    enterFrame(size);
+    System.arraycopy(qs.stack, s, stack, start, size);
+    System.arraycopy(qs.vars, s, vars, start, size);
+  }
+
   /**
    * Exits a stack frame and makes all bound variables eligible for garbage collection.
    * @param frame frame pointer of the underlying stack frame
@@ -17,11 +17,21 @@ public final class ClientBlocker {
    * Registers the client and delays the process.
    * @param client client address
    */
-  public synchronized void delay(final byte[] client) {
+  public void delay(final byte[] client) {
+    Performance.sleep(register(client));
+  }
+
+  /**
+   * Registers the client and returns the time by which the response is to be delayed.
+   * The delay is doubled with each failed login.
+   * @param client client address
+   * @return delay (milliseconds)
+   */
+  public synchronized long register(final byte[] client) {
     int delay = blocked.get(client);
     delay = delay == -1 ? 1 : Math.min(delay, 1024) << 1;
     blocked.put(client, delay);
-    for(int d = delay; d > 0; d--) Performance.sleep(100);
+    return delay * 100L;
   }
 
   /**
@@ -0,0 +1,244 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Non-blocking socket channel of a client session.
+ *
+ * Incoming bytes are read by the selector thread of the server and buffered. The framing of
+ * the client/server protocol is scanned incrementally: bytes are only released to the session
+ * if a request has been completely received. Requests with streamed input (e.g.
+ * {@link ServerCmd#ADD}) are released as soon as their arguments have been received, and
+ * the input is then read by the worker thread.
+ *
+ * If a worker thread needs to wait for the channel, the operation is registered at the
+ * selector of the server, and the worker thread is resumed by the selector thread.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class ClientChannel extends InputStream {
+  /** Socket channel. */
+  final SocketChannel channel;
+  /** Client session. */
+  private final ClientListener client;
+
+  /** Input buffer. */
+  private byte[] buffer = new byte[1 << 12];
+  /** Position of the next byte to be returned. */
+  private int pos;
+  /** End of the released bytes. */
+  private int limit;
+  /** End of the scanned bytes. */
+  private int scan;
+  /** End of the buffered bytes. */
+  private int end;
+  /** Indicates if the end of the stream has been reached. */
+  private boolean eos;
+
+  /** Number of strings to be scanned in the current request (0: next byte is a command). */
+  private int strings;
+  /** Indicates if the last string of the current request is a streamed input. */
+  private boolean stream;
+  /** Indicates if the next byte of a streamed input is escaped. */
+  private boolean escape;
+
+  /** Operation the worker thread is waiting for (0: none). */
+  private int waiting;
+
+  /**
+   * Constructor.
+   * @param channel socket channel
+   * @param client client session
+   * @throws IOException I/O exception
+   */
+  ClientChannel(final SocketChannel channel, final ClientListener client) throws IOException {
+    this.channel = channel;
+    this.client = client;
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+    // login: {USER}0{DIGEST-HASH}0
+    strings = 2;
+  }
+
+  /**
+   * Reads all available bytes from the channel without blocking.
+   * @return {@code false} if the end of the stream has been reached
+   */
+  boolean fill() {
+    while(!eos) {
+      if(end == buffer.length) {
+        // discard consumed bytes, resize buffer if required
+        if(pos > 0) {
+          System.arraycopy(buffer, pos, buffer, 0, end - pos);
+          limit -= pos;
+          scan -= pos;
+          end -= pos;
+          pos = 0;
+        } else {
+          buffer = Arrays.copyOf(buffer, buffer.length << 1);
+        }
+      }
+      int r;
+      try {
+        r = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+      } catch(final IOException ex) {
+        // connection was reset or closed: treat as end of stream
+        Util.debug(ex);
+        r = -1;
+      }
+      if(r == -1) eos = true;
+      else if(r == 0) break;
+      else end += r;
+    }
+    scan();
+    return !eos;
+  }
+
+  /**
+   * Indicates if the session can be processed without blocking: a request has been completely
+   * received, or the end of the stream has been reached.
+   * @return result of check
+   */
+  boolean ready() {
+    return pos < limit || eos;
+  }
+
+  @Override
+  public int read() throws IOException {
+    while(pos == limit) {
+      if(eos) return -1;
+      // wait for outstanding bytes of a request
+      await(SelectionKey.OP_READ);
+      fill();
+    }
+    return buffer[pos++] & 0xFF;
+  }
+
+  /**
+   * Reads a string, suffixed by a {@code 0} byte.
+   * @return string
+   * @throws IOException I/O exception
+   */
+  String readString() throws IOException {
+    return new ByteList().add(readBytes()).toString();
+  }
+
+  /**
+   * Reads a byte array, suffixed by a {@code 0} byte.
+   * @return bytes
+   * @throws IOException I/O exception
+   */
+  byte[] readBytes() throws IOException {
+    final ByteList bl = new ByteList();
+    for(int b; (b = read()) > 0;) bl.add(b);
+    return bl.finish();
+  }
+
+  /**
+   * Returns an output stream for writing to the channel.
+   * @return output stream
+   */
+  OutputStream output() {
+    return new OutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        final ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+        while(bb.hasRemaining()) {
+          if(channel.write(bb) == 0) await(SelectionKey.OP_WRITE);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the operation the worker thread is waiting for.
+   * @return operation (0: none)
+   */
+  synchronized int waiting() {
+    return waiting;
+  }
+
+  /**
+   * Resumes a waiting worker thread.
+   * @return {@code true} if a worker thread was waiting
+   */
+  synchronized boolean resume() {
+    if(waiting == 0) return false;
+    waiting = 0;
+    notifyAll();
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      channel.close();
+    } finally {
+      // interrupts a blocking operation
+      resume();
+    }
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Scans the framing of the buffered bytes and releases complete requests.
+   */
+  private void scan() {
+    final byte[] buf = buffer;
+    while(scan < end) {
+      final int b = buf[scan++] & 0xFF;
+      if(strings == 0) {
+        // command byte: choose number of arguments
+        final ServerCmd sc = ServerCmd.get(b);
+        stream = sc == ServerCmd.CREATE || sc == ServerCmd.ADD || sc == ServerCmd.REPLACE ||
+            sc == ServerCmd.STORE;
+        // database command: first byte belongs to the string
+        strings = sc == ServerCmd.BIND ? 4 : sc == ServerCmd.CONTEXT ? 3 : stream ? 2 : 1;
+      } else if(stream && strings == 1) {
+        // streamed input: 0xFF is used as escape character
+        if(escape) escape = false;
+        else if(b == 0xFF) escape = true;
+        else if(b == 0) strings = 0;
+      } else if(b == 0) {
+        strings--;
+      }
+      // release complete requests and streamed inputs
+      if(strings == 0 || stream && strings == 1) limit = scan;
+    }
+  }
+
+  /**
+   * Waits until the channel is ready for the specified operation.
+   * @param op operation
+   * @throws IOException I/O exception
+   */
+  private void await(final int op) throws IOException {
+    synchronized(this) {
+      if(!channel.isOpen()) throw new ClosedChannelException();
+      waiting = op;
+    }
+    client.await();
+    synchronized(this) {
+      try {
+        while(waiting != 0 && channel.isOpen()) wait();
+      } catch(final InterruptedException ex) {
+        waiting = 0;
+        throw new InterruptedIOException();
+      }
+    }
+    if(!channel.isOpen()) throw new ClosedChannelException();
+  }
+}
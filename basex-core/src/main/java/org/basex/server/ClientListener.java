@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.*;
@@ -20,16 +21,18 @@ import org.basex.util.list.*;
 
 /**
  * Server-side client session in the client-server architecture.
+ * Sessions do not own a thread: if a request has been completely received by the server,
+ * the session will be processed by a worker thread (see {@link #run()}).
  *
  * @author BaseX Team 2005-16, BSD License
  * @author Andreas Weiler
  * @author Christian Gruen
  */
-public final class ClientListener extends Thread {
-  /** Timer for authentication time out. */
-  public final Timer auth = new Timer();
+public final class ClientListener implements Runnable {
+  /** Task for authentication time out (can be {@code null}). */
+  public TimerTask auth;
   /** Timestamp of last interaction. */
-  public long last;
+  public volatile long last;
 
   /** Active queries. */
   private final HashMap<String, ServerQuery> queries = new HashMap<>();
@@ -41,142 +44,133 @@ public final class ClientListener extends Thread {
   private final BaseXServer server;
   /** Socket reference. */
   private final Socket socket;
-
-  /** Input stream. */
-  private BufferInput in;
+  /** Socket channel. */
+  private final ClientChannel in;
   /** Output stream. */
-  private PrintOutput out;
+  private final PrintOutput out;
+
+  /** Nonce sent to the client ({@code null} if no nonce has been sent yet). */
+  private String nonce;
   /** Current command. */
-  private Command command;
+  private volatile Command command;
   /** Query id counter. */
   private int id;
-  /** Indicates if the server thread is running. */
-  private boolean running;
+  /** Indicates if the session is running. */
+  private volatile boolean running;
+  /** Indicates if the session has been closed. */
+  private boolean closed;
 
   /**
    * Constructor.
-   * @param socket socket
+   * @param channel socket channel
    * @param context database context
    * @param server server reference
+   * @throws IOException I/O exception
    */
-  public ClientListener(final Socket socket, final Context context, final BaseXServer server) {
+  public ClientListener(final SocketChannel channel, final Context context,
+      final BaseXServer server) throws IOException {
     this.context = new Context(context, this);
-    this.socket = socket;
     this.server = server;
+    in = new ClientChannel(channel, this);
+    out = PrintOutput.get(in.output());
+    socket = channel.socket();
     last = System.currentTimeMillis();
-    setDaemon(true);
   }
 
-  @Override
-  public void run() {
-    if(!authenticate()) return;
+  /**
+   * Reads all available bytes from the socket channel without blocking.
+   * Called by the selector thread of the server.
+   * @return {@code true} if the session needs to be processed
+   */
+  public boolean fill() {
+    in.fill();
+    return in.ready();
+  }
 
-    try {
-      while(running) {
-        command = null;
-        String cmd;
-        final ServerCmd sc;
-        try {
-          final int b = in.read();
-          if(b == -1) {
-            // end of stream: exit session
-            quit();
-            break;
-          }
-
-          last = System.currentTimeMillis();
-          perf.time();
-          sc = ServerCmd.get(b);
-          cmd = null;
-          if(sc == ServerCmd.CREATE) {
-            create();
-          } else if(sc == ServerCmd.ADD) {
-            add();
-          } else if(sc == ServerCmd.REPLACE) {
-            replace();
-          } else if(sc == ServerCmd.STORE) {
-            store();
-          } else if(sc != ServerCmd.COMMAND) {
-            query(sc);
-          } else {
-            // database command
-            cmd = new ByteList().add(b).add(in.readBytes()).toString();
-          }
-        } catch(final IOException ex) {
-          // this exception may be thrown if a session is stopped
-          quit();
-          break;
-        }
-        if(sc != ServerCmd.COMMAND) continue;
-
-        // parse input and create command instance
-        try {
-          command = new CommandParser(cmd, context).parseSingle();
-          log(LogType.REQUEST, command.toString(true));
-        } catch(final QueryException ex) {
-          // log invalid command
-          final String msg = ex.getMessage();
-          log(LogType.REQUEST, cmd);
-          log(LogType.ERROR, msg);
-          // send 0 to mark end of potential result
-          out.write(0);
-          // send {INFO}0
-          out.print(msg);
-          out.write(0);
-          // send 1 to mark error
-          send(false);
-          continue;
-        }
+  /**
+   * Returns the socket channel.
+   * @return socket channel
+   */
+  public SocketChannel channel() {
+    return in.channel;
+  }
 
-        // execute command and send {RESULT}
-        boolean ok = true;
-        String info;
-        try {
-          // run command
-          command.execute(context, new ServerOutput(out));
-          info = command.info();
-        } catch(final BaseXException ex) {
-          ok = false;
-          info = ex.getMessage();
-          if(info.startsWith(INTERRUPTED)) info = TIMEOUT_EXCEEDED;
-        }
+  /**
+   * Returns the operation the worker thread of this session is waiting for.
+   * Called by the selector thread of the server.
+   * @return operation (0: none)
+   */
+  public int waiting() {
+    return in.waiting();
+  }
 
-        // send 0 to mark end of result
-        out.write(0);
-        // send info
-        info(info, ok);
+  /**
+   * Resumes the worker thread of this session if it is waiting for the channel.
+   * Called by the selector thread of the server.
+   * @return {@code true} if a worker thread was waiting
+   */
+  public boolean resume() {
+    return in.resume();
+  }
 
-        // stop console
-        if(command instanceof Exit) {
-          command = null;
-          quit();
-        }
+  /**
+   * Registers the session at the server, as the worker thread waits for the channel.
+   */
+  void await() {
+    server.await(this);
+  }
+
+  /**
+   * Processes all requests that have been completely received, and returns the session to
+   * the server afterwards. Called by a worker thread.
+   */
+  @Override
+  public void run() {
+    try {
+      if(nonce == null) {
+        greet();
+      } else if(!running) {
+        authenticate();
+        // no further requests will be read if access was denied
+        if(!running) return;
       }
+      while(running && in.ready()) process();
     } catch(final IOException ex) {
       log(LogType.ERROR, Util.message(ex));
       command = null;
       quit();
+      // close session if it was stopped while the command was running
+      close();
     }
-    command = null;
+    // wait for next request
+    if(in.channel.isOpen()) server.register(this);
   }
 
   /**
-   * Initializes a session via digest authentication.
-   * @return success flag
+   * Sends a nonce to the client.
+   * @throws IOException I/O exception
    */
-  private boolean authenticate() {
+  private void greet() throws IOException {
+    nonce = Long.toString(System.nanoTime());
     try {
-      final String nonce = Long.toString(System.nanoTime());
-      final byte[] address = socket.getInetAddress().getAddress();
-
       // send {REALM:TIMESTAMP}0
-      out = PrintOutput.get(socket.getOutputStream());
       out.print(Prop.NAME + ':' + nonce);
       send(true);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      in.close();
+    }
+  }
 
-      // evaluate login data
-      in = new BufferInput(socket.getInputStream());
-      // receive {USER}0{DIGEST-HASH}0
+  /**
+   * Initializes a session via digest authentication.
+   * @throws IOException I/O exception
+   */
+  private void authenticate() throws IOException {
+    try {
+      final byte[] address = socket.getInetAddress().getAddress();
+
+      // evaluate login data: receive {USER}0{DIGEST-HASH}0
       final String us = in.readString(), hash = in.readString();
       final User user = context.users.get(us);
       running = user != null &&
@@ -189,11 +183,11 @@ public final class ClientListener extends Thread {
         send(true);
         context.blocker.remove(address);
         context.sessions.add(this);
+        server.remove(this);
       } else {
         if(!us.isEmpty()) log(LogType.ERROR, ACCESS_DENIED);
-        // delay users with wrong passwords
-        context.blocker.delay(address);
-        send(false);
+        // delay users with wrong passwords (the worker thread will not be blocked)
+        server.deny(this, context.blocker.register(address));
       }
     } catch(final IOException ex) {
       if(running) {
@@ -201,10 +195,113 @@ public final class ClientListener extends Thread {
         log(LogType.ERROR, Util.message(ex));
         running = false;
       }
+      server.remove(this);
+      in.close();
+    }
+  }
+
+  /**
+   * Denies access: sends an error and closes the channel.
+   * Called by the timer of the server after the response has been delayed.
+   */
+  public synchronized void deny() {
+    try {
+      send(false);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    try {
+      in.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
+
+  /**
+   * Processes a single request.
+   * @throws IOException I/O exception
+   */
+  private void process() throws IOException {
+    command = null;
+    String cmd;
+    final ServerCmd sc;
+    try {
+      final int b = in.read();
+      if(b == -1) {
+        // end of stream: exit session
+        quit();
+        return;
+      }
+
+      last = System.currentTimeMillis();
+      perf.time();
+      sc = ServerCmd.get(b);
+      cmd = null;
+      if(sc == ServerCmd.CREATE) {
+        create();
+      } else if(sc == ServerCmd.ADD) {
+        add();
+      } else if(sc == ServerCmd.REPLACE) {
+        replace();
+      } else if(sc == ServerCmd.STORE) {
+        store();
+      } else if(sc != ServerCmd.COMMAND) {
+        query(sc);
+      } else {
+        // database command
+        cmd = new ByteList().add(b).add(in.readBytes()).toString();
+      }
+    } catch(final IOException ex) {
+      // this exception may be thrown if a session is stopped
+      quit();
+      return;
+    }
+    if(sc != ServerCmd.COMMAND) return;
+
+    // parse input and create command instance
+    try {
+      command = new CommandParser(cmd, context).parseSingle();
+      log(LogType.REQUEST, command.toString(true));
+    } catch(final QueryException ex) {
+      // log invalid command
+      final String msg = ex.getMessage();
+      log(LogType.REQUEST, cmd);
+      log(LogType.ERROR, msg);
+      // send 0 to mark end of potential result
+      out.write(0);
+      // send {INFO}0
+      out.print(msg);
+      out.write(0);
+      // send 1 to mark error
+      send(false);
+      return;
+    }
+
+    // execute command and send {RESULT}
+    boolean ok = true;
+    String info;
+    try {
+      // run command
+      command.execute(context, new ServerOutput(out));
+      info = command.info();
+    } catch(final BaseXException ex) {
+      ok = false;
+      info = ex.getMessage();
+      if(info.startsWith(INTERRUPTED)) info = TIMEOUT_EXCEEDED;
     }
 
-    server.remove(this);
-    return running;
+    // send 0 to mark end of result
+    out.write(0);
+    // send info
+    info(info, ok);
+
+    synchronized(this) {
+      final boolean exit = command instanceof Exit;
+      command = null;
+      // stop console, or close session if it was stopped while the command was running
+      if(exit) quit();
+      else if(!running) close();
+    }
   }
 
   /**
@@ -212,7 +309,7 @@ public final class ClientListener extends Thread {
    */
   public synchronized void quitAuth() {
     try {
-      socket.close();
+      in.close();
       log(LogType.ERROR, TIMEOUT_EXCEEDED);
     } catch(final Throwable ex) {
       log(LogType.ERROR, Util.message(ex));
@@ -220,23 +317,29 @@ public final class ClientListener extends Thread {
   }
 
   /**
-   * Exits the session.
+   * Exits the session. If a command is running, it will be stopped, and the session will be
+   * closed by the worker thread as soon as the command has finished.
    */
   public synchronized void quit() {
     if(!running) return;
     running = false;
 
-    // wait until running command was stopped
     final Command c = command;
-    if(c != null) {
-      c.stop();
-      do Performance.sleep(50); while(command != null);
-    }
+    if(c != null) c.stop();
+    else close();
+  }
+
+  /**
+   * Closes the session.
+   */
+  private synchronized void close() {
+    if(closed) return;
+    closed = true;
     context.sessions.remove(this);
 
     try {
       new Close().run(context);
-      socket.close();
+      in.close();
     } catch(final Throwable ex) {
       log(LogType.ERROR, Util.message(ex));
       Util.stack(ex);
@@ -5,6 +5,8 @@ import static org.basex.util.Token.*;
 import java.io.*;
 import java.math.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
@@ -23,6 +25,9 @@ import org.basex.util.*;
  *   <li><b>Performance</b>: Measured time in milliseconds</li>
  * </ul>
  *
+ * By default, entries are queued and written in batches by a separate thread
+ * (see {@link StaticOptions#LOGBUFFER} and {@link StaticOptions#LOGFLUSH}).
+ *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  */
@@ -41,10 +46,23 @@ public final class Log {
 
   /** Static options. */
   private final StaticOptions sopts;
+  /** Queued entries ({@code null} if entries are written synchronously). */
+  private final BlockingQueue<Entry> queue;
+  /** Flush interval (ms). */
+  private final long interval;
+  /** Number of dropped entries. */
+  private final AtomicLong dropped = new AtomicLong();
+  /** Number of dropped entries that have been reported in the log. */
+  private long reported;
+  /** Writer thread (lazy instantiation). */
+  private volatile Writer writer;
+
   /** Start date of log. */
   private String start;
   /** Output stream. */
-  private FileOutputStream fos;
+  private OutputStream out;
+  /** Time of last flush. */
+  private long flushed;
 
   /**
    * Constructor.
@@ -52,6 +70,9 @@ public final class Log {
    */
   public Log(final StaticOptions sopts) {
     this.sopts = sopts;
+    final int buffer = sopts.get(StaticOptions.LOGBUFFER);
+    queue = buffer > 0 ? new ArrayBlockingQueue<Entry>(buffer) : null;
+    interval = Math.max(0, sopts.get(StaticOptions.LOGFLUSH));
   }
 
   /**
@@ -59,7 +80,7 @@ public final class Log {
    * @param type log type
    * @param info info string (can be {@code null})
    */
-  public synchronized void writeServer(final LogType type, final String info) {
+  public void writeServer(final LogType type, final String info) {
     write(SERVER, null, type, info, null);
   }
 
@@ -71,7 +92,7 @@ public final class Log {
    * @param info info string (can be {@code null})
    * @param perf performance string
    */
-  public synchronized void write(final String address, final User user, final int type,
+  public void write(final String address, final User user, final int type,
       final String info, final Performance perf) {
     write(address, user, Integer.toString(type), info, perf);
   }
@@ -84,71 +105,85 @@ public final class Log {
    * @param info info string (can be {@code null})
    * @param perf performance string
    */
-  public synchronized void write(final String address, final User user, final LogType type,
+  public void write(final String address, final User user, final LogType type,
       final String info, final Performance perf) {
     write(address, user, type.toString(), info, perf);
   }
 
   /**
-   * Writes an entry to the log file.
+   * Writes an entry to the log file. If entries are buffered, the entry will be queued and
+   * written by a separate thread. If the buffer is full, the entry will be dropped.
    * @param address address string
    * @param user user ({@code admin} if null)
    * @param type type (ERROR, OK, REQUEST, INFO, HTTP status code)
    * @param info info string (can be {@code null})
    * @param perf performance string
    */
-  public synchronized void write(final String address, final User user, final String type,
+  public void write(final String address, final User user, final String type,
       final String info, final Performance perf) {
 
     if(!sopts.get(StaticOptions.LOG)) {
-      close();
+      if(queue == null) close();
       return;
     }
 
-    // initializes the output stream and returns the current date
-    final Date date = new Date();
-    try {
-      // check if day has changed
-      final String nstart = name(date);
-      if(fos != null && !start.equals(nstart)) close();
-
-      // create new log file
-      if(fos == null) {
-        final IOFile dir = dir();
-        dir.md();
-        fos = new FileOutputStream(new IOFile(dir, nstart + IO.LOGSUFFIX).file(), true);
-        start = nstart;
+    final Entry entry = new Entry(address, user == null ? UserText.ADMIN : user.name(), type,
+        info, perf == null ? null : perf.toString());
+    if(queue == null) {
+      synchronized(this) {
+        write(entry);
+        flush(true);
       }
+    } else if(queue.offer(entry)) {
+      if(writer == null) start();
+    } else {
+      dropped.incrementAndGet();
+    }
+  }
 
-      // construct log text
-      final int ml = sopts.get(StaticOptions.LOGMSGMAXLEN);
-      final TokenBuilder tb = new TokenBuilder();
-      tb.add(DateTime.format(date, DateTime.TIME));
-      tb.add('\t').add(address);
-      tb.add('\t').add(user == null ? UserText.ADMIN : user.name());
-      tb.add('\t').add(type);
-      tb.add('\t').add(info == null ? EMPTY : chop(normalize(token(info)), ml));
-      if(perf != null) tb.add('\t').add(perf.toString());
-      tb.add(Prop.NL);
+  /**
+   * Returns the number of log entries that have been dropped because the buffer was full.
+   * @return number of dropped entries
+   */
+  public long dropped() {
+    return dropped.get();
+  }
 
-      // write and flush text
-      fos.write(tb.finish());
-      fos.flush();
-    } catch(final IOException ex) {
-      Util.stack(ex);
-    }
+  /**
+   * Writes all queued entries to disk.
+   */
+  public synchronized void flush() {
+    drain(null, true);
   }
 
   /**
-   * Closes the log file.
+   * Writes all queued entries and closes the log file.
    */
-  public synchronized void close() {
-    if(fos == null) return;
-    try {
-      fos.close();
-      fos = null;
-    } catch(final IOException ex) {
-      Util.stack(ex);
+  public void close() {
+    // stop writer thread (outside the lock, as it may be waiting for it)
+    final Writer w;
+    synchronized(this) {
+      w = writer;
+      writer = null;
+    }
+    if(w != null) {
+      w.interrupt();
+      try {
+        w.join();
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+    }
+
+    synchronized(this) {
+      drain(null, true);
+      if(out == null) return;
+      try {
+        out.close();
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+      out = null;
     }
   }
 
@@ -177,6 +212,161 @@ public final class Log {
     return DateTime.format(date, DateTime.DATE);
   }
 
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Starts the writer thread.
+   */
+  private synchronized void start() {
+    if(writer != null) return;
+    writer = new Writer();
+    writer.start();
+  }
+
+  /**
+   * Writes the specified entry and all queued entries.
+   * @param entry first entry (can be {@code null})
+   * @param force enforce flushing of the output stream
+   */
+  private synchronized void drain(final Entry entry, final boolean force) {
+    if(entry != null) write(entry);
+    if(queue != null) {
+      for(Entry e; (e = queue.poll()) != null;) write(e);
+    }
+    final long d = dropped.get();
+    if(d > reported) {
+      write(new Entry(SERVER, UserText.ADMIN, LogType.ERROR.toString(),
+          d - reported + " log entries dropped (buffer is full)", null));
+      reported = d;
+    }
+    flush(force);
+  }
+
+  /**
+   * Flushes the output stream if the flush interval has been exceeded.
+   * @param force enforce flushing
+   */
+  private void flush(final boolean force) {
+    if(out == null) return;
+    final long time = System.currentTimeMillis();
+    if(!force && time - flushed < interval) return;
+    try {
+      out.flush();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    flushed = time;
+  }
+
+  /**
+   * Writes an entry to the current log file.
+   * @param entry entry
+   */
+  private void write(final Entry entry) {
+    try {
+      // logging may have been disabled in the meantime
+      if(!sopts.get(StaticOptions.LOG)) {
+        if(out != null) {
+          out.close();
+          out = null;
+        }
+        return;
+      }
+
+      // check if day has changed
+      final Date date = new Date(entry.time);
+      final String nstart = name(date);
+      if(out != null && !start.equals(nstart)) {
+        out.close();
+        out = null;
+      }
+
+      // create new log file
+      if(out == null) {
+        final IOFile dir = dir();
+        dir.md();
+        out = new BufferedOutputStream(new FileOutputStream(
+            new IOFile(dir, nstart + IO.LOGSUFFIX).file(), true));
+        start = nstart;
+      }
+
+      // construct log text
+      final int ml = sopts.get(StaticOptions.LOGMSGMAXLEN);
+      final TokenBuilder tb = new TokenBuilder();
+      tb.add(DateTime.format(date, DateTime.TIME));
+      tb.add('\t').add(entry.address);
+      tb.add('\t').add(entry.user);
+      tb.add('\t').add(entry.type);
+      tb.add('\t').add(entry.info == null ? EMPTY : chop(normalize(token(entry.info)), ml));
+      if(entry.perf != null) tb.add('\t').add(entry.perf);
+      tb.add(Prop.NL);
+      out.write(tb.finish());
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Queued log entry.
+   */
+  private static final class Entry {
+    /** Time. */
+    final long time = System.currentTimeMillis();
+    /** Address. */
+    final String address;
+    /** User. */
+    final String user;
+    /** Type. */
+    final String type;
+    /** Info (can be {@code null}). */
+    final String info;
+    /** Performance (can be {@code null}). */
+    final String perf;
+
+    /**
+     * Constructor.
+     * @param address address
+     * @param user user
+     * @param type type
+     * @param info info (can be {@code null})
+     * @param perf performance (can be {@code null})
+     */
+    Entry(final String address, final String user, final String type, final String info,
+        final String perf) {
+      this.address = address;
+      this.user = user;
+      this.type = type;
+      this.info = info;
+      this.perf = perf;
+    }
+  }
+
+  /**
+   * Writer thread, which writes queued entries in batches.
+   */
+  private final class Writer extends Thread {
+    /**
+     * Constructor.
+     */
+    Writer() {
+      super("LogWriter");
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        while(!isInterrupted()) {
+          // wait for next entry; flush output stream if no entries arrive
+          final Entry entry = queue.poll(Math.max(1, interval), TimeUnit.MILLISECONDS);
+          drain(entry, entry == null);
+        }
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+    }
+  }
+
   /**
    * Log entry.
    */
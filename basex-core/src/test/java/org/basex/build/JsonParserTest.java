@@ -0,0 +1,170 @@
+package org.basex.build;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.build.json.*;
+import org.basex.build.json.JsonOptions.*;
+import org.basex.core.*;
+import org.basex.core.MainOptions.MainParser;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * JSON Parser Test.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class JsonParserTest extends SandboxTest {
+  /** JSON options. */
+  private JsonParserOptions jopts;
+
+  /** Temporary JSON file. */
+  private static final String TEMP = Prop.TMP + NAME + IO.JSONSUFFIX;
+  /** Test input. */
+  private static final String JSON = "{ \"a\": \" x \", \"b\": [ 1, { \"c\": null }, true, \"\" ],"
+      + " \"d\": \" \", \"e f\": {} }";
+
+  /**
+   * Creates the initial database.
+   */
+  @BeforeClass
+  public static void before() {
+    set(MainOptions.PARSER, MainParser.JSON);
+    write(new IOFile(TEMP), JSON);
+  }
+
+  /**
+   * Removes the temporary JSON file.
+   */
+  @AfterClass
+  public static void after() {
+    new IOFile(TEMP).delete();
+    set(MainOptions.CHOP, true);
+    set(MainOptions.STRIPNS, false);
+  }
+
+  /**
+   * Sets initial options.
+   */
+  @Before
+  public void init() {
+    jopts = new JsonParserOptions();
+    context.options.set(MainOptions.JSONPARSER, jopts);
+  }
+
+  /**
+   * Drops the database.
+   */
+  @After
+  public void finish() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Direct conversion.
+   */
+  @Test
+  public void direct() {
+    set(MainOptions.CHOP, true);
+    parse("<json type=\"object\"><a>x</a><b type=\"array\"><_ type=\"number\">1</_>"
+        + "<_ type=\"object\"><c type=\"null\"/></_><_ type=\"boolean\">true</_><_/></b><d/>"
+        + "<e_0020f type=\"object\"/></json>");
+
+    set(MainOptions.CHOP, false);
+    parse("<json type=\"object\"><a> x </a><b type=\"array\"><_ type=\"number\">1</_>"
+        + "<_ type=\"object\"><c type=\"null\"/></_><_ type=\"boolean\">true</_><_/></b>"
+        + "<d> </d><e_0020f type=\"object\"/></json>");
+
+    jopts.set(JsonOptions.STRINGS, true);
+    jopts.set(JsonOptions.LAX, true);
+    parse("<json type=\"object\"><a type=\"string\"> x </a><b type=\"array\">"
+        + "<_ type=\"number\">1</_><_ type=\"object\"><c type=\"null\"/></_>"
+        + "<_ type=\"boolean\">true</_><_ type=\"string\"/></b><d type=\"string\"> </d>"
+        + "<e_f type=\"object\"/></json>");
+  }
+
+  /**
+   * Direct conversion, merged types.
+   */
+  @Test
+  public void merge() {
+    set(MainOptions.CHOP, true);
+    jopts.set(JsonOptions.MERGE, true);
+    parse("<json objects=\"json e_0020f\" arrays=\"b\" nulls=\"c\"><a>x</a><b>"
+        + "<_ type=\"number\">1</_><_ type=\"object\"><c/></_><_ type=\"boolean\">true</_>"
+        + "<_/></b><d/><e_0020f/></json>");
+  }
+
+  /**
+   * Attributes conversion.
+   */
+  @Test
+  public void attributes() {
+    set(MainOptions.CHOP, false);
+    jopts.set(JsonOptions.FORMAT, JsonFormat.ATTRIBUTES);
+    parse("<json type=\"object\"><pair name=\"a\"> x </pair><pair name=\"b\" type=\"array\">"
+        + "<item type=\"number\">1</item><item type=\"object\"><pair name=\"c\" type=\"null\"/>"
+        + "</item><item type=\"boolean\">true</item><item/></pair><pair name=\"d\"> </pair>"
+        + "<pair name=\"e f\" type=\"object\"/></json>");
+  }
+
+  /**
+   * Basic conversion.
+   */
+  @Test
+  public void basic() {
+    set(MainOptions.CHOP, true);
+    jopts.set(JsonOptions.FORMAT, JsonFormat.BASIC);
+    set(MainOptions.STRIPNS, false);
+    execute(new CreateDB(NAME, TEMP));
+    assertEquals("http://www.w3.org/2005/xpath-functions", query("namespace-uri(*)"));
+    assertEquals("1", query("count(//*:map[@key = 'e f'])"));
+
+    set(MainOptions.STRIPNS, true);
+    parse("<map><string key=\"a\">x</string><array key=\"b\"><number>1</number><map>"
+        + "<null key=\"c\"/></map><boolean>true</boolean><string/></array>"
+        + "<string key=\"d\"/><map key=\"e f\"/></map>");
+  }
+
+  /**
+   * JsonML conversion.
+   */
+  @Test
+  public void jsonml() {
+    jopts.set(JsonOptions.FORMAT, JsonFormat.JSONML);
+    write(new IOFile(TEMP), "[\"a\", { \"id\": \"1\" }, \"t\", [\"b\", \"u\"]]");
+    try {
+      parse("<a id=\"1\">t<b>u</b></a>");
+    } finally {
+      write(new IOFile(TEMP), JSON);
+    }
+  }
+
+  /**
+   * Map conversion is rejected.
+   */
+  @Test
+  public void map() {
+    jopts.set(JsonOptions.FORMAT, JsonFormat.MAP);
+    try {
+      new CreateDB(NAME, TEMP).execute(context);
+      fail("Map conversion should be rejected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains(JsonFormat.MAP.toString()));
+    }
+  }
+
+  /**
+   * Creates a database from the test input and compares the result.
+   * @param expected expected result
+   */
+  private static void parse(final String expected) {
+    execute(new CreateDB(NAME, TEMP));
+    assertEquals(expected, query("serialize(., map { 'indent': 'no' })"));
+  }
+}
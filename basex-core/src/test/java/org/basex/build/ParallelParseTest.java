@@ -0,0 +1,120 @@
+package org.basex.build;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for parsing multiple files in parallel.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelParseTest extends SandboxTest {
+  /** Number of files. */
+  private static final int FILES = 200;
+  /** Input directory. */
+  private static final IOFile DIR = new IOFile(sandbox(), "input");
+  /** Query for serializing all documents. */
+  private static final String DOCS = "string-join(db:open('" + NAME + "') ! " +
+      "(document-uri(.) || serialize(.)), '\n')";
+
+  /**
+   * Creates the input files.
+   */
+  @BeforeClass
+  public static void init() {
+    for(int f = 0; f < FILES; f++) {
+      final StringBuilder sb = new StringBuilder("<?xml version='1.0'?><!--c").append(f);
+      sb.append("--><x:doc xmlns:x='x").append(f % 3).append("' n='").append(f).append("'>");
+      for(int e = 0; e < f % 10; e++) {
+        sb.append("<e").append(e % 3).append(" a='").append(e).append("'>text ").append(f);
+        sb.append("<?pi ").append(e).append("?><y xmlns='y'/></e").append(e % 3).append('>');
+      }
+      final IOFile file = new IOFile(DIR, "sub" + f % 7 + '/' + f + IO.XMLSUFFIX);
+      file.parent().md();
+      write(file, sb.append("</x:doc>").toString());
+    }
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.PARSETHREADS, 1);
+    set(MainOptions.SKIPCORRUPT, false);
+    set(MainOptions.MAINMEM, false);
+  }
+
+  /**
+   * Deletes the input files.
+   */
+  @AfterClass
+  public static void finish() {
+    DIR.delete();
+  }
+
+  /**
+   * Compares databases created with sequential and parallel parsing.
+   */
+  @Test
+  public void create() {
+    execute(new CreateDB(NAME, DIR.path()));
+    final String expected = query(DOCS);
+    set(MainOptions.PARSETHREADS, 4);
+    execute(new CreateDB(NAME, DIR.path()));
+    assertEquals(expected, query(DOCS));
+    assertEquals(FILES, context.data().meta.ndocs);
+
+    set(MainOptions.MAINMEM, true);
+    set(MainOptions.PARSETHREADS, 1);
+    execute(new CreateDB(NAME, DIR.path()));
+    final String mainmem = query(DOCS);
+    set(MainOptions.PARSETHREADS, 4);
+    execute(new CreateDB(NAME, DIR.path()));
+    assertEquals(mainmem, query(DOCS));
+  }
+
+  /**
+   * Adds documents to an existing database.
+   */
+  @Test
+  public void add() {
+    execute(new CreateDB(NAME));
+    execute(new Add("a", DIR.path()));
+    final String expected = query(DOCS);
+    execute(new CreateDB(NAME));
+    query("db:add('" + NAME + "', '" + DIR.path() + "', 'a', map { 'parsethreads': 3 })");
+    assertEquals(expected, query(DOCS));
+  }
+
+  /**
+   * Skips or rejects corrupt files.
+   */
+  @Test
+  public void corrupt() {
+    final IOFile file = new IOFile(DIR, "sub0/corrupt.xml");
+    write(file, "<x");
+    try {
+      set(MainOptions.PARSETHREADS, 4);
+      try {
+        new CreateDB(NAME, DIR.path()).execute(context);
+        fail("Corrupt file was added to the database.");
+      } catch(final BaseXException ex) {
+        assertTrue(ex.getMessage().contains("corrupt.xml"));
+      }
+      set(MainOptions.SKIPCORRUPT, true);
+      execute(new CreateDB(NAME, DIR.path()));
+      assertEquals(FILES, context.data().meta.ndocs);
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.index.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * ID -> PRE runs test.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class IdPreRunsTest extends SandboxTest {
+  /** Number of update operations. */
+  private static final int ITERATIONS = 100;
+  /** Query for checking all ids. */
+  private static final String CHECK = "every $n in db:open('" + NAME + "')//(node() | @*) " +
+      "satisfies db:open-id('" + NAME + "', db:node-id($n)) is $n";
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.MAINMEM, false);
+  }
+
+  /**
+   * Performs random updates on a disk database.
+   */
+  @Test
+  public void disk() {
+    update();
+    final IdPreRuns runs = context.data().idruns;
+    assertNotNull(runs);
+    assertTrue(runs.runs() < ITERATIONS * 3);
+
+    // runs are written to disk and reused
+    execute(new Close());
+    assertTrue(new Open(NAME).run(context));
+    assertEquals("true", query(CHECK));
+    assertEquals(runs.runs(), context.data().idruns.runs());
+
+    // runs are recreated if ids are reassigned
+    execute(new OptimizeAll());
+    assertNull(context.data().idruns);
+    assertEquals("true", query(CHECK));
+    assertEquals(1, context.data().idruns.runs());
+
+    // runs created by read-only operations are not written to disk
+    final IOFile file = context.data().meta.dbfile(DataText.DATAIDR);
+    final long time = file.timeStamp();
+    execute(new Close());
+    assertEquals(time, file.timeStamp());
+  }
+
+  /**
+   * Performs random updates on a main-memory database.
+   */
+  @Test
+  public void mainmem() {
+    set(MainOptions.MAINMEM, true);
+    update();
+  }
+
+  /**
+   * Creates a database, performs random updates and checks the id/pre mapping.
+   */
+  private static void update() {
+    final StringBuilder sb = new StringBuilder("<xml>");
+    for(int i = 0; i < 100; i++) sb.append("<a x='1'>text</a>");
+    execute(new CreateDB(NAME, sb.append("</xml>").toString()));
+    assertEquals("true", query(CHECK));
+
+    final Random rnd = new Random(0);
+    for(int i = 0; i < ITERATIONS; i++) {
+      final int n = rnd.nextInt(Integer.parseInt(query("count(//a)"))) + 1;
+      final String target = "(//a)[" + n + ']';
+      switch(rnd.nextInt(5)) {
+        case 0: query("insert node <a><b/>new</a> before " + target); break;
+        case 1: query("insert node <c y='2'/> into " + target); break;
+        case 2:
+          query("for $n in " + target + "/node()[1] return replace node $n with <d>x</d>");
+          break;
+        case 3: query("rename node " + target + " as 'a'"); break;
+        default: query("delete node " + target); break;
+      }
+      assertEquals("true", query(CHECK));
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package org.basex.data;
+
+import static org.basex.query.QueryError.*;
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.query.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the journal of updating operations.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class JournalTest extends AdvancedQueryTest {
+  /** Name of the database copy. */
+  private static final String COPY = NAME + "copy";
+  /** Number of elements in the test document. */
+  private static final int SIZE = 2000;
+
+  /**
+   * Creates the test database.
+   */
+  @Before
+  public void before() {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 1; i <= SIZE; i++) sb.append("<b>").append(i).append("</b>");
+    execute(new CreateDB(NAME, sb.append("</a>").toString()));
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(COPY));
+  }
+
+  /**
+   * Checks that the journal is removed after an update.
+   */
+  @Test
+  public void commit() {
+    query("replace value of node //b[1] with 'X'");
+    assertFalse(context.data().meta.updateFile().exists());
+    execute(new Close());
+    query(_DB_OPEN.args(NAME) + "//b[1]/text()", "X");
+  }
+
+  /**
+   * Rolls back an interrupted update.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void recover() throws IOException {
+    final Data data = context.data();
+    data.startUpdate(context.options);
+    for(int pre = data.meta.size - 1; pre > 0; pre -= 2) {
+      data.update(pre, Data.TEXT, Token.token("updated text " + pre));
+    }
+    for(int pre = data.meta.size - 2; pre > 0; pre -= 200) data.delete(pre);
+    data.flush(true);
+
+    // simulate a crash by copying the current state of the database files
+    final IOFile dir = context.soptions.dbPath(COPY);
+    for(final IOFile file : data.meta.path.children()) {
+      file.copyTo(new IOFile(dir, file.name()));
+    }
+    data.finishUpdate(context.options);
+    assertTrue(new MetaData(COPY, context.options, context.soptions).updateFile().exists());
+
+    // opening the copy restores its original state
+    query("count(" + _DB_OPEN.args(COPY) + "//b)", SIZE);
+    query("sum(" + _DB_OPEN.args(COPY) + "//b ! xs:integer(.))", SIZE * (SIZE + 1L) / 2);
+    assertFalse(new MetaData(COPY, context.options, context.soptions).updateFile().exists());
+    query("count(" + _DB_OPEN.args(NAME) + "//b)", SIZE - SIZE / 100);
+  }
+
+  /**
+   * Refuses to open a database with an invalid journal.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void invalid() throws IOException {
+    execute(new Close());
+    final IOFile upd = new MetaData(NAME, context.options, context.soptions).updateFile();
+    upd.write(Token.EMPTY);
+    error(_DB_OPEN.args(NAME), BXDB_OPEN_X);
+    assertTrue(upd.delete());
+    query("count(" + _DB_OPEN.args(NAME) + "//b)", SIZE);
+  }
+}
@@ -0,0 +1,125 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the {@link MainOptions#MMAP} option.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class MappedTableTest extends AdvancedQueryTest {
+  /** Number of elements in the test document. */
+  private static final int SIZE = 10000;
+
+  /**
+   * Creates the test database.
+   */
+  @Before
+  public void before() {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 1; i <= SIZE; i++) {
+      sb.append("<b id='").append(i).append("'>").append(i).append("</b>");
+    }
+    set(MainOptions.MMAP, true);
+    execute(new CreateDB(NAME, sb.append("</a>").toString()));
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.MMAP, false);
+  }
+
+  /**
+   * Checks the persisted option.
+   */
+  @Test
+  public void option() {
+    query(_DB_INFO.args(NAME) + "//mmap/text()", "true");
+    set(MainOptions.MMAP, false);
+    execute(new Optimize());
+    execute(new Close());
+    query(_DB_INFO.args(NAME) + "//mmap/text()", "false");
+  }
+
+  /**
+   * Reads the table.
+   */
+  @Test
+  public void read() {
+    execute(new Close());
+    query("sum(" + _DB_OPEN.args(NAME) + "//b ! xs:integer(.))", SIZE * (SIZE + 1L) / 2);
+    query(_DB_OPEN.args(NAME) + "//b[@id = '" + SIZE + "']/text()", SIZE);
+  }
+
+  /**
+   * Reads the table after updates.
+   */
+  @Test
+  public void update() {
+    query("for $i in 1 to 100 return insert node <c>{ 1 to 100 }</c> into " +
+        _DB_OPEN.args(NAME) + "//b[@id = $i]");
+    query("delete node " + _DB_OPEN.args(NAME) + "//b[@id = '" + SIZE + "']");
+    query("count(" + _DB_OPEN.args(NAME) + "//c)", 100);
+    query("sum(" + _DB_OPEN.args(NAME) + "//b/text() ! xs:integer(.))", SIZE * (SIZE - 1L) / 2);
+    execute(new Close());
+    query("(" + _DB_OPEN.args(NAME) + "//c)[last()]/../@id/string()", 100);
+    query("count(" + _DB_OPEN.args(NAME) + "//node())", SIZE * 2 + 99 + 100);
+  }
+
+  /**
+   * Rewrites and renames the database files after the table has been read.
+   * On Windows, this only succeeds if the mapped segments have been released.
+   */
+  @Test
+  public void release() {
+    query("count(" + _DB_OPEN.args(NAME) + "//b)", SIZE);
+    execute(new OptimizeAll());
+    query("count(" + _DB_OPEN.args(NAME) + "//b)", SIZE);
+    execute(new Close());
+    execute(new AlterDB(NAME, NAME + '2'));
+    execute(new AlterDB(NAME + '2', NAME));
+    query("count(" + _DB_OPEN.args(NAME) + "//b)", SIZE);
+  }
+
+  /**
+   * Reads the table in parallel.
+   * @throws Exception exception
+   */
+  @Test
+  public void parallel() throws Exception {
+    execute(new Close());
+    final int threads = 8;
+    final ExecutorService es = Executors.newFixedThreadPool(threads);
+    try {
+      final Future<?>[] futures = new Future<?>[threads];
+      for(int t = 0; t < threads; t++) {
+        futures[t] = es.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            final String query = "sum(" + _DB_OPEN.args(NAME) + "//b ! xs:integer(.))";
+            return new XQuery(query).execute(context);
+          }
+        });
+      }
+      for(final Future<?> future : futures) {
+        assertEquals(Long.toString(SIZE * (SIZE + 1L) / 2), future.get());
+      }
+    } finally {
+      es.shutdown();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for building index structures in parallel.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexBuilderTest extends SandboxTest {
+  /** Number of elements (large enough to partition the table). */
+  private static final int SIZE = 50000;
+  /** Queries, and the expected results. */
+  private static final String[][] QUERIES = {
+    { "count(db:text('" + NAME + "', 'v7 w'))", "1000" },
+    { "count(db:attribute('" + NAME + "', '13'))", "500" },
+    { "count(db:token('" + NAME + "', 'u'))", String.valueOf(SIZE) },
+    { "count(db:token('" + NAME + "', 't3'))", "7143" },
+    { "count(db:open('" + NAME + "')//a[text() contains text 'v42'])", "1000" },
+    { "sum(db:text('" + NAME + "', ('v1 w', 'v49 w'))/string-length())", "9000" },
+  };
+
+  /**
+   * Initializes a test.
+   */
+  @Before
+  public void before() {
+    set(MainOptions.TEXTINDEX, true);
+    set(MainOptions.ATTRINDEX, true);
+    set(MainOptions.TOKENINDEX, true);
+    set(MainOptions.FTINDEX, true);
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.SPLITSIZE, 0);
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /**
+   * Creates all index structures.
+   */
+  @Test
+  public void create() {
+    createDB();
+    check();
+  }
+
+  /**
+   * Creates all index structures with a small split size.
+   */
+  @Test
+  public void split() {
+    set(MainOptions.SPLITSIZE, 1);
+    createDB();
+    check();
+  }
+
+  /**
+   * Creates updatable index structures and rebuilds them.
+   */
+  @Test
+  public void optimize() {
+    set(MainOptions.UPDINDEX, true);
+    createDB();
+    check();
+    execute(new Optimize());
+    check();
+    execute(new OptimizeAll());
+    check();
+  }
+
+  /**
+   * Creates the test database.
+   */
+  private static void createDB() {
+    execute(new CreateDB(NAME));
+    query("db:replace('" + NAME + "', 'doc.xml', <xml>{ for $i in 1 to " + SIZE +
+        " return <a x='{ $i mod 100 }' y='t{ $i mod 7 } u'>v{ $i mod 50 } w</a> }</xml>)");
+    execute(new Optimize());
+    assertTrue(context.data().meta.size > 2 * 65536);
+  }
+
+  /**
+   * Checks the results of all queries.
+   */
+  private static void check() {
+    final MetaData meta = context.data().meta;
+    assertTrue(meta.textindex && meta.attrindex && meta.tokenindex && meta.ftindex);
+    for(final String[] query : QUERIES) assertEquals(query[0], query[1], query(query[0]));
+  }
+}
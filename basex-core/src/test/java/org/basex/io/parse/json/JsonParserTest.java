@@ -2,7 +2,13 @@ package org.basex.io.parse.json;
 
 import static org.junit.Assert.*;
 
+import java.io.*;
+
+import org.basex.build.json.*;
+import org.basex.build.json.JsonOptions.JsonFormat;
+import org.basex.io.*;
 import org.basex.query.*;
+import org.basex.query.value.array.Array;
 import org.junit.*;
 
 /**
@@ -147,6 +153,24 @@ public final class JsonParserTest {
     error("true123", true);
   }
 
+  /**
+   * Tests the incremental parsing of input streams.
+   * @throws IOException I/O exception
+   */
+  @Test public void input() throws IOException {
+    final JsonParserOptions jopts = new JsonParserOptions();
+    jopts.set(JsonOptions.FORMAT, JsonFormat.MAP);
+    final IOContent io = new IOContent("\uFEFF[ \"a\u00e4\",\r\n { \"b\": [ 1, 2 ] } ]");
+    assertEquals(2, ((Array) JsonConverter.get(jopts).convert(io)).arraySize());
+
+    try {
+      JsonConverter.get(jopts).convert(new IOContent("[ 1,\r\n  x ]"));
+      fail("Should have failed.");
+    } catch(final QueryIOException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("(2:3)"));
+    }
+  }
+
   /**
    * Tests if the given JSON string is rejected by the parser using the given spec.
    * @param json JSON string
@@ -43,7 +43,7 @@ final class JsonStringConverter extends JsonConverter {
     jopts.set(JsonParserOptions.LIBERAL, liberal);
     jopts.set(JsonParserOptions.ESCAPE, escape);
     final TokenBuilder tb = new TokenBuilder();
-    JsonParser.parse(json, null, jopts, new JsonStringConverter(jopts, tb));
+    new JsonStringConverter(jopts, tb).convert(Token.token(json), null);
     return tb.toString();
   }
 
@@ -97,7 +97,7 @@ final class JsonStringConverter extends JsonConverter {
   }
 
   @Override
-  void stringLit(final byte[] value) {
+  protected void stringLit(final byte[] value) {
     tb.add('"');
     final int vl = value.length;
     for(int v = 0; v < vl; v += Token.cl(value, v)) {
@@ -0,0 +1,134 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.io.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link Buffers}.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class BuffersTest extends SandboxTest {
+  /** Buffer manager. */
+  private Buffers bm;
+
+  /**
+   * Initializes a test.
+   */
+  @Before
+  public void before() {
+    // only grant minimum number of buffers
+    BufferPool.budget(0);
+    bm = new Buffers(new IOFile(sandbox(), "test"));
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    bm.close();
+    BufferPool.budget(context.soptions.get(StaticOptions.BUFFERPOOL));
+  }
+
+  /**
+   * Checks if hot pages survive a sequential scan.
+   */
+  @Test
+  public void scan() {
+    for(int i = 0; i < 2; i++) {
+      for(int p = 0; p < 4; p++) request(p);
+    }
+    for(int p = 100; p < 10000; p++) request(p);
+
+    final long hits = bm.hits;
+    for(int p = 0; p < 4; p++) assertFalse(request(p));
+    assertEquals(hits + 4, bm.hits);
+    assertEquals(Buffers.MIN, bm.size());
+  }
+
+  /**
+   * Checks if a new working set replaces the hot pages.
+   */
+  @Test
+  public void workingSet() {
+    for(int r = 0; r < 2; r++) {
+      for(int i = 0; i < 8; i++) {
+        for(int p = 0; p < 12; p++) request(r * 100 + p);
+      }
+      for(int p = 1000; p < 2000; p++) request(p);
+    }
+    final long misses = bm.misses;
+    for(int p = 100; p < 112; p++) request(p);
+    assertEquals(misses, bm.misses);
+  }
+
+  /**
+   * Checks if buffers are granted by the pool.
+   */
+  @Test
+  public void grow() {
+    BufferPool.budget(1);
+    for(int p = 0; p < 1000; p++) request(p);
+    assertTrue(bm.size() > Buffers.MIN);
+    assertTrue(bm.size() <= (1 << 20) >>> IO.BLOCKPOWER);
+  }
+
+  /**
+   * Checks if buffers are returned to the pool if other files are waiting for buffers.
+   */
+  @Test
+  public void rebalance() {
+    BufferPool.budget(1);
+    final int max = (1 << 20) >>> IO.BLOCKPOWER;
+    for(int p = 0; p < 1000; p++) request(p);
+    assertTrue(bm.capacity() > max / 2);
+
+    final Buffers bm2 = new Buffers(new IOFile(sandbox(), "test2"));
+    try {
+      // second file is denied buffers, first file returns its surplus on next miss
+      for(int p = 0; p < 1000; p++) request(bm2, p);
+      for(int p = 1000; p < 1100; p++) request(p);
+      assertTrue(bm.capacity() <= max / 2);
+      for(int p = 1000; p < 2000; p++) request(bm2, p);
+      assertTrue(bm2.capacity() > Buffers.MIN);
+      assertTrue(bm.capacity() + bm2.capacity() <= max);
+
+      // hot pages survive
+      for(int i = 0; i < 2; i++) {
+        for(int p = 0; p < 4; p++) request(p);
+      }
+      final long hits = bm.hits;
+      for(int p = 0; p < 4; p++) assertFalse(request(p));
+      assertEquals(hits + 4, bm.hits);
+    } finally {
+      bm2.close();
+    }
+  }
+
+  /**
+   * Requests a page.
+   * @param p page
+   * @return {@code true} if page was not buffered
+   */
+  private boolean request(final long p) {
+    return request(bm, p);
+  }
+
+  /**
+   * Requests a page from the specified buffer manager.
+   * @param buffers buffer manager
+   * @param p page
+   * @return {@code true} if page was not buffered
+   */
+  private static boolean request(final Buffers buffers, final long p) {
+    final boolean changed = buffers.cursor(p);
+    if(changed) buffers.current().pos = p;
+    return changed;
+  }
+}
@@ -112,4 +112,23 @@ public final class ModuleTest extends SandboxTest {
       assertEquals(qp.value().serialize().toString(), "OK");
     }
   }
+
+  /**
+   * Reuses the sources of imported modules.
+   * @throws Exception exception
+   */
+  @Test
+  public void cache() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "cache.xqm");
+    write(file, "module namespace m='m'; declare function m:f() { 'A' };");
+    final String query = "import module namespace m='m' at '" + file.url() + "'; m:f()";
+    assertEquals("A", query(query));
+    assertEquals("A", query(query));
+    final String info = context.modules.info();
+    assertTrue(info, info.matches(".* [1-9]\\d* hits.*\\s*"));
+
+    // changed files are parsed again
+    write(file, "module namespace m='m'; declare function m:f() { 'BB' };");
+    assertEquals("BB", query(query));
+  }
 }
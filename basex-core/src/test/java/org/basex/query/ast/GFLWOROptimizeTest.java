@@ -298,4 +298,31 @@ public final class GFLWOROptimizeTest extends QueryPlanTest {
         "count(//VarRef) = 1"
     );
   }
+
+  /** Tests the rewriting of for and where clauses to hash joins. */
+  @Test public void join() {
+    final String join = Util.className(Join.class);
+    check("for $a in 1 to 3 for $b in (2, 3, 4, 3) where $a = $b return $a || '-' || $b",
+        "2-2\n3-3\n3-3",
+        "exists(//" + join + ')', "empty(//" + Util.className(Where.class) + ')');
+    check("let $c := (<c id='1'/>, <c id='2'/>, <c id='1'/>) "
+        + "for $o in ('1', '3', '1') for $c in $c where $o = $c/@id return $c",
+        "<c id=\"1\"/>\n<c id=\"1\"/>\n<c id=\"1\"/>\n<c id=\"1\"/>",
+        "exists(//" + join + ')');
+    // keys are compared as string and as number
+    check("for $a in ('1', '2') for $b in (1, 2) where $a = string($b) return $b",
+        "1\n2",
+        "exists(//" + join + ')');
+    // NaN keys never match
+    check("for $a in (1e0, xs:double('NaN')) for $b in (xs:double('NaN'), 1e0) where $a = $b "
+        + "return $b", "1", "exists(//" + join + ')');
+    // bound expression depends on the incoming tuples
+    check("for $a in 1 to 3 for $b in $a to 3 where $a = $b return $b",
+        "1\n2\n3",
+        "empty(//" + join + ')');
+    // no outer loop
+    check("let $a := 2 for $b in 1 to 3 where $a = $b return $b",
+        "2",
+        "empty(//" + join + ')');
+  }
 }
@@ -202,4 +202,32 @@ public final class RewritingsTest extends QueryPlanTest {
   public void nonDeterministic() {
     check("count((# basex:non-deterministic #) { <x/> })", "1", "exists(//FnCount)");
   }
+
+  /**
+   * Checks the hashed evaluation of general comparisons.
+   */
+  @Test
+  public void hashComparison() {
+    // variant operands
+    query("let $a := (1 to 100) ! string() return $a = reverse($a) ! (. || 'x')", "false");
+    query("let $a := (1 to 100) ! string() return $a = (reverse($a), '1')", "true");
+    query("for $i in 1 to 3 return (1 to 10) ! string() = (1 to 10) ! string(. * $i + 8)",
+        "true\ntrue\nfalse");
+    query("for $i in 1 to 10 return (1 to 10) = (1 to 10) ! (. * $i + 0.5)",
+        "false\nfalse\nfalse\nfalse\nfalse\nfalse\nfalse\nfalse\nfalse\nfalse");
+
+    // invariant operands
+    query("count(for $i in (1 to 100) ! string() return $i = (20 to 40) ! string())", "100");
+    query("count((for $i in (1 to 100) ! string() return $i = (20 to 40) ! string())[.])", "21");
+    query("declare variable $v := (1 to 20) ! (. * 2.0e0); "
+        + "sum(for $i in 1 to 10 return $i[(1 to 10) ! (. * $i) = $v])", "55");
+
+    // numbers and untyped items
+    query("(1 to 10) ! xs:double(.) = (10 to 20) ! xs:decimal(.)", "true");
+    query("(1 to 10) ! xs:double(-.) = (-0e0, 1 to 10) ! xs:decimal(.)", "false");
+    query("(0e0, 1 to 10) ! xs:double(-.) = (-0e0, (20 to 30) ! xs:double(.))", "true");
+    query("(xs:double('NaN'), 1 to 10) ! xs:double(.) = (xs:double('NaN'), 20 to 30)", "false");
+    query("(1 to 10) ! <x>{ . }</x> = (10 to 20) ! string()", "true");
+    query("(1 to 10) ! <x>{ . }</x> = (11 to 20) ! <x>{ . }</x>/text()", "false");
+  }
 }
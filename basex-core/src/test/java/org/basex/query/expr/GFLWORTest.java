@@ -2,8 +2,12 @@ package org.basex.query.expr;
 
 import static org.junit.Assert.*;
 
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
 import org.basex.query.*;
 import org.junit.*;
+import org.junit.Test;
 
 /**
  * Test cases for FLWOR expressions.
@@ -30,4 +34,93 @@ public final class GFLWORTest extends AdvancedQueryTest {
   public void posOptimizationTest() {
     assertEquals("<a/>", query("for $a at $p in (<a/>,<b/>)/. where $p < 2 return $a"));
   }
+
+  /** Only sorts the tuples that will be requested. */
+  @Test
+  public void topKTest() {
+    query("(for $i in 1 to 1000 order by $i mod 7 descending return $i)[position() <= 3]",
+        "6\n13\n20");
+    query("(for $i in 1 to 1000 order by $i mod 7 return $i)[3]", 21);
+    query("head(for $i in 1 to 1000 order by $i mod 7, -$i return $i)", 994);
+    query("subsequence(for $i in 1 to 1000 order by $i mod 7 return $i, 2, 3)", "14\n21\n28");
+    query("(for $i in (1, (), 3)[. > 0] order by $i[. = 3] empty greatest return $i)[1]", 3);
+    query("(for $i in 1 to 10 order by $i mod 2 return $i[. > 4])[position() <= 2]", "6\n8");
+    query("(for $i in 1 to 10 order by $i mod 2 where $i > 4 return $i)[position() <= 2]",
+        "6\n8");
+    query("(for $i in 1 to 10 order by $i mod 2 count $c return $c)[position() <= 2]", "1\n2");
+    try {
+      set(MainOptions.SPILLSIZE, 2);
+      query("(for $i in 1 to 1000 order by $i mod 7 return $i)[position() <= 3]", "7\n14\n21");
+    } finally {
+      set(MainOptions.SPILLSIZE, 0);
+    }
+  }
+
+  /** Evaluates for clauses in parallel. */
+  @Test
+  public void parallelTest() {
+    execute(new CreateDB(NAME, "<x>" + "<a>1</a><a>2</a><a/>" + "</x>"));
+    final String[] flwors = {
+      "for $i in 1 to 1000 return $i * 2",
+      "for $i in 1 to 100 let $j := $i mod 7 where $j = 3 return <a>{ $i }</a>",
+      "for $i in 1 to 100 for $j in 1 to $i mod 5 return $i || ':' || $j",
+      "for $a in (1 to 100) ! db:open('" + NAME + "')//a return string($a)",
+      "for $i in reverse(1 to 50) return subsequence(1 to $i, 1, 3)",
+    };
+    try {
+      for(final String flwor : flwors) {
+        final String query = "let $x := 1 return (# basex:parallel #) { " + flwor + " }";
+        assertEquals(query, query(flwor), query(query));
+      }
+      error("(# basex:parallel #) { for $i in 1 to 100 return xs:integer('x' || $i) }",
+          QueryError.FUNCAST_X_X);
+    } finally {
+      execute(new DropDB(NAME));
+    }
+  }
+
+  /** Writes tuples of order by and group by clauses to disk. */
+  @Test
+  public void spillTest() {
+    execute(new CreateDB(NAME, "<x>" + "<a>1</a><a>2</a><a/>" + "</x>"));
+    final String[] queries = {
+      "for $i in 1 to 1000 order by $i mod 10 descending return $i",
+      "for $i in 1 to 1000 let $k := if($i mod 3) then string($i mod 20) else () " +
+      "order by $k empty greatest, $i descending return $i",
+      "for $i in 1 to 100 let $k := $i div 7 order by $k return ($i, $k)",
+      "for $a in (1 to 100) ! db:open('" + NAME + "')//a order by string($a) return $a",
+      "for $i in 1 to 100 order by $i mod 3 return <a>{ $i }</a>",
+      "for $i in 1 to 100 order by xs:date('2001-01-01') + xs:dayTimeDuration('P' || " +
+      "$i mod 9 || 'D') return $i",
+      "for $i in 1 to 1000 group by $k := $i mod 7 order by $k return $k || ':' || sum($i)",
+      "for $i in 1 to 1000 group by $k := string($i mod 7) order by $k return ($k, $i)",
+      "for $i in 1 to 1000 let $m := ('A', 'a', (), 'B')[$i mod 4 + 1] " +
+      "group by $k := $m collation '?lang=en;strength=primary' order by count($i) " +
+      "return count($i)",
+      "for $a in (1 to 100) ! db:open('" + NAME + "')//a group by $k := string($a) " +
+      "order by $k return $k || ':' || count($a)",
+      "for $i in 1 to 100 let $v := if($i > 50) then <a>{ $i }</a> else $i " +
+      "group by $k := $i mod 3 order by $k return ($k, $v)",
+      "for $i in 1 to 100 for $a in db:open('" + NAME + "')//a where $a = string($i mod 3) " +
+      "return $i || ':' || $a",
+      "for $i in 1 to 100 for $j in (1 to 50, 25 to 75, true()) ! xs:integer(.) " +
+      "where $j = $i return $i || ':' || $j",
+    };
+    final String[] expected = new String[queries.length];
+    final int ql = queries.length;
+    for(int q = 0; q < ql; q++) expected[q] = query(queries[q]);
+    try {
+      for(final int size : new int[] { 1, 7, 100 }) {
+        set(MainOptions.SPILLSIZE, size);
+        for(int q = 0; q < ql; q++) assertEquals(queries[q], expected[q], query(queries[q]));
+      }
+    } finally {
+      set(MainOptions.SPILLSIZE, 0);
+      execute(new DropDB(NAME));
+    }
+    // temporary files must have been deleted
+    for(final IOFile file : context.soptions.dbPath().children()) {
+      assertFalse(file.name(), file.name().endsWith(IO.TMPSUFFIX));
+    }
+  }
 }
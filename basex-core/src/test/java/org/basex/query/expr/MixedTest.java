@@ -2,7 +2,9 @@ package org.basex.query.expr;
 
 import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
 
+import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.query.*;
 import org.junit.*;
@@ -106,4 +108,62 @@ public final class MixedTest extends AdvancedQueryTest {
     execute(new CreateDB(NAME, "<x/>"));
     query("declare function local:a($a) { contains($a, 'a') }; //x[local:a(.)]", "");
   }
+
+  /** Skips whitespaces and comments. */
+  @Test
+  public void whitespaces() {
+    query("1 (: a :) + (: b :) 2", 3);
+    query("for (: a :) $i (: b :) in 1 to 2 (: c :) return $i", "1\n2");
+    query("declare (: a :) function (: b :) local:f() { 1 }; local:f()", 1);
+    query("(:~ a :) declare variable $a := 1; $a", 1);
+    query("<a> { 1 } </a> ! (: a :) string()", 1);
+    // documentation comments must not get lost
+    query("count(" + _INSPECT_MODULE.args(XQMFILE) + "//description)", 10);
+    query(_INSPECT_MODULE.args(XQMFILE) + "/function[1]/description/string()",
+        "External function.");
+  }
+
+  /** Looks up atomic types. */
+  @Test
+  public void atomicTypes() {
+    query("xs:integer('1') instance of xs:decimal", true);
+    query("'1' cast as xs:untypedAtomic instance of xs:untypedAtomic", true);
+    query("'1' castable as xs:byte", true);
+    error("xs:anyAtomicType('1')", WHICHFUNC_X);
+    error("Q{urn:x}integer('1')", FUNCSIMILAR_X_X);
+    error("'1' cast as xs:NOTATION", CASTUNKNOWN_X);
+    error("'1' cast as xs:unknown", TYPE30_X);
+  }
+
+  /** Stores large constructed nodes in main-memory tables. */
+  @Test
+  public void compactSize() {
+    final String[] queries = {
+      "let $r := <r a='1'>{ for $i in 1 to 100 return <x id='{ $i }'>{ $i }<y/></x> }</r> " +
+      "return ($r//y)[50]/../@id/string()",
+      "let $r := <r>{ for $i in 1 to 100 return <x>{ $i }</x> }</r> return $r/x[1] << $r/x[2]",
+      "let $r := <r>{ (1 to 100) ! <x/> }</r> return (root($r/x[10]) is $r, $r/x[1] is $r/x[1])",
+      "count(document { (1 to 100) ! <x>{ . }</x> }//node())",
+      "<r>{ (1 to 100) ! <x>{ . }</x>, 'text' }</r> => serialize()",
+      "let $r := <r>{ <s a='1'>{ (1 to 100) ! <x/> }</s> }</r> return ($r//x)[1]/../.. is $r",
+      "<r xmlns:p='p'>{ attribute p:a { 1 }, namespace q { 'q' }, (1 to 100) ! <p:x/> }</r>",
+    };
+    final int ql = queries.length;
+    final String[] expected = new String[ql];
+    for(int q = 0; q < ql; q++) expected[q] = query(queries[q]);
+    try {
+      for(final int size : new int[] { 1, 50, 1000 }) {
+        set(MainOptions.COMPACTSIZE, size);
+        for(int q = 0; q < ql; q++) assertEquals(queries[q], expected[q], query(queries[q]));
+      }
+      set(MainOptions.COMPACTSIZE, 100);
+      query(_DB_NODE_PRE.args("<r>{ (1 to 100) ! <x/> }</r>"), 0);
+      // only the outermost constructor creates a table
+      query(_DB_NODE_PRE.args("<r>{ <s>{ (1 to 100) ! <x/> }</s> }</r>/s"), 1);
+      error("<r>{ (1 to 100) ! <x/>, attribute a { 1 } }</r>", NOATTALL_X);
+      error("document { (1 to 100) ! <x/>, attribute a { 1 } }", DOCATTS_X);
+    } finally {
+      set(MainOptions.COMPACTSIZE, 0);
+    }
+  }
 }
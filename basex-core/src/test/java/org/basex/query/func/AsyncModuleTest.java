@@ -6,6 +6,7 @@ import static org.junit.Assert.*;
 
 import java.io.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.junit.*;
 
@@ -33,6 +34,11 @@ public final class AsyncModuleTest extends AdvancedQueryTest {
     error(_ASYNC_FORK_JOIN.args(" count#1"), ZEROFUNCS_X_X);
     error(_ASYNC_FORK_JOIN.args(" 123"), ZEROFUNCS_X_X);
     error(_ASYNC_FORK_JOIN.args(" error#0"), FUNERR1);
+
+    // invocations are included in the latency statistics
+    final String info = context.queries.info();
+    assertTrue(info, info.matches("(?s).*" + Text.FORK_JOIN_TASKS +
+        ": [^\\n]* [1-9]\\d* finished.*"));
   }
 
   /** Test method. */
@@ -97,6 +103,19 @@ public final class AsyncModuleTest extends AdvancedQueryTest {
     }
   }
 
+  /** Test method. */
+  @Test
+  public void limit() {
+    context.soptions.set(StaticOptions.ASYNCLIMIT, 1);
+    try {
+      final String id = query(_ASYNC_EVAL.args("\"(1 to 100000000000)[.=0]\""));
+      error(_ASYNC_EVAL.args("1"), ASYNC_LIMIT_X);
+      query(_ASYNC_STOP.args(id));
+    } finally {
+      context.soptions.set(StaticOptions.ASYNCLIMIT, 0);
+    }
+  }
+
   /** Test method. */
   @Test
   public void result() {
@@ -228,6 +228,31 @@ public final class FileModuleTest extends AdvancedQueryTest {
     query(_FILE_DELETE.args(PATH1));
   }
 
+  /** Test method. */
+  @Test
+  public void readTextLines() {
+    error(_FILE_READ_TEXT_LINES.args(PATH1), FILE_NOT_FOUND_X);
+    error(_FILE_READ_TEXT_LINES.args(PATH), FILE_IS_DIR_X);
+    query(_FILE_WRITE_TEXT_LINES.args(PATH1, "('a','b','c')"));
+    query(_FILE_READ_TEXT_LINES.args(PATH1), "a\nb\nc");
+    query(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", 1), "b\nc");
+    query(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", 1, 1), "b");
+    query(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", 3), "");
+    query(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", 0, 0), "");
+    query(_FILE_READ_TEXT_LINES.args(PATH1) + "[. = 'b']", "b");
+    query("head(" + _FILE_READ_TEXT_LINES.args(PATH1) + ')', "a");
+    error(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", -1), FILE_LINE_OFFSET_X);
+    error(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", -1, 1), FILE_LINE_OFFSET_X);
+    error(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", 4), FILE_LINE_OFFSET_X);
+    error(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", 4, 0), FILE_LINE_OFFSET_X);
+    error(_FILE_READ_TEXT_LINES.args(PATH1, "UTF-8", 0, -1), FILE_LINE_LENGTH_X);
+    error(_FILE_READ_TEXT_LINES.args(PATH1, "UNKNOWN"), FILE_UNKNOWN_ENCODING_X);
+    query(_FILE_WRITE_BINARY.args(PATH1, "xs:hexBinary('610A00')"));
+    query("head(" + _FILE_READ_TEXT_LINES.args(PATH1) + ')', "a");
+    error(_FILE_READ_TEXT_LINES.args(PATH1), FILE_IO_ERROR_X);
+    query(_FILE_DELETE.args(PATH1));
+  }
+
   /** Test method. */
   @Test
   public void readBinary() {
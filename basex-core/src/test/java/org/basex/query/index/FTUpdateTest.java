@@ -0,0 +1,128 @@
+package org.basex.query.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.index.ft.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.ft.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the updatable full-text index.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class FTUpdateTest extends QueryPlanTest {
+  /** Check for full-text index access. */
+  private static final String FT = "exists(//" + Util.className(FTIndexAccess.class) + ')';
+
+  /**
+   * Creates the test database.
+   */
+  @Before
+  public void before() {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, "<xml><a>first text</a><a>second text</a><b>third</b></xml>"));
+    assertTrue(context.data().ftIndex instanceof UpdatableFTIndex);
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.FTINCLUDE, "");
+  }
+
+  /**
+   * Inserts, replaces and deletes texts.
+   */
+  @Test
+  public void update() {
+    query("insert node <a>fourth text</a> into /xml");
+    check("count(//a[text() contains text 'text'])", "3", FT);
+    check("//a[text() contains text 'fourth']/text()", "fourth text", FT);
+
+    query("replace value of node //a[1] with 'new value'");
+    check("count(//a[text() contains text 'text'])", "2", FT);
+    check("count(//a[text() contains text 'first'])", "0", FT);
+    check("//a[text() contains text 'new']/text()", "new value", FT);
+
+    query("delete node //a[text() contains text 'second']");
+    check("count(//a[text() contains text 'text'])", "1", FT);
+    check("//*[text() contains text 'third']/name()", "b", FT);
+
+    // pre values of the index entries must be adjusted
+    query("insert node <c>text</c> as first into /xml");
+    check("//*[text() contains text 'third']/name()", "b", FT);
+    check("//*[text() contains text 'text']/name()", "c\na", FT);
+    check("count(" + _FT_SEARCH.args(NAME, "value") + ')', "1");
+    assertTrue(context.data().meta.ftindex);
+  }
+
+  /**
+   * Wildcard and fuzzy queries, index entries.
+   */
+  @Test
+  public void options() {
+    query("insert node <a>texture</a> into /xml");
+    query("delete node //a[1]");
+    check("count(//a[text() contains text 'tex.*' using wildcards])", "2", FT);
+    check("count(//a[text() contains text 'thirt' using fuzzy])", "0", FT);
+    check("count(//*[text() contains text 'thirt' using fuzzy])", "1", FT);
+    check("count(//*[text() contains text 'texturr' using fuzzy])", "1", FT);
+    query(_FT_TOKENS.args(NAME, "t") + "/string()", "text\nthird\ntexture");
+    query(_FT_TOKENS.args(NAME, "text") + "[. = 'text']/@count/string()", "1");
+    query(_FT_TOKENS.args(NAME) + "[. = 'first']", "");
+  }
+
+  /**
+   * Renames elements that are included in the index.
+   */
+  @Test
+  public void include() {
+    set(MainOptions.FTINCLUDE, "a");
+    before();
+    check("count(//a[text() contains text 'third'])", "0");
+    query("rename node //b as 'a'");
+    check("count(//a[text() contains text 'third'])", "1", FT);
+    query("rename node //a[1] as 'b'");
+    check("count(//a[text() contains text 'first'])", "0", FT);
+    check("count(//a[text() contains text 'text'])", "1", FT);
+  }
+
+  /**
+   * Persists and merges updates.
+   */
+  @Test
+  public void optimize() {
+    query("insert node <a>fourth text</a> into /xml");
+    query("delete node //a[1]");
+    execute(new Close());
+    execute(new Open(NAME));
+    final UpdatableFTIndex index = (UpdatableFTIndex) context.data().ftIndex;
+    assertTrue(index.updated());
+    check("count(//a[text() contains text 'text'])", "2", FT);
+
+    execute(new Optimize());
+    assertFalse(((UpdatableFTIndex) context.data().ftIndex).updated());
+    check("count(//a[text() contains text 'text'])", "2", FT);
+    check("count(//a[text() contains text 'first'])", "0");
+    check("//a[text() contains text 'fourth']/text()", "fourth text", FT);
+    query(_FT_TOKENS.args(NAME) + "/string()", "text\nthird\nfourth\nsecond");
+
+    query("replace value of node //b with 'third text'");
+    execute(new Optimize());
+    check("count(//*[text() contains text 'text'])", "3", FT);
+  }
+}
@@ -0,0 +1,116 @@
+package org.basex.query.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.index.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests if numeric range queries are correctly evaluated with the index.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericRangeTest extends QueryPlanTest {
+  /** Check for range index access. */
+  private static final String RANGE = "exists(//" + Util.className(RangeAccess.class) + ')';
+
+  /**
+   * Creates the test database.
+   */
+  @Before
+  public void before() {
+    final TokenBuilder tb = new TokenBuilder("<xml>");
+    for(int i = 1; i <= 1000; i++) {
+      tb.add("<n>").addInt(i % 2 == 0 ? -i : i).add("</n>");
+      tb.add("<d p='").addExt(i / 4d).add("'/>");
+    }
+    execute(new CreateDB(NAME, tb.add("</xml>").toString()));
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /**
+   * Ranges with inclusive and exclusive bounds.
+   */
+  @Test
+  public void bounds() {
+    check("count(//n[text() >= 10 and text() <= 100])", "45", RANGE);
+    check("count(//n[text() > 9 and text() < 101])", "45", RANGE);
+    check("count(//n[text() > -100 and text() < 100])", "99", RANGE);
+    check("count(//d[@p > 10.5 and @p <= 12])", "6", RANGE);
+    check("count(//d[@p >= 0.3 and @p < 0.6])", "1", RANGE);
+  }
+
+  /**
+   * Ranges on updated databases.
+   */
+  @Test
+  public void update() {
+    set(MainOptions.UPDINDEX, true);
+    before();
+    query("insert node <n>1.5</n> into /xml");
+    query("delete node //n[text() = 3]");
+    query("replace value of node //d[@p = 11]/@p with '11.25'");
+    // refresh statistics (the index structures remain unchanged)
+    execute(new Optimize());
+    check("count(//n[text() > 0 and text() < 10])", "5", RANGE);
+    check("count(//d[@p >= 10.5 and @p <= 12])", "7", RANGE);
+    check("count(//d[@p > 10.9 and @p < 11.1])", "0");
+    check("count(//n[text() >= 1.5 and text() < 2])", "1", RANGE);
+    execute(new Close());
+    execute(new Open(NAME));
+    check("count(//n[text() > 0 and text() < 10])", "5", RANGE);
+  }
+
+  /**
+   * Exact costs of ranges, computed from the numbers of ids stored with the numeric keys.
+   */
+  @Test
+  public void costs() {
+    assertEquals(45, costs(IndexType.TEXT, 10, 100));
+    assertEquals(0, costs(IndexType.TEXT, 2000, 3000));
+    assertEquals(1000, costs(IndexType.TEXT, -1000, 1000));
+    assertEquals(8, costs(IndexType.ATTRIBUTE, 10.5, 12.25));
+
+    set(MainOptions.UPDINDEX, true);
+    before();
+    // new ids of existing and new keys
+    query("insert node (<n>11</n>, <n>11</n>, <n>11.5</n>) into /xml");
+    assertEquals(48, costs(IndexType.TEXT, 10, 100));
+    // deleted ids of existing keys, deleted keys
+    query("delete node (//n[text() = 11][1], //n[text() = 13])");
+    assertEquals(46, costs(IndexType.TEXT, 10, 100));
+    assertEquals(2, costs(IndexType.TEXT, 11, 11));
+    query("replace value of node //d[@p = 11]/@p with '1000'");
+    assertEquals(7, costs(IndexType.ATTRIBUTE, 10.5, 12.25));
+    assertEquals(1, costs(IndexType.ATTRIBUTE, 1000, 1000));
+  }
+
+  /**
+   * Returns the costs for a numeric range.
+   * @param type index type
+   * @param min minimum value
+   * @param max maximum value
+   * @return costs
+   */
+  private static int costs(final IndexType type, final double min, final double max) {
+    final Data data = context.data();
+    return data.index(type).costs(new NumericRange(type, min, max));
+  }
+}
@@ -0,0 +1,100 @@
+package org.basex.query.util;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for sorting tuples by their keys.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class KeySorterTest extends SandboxTest {
+  /** Number of tuples (large enough to sort them in parallel). */
+  private static final int SIZE = 200000;
+
+  /**
+   * Sorts integers, doubles and strings in parallel, and compares the results with
+   * a sequential sort of the boxed positions.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void parallel() throws QueryException {
+    final Random rnd = new Random(0);
+    final Item[] itr = new Item[SIZE], dbl = new Item[SIZE], str = new Item[SIZE];
+    for(int i = 0; i < SIZE; i++) {
+      final int r = rnd.nextInt(1000);
+      itr[i] = r == 0 ? null : Int.get(r);
+      dbl[i] = r == 1 ? Dbl.NAN : Dbl.get(r / 7d);
+      str[i] = Str.get("s" + r % 100);
+    }
+    for(final Item[] items : new Item[][] { itr, dbl, str }) {
+      for(final boolean desc : new boolean[] { false, true }) {
+        for(final boolean least : new boolean[] { false, true }) {
+          check(items, desc, least);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sorts tuples with several keys.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void columns() throws QueryException {
+    final Item[] first = new Item[SIZE], second = new Item[SIZE];
+    for(int i = 0; i < SIZE; i++) {
+      first[i] = Int.get(i % 3);
+      second[i] = Str.get(Integer.toString(SIZE - i));
+    }
+    final int[] order = KeySorter.sort(SIZE, context.queries, 4,
+        KeySorter.column(first, SIZE, true, true, true, null, null, null),
+        KeySorter.column(second, SIZE, false, true, true, null, null, null));
+    for(int o = 1; o < SIZE; o++) {
+      final int a = order[o - 1], b = order[o];
+      final int c = Integer.compare(b % 3, a % 3);
+      assertTrue(c < 0 || c == 0 && second[a].diff(second[b], null, null) < 0);
+    }
+  }
+
+  /**
+   * Checks the order of the specified keys.
+   * @param items keys
+   * @param desc descending order
+   * @param least empty keys are sorted first
+   * @throws QueryException query exception
+   */
+  private static void check(final Item[] items, final boolean desc, final boolean least)
+      throws QueryException {
+
+    final Integer[] expected = new Integer[SIZE];
+    for(int i = 0; i < SIZE; i++) expected[i] = i;
+    Arrays.sort(expected, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer a, final Integer b) {
+        try {
+          Item m = items[a], n = items[b];
+          if(m == Dbl.NAN) m = null;
+          if(n == Dbl.NAN) n = null;
+          final int c = m == null ? n == null ? 0 : least ? -1 : 1 :
+            n == null ? least ? 1 : -1 : m.diff(n, null, null);
+          return desc ? -c : c;
+        } catch(final QueryException ex) {
+          throw new QueryRTException(ex);
+        }
+      }
+    });
+
+    final int[] order = KeySorter.sort(SIZE, context.queries, 4,
+        KeySorter.column(items, SIZE, desc, least, true, null, null, null));
+    for(int i = 0; i < SIZE; i++) assertEquals(expected[i].intValue(), order[i]);
+  }
+}
@@ -0,0 +1,99 @@
+package org.basex.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.server.Log.LogType;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the log writer.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class LogTest extends SandboxTest {
+  /** Number of entries. */
+  private static final int ENTRIES = 10000;
+
+  /**
+   * Finalizes a test.
+   */
+  @After
+  public void after() {
+    context.soptions.set(StaticOptions.LOGBUFFER, StaticOptions.LOGBUFFER.value());
+    new IOFile(context.log.dir(), Log.name(new Date()) + IO.LOGSUFFIX).delete();
+  }
+
+  /**
+   * Writes entries synchronously.
+   */
+  @Test
+  public void sync() {
+    context.soptions.set(StaticOptions.LOGBUFFER, 0);
+    write();
+  }
+
+  /**
+   * Writes buffered entries.
+   */
+  @Test
+  public void buffered() {
+    write();
+  }
+
+  /**
+   * Drops entries if the buffer is full.
+   */
+  @Test
+  public void dropped() {
+    context.soptions.set(StaticOptions.LOGBUFFER, 1);
+    final Log log = new Log(context.soptions);
+    for(int e = 0; e < ENTRIES; e++) log.write("address", null, LogType.INFO, "entry", null);
+    log.close();
+
+    final String[] lines = lines(log);
+    final long dropped = log.dropped();
+    int written = 0;
+    for(final String line : lines) {
+      if(line.endsWith("entry")) written++;
+    }
+    assertEquals(ENTRIES, written + dropped);
+    if(dropped > 0) assertTrue(lines[lines.length - 1].contains("dropped"));
+  }
+
+  /**
+   * Writes entries and checks the log file.
+   */
+  private static void write() {
+    final Log log = new Log(context.soptions);
+    for(int e = 0; e < ENTRIES; e++) log.write("address", null, LogType.INFO, "entry" + e, null);
+    log.flush();
+    final String[] lines = lines(log);
+    assertEquals(ENTRIES, lines.length);
+    assertTrue(lines[ENTRIES - 1].endsWith("entry" + (ENTRIES - 1)));
+    log.close();
+    assertEquals(0, log.dropped());
+  }
+
+  /**
+   * Returns the lines of the current log file.
+   * @param log log
+   * @return lines
+   */
+  private static String[] lines(final Log log) {
+    final IOFile file = new IOFile(log.dir(), Log.name(new Date()) + IO.LOGSUFFIX);
+    try {
+      return Token.string(file.read()).split(Prop.NL);
+    } catch(final IOException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+}
@@ -0,0 +1,279 @@
+package org.basex.server;
+
+import static org.basex.core.Text.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+
+import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.users.*;
+import org.basex.io.out.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the framing of the client/server protocol: requests may be split across
+ * arbitrary network packets, and idle sessions must not block the worker threads.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class ServerProtocolTest extends SandboxTest {
+  /** Number of worker threads. */
+  private static final int THREADS = 2;
+  /** Server reference. */
+  private static BaseXServer server;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void start() throws IOException {
+    Prop.put(StaticOptions.SERVERTHREADS, Integer.toString(THREADS));
+    server = createServer();
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    stopServer(server);
+    Prop.remove(StaticOptions.SERVERTHREADS);
+  }
+
+  /**
+   * Sends the login data and a command byte by byte.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void fragments() throws IOException {
+    try(final Socket socket = new Socket(S_LOCALHOST, DB_PORT)) {
+      socket.setTcpNoDelay(true);
+      login(socket, 1);
+      send(socket, string("xquery 1 + 2"), 1);
+      assertEquals("3", result(socket));
+    }
+  }
+
+  /**
+   * Sends the input of a streamed command in fragments. The worker thread needs to wait for
+   * the outstanding bytes.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void stream() throws IOException {
+    try(final ClientSession cs = createClient()) {
+      cs.execute(new CreateDB(NAME));
+    }
+    try(final Socket socket = new Socket(S_LOCALHOST, DB_PORT)) {
+      socket.setTcpNoDelay(true);
+      login(socket, 0);
+      send(socket, string("open " + NAME), 0);
+      result(socket);
+
+      final ArrayOutput ao = new ArrayOutput();
+      ao.write(ServerCmd.ADD.code);
+      ao.write(string("doc.xml"));
+      final ServerOutput so = new ServerOutput(ao);
+      final StringBuilder sb = new StringBuilder("<x>");
+      for(int i = 0; i < 1000; i++) sb.append("<y>").append(i).append("</y>");
+      so.write(Token.token(sb.append("</x>").toString()));
+      ao.write(0);
+      send(socket, ao.finish(), 512);
+      info(socket);
+
+      send(socket, string("xquery count(//y)"), 0);
+      assertEquals("1000", result(socket));
+
+      send(socket, string("drop db " + NAME), 0);
+      result(socket);
+    }
+  }
+
+  /**
+   * Checks that sessions with incomplete requests do not block the worker threads.
+   * @throws Exception exception
+   */
+  @Test
+  public void incomplete() throws Exception {
+    final int sessions = THREADS * 4;
+    final Socket[] sockets = new Socket[sessions];
+    try {
+      for(int s = 0; s < sessions; s++) {
+        sockets[s] = new Socket(S_LOCALHOST, DB_PORT);
+        login(sockets[s], 0);
+        // send incomplete command
+        send(sockets[s], Token.token("xquery " + s), 0);
+      }
+      // other sessions are still served
+      try(final ClientSession cs = createClient()) {
+        assertEquals("1", cs.query("1").execute());
+      }
+      // complete requests
+      for(int s = 0; s < sessions; s++) {
+        send(sockets[s], new byte[] { 0 }, 0);
+        assertEquals(Integer.toString(s), result(sockets[s]));
+      }
+    } finally {
+      for(final Socket socket : sockets) {
+        if(socket != null) socket.close();
+      }
+    }
+  }
+
+  /**
+   * Checks that delayed responses to failed logins do not block the worker threads.
+   * @throws Exception exception
+   */
+  @Test
+  public void denied() throws Exception {
+    // delays of failed logins from the same address are doubled
+    final int sessions = THREADS * 3;
+    final Socket[] sockets = new Socket[sessions];
+    try {
+      for(int s = 0; s < sessions; s++) {
+        sockets[s] = new Socket(S_LOCALHOST, DB_PORT);
+        string(sockets[s].getInputStream());
+        final ByteList bl = new ByteList().add(string(UserText.ADMIN)).add(string("wrong"));
+        send(sockets[s], bl.finish(), 0);
+      }
+      // other sessions are still served
+      final long start = System.currentTimeMillis();
+      try(final ClientSession cs = createClient()) {
+        assertEquals("1", cs.query("1").execute());
+      }
+      final long time = System.currentTimeMillis() - start;
+      assertTrue(time + " ms", time < 2000);
+
+      // access is denied after the delay
+      for(final Socket socket : sockets) {
+        assertEquals(1, socket.getInputStream().read());
+        assertEquals(-1, socket.getInputStream().read());
+      }
+    } finally {
+      for(final Socket socket : sockets) {
+        if(socket != null) socket.close();
+      }
+    }
+  }
+
+  /**
+   * Kills a session with a running command. The killing command must not wait until the
+   * command has been stopped.
+   * @throws Exception exception
+   */
+  @Test
+  public void kill() throws Exception {
+    final ClientSession running = createClient();
+    final ExecutorService es = Executors.newSingleThreadExecutor();
+    final Future<?> future = es.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        running.execute("xquery (1 to 100000000000)[. = 0]");
+        return null;
+      }
+    });
+    es.shutdown();
+    // wait until the query is running
+    Performance.sleep(500);
+
+    try(final ClientSession cs = createClient()) {
+      cs.execute("kill " + UserText.ADMIN);
+    }
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail("Session was not killed.");
+    } catch(final ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IOException);
+    } finally {
+      running.close();
+    }
+  }
+
+  /**
+   * Logs in the admin user.
+   * @param socket socket
+   * @param chunk size of the chunks in which the bytes are sent (0: send all bytes at once)
+   * @throws IOException I/O exception
+   */
+  private static void login(final Socket socket, final int chunk) throws IOException {
+    final String[] response = Strings.split(string(socket.getInputStream()), ':');
+    final String code = Strings.md5(UserText.ADMIN + ':' + response[0] + ':' + UserText.ADMIN);
+    final ByteList bl = new ByteList().add(string(UserText.ADMIN));
+    bl.add(string(Strings.md5(code + response[1])));
+    send(socket, bl.finish(), chunk);
+    assertEquals(0, socket.getInputStream().read());
+  }
+
+  /**
+   * Sends bytes to the server.
+   * @param socket socket
+   * @param bytes bytes to be sent
+   * @param chunk size of the chunks in which the bytes are sent (0: send all bytes at once)
+   * @throws IOException I/O exception
+   */
+  private static void send(final Socket socket, final byte[] bytes, final int chunk)
+      throws IOException {
+    final OutputStream os = socket.getOutputStream();
+    final int bl = bytes.length, cl = chunk == 0 ? bl : chunk;
+    for(int b = 0; b < bl; b += cl) {
+      os.write(bytes, b, Math.min(cl, bl - b));
+      os.flush();
+      if(chunk != 0) Performance.sleep(1);
+    }
+  }
+
+  /**
+   * Receives the result of a command and checks that the command was successful.
+   * @param socket socket
+   * @return result
+   * @throws IOException I/O exception
+   */
+  private static String result(final Socket socket) throws IOException {
+    final String result = string(socket.getInputStream());
+    info(socket);
+    return result;
+  }
+
+  /**
+   * Receives the info string of a command and checks that the command was successful.
+   * @param socket socket
+   * @throws IOException I/O exception
+   */
+  private static void info(final Socket socket) throws IOException {
+    final InputStream is = socket.getInputStream();
+    final String info = string(is);
+    assertEquals(info, 0, is.read());
+  }
+
+  /**
+   * Returns the bytes of a string, suffixed by a {@code 0} byte.
+   * @param string string
+   * @return bytes
+   */
+  private static byte[] string(final String string) {
+    return new ByteList().add(Token.token(string)).add(0).finish();
+  }
+
+  /**
+   * Reads a string, suffixed by a {@code 0} byte.
+   * @param is input stream
+   * @return string
+   * @throws IOException I/O exception
+   */
+  private static String string(final InputStream is) throws IOException {
+    final ByteList bl = new ByteList();
+    for(int b; (b = is.read()) > 0;) bl.add(b);
+    return bl.toString();
+  }
+}